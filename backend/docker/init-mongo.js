@@ -17,6 +17,11 @@ db.createUser({
 db.createCollection("produtos");
 db.produtos.createIndex({ codigoBarras: 1 }, { unique: true });
 db.produtos.createIndex({ nome: "text" });
+// Índices da listagem paginada (filtro por igualdade + ordenação padrão por nome)
+db.produtos.createIndex({ nome: 1, codigoBarras: 1 });
+db.produtos.createIndex({ categoria: 1, nome: 1, codigoBarras: 1 });
+db.produtos.createIndex({ fornecedor: 1, nome: 1, codigoBarras: 1 });
+db.produtos.createIndex({ quantidade: 1, codigoBarras: 1 });
 
 // Inserir um produto de exemplo para testar
 db.produtos.insertOne({
@@ -5,8 +5,15 @@ import org.slf4j.LoggerFactory;
 
 import com.lucasmks.api.config.ApiConfig;
 import com.lucasmks.api.config.CorsConfig;
+import com.lucasmks.api.filter.ControleAdmissao;
+import com.lucasmks.api.filter.PrazoRequisicoes;
+import com.lucasmks.api.filter.RespostasDegradadas;
 import com.lucasmks.api.router.ApiRouter;
 import com.lucasmks.infrastructure.database.MongoConnection;
+import com.lucasmks.infrastructure.event.ObservadorAlteracoesMongo;
+import com.lucasmks.infrastructure.factory.ApplicationFactory;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.lucasmks.infrastructure.snapshot.TarefaSnapshotEstoque;
 
 import static spark.Spark.*;
 
@@ -24,16 +31,31 @@ public class ApiApplication {
             // 2. Inicializar banco de dados
             initializeDatabase();
 
-            // 3. Habilitar CORS
+            // 3. Carregar estruturas em memória (antes de aceitar requisições)
+            initializeInMemoryStructures();
+
+            // 4. Habilitar CORS
             CorsConfig.enable();
 
-            // 4. Inicializar e mapear rotas da API
+            // 4.1 Controle de admissão (depois do CORS, para que os 503 levem os cabeçalhos)
+            ControleAdmissao.habilitar(ApiConfig.maxThreads());
+
+            // 4.2 Prazo de cada requisição, aplicado às consultas ao MongoDB
+            PrazoRequisicoes.habilitar();
+
+            // 4.3 Respostas com o banco indisponível (cópia desatualizada ou 503)
+            RespostasDegradadas.habilitar(ApplicationFactory.getDisjuntorMongo());
+
+            // 4.4 Content-Length das respostas montadas em memória (para a compressão)
+            ApiConfig.habilitarContentLength();
+
+            // 5. Inicializar e mapear rotas da API
             ApiRouter.setupRoutes();
 
-            // 5. Aguardar inicialização do servidor
+            // 6. Aguardar inicialização do servidor
             awaitInitialization();
 
-            // 6. Configurar shutdown hook
+            // 7. Configurar shutdown hook
             setupShutdownHook();
 
             logger.info("API REST iniciada com sucesso!");
@@ -54,6 +76,10 @@ public class ApiApplication {
             MongoConnection.getDatabase();
             if (MongoConnection.isConnected()) {
                 logger.info("Conexão com o banco de dados estabelecida com sucesso!");
+                // Coleção e índices do layout de movimentações configurado
+                LayoutMovimentacoes layout = LayoutMovimentacoes.configurado();
+                layout.preparar(MongoConnection.getDatabase());
+                logger.info("Layout de movimentações: {} (coleção {}).", layout.name().toLowerCase(), layout.colecao());
             } else {
                 // Se getDatabase() não lançar exceção, mas isConnected() for falso
                 throw new IllegalStateException("Falha na conexão com o banco de dados, mas sem exceção específica.");
@@ -64,10 +90,35 @@ public class ApiApplication {
         }
     }
 
+    private static void initializeInMemoryStructures() {
+        logger.info("Carregando estruturas em memória...");
+        // O change stream começa antes da carga para que nada gravado por outros nós durante ela se perca
+        ObservadorAlteracoesMongo observador = ApplicationFactory.getObservadorAlteracoes();
+        boolean sincronizar = observador != null && observador.marcarInicioCarga();
+
+        if (ApplicationFactory.getMovimentacaoColunarStore() != null) {
+            logger.info("Store colunar de movimentações habilitado.");
+        }
+        ApplicationFactory.getIndiceBuscaProduto();
+        ApplicationFactory.getContadorMotivos();
+        ApplicationFactory.getVersoesDados();
+
+        if (sincronizar) {
+            observador.iniciar();
+        }
+
+        // Snapshots periódicos do estoque, base das consultas de estoque em uma data
+        TarefaSnapshotEstoque snapshots = ApplicationFactory.getTarefaSnapshotEstoque();
+        if (snapshots != null) {
+            snapshots.iniciar();
+        }
+    }
+
     private static void setupShutdownHook() {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             logger.info("Recebido sinal de desligamento. Iniciando shutdown gracefully...");
             stop(); // Parar o Spark
+            ApplicationFactory.encerrar(); // Gravar a fila de movimentações e o snapshot final, fechar recursos locais
             MongoConnection.closeConnection(); // Fechar conexão MongoDB
             logger.info("Shutdown completo. Recursos liberados.");
         }, "Shutdown-Hook-Thread"));
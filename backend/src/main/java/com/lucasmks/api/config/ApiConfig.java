@@ -2,21 +2,39 @@ package com.lucasmks.api.config;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+
+import com.lucasmks.api.websocket.CanalScannerWebSocket;
+import com.lucasmks.infrastructure.config.Configuracao;
+
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
 import static spark.Spark.*;
 
 public class ApiConfig {
     private static final Logger logger = LoggerFactory.getLogger(ApiConfig.class);
 
     private static final int DEFAULT_PORT = 4567;
-    private static final int MAX_THREADS = 8;
+    private static final int MAX_THREADS_PADRAO = 8;
     private static final int MIN_THREADS = 2;
     private static final int IDLE_TIMEOUT_MILLIS = 30000;
 
+    // Threads do Jetty (estoque.http.threads); também é o teto padrão do controle de admissão
+    public static int maxThreads() {
+        return Configuracao.getInt("estoque.http.threads", MAX_THREADS_PADRAO);
+    }
+
     public static void configure() {
         logger.info("Configurando servidor HTTP...");
 
+        // Servidor Jetty próprio: envolve as rotas com compressão de resposta
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, new EmbeddedJettyFactory(new ServidorHttpFactory()));
+
         port(DEFAULT_PORT);
-        threadPool(MAX_THREADS, MIN_THREADS, IDLE_TIMEOUT_MILLIS);
+        threadPool(maxThreads(), MIN_THREADS, IDLE_TIMEOUT_MILLIS);
+
+        // WebSockets precisam ser registrados antes da primeira rota ou filtro, que inicia o servidor
+        webSocket("/api/ws/scanner", new CanalScannerWebSocket());
 
         // Opcional: Configurar tratamento de exceções globais
         exception(Exception.class, (exception, req, res) -> {
@@ -28,4 +46,39 @@ public class ApiConfig {
 
         logger.info("Configurações do servidor aplicadas (porta: {})", DEFAULT_PORT);
     }
-}
\ No newline at end of file
+
+    // O Spark não informa Content-Length; sem ele a compressão não sabe o tamanho da resposta
+    // e comprimiria até respostas de poucos bytes. Rotas que escrevem direto na saída
+    // (streaming) já terão feito o commit e não são afetadas.
+    // Registrar um filtro inicia o servidor: chamar junto com os demais filtros, depois da carga.
+    public static void habilitarContentLength() {
+        afterAfter((req, res) -> {
+            String body = res.body();
+            if (body != null && !res.raw().isCommitted() && !res.raw().containsHeader("Content-Length")) {
+                res.raw().setContentLengthLong(tamanhoUtf8(body));
+            }
+        });
+    }
+
+    // Tamanho do texto como o Spark o grava (String.getBytes em UTF-8), sem alocar o array de
+    // bytes. Um surrogate sem par vira '?' na codificação: 1 byte
+    public static long tamanhoUtf8(String texto) {
+        long tamanho = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                tamanho++;
+            } else if (c < 0x800) {
+                tamanho += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < texto.length() && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                tamanho += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                tamanho++;
+            } else {
+                tamanho += 3;
+            }
+        }
+        return tamanho;
+    }
+}
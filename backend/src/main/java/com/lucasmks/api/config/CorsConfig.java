@@ -27,7 +27,8 @@ public class CorsConfig {
         before((request, response) -> {
             response.header("Access-Control-Allow-Origin", "*");
             response.header("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS, PATCH");
-            response.header("Access-Control-Allow-Headers", "Content-Type, Authorization, Accept");
+            response.header("Access-Control-Allow-Headers", "Content-Type, Authorization, Accept, If-None-Match, If-Match, Last-Event-ID, Idempotency-Key, X-Request-Timeout");
+            response.header("Access-Control-Expose-Headers", "ETag, Idempotent-Replayed, X-Dados-Desatualizados, Retry-After");
             response.header("Access-Control-Allow-Credentials", "true"); // Se você precisar de credenciais
         });
 
@@ -0,0 +1,70 @@
+package com.lucasmks.api.config;
+
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lucasmks.infrastructure.config.Configuracao;
+
+import spark.embeddedserver.jetty.JettyServerFactory;
+
+// Cria o servidor Jetty usado pelo Spark. O handler que o Spark instala no servidor
+// passa a ser envolvido por um GzipHandler, então a compressão vale para todas as rotas
+// sem alterar os controllers. A negociação usa o Accept-Encoding da requisição.
+public class ServidorHttpFactory implements JettyServerFactory {
+    private static final Logger logger = LoggerFactory.getLogger(ServidorHttpFactory.class);
+
+    // Mesmos padrões do JettyServer do Spark
+    private static final int MIN_THREADS_PADRAO = 8;
+    private static final int IDLE_TIMEOUT_PADRAO_MILLIS = 60000;
+
+    @Override
+    public Server create(int maxThreads, int minThreads, int threadTimeoutMillis) {
+        if (maxThreads > 0) {
+            int min = minThreads > 0 ? minThreads : MIN_THREADS_PADRAO;
+            int idleTimeout = threadTimeoutMillis > 0 ? threadTimeoutMillis : IDLE_TIMEOUT_PADRAO_MILLIS;
+            return new Servidor(new QueuedThreadPool(maxThreads, min, idleTimeout));
+        }
+        return new Servidor(null);
+    }
+
+    @Override
+    public Server create(ThreadPool threadPool) {
+        return new Servidor(threadPool);
+    }
+
+    static Handler envolver(Handler handler) {
+        if (!Configuracao.getBoolean("estoque.http.compressao", true)) {
+            return handler;
+        }
+        GzipHandler gzip = new GzipHandler();
+        // Respostas pequenas custam mais CPU do que economizam de banda
+        gzip.setMinGzipSize(Configuracao.getInt("estoque.http.compressao.tamanho-minimo", 1024));
+        // 1 (mais rápido) a 9 (menor resposta); -1 usa o padrão do Deflater (6)
+        gzip.setCompressionLevel(Configuracao.getInt("estoque.http.compressao.nivel", -1));
+        // Cada flush da aplicação também descarrega o bloco comprimido, para que respostas
+        // escritas aos poucos (streaming) cheguem ao cliente sem esperar o fim do corpo
+        gzip.setSyncFlush(true);
+        // Eventos SSE são pequenos e precisam sair na hora; o stream nunca é comprimido
+        gzip.addExcludedMimeTypes("text/event-stream");
+        gzip.setHandler(handler);
+        logger.info("Compressão gzip habilitada (tamanho mínimo {} bytes, nível {}).",
+                gzip.getMinGzipSize(), gzip.getCompressionLevel());
+        return gzip;
+    }
+
+    private static class Servidor extends Server {
+        Servidor(ThreadPool threadPool) {
+            super(threadPool);
+        }
+
+        @Override
+        public void setHandler(Handler handler) {
+            super.setHandler(handler != null ? envolver(handler) : null);
+        }
+    }
+}
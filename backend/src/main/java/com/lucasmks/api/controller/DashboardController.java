@@ -4,7 +4,10 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder; // Importar GsonBuilder
 import com.lucasmks.api.adapter.LocalDateTimeAdapter; // Importar o novo Adapter
 import com.lucasmks.api.dto.ApiResponse;
+import com.lucasmks.api.filter.RespostaCondicional;
 import com.lucasmks.api.service.DashboardService;
+import com.lucasmks.infrastructure.cache.VersoesDados;
+import com.lucasmks.infrastructure.factory.ApplicationFactory;
 
 import java.time.LocalDateTime; // Importar LocalDateTime
 
@@ -17,11 +20,21 @@ public class DashboardController {
     private final Gson gson = new GsonBuilder()
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
             .create();
+    private final VersoesDados versoes = ApplicationFactory.getVersoesDados();
 
     public void setupRoutes() {
         path("/api/dashboard", () -> {
             get("/stats", (req, res) -> {
                 res.type("application/json");
+                // As estatísticas dependem do catálogo, das movimentações e da janela das últimas 24h,
+                // que anda com o relógio; por isso a ETag também muda a cada minuto
+                String etag = RespostaCondicional.etag(versoes.getBoot(),
+                        "c" + versoes.versaoCatalogo(),
+                        "m" + versoes.versaoMovimentacoes(),
+                        "t" + System.currentTimeMillis() / 60_000);
+                if (RespostaCondicional.naoModificado(req, res, etag)) {
+                    return "";
+                }
                 try {
                     Object stats = dashboardService.getDashboardStats();
                     // Esta linha agora funcionará sem erro
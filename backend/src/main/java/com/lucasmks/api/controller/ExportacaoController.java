@@ -0,0 +1,194 @@
+package com.lucasmks.api.controller;
+
+import static spark.Spark.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lucasmks.api.dto.ApiResponse;
+import com.lucasmks.api.dto.ExportacaoResponse;
+import com.lucasmks.api.exportacao.EnvioArquivo;
+import com.lucasmks.api.exportacao.ExportadorDados;
+import com.lucasmks.api.exportacao.PedidoExportacao;
+import com.lucasmks.api.exportacao.SpoolExportacao;
+import com.lucasmks.infrastructure.config.Configuracao;
+import com.lucasmks.infrastructure.factory.ApplicationFactory;
+
+import org.eclipse.jetty.server.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+public class ExportacaoController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportacaoController.class);
+
+    private final ObjectMapper objectMapper;
+    private final ExportadorDados exportador;
+    private final SpoolExportacao spool;
+
+    public ExportacaoController() {
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.exportador = new ExportadorDados(ApplicationFactory.getExportarDadosUseCase());
+        this.spool = new SpoolExportacao(exportador,
+                Paths.get(Configuracao.get("estoque.exportacao.diretorio", "data/exportacoes")),
+                Configuracao.getInt("estoque.exportacao.threads", 2),
+                Configuracao.getInt("estoque.exportacao.max-pendentes", 8),
+                Configuracao.getLong("estoque.exportacao.retencao-minutos", 60));
+    }
+
+    public void setupRoutes() {
+        // GET /api/exportacao/:tipo?formato=csv|ndjson&dataInicio=...&dataFim=... - Exportação completa
+        // (produtos ou movimentacoes) escrita na resposta à medida que sai do banco
+        get("/api/exportacao/:tipo", this::exportar);
+
+        // POST /api/exportacao/:tipo?formato=csv|ndjson&dataInicio=...&dataFim=... - Gera a exportação
+        // em segundo plano; responde 202 com o id e a url de download
+        post("/api/exportacao/:tipo", this::agendarExportacao);
+
+        // GET /api/exportacao/arquivos/:id - Arquivo da exportação assíncrona (202 enquanto não fica pronto)
+        get("/api/exportacao/arquivos/:id", this::baixarExportacao);
+    }
+
+    private Object exportar(spark.Request request, spark.Response response) {
+        PedidoExportacao pedido;
+        try {
+            pedido = lerPedido(request);
+        } catch (DateTimeParseException e) {
+            response.status(400);
+            return toJson(ApiResponse.error("Formato de data inválido. Use YYYY-MM-DDTHH:MM:SS. Ex: 2025-07-20T10:30:00"));
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return toJson(ApiResponse.error(e.getMessage()));
+        }
+
+        try {
+            response.status(200);
+            response.type(pedido.getFormato().getContentType());
+            response.header("Content-Disposition", "attachment; filename=\"" + pedido.nomeArquivo() + "\"");
+            long registros = exportador.exportar(pedido, response.raw().getOutputStream());
+            logger.debug("Exportação {} enviada: {} registros.", pedido.nomeArquivo(), registros);
+            // Corpo já escrito; o Spark não escreve mais nada
+            return "";
+        } catch (Exception e) {
+            if (!response.raw().isCommitted()) {
+                response.type("application/json");
+                response.status(500);
+                return toJson(ApiResponse.error("Erro ao exportar " + pedido.getTipo().name().toLowerCase() + ": " + e.getMessage()));
+            }
+            // Parte do arquivo já foi enviada: a conexão é abortada para que o cliente não
+            // receba um arquivo truncado como se estivesse completo
+            logger.warn("Exportação {} interrompida: {}", pedido.nomeArquivo(), e.getMessage());
+            Request base = Request.getBaseRequest(request.raw());
+            if (base != null) {
+                base.getHttpChannel().abort(e);
+            }
+            return "";
+        }
+    }
+
+    private Object agendarExportacao(spark.Request request, spark.Response response) {
+        try {
+            PedidoExportacao pedido = lerPedido(request);
+            SpoolExportacao.Tarefa tarefa = spool.iniciar(pedido);
+            if (tarefa == null) {
+                response.header("Retry-After", "30");
+                response.status(429);
+                return toJson(ApiResponse.error("Muitas exportações em andamento. Tente novamente em instantes."));
+            }
+            ExportacaoResponse situacao = toExportacaoResponse(tarefa);
+            response.header("Location", situacao.getUrl());
+            response.status(202);
+            return toJson(ApiResponse.success("Exportação iniciada", situacao));
+
+        } catch (DateTimeParseException e) {
+            response.status(400);
+            return toJson(ApiResponse.error("Formato de data inválido. Use YYYY-MM-DDTHH:MM:SS. Ex: 2025-07-20T10:30:00"));
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return toJson(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao iniciar exportação: " + e.getMessage()));
+        }
+    }
+
+    private Object baixarExportacao(spark.Request request, spark.Response response) {
+        try {
+            SpoolExportacao.Tarefa tarefa = spool.consultar(request.params(":id"));
+            if (tarefa == null) {
+                response.status(404);
+                return toJson(ApiResponse.error("Exportação não encontrada ou expirada."));
+            }
+            switch (tarefa.getSituacao()) {
+                case EM_ANDAMENTO:
+                    response.header("Retry-After", "2");
+                    response.status(202);
+                    return toJson(ApiResponse.success("Exportação em andamento", toExportacaoResponse(tarefa)));
+                case FALHOU:
+                    response.status(500);
+                    return toJson(new ApiResponse<>(false, "Exportação falhou: " + tarefa.getErro(), toExportacaoResponse(tarefa)));
+                default:
+                    PedidoExportacao pedido = tarefa.getPedido();
+                    EnvioArquivo.enviar(tarefa.getArquivo(), pedido.getFormato().getContentType(), pedido.nomeArquivo(),
+                            request.raw(), response.raw());
+                    // Envio em andamento fora desta thread; o Spark não escreve corpo
+                    return "";
+            }
+        } catch (NoSuchFileException e) {
+            response.status(404);
+            return toJson(ApiResponse.error("Exportação não encontrada ou expirada."));
+        } catch (IOException e) {
+            if (response.raw().isCommitted()) {
+                return "";
+            }
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao enviar exportação: " + e.getMessage()));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao consultar exportação: " + e.getMessage()));
+        }
+    }
+
+    private static PedidoExportacao lerPedido(spark.Request request) {
+        PedidoExportacao.Tipo tipo = PedidoExportacao.Tipo.de(request.params(":tipo"));
+        if (tipo == null) {
+            throw new IllegalArgumentException("Tipo de exportação inválido. Use produtos ou movimentacoes.");
+        }
+        PedidoExportacao.Formato formato = PedidoExportacao.Formato.de(request.queryParamOrDefault("formato", "csv"));
+        if (formato == null) {
+            throw new IllegalArgumentException("Formato inválido. Use csv ou ndjson.");
+        }
+        return new PedidoExportacao(tipo, formato, data(request.queryParams("dataInicio")), data(request.queryParams("dataFim")));
+    }
+
+    private static LocalDateTime data(String valor) {
+        return valor == null || valor.isBlank() ? null : LocalDateTime.parse(valor.trim());
+    }
+
+    private static ExportacaoResponse toExportacaoResponse(SpoolExportacao.Tarefa tarefa) {
+        boolean pronta = tarefa.getSituacao() == SpoolExportacao.Situacao.PRONTA;
+        return new ExportacaoResponse(
+                tarefa.getId(),
+                tarefa.getPedido().getTipo().name().toLowerCase(),
+                tarefa.getPedido().getFormato().getExtensao(),
+                tarefa.getSituacao().name(),
+                pronta ? tarefa.getRegistros() : null,
+                pronta ? tarefa.getTamanhoBytes() : null,
+                tarefa.getErro(),
+                "/api/exportacao/arquivos/" + tarefa.getId());
+    }
+
+    private String toJson(Object object) {
+        try {
+            return objectMapper.writeValueAsString(object);
+        } catch (Exception e) {
+            return "{\"success\":false,\"message\":\"Erro ao serializar JSON\"}";
+        }
+    }
+}
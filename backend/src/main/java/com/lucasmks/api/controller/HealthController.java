@@ -4,6 +4,16 @@ import static spark.Spark.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.lucasmks.api.dto.ApiResponse;
+import com.lucasmks.api.filter.ControleAdmissao;
+import com.lucasmks.api.filter.LimiteConcorrenciaAdaptativo;
+import com.lucasmks.infrastructure.concurrency.SerializadorProdutosListrado;
+import com.lucasmks.infrastructure.factory.ApplicationFactory;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoRepositoryGravacaoAssincrona;
+import com.lucasmks.infrastructure.persistence.repository.ProdutoRepositoryDisjuntor;
+import com.lucasmks.infrastructure.resilience.Disjuntor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class HealthController {
 
@@ -24,6 +34,18 @@ public class HealthController {
 
        // GET /api/health - Health check
         get("/api/health", this::healthCheck);
+
+        // GET /api/health/gravacao-movimentacoes - Fila de gravação de movimentações (profundidade, lotes)
+        get("/api/health/gravacao-movimentacoes", this::metricasGravacaoMovimentacoes);
+
+        // GET /api/health/admissao - Controle de admissão (limite atual, requisições recusadas)
+        get("/api/health/admissao", this::metricasAdmissao);
+
+        // GET /api/health/serializacao-produtos - Disputa pelos locks por produto (espera por faixa)
+        get("/api/health/serializacao-produtos", this::metricasSerializacaoProdutos);
+
+        // GET /api/health/mongo - Disjuntor do banco (estado, falhas, recusas) e cópia dos produtos
+        get("/api/health/mongo", this::estadoMongo);
         
         // Exception handler
         exception(Exception.class, (exception, request, response) -> {
@@ -38,6 +60,73 @@ public class HealthController {
         return toJson(ApiResponse.success("API funcionando corretamente", "OK"));
     }
 
+    private Object metricasGravacaoMovimentacoes(spark.Request request, spark.Response response) {
+        try {
+            MovimentacaoRepositoryGravacaoAssincrona gravacao = ApplicationFactory.getGravacaoMovimentacoes();
+            response.status(200);
+            if (gravacao == null) {
+                return toJson(ApiResponse.success("Gravação de movimentações síncrona: sem fila", null));
+            }
+            return toJson(ApiResponse.success("Métricas da gravação de movimentações", gravacao.metricas()));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao obter métricas de gravação: " + e.getMessage()));
+        }
+    }
+
+    private Object metricasAdmissao(spark.Request request, spark.Response response) {
+        try {
+            LimiteConcorrenciaAdaptativo limite = ControleAdmissao.getLimite();
+            response.status(200);
+            if (limite == null) {
+                return toJson(ApiResponse.success("Controle de admissão desabilitado", null));
+            }
+            return toJson(ApiResponse.success("Métricas do controle de admissão", limite.metricas()));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao obter métricas de admissão: " + e.getMessage()));
+        }
+    }
+
+    private Object metricasSerializacaoProdutos(spark.Request request, spark.Response response) {
+        try {
+            SerializadorProdutosListrado serializador = ApplicationFactory.getSerializadorProdutosListrado();
+            response.status(200);
+            if (serializador == null) {
+                return toJson(ApiResponse.success("Serialização por produto desligada", null));
+            }
+            int limite = request.queryParams("limite") != null ? Integer.parseInt(request.queryParams("limite")) : 20;
+            return toJson(ApiResponse.success("Métricas da serialização por produto", serializador.metricas(limite)));
+        } catch (NumberFormatException e) {
+            response.status(400);
+            return toJson(ApiResponse.error("Parâmetro 'limite' inválido: " + request.queryParams("limite")));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao obter métricas de serialização: " + e.getMessage()));
+        }
+    }
+
+    private Object estadoMongo(spark.Request request, spark.Response response) {
+        try {
+            Disjuntor disjuntor = ApplicationFactory.getDisjuntorMongo();
+            response.status(200);
+            if (disjuntor == null) {
+                return toJson(ApiResponse.success("Disjuntor do banco desligado", null));
+            }
+            Map<String, Object> estado = new LinkedHashMap<>();
+            estado.put("disjuntor", disjuntor.metricas());
+            ProdutoRepositoryDisjuntor produtos = ApplicationFactory.getProdutoRepositoryDisjuntor();
+            if (produtos != null) {
+                estado.put("produtosNaCopia", produtos.getProdutosNaCopia());
+                estado.put("copiaCompleta", produtos.isCopiaCompleta());
+            }
+            return toJson(ApiResponse.success("Estado do disjuntor do banco", estado));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao obter estado do disjuntor: " + e.getMessage()));
+        }
+    }
+
     private String toJson(Object object) {
         try {
             return objectMapper.writeValueAsString(object);
@@ -4,22 +4,32 @@ import static spark.Spark.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lucasmks.api.dto.AnaliseMovimentacaoDTO;
 import com.lucasmks.api.dto.ApiResponse;
 import com.lucasmks.api.dto.MovimentacaoResponse; // <-- Importar
+import com.lucasmks.api.dto.ResumoDiarioResponse;
 import com.lucasmks.api.mapper.MovimentacaoApiMapper; // <-- Importar
+import com.lucasmks.api.service.AnaliseMovimentacaoService;
 import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.ResumoDiario;
 import com.lucasmks.domain.model.TipoMovimentacao; // <-- Importar
 import com.lucasmks.domain.usecase.ConsultarHistoricoMovimentacaoUseCase; // <-- Importar
+import com.lucasmks.domain.usecase.ConsultarResumoDiarioUseCase;
 import com.lucasmks.infrastructure.factory.ApplicationFactory;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime; // <-- Importar
 import java.time.format.DateTimeParseException; // <-- Importar para lidar com erros de data
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class HistoricoMovimentacaoController {
 
     private final ObjectMapper objectMapper;
     private final ConsultarHistoricoMovimentacaoUseCase consultarHistoricoUseCase;
+    private final AnaliseMovimentacaoService analiseService;
+    private final ConsultarResumoDiarioUseCase consultarResumoDiarioUseCase;
 
     public HistoricoMovimentacaoController() {
         this.objectMapper = new ObjectMapper();
@@ -28,6 +38,8 @@ public class HistoricoMovimentacaoController {
         // this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
 
         this.consultarHistoricoUseCase = ApplicationFactory.getConsultarHistoricoMovimentacaoUseCase(); // <-- Injetar
+        this.analiseService = new AnaliseMovimentacaoService(ApplicationFactory.getMovimentacaoColunarStore());
+        this.consultarResumoDiarioUseCase = ApplicationFactory.getConsultarResumoDiarioUseCase();
     }
 
     public void setupRoutes() {
@@ -51,6 +63,16 @@ public class HistoricoMovimentacaoController {
         // GET /api/historico/tipo/:tipo - Listar movimentações por tipo (ENTRADA/SAIDA)
         get("/api/historico/tipo/:tipo", this::buscarMovimentacoesPorTipo);
 
+        // GET /api/historico/analise?dataInicio=...&dataFim=... - Totais do período por tipo e motivo
+        get("/api/historico/analise", this::analisarPeriodo);
+
+        // GET /api/historico/analise/produto/:codigoBarras - Totais de entrada/saída do produto
+        get("/api/historico/analise/produto/:codigoBarras", this::analisarProduto);
+
+        // GET /api/historico/resumo?dataInicio=YYYY-MM-DD&dataFim=YYYY-MM-DD&codigoBarras=... - Entradas e saídas
+        // por dia e por produto, lidas dos resumos diários (codigoBarras opcional)
+        get("/api/historico/resumo", this::buscarResumoDiario);
+
         // Exception handler (opcional: mover para classe utilitária de erros global)
         exception(Exception.class, (exception, request, response) -> {
             response.status(500);
@@ -161,6 +183,102 @@ public class HistoricoMovimentacaoController {
         }
     }
 
+    private Object analisarPeriodo(spark.Request request, spark.Response response) {
+        try {
+            if (!analiseService.isDisponivel()) {
+                response.status(503);
+                return toJson(ApiResponse.error("Análise de movimentações desabilitada (estoque.analytics.colunar=false)."));
+            }
+
+            String dataInicioStr = request.queryParams("dataInicio");
+            String dataFimStr = request.queryParams("dataFim");
+            if (dataInicioStr == null || dataInicioStr.trim().isEmpty() || dataFimStr == null || dataFimStr.trim().isEmpty()) {
+                response.status(400);
+                return toJson(ApiResponse.error("Os parâmetros dataInicio e dataFim são obrigatórios. Formato esperado: YYYY-MM-DDTHH:MM:SS"));
+            }
+
+            LocalDateTime dataInicio;
+            LocalDateTime dataFim;
+            try {
+                dataInicio = LocalDateTime.parse(dataInicioStr);
+                dataFim = LocalDateTime.parse(dataFimStr);
+            } catch (DateTimeParseException e) {
+                response.status(400);
+                return toJson(ApiResponse.error("Formato de data inválido. Use YYYY-MM-DDTHH:MM:SS. Ex: 2025-07-20T10:30:00"));
+            }
+
+            AnaliseMovimentacaoDTO analise = analiseService.analisarPeriodo(dataInicio, dataFim);
+            response.status(200);
+            return toJson(ApiResponse.success("Análise de movimentações no período", analise));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao analisar movimentações: " + e.getMessage()));
+        }
+    }
+
+    private Object analisarProduto(spark.Request request, spark.Response response) {
+        try {
+            if (!analiseService.isDisponivel()) {
+                response.status(503);
+                return toJson(ApiResponse.error("Análise de movimentações desabilitada (estoque.analytics.colunar=false)."));
+            }
+
+            String codigoBarras = request.params(":codigoBarras");
+            if (codigoBarras == null || codigoBarras.trim().isEmpty()) {
+                response.status(400);
+                return toJson(ApiResponse.error("Código de barras é obrigatório."));
+            }
+
+            Map<String, Long> totais = analiseService.totaisPorProduto(codigoBarras);
+            response.status(200);
+            return toJson(ApiResponse.success("Totais de movimentação do produto " + codigoBarras, totais));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao analisar movimentações do produto: " + e.getMessage()));
+        }
+    }
+
+    private Object buscarResumoDiario(spark.Request request, spark.Response response) {
+        try {
+            String dataInicioStr = request.queryParams("dataInicio");
+            String dataFimStr = request.queryParams("dataFim");
+            if (dataInicioStr == null || dataInicioStr.trim().isEmpty() || dataFimStr == null || dataFimStr.trim().isEmpty()) {
+                response.status(400);
+                return toJson(ApiResponse.error("Os parâmetros dataInicio e dataFim são obrigatórios. Formato esperado: YYYY-MM-DD"));
+            }
+
+            LocalDate dataInicio;
+            LocalDate dataFim;
+            try {
+                dataInicio = lerDia(dataInicioStr);
+                dataFim = lerDia(dataFimStr);
+            } catch (DateTimeParseException e) {
+                response.status(400);
+                return toJson(ApiResponse.error("Formato de data inválido. Use YYYY-MM-DD. Ex: 2025-07-20"));
+            }
+
+            List<ResumoDiario> resumos = consultarResumoDiarioUseCase.executar(dataInicio, dataFim, request.queryParams("codigoBarras"));
+            List<ResumoDiarioResponse> responseList = resumos.stream()
+                    .map(r -> new ResumoDiarioResponse(r.getCodigoBarras(), r.getDia().toString(),
+                            r.getQuantidadeEntradas(), r.getQuantidadeSaidas(), r.getTotalEntradas(), r.getTotalSaidas()))
+                    .collect(Collectors.toList());
+            response.status(200);
+            return toJson(ApiResponse.success("Resumo diário de movimentações", responseList));
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return toJson(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao buscar resumo diário: " + e.getMessage()));
+        }
+    }
+
+    // Aceita só a data ou a data e hora (a hora é ignorada: o resumo é por dia)
+    private static LocalDate lerDia(String valor) {
+        String texto = valor.trim();
+        return texto.contains("T") ? LocalDateTime.parse(texto).toLocalDate() : LocalDate.parse(texto);
+    }
+
     private String toJson(Object object) {
         try {
             return objectMapper.writeValueAsString(object);
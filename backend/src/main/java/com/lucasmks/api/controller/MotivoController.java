@@ -0,0 +1,74 @@
+package com.lucasmks.api.controller;
+
+import static spark.Spark.*;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lucasmks.api.dto.ApiResponse;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.usecase.SugerirMotivosUseCase;
+import com.lucasmks.infrastructure.factory.ApplicationFactory;
+
+public class MotivoController {
+
+    private final ObjectMapper objectMapper;
+    private final SugerirMotivosUseCase sugerirMotivosUseCase;
+
+    public MotivoController() {
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule()); // timestamp do ApiResponse
+        this.sugerirMotivosUseCase = ApplicationFactory.getSugerirMotivosUseCase();
+    }
+
+    public void setupRoutes() {
+        // GET /api/motivos?prefix=&tipo=&limite= - Motivos mais usados que começam com o prefixo
+        get("/api/motivos", this::sugerirMotivos);
+    }
+
+    private Object sugerirMotivos(spark.Request request, spark.Response response) {
+        response.type("application/json");
+        try {
+            TipoMovimentacao tipo = null;
+            String tipoStr = request.queryParams("tipo");
+            if (tipoStr != null && !tipoStr.trim().isEmpty()) {
+                try {
+                    tipo = TipoMovimentacao.valueOf(tipoStr.trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    response.status(400);
+                    return toJson(ApiResponse.error("Tipo de movimentação inválido. Use ENTRADA ou SAIDA."));
+                }
+            }
+
+            int limite = SugerirMotivosUseCase.LIMITE_PADRAO;
+            String limiteStr = request.queryParams("limite");
+            if (limiteStr != null && !limiteStr.trim().isEmpty()) {
+                try {
+                    limite = Integer.parseInt(limiteStr.trim());
+                } catch (NumberFormatException e) {
+                    response.status(400);
+                    return toJson(ApiResponse.error("Limite inválido: " + limiteStr));
+                }
+            }
+
+            List<String> motivos = sugerirMotivosUseCase.executar(request.queryParams("prefix"), tipo, limite);
+            response.status(200);
+            return toJson(ApiResponse.success("Motivos sugeridos", motivos));
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return toJson(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao sugerir motivos: " + e.getMessage()));
+        }
+    }
+
+    private String toJson(Object object) {
+        try {
+            return objectMapper.writeValueAsString(object);
+        } catch (Exception e) {
+            return "{\"success\":false,\"message\":\"Erro ao serializar JSON\"}";
+        }
+    }
+}
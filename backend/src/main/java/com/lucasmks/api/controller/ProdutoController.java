@@ -2,27 +2,61 @@ package com.lucasmks.api.controller;
 
 import static spark.Spark.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import javax.servlet.http.HttpServletRequest;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.lucasmks.api.dto.ApiResponse;
 import com.lucasmks.api.dto.EditarProdutoRequest;
+import com.lucasmks.api.dto.EstoqueEmResponse;
 import com.lucasmks.api.dto.EstoqueRequest;
+import com.lucasmks.api.dto.PaginaProdutosResponse;
 import com.lucasmks.api.dto.ProdutoRequest;
 import com.lucasmks.api.dto.ProdutoResponse;
+import com.lucasmks.api.dto.ResultadoImportacaoResponse;
+import com.lucasmks.api.filter.RespostaCondicional;
+import com.lucasmks.api.idempotencia.ChaveIdempotenciaException;
+import com.lucasmks.api.idempotencia.Idempotencia;
+import com.lucasmks.api.importacao.LeitorCsvProdutos;
+import com.lucasmks.api.importacao.LeitorImportacao;
+import com.lucasmks.api.importacao.LeitorNdjsonProdutos;
 import com.lucasmks.api.mapper.ProdutoApiMapper;
+import com.lucasmks.domain.exception.BancoIndisponivelException;
+import com.lucasmks.domain.exception.ConflitoVersaoException;
 import com.lucasmks.domain.exception.ProdutoJaExistenteException;
 import com.lucasmks.domain.exception.ProdutoNaoEncontradoException;
 import com.lucasmks.domain.exception.ValidacaoProdutoException;
+import com.lucasmks.domain.model.FiltroProdutos;
+import com.lucasmks.domain.model.Pagina;
+import com.lucasmks.domain.model.PosicaoEstoque;
 import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.RespostaIdempotente;
+import com.lucasmks.domain.model.ResultadoImportacao;
 import com.lucasmks.domain.usecase.AdicionarEstoqueUseCase;
 import com.lucasmks.domain.usecase.BuscarProdutoUseCase;
 import com.lucasmks.domain.usecase.CadastrarProdutoUseCase;
+import com.lucasmks.domain.usecase.ConsultarEstoqueEmUseCase;
 import com.lucasmks.domain.usecase.DeletarProdutoUseCase;
 import com.lucasmks.domain.usecase.EditarProdutoUseCase;
+import com.lucasmks.domain.usecase.ImportarProdutosUseCase;
 import com.lucasmks.domain.usecase.ListarTodosProdutosUseCase;
+import com.lucasmks.domain.usecase.PesquisarProdutosUseCase;
 import com.lucasmks.domain.usecase.RemoverEstoqueUseCase;
+import com.lucasmks.infrastructure.cache.VersoesDados;
 import com.lucasmks.infrastructure.factory.ApplicationFactory;
 
 public class ProdutoController {
@@ -35,6 +69,11 @@ public class ProdutoController {
     private final ListarTodosProdutosUseCase listarTodosProdutosUseCase;
     private final EditarProdutoUseCase editarProdutoUseCase;
     private final DeletarProdutoUseCase deletarProdutoUseCase;
+    private final PesquisarProdutosUseCase pesquisarProdutosUseCase;
+    private final ImportarProdutosUseCase importarProdutosUseCase;
+    private final ConsultarEstoqueEmUseCase consultarEstoqueEmUseCase;
+    private final VersoesDados versoes;
+    private final Idempotencia idempotencia;
     
     public ProdutoController() {
         this.objectMapper = new ObjectMapper();
@@ -47,6 +86,11 @@ public class ProdutoController {
         this.listarTodosProdutosUseCase = ApplicationFactory.getListarTodosProdutosUseCase();
         this.editarProdutoUseCase = ApplicationFactory.getEditarProdutoUseCase();
         this.deletarProdutoUseCase = ApplicationFactory.getDeletarProdutoUseCase();
+        this.pesquisarProdutosUseCase = ApplicationFactory.getPesquisarProdutosUseCase();
+        this.importarProdutosUseCase = ApplicationFactory.getImportarProdutosUseCase();
+        this.consultarEstoqueEmUseCase = ApplicationFactory.getConsultarEstoqueEmUseCase();
+        this.versoes = ApplicationFactory.getVersoesDados();
+        this.idempotencia = Idempotencia.daConfiguracao(ApplicationFactory.getIdempotenciaRepository());
     }
 
     
@@ -58,14 +102,29 @@ public class ProdutoController {
         });
 
         // GET /api/produtos - Listar todos os produtos
+        // Com categoria, fornecedor, estoqueMax, sort, page/cursor, size ou fields - listagem paginada
         get("/api/produtos", this::listarProdutos);
         
+        // GET /api/produtos/busca?q=&limite= - Pesquisar por nome, categoria e fornecedor
+        // (registrada antes de /:codigoBarras, que também casaria com "busca")
+        get("/api/produtos/busca", this::pesquisarProdutos);
+
+        // GET /api/produtos/estoque?em= - Estoque de todos os produtos em uma data
+        // (registrada antes de /:codigoBarras pelo mesmo motivo)
+        get("/api/produtos/estoque", this::consultarEstoqueCatalogoEm);
+
+        // GET /api/produtos/:codigoBarras/estoque?em= - Estoque do produto em uma data
+        get("/api/produtos/:codigoBarras/estoque", this::consultarEstoqueEm);
+
         // GET /api/produtos/{codigoBarras} - Buscar produto
         get("/api/produtos/:codigoBarras", this::buscarProduto);
         
         // POST /api/produtos - Cadastrar produto
         post("/api/produtos", this::cadastrarProduto);
 
+        // POST /api/produtos/importacao?modo=inserir|substituir - Importação em lote (CSV ou NDJSON)
+        post("/api/produtos/importacao", this::importarProdutos);
+
         // PUT /api/produtos/:codigoBarras - Editar produto
         put("/api/produtos/:codigoBarras", this::editarProduto);
 
@@ -73,10 +132,12 @@ public class ProdutoController {
         delete("/api/produtos/:codigoBarras", this::deletarProduto);
 
         // PUT /api/produtos/:codigoBarras/adicionarEstoque - Adicionar estoque
-        put("/api/produtos/:codigoBarras/adicionarEstoque", this::adicionarEstoque); // <-- Nova rota
+        // Com Idempotency-Key, repetições da mesma requisição devolvem a resposta original
+        put("/api/produtos/:codigoBarras/adicionarEstoque", (request, response) -> comIdempotencia(request, response, this::adicionarEstoque));
 
         // PUT /api/produtos/:codigoBarras/removerEstoque - Remover estoque
-        put("/api/produtos/:codigoBarras/removerEstoque", this::removerEstoque); // <-- Nova rota
+        // Com Idempotency-Key, repetições da mesma requisição devolvem a resposta original
+        put("/api/produtos/:codigoBarras/removerEstoque", (request, response) -> comIdempotencia(request, response, this::removerEstoque));
 
     
         exception(ProdutoNaoEncontradoException.class, (exception, request, response) -> {
@@ -108,7 +169,100 @@ public class ProdutoController {
         });
     }
 
+    private Object listarProdutosPaginados(spark.Request request, spark.Response response) {
+        try {
+            FiltroProdutos filtro = new FiltroProdutos();
+            filtro.setCategoria(textoOuNulo(request.queryParams("categoria")));
+            filtro.setFornecedor(textoOuNulo(request.queryParams("fornecedor")));
+            filtro.setCursor(textoOuNulo(request.queryParams("cursor")));
+
+            String sort = textoOuNulo(request.queryParams("sort"));
+            if (sort != null) {
+                // "-quantidade" ordena de forma decrescente
+                filtro.setDecrescente(sort.startsWith("-"));
+                filtro.setOrdenarPor(sort.startsWith("-") || sort.startsWith("+") ? sort.substring(1) : sort);
+            }
+
+            String fields = textoOuNulo(request.queryParams("fields"));
+            if (fields != null) {
+                filtro.setCampos(Arrays.stream(fields.split(","))
+                        .map(String::trim)
+                        .filter(campo -> !campo.isEmpty())
+                        .collect(Collectors.toList()));
+            }
+
+            try {
+                String estoqueMax = textoOuNulo(request.queryParams("estoqueMax"));
+                filtro.setEstoqueMax(estoqueMax != null ? Integer.valueOf(estoqueMax) : null);
+                String page = textoOuNulo(request.queryParams("page"));
+                if (page != null) {
+                    filtro.setPagina(Integer.parseInt(page));
+                }
+                String size = textoOuNulo(request.queryParams("size"));
+                if (size != null) {
+                    filtro.setTamanhoPagina(Integer.parseInt(size));
+                }
+            } catch (NumberFormatException e) {
+                response.status(400);
+                return toJson(ApiResponse.error("Parâmetros numéricos inválidos (estoqueMax, page, size)."));
+            }
+
+            Pagina<Produto> pagina = listarTodosProdutosUseCase.executar(filtro);
+            PaginaProdutosResponse paginaResponse = ProdutoApiMapper.toPaginaResponse(pagina, filtro);
+            response.status(200);
+            return toJson(ApiResponse.success("Página de produtos carregada com sucesso", paginaResponse));
+        } catch (ValidacaoProdutoException e) {
+            response.status(400);
+            return toJson(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao listar produtos: " + e.getMessage()));
+        }
+    }
+
+    private static String textoOuNulo(String valor) {
+        return valor == null || valor.trim().isEmpty() ? null : valor.trim();
+    }
+
+    private Object pesquisarProdutos(spark.Request request, spark.Response response) {
+        try {
+            String termo = request.queryParams("q");
+            int limite = PesquisarProdutosUseCase.LIMITE_PADRAO;
+            String limiteParam = request.queryParams("limite");
+            if (limiteParam != null && !limiteParam.isBlank()) {
+                try {
+                    limite = Integer.parseInt(limiteParam.trim());
+                } catch (NumberFormatException e) {
+                    response.status(400);
+                    return toJson(ApiResponse.error("Limite inválido: " + limiteParam));
+                }
+            }
+
+            List<Produto> produtos = pesquisarProdutosUseCase.executar(termo, limite);
+            List<ProdutoResponse> produtosResponse = ProdutoApiMapper.toResponseList(produtos);
+            response.status(200);
+            return toJson(ApiResponse.success("Busca de produtos realizada com sucesso", produtosResponse));
+        } catch (ValidacaoProdutoException e) {
+            response.status(400);
+            return toJson(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao pesquisar produtos: " + e.getMessage()));
+        }
+    }
+
     private Object listarProdutos(spark.Request request, spark.Response response) {
+        // A mesma versão do catálogo vale para a lista completa e para qualquer página:
+        // o cache do cliente é separado por URL, incluindo os parâmetros
+        String etag = RespostaCondicional.etag(versoes.getBoot(), "c" + versoes.versaoCatalogo());
+        if (RespostaCondicional.naoModificado(request, response, etag)) {
+            return "";
+        }
+
+        // Sem parâmetros a resposta continua sendo a lista completa, como antes
+        if (!request.queryParams().isEmpty()) {
+            return listarProdutosPaginados(request, response);
+        }
         try {
             List<Produto> produtos = listarTodosProdutosUseCase.executar();
             List<ProdutoResponse> produtosResponse = ProdutoApiMapper.toResponseList(produtos); // Assegure-se de ter um toResponseList no seu ProdutoApiMapper
@@ -120,6 +274,61 @@ public class ProdutoController {
         }
     }
     
+    private Object consultarEstoqueEm(spark.Request request, spark.Response response) {
+        try {
+            LocalDateTime em = lerEm(request.queryParams("em"));
+            PosicaoEstoque posicao = consultarEstoqueEmUseCase.executar(request.params(":codigoBarras"), em);
+            response.status(200);
+            return toJson(ApiResponse.success("Estoque em " + em, toEstoqueEmResponse(posicao)));
+        } catch (ProdutoNaoEncontradoException e) {
+            response.status(404);
+            return toJson(ApiResponse.error(e.getMessage()));
+        } catch (DateTimeParseException e) {
+            response.status(400);
+            return toJson(ApiResponse.error("Formato de data inválido. Use YYYY-MM-DDTHH:MM:SS ou YYYY-MM-DD. Ex: 2025-07-20T18:00:00"));
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return toJson(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao consultar estoque: " + e.getMessage()));
+        }
+    }
+
+    private Object consultarEstoqueCatalogoEm(spark.Request request, spark.Response response) {
+        try {
+            LocalDateTime em = lerEm(request.queryParams("em"));
+            List<EstoqueEmResponse> posicoes = consultarEstoqueEmUseCase.executarCatalogo(em).stream()
+                    .map(ProdutoController::toEstoqueEmResponse)
+                    .collect(Collectors.toList());
+            response.status(200);
+            return toJson(ApiResponse.success("Estoque em " + em, posicoes));
+        } catch (DateTimeParseException e) {
+            response.status(400);
+            return toJson(ApiResponse.error("Formato de data inválido. Use YYYY-MM-DDTHH:MM:SS ou YYYY-MM-DD. Ex: 2025-07-20T18:00:00"));
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return toJson(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao consultar estoque: " + e.getMessage()));
+        }
+    }
+
+    // Data e hora, ou só a data (início do dia)
+    private static LocalDateTime lerEm(String valor) {
+        if (valor == null || valor.isBlank()) {
+            throw new IllegalArgumentException("Parâmetro 'em' é obrigatório. Ex: ?em=2025-07-20T18:00:00");
+        }
+        String texto = valor.trim();
+        return texto.contains("T") ? LocalDateTime.parse(texto) : LocalDate.parse(texto).atStartOfDay();
+    }
+
+    private static EstoqueEmResponse toEstoqueEmResponse(PosicaoEstoque posicao) {
+        return new EstoqueEmResponse(posicao.getCodigoBarras(), posicao.getQuantidade(),
+                posicao.getEm().toString(), posicao.getReferencia().toString());
+    }
+
     private Object buscarProduto(spark.Request request, spark.Response response) {
         try {
             String codigoBarras = request.params(":codigoBarras");
@@ -128,10 +337,26 @@ public class ProdutoController {
                 response.status(400);
                 return toJson(ApiResponse.error("Código de barras é obrigatório"));
             }
+
+            // Com a versão persistida já conhecida, o 304 sai sem consultar o banco;
+            // caso contrário o produto é lido primeiro e a versão fica registrada
+            String prefixo = "p" + versoes.versaoProduto(codigoBarras);
+            Long versao = versoes.versaoPersistida(codigoBarras);
+            if (versao != null && RespostaCondicional.naoModificado(request, response,
+                    RespostaCondicional.etag(versoes.getBoot(), prefixo, "v" + versao))) {
+                return "";
+            }
             
             Produto produto = buscarProdutoUseCase.executar(codigoBarras);
             
             if (produto != null) {
+                if (versao == null) {
+                    versoes.registrarVersaoPersistida(codigoBarras, produto.getVersao());
+                    if (RespostaCondicional.naoModificado(request, response,
+                            RespostaCondicional.etag(versoes.getBoot(), prefixo, "v" + produto.getVersao()))) {
+                        return "";
+                    }
+                }
                 ProdutoResponse produtoResponse = ProdutoApiMapper.toResponse(produto);
                 response.status(200);
                 return toJson(ApiResponse.success("Produto encontrado", produtoResponse));
@@ -181,6 +406,103 @@ public class ProdutoController {
         }
     }
 
+    // O corpo é lido direto do stream da requisição (request.body() carregaria o arquivo inteiro).
+    // Formato pelo Content-Type (text/csv ou application/x-ndjson) ou pelo parâmetro formato.
+    private Object importarProdutos(spark.Request request, spark.Response response) {
+        try {
+            // Com corpo de formulário, ler qualquer parâmetro faria o Jetty consumir o arquivo inteiro
+            String contentType = request.contentType() == null ? "" : request.contentType().toLowerCase();
+            if (contentType.startsWith("application/x-www-form-urlencoded") || contentType.startsWith("multipart/")) {
+                response.status(415);
+                return toJson(ApiResponse.error("Envie o arquivo como corpo da requisição (text/csv ou application/x-ndjson)."));
+            }
+
+            String modo = request.queryParamOrDefault("modo", "inserir").trim().toLowerCase();
+            if (!modo.equals("inserir") && !modo.equals("substituir")) {
+                response.status(400);
+                return toJson(ApiResponse.error("Modo inválido. Use inserir ou substituir."));
+            }
+
+            String formato = request.queryParams("formato");
+            if (formato == null) {
+                formato = contentType.contains("csv") ? "csv" : contentType.contains("ndjson") || contentType.contains("jsonl") ? "ndjson" : null;
+            }
+            if (formato == null || (!formato.equalsIgnoreCase("csv") && !formato.equalsIgnoreCase("ndjson"))) {
+                response.status(415);
+                return toJson(ApiResponse.error("Formato não suportado. Envie text/csv ou application/x-ndjson."));
+            }
+
+            BufferedReader leitor = new BufferedReader(new InputStreamReader(corpoSemBuffer(request.raw()), StandardCharsets.UTF_8));
+            LeitorImportacao linhas = formato.equalsIgnoreCase("csv")
+                    ? new LeitorCsvProdutos(leitor)
+                    : new LeitorNdjsonProdutos(leitor, objectMapper);
+
+            ResultadoImportacao resultado = importarProdutosUseCase.executar(linhas, modo.equals("substituir"));
+            ResultadoImportacaoResponse resumo = ProdutoApiMapper.toResultadoImportacaoResponse(resultado);
+            if (resultado.isInterrompida()) {
+                response.status(500);
+                return toJson(new ApiResponse<>(false, "Importação interrompida: " + resultado.getInterrupcao(), resumo));
+            }
+            response.status(200);
+            return toJson(ApiResponse.success("Importação concluída", resumo));
+
+        } catch (IllegalArgumentException e) {
+            response.status(400);
+            return toJson(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao importar produtos: " + e.getMessage()));
+        }
+    }
+
+    // O wrapper do Spark copia o corpo inteiro para a memória no getInputStream();
+    // a requisição original do Jetty entrega o stream sem cópia
+    private static InputStream corpoSemBuffer(HttpServletRequest raw) throws IOException {
+        ServletRequest original = raw instanceof ServletRequestWrapper wrapper ? wrapper.getRequest() : raw;
+        return original.getInputStream();
+    }
+
+    // Sem o cabeçalho, a rota roda normalmente. Com ele, a primeira requisição executa e as
+    // repetições (retentativas ou requisições em paralelo) recebem status e corpo guardados,
+    // marcados com Idempotent-Replayed: true. Respostas guardadas saem sem a reescrita dos
+    // filtros (504 do prazo, 503 do disjuntor), para a repetição receber o mesmo status
+    private Object comIdempotencia(spark.Request request, spark.Response response, spark.Route rota) throws Exception {
+        String chave = request.headers(Idempotencia.CABECALHO);
+        if (chave == null) {
+            return rota.handle(request, response);
+        }
+        try {
+            String impressao = Idempotencia.impressao(request.requestMethod(), request.pathInfo(), request.body());
+            Idempotencia.Resultado resultado = idempotencia.executar(chave.trim(), impressao, () -> {
+                try {
+                    Object corpo = rota.handle(request, response);
+                    return new RespostaIdempotente(null, null, response.status(), String.valueOf(corpo), false, null);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            if (resultado.isRepetida()) {
+                response.header(Idempotencia.CABECALHO_REPETIDA, "true");
+            }
+            if (resultado.getResposta().isConcluida()) {
+                request.attribute(Idempotencia.ATRIBUTO_GUARDADA, Boolean.TRUE);
+            }
+            response.status(resultado.getResposta().getStatus());
+            return resultado.getResposta().getCorpo();
+        } catch (ChaveIdempotenciaException e) {
+            response.status(e.getStatus());
+            return toJson(ApiResponse.error(e.getMessage()));
+        } catch (BancoIndisponivelException e) {
+            // Recusa antes do ajuste: a chave já foi liberada para a retentativa
+            throw e;
+        } catch (Exception e) {
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao processar requisição com Idempotency-Key: " + e.getMessage()));
+        }
+    }
+
     private Object adicionarEstoque(spark.Request request, spark.Response response) {
         try {
             String codigoBarras = request.params(":codigoBarras");
@@ -205,6 +527,10 @@ public class ProdutoController {
             response.status(200);
             return toJson(ApiResponse.success("Estoque adicionado com sucesso para o produto " + codigoBarras, null));
 
+        } catch (BancoIndisponivelException e) {
+            // O ajuste pode ter sido combinado e gravado por outra thread: a recusa não fica
+            // marcada nesta; RespostasDegradadas responde 503 pelo tipo da exceção
+            throw e;
         } catch (Exception e) {
             response.status(500); // Erros de negócio específicos (ProdutoNaoEncontrado, ValidacaoProduto) poderiam ter status diferentes
             return toJson(ApiResponse.error("Erro ao adicionar estoque: " + e.getMessage()));
@@ -235,6 +561,8 @@ public class ProdutoController {
             response.status(200);
             return toJson(ApiResponse.success("Estoque removido com sucesso para o produto " + codigoBarras, null));
 
+        } catch (BancoIndisponivelException e) {
+            throw e;
         } catch (Exception e) {
             response.status(500); // Erros de negócio específicos (ProdutoNaoEncontrado, EstoqueInsuficiente, ValidacaoProduto) poderiam ter status diferentes
             return toJson(ApiResponse.error("Erro ao remover estoque: " + e.getMessage()));
@@ -273,14 +601,31 @@ public class ProdutoController {
                 return toJson(ApiResponse.error("Fornecedor é obrigatório"));
             }
             
+            // If-Match tem precedência sobre a versão enviada no corpo
+            Long versaoEsperada = RespostaCondicional.versaoIfMatch(request);
+            if (versaoEsperada == null) {
+                versaoEsperada = editarRequest.getVersao();
+            }
+
             Produto produtoAtualizado = ProdutoApiMapper.toDomainFromEditRequest(codigoBarras, editarRequest);
-            Produto produtoEditado = editarProdutoUseCase.executar(codigoBarras, produtoAtualizado);
+            Produto produtoEditado = editarProdutoUseCase.executar(codigoBarras, produtoAtualizado, versaoEsperada);
             
             ProdutoResponse produtoResponse = ProdutoApiMapper.toResponse(produtoEditado);
 
+            response.header("ETag", RespostaCondicional.etag(versoes.getBoot(),
+                    "p" + versoes.versaoProduto(codigoBarras), "v" + produtoEditado.getVersao()));
             response.status(200);
             return toJson(ApiResponse.success("Produto editado com sucesso", produtoResponse));
 
+        } catch (ConflitoVersaoException e) {
+            response.status(412); // Precondition Failed: o produto mudou desde a leitura do cliente
+            return toJson(ApiResponse.error(e.getMessage()));
+        } catch (ProdutoNaoEncontradoException e) {
+            response.status(404);
+            return toJson(ApiResponse.error(e.getMessage()));
+        } catch (ValidacaoProdutoException e) {
+            response.status(400);
+            return toJson(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             response.status(500);
             return toJson(ApiResponse.error("Erro ao editar produto: " + e.getMessage()));
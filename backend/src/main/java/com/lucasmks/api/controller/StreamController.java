@@ -0,0 +1,66 @@
+package com.lucasmks.api.controller;
+
+import static spark.Spark.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lucasmks.api.dto.ApiResponse;
+import com.lucasmks.api.stream.FeedEstoque;
+import com.lucasmks.infrastructure.config.Configuracao;
+import com.lucasmks.infrastructure.factory.ApplicationFactory;
+
+public class StreamController {
+
+    private final ObjectMapper objectMapper;
+    private final FeedEstoque feedEstoque;
+
+    public StreamController() {
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule()); // timestamp do ApiResponse
+        this.feedEstoque = new FeedEstoque(
+                Configuracao.getInt("estoque.stream.janela", 1024),
+                Configuracao.getLong("estoque.stream.heartbeat-segundos", 15),
+                Configuracao.getInt("estoque.stream.max-assinantes", 10000));
+        // Recebe as alterações locais e, com change streams habilitados, também as dos outros nós
+        ApplicationFactory.getProdutoEventos().registrar(feedEstoque);
+    }
+
+    public void setupRoutes() {
+        // GET /api/stream/estoque - Alterações de estoque em tempo real (text/event-stream)
+        get("/api/stream/estoque", this::assinarEstoque);
+    }
+
+    private Object assinarEstoque(spark.Request request, spark.Response response) {
+        try {
+            // O EventSource reenvia o último id no cabeçalho; o parâmetro atende clientes que
+            // reconectam por conta própria
+            String ultimoId = request.headers("Last-Event-ID");
+            if (ultimoId == null) {
+                ultimoId = request.queryParams("lastEventId");
+            }
+            if (!feedEstoque.assinar(request.raw(), response.raw(), ultimoId)) {
+                response.type("application/json");
+                response.header("Retry-After", "5");
+                response.status(503);
+                return toJson(ApiResponse.error("Limite de conexões do feed de estoque atingido."));
+            }
+            // Resposta já iniciada e em modo assíncrono; o Spark não escreve corpo
+            return "";
+        } catch (Exception e) {
+            if (response.raw().isCommitted()) {
+                return "";
+            }
+            response.type("application/json");
+            response.status(500);
+            return toJson(ApiResponse.error("Erro ao abrir o feed de estoque: " + e.getMessage()));
+        }
+    }
+
+    private String toJson(Object object) {
+        try {
+            return objectMapper.writeValueAsString(object);
+        } catch (Exception e) {
+            return "{\"success\":false,\"message\":\"Erro ao serializar JSON\"}";
+        }
+    }
+}
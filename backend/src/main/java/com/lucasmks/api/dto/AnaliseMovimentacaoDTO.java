@@ -0,0 +1,19 @@
+package com.lucasmks.api.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnaliseMovimentacaoDTO {
+    private long quantidadeEntradas;   // número de movimentações de entrada
+    private long quantidadeSaidas;     // número de movimentações de saída
+    private long totalEntradas;        // soma das quantidades de entrada
+    private long totalSaidas;          // soma das quantidades de saída
+    private Map<String, Long> entradasPorMotivo;
+    private Map<String, Long> saidasPorMotivo;
+}
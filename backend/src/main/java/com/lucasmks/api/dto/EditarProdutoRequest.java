@@ -14,4 +14,6 @@ public class EditarProdutoRequest {
     private Double precoCusto;
     private Double precoVenda;
     private String fornecedor;
+    // Versão lida pelo cliente (alternativa ao If-Match); nula desativa a verificação
+    private Long versao;
 } 
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.lucasmks.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EstoqueEmResponse {
+    private String codigoBarras;
+    private int quantidade;
+    private String em;           // data e hora consultada
+    private String referencia;   // snapshot (ou estoque atual) de onde a quantidade foi reconstruída
+}
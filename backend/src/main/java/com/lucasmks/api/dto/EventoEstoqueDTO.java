@@ -0,0 +1,20 @@
+package com.lucasmks.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Evento do feed de estoque (SSE). tipo: ENTRADA, SAIDA, CADASTRO, EDICAO ou REMOCAO;
+// quantidade é o estoque após a alteração e fica ausente na remoção
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EventoEstoqueDTO {
+    private String codigoBarras;
+    private Integer quantidade;
+    private String tipo;
+    private String motivo;
+}
@@ -0,0 +1,41 @@
+package com.lucasmks.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Situação de uma exportação assíncrona; url aponta para o download (202 enquanto em andamento)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExportacaoResponse {
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("tipo")
+    private String tipo;
+
+    @JsonProperty("formato")
+    private String formato;
+
+    // EM_ANDAMENTO, PRONTA ou FALHOU
+    @JsonProperty("situacao")
+    private String situacao;
+
+    @JsonProperty("registros")
+    private Long registros;
+
+    @JsonProperty("tamanhoBytes")
+    private Long tamanhoBytes;
+
+    @JsonProperty("erro")
+    private String erro;
+
+    @JsonProperty("url")
+    private String url;
+}
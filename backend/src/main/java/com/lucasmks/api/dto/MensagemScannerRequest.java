@@ -0,0 +1,33 @@
+package com.lucasmks.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Quadro enviado pelo terminal no canal do scanner. id é escolhido pelo cliente e volta na
+// resposta; op: BUSCAR, ENTRADA ou SAIDA (quantidade e motivo só nas movimentações). chave,
+// opcional nas movimentações, tem o papel do cabeçalho Idempotency-Key da API REST
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MensagemScannerRequest {
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("op")
+    private String op;
+
+    @JsonProperty("codigoBarras")
+    private String codigoBarras;
+
+    @JsonProperty("quantidade")
+    private int quantidade;
+
+    @JsonProperty("motivo")
+    private String motivo;
+
+    @JsonProperty("chave")
+    private String chave;
+}
@@ -0,0 +1,40 @@
+package com.lucasmks.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resposta a um quadro do canal do scanner; status segue os códigos HTTP da API REST.
+// repetida: true quando a resposta foi guardada por uma execução anterior com a mesma chave
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MensagemScannerResponse {
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("status")
+    private int status;
+
+    @JsonProperty("success")
+    private boolean success;
+
+    @JsonProperty("message")
+    private String message;
+
+    @JsonProperty("data")
+    private Object data;
+
+    @JsonProperty("repetida")
+    private Boolean repetida;
+
+    public MensagemScannerResponse(String id, int status, boolean success, String message, Object data) {
+        this(id, status, success, message, data, null);
+    }
+}
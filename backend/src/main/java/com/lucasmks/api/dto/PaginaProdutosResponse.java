@@ -0,0 +1,37 @@
+package com.lucasmks.api.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaProdutosResponse {
+
+    // ProdutoResponse completo ou apenas os campos pedidos em "fields"
+    @JsonProperty("itens")
+    private List<Object> itens;
+
+    @JsonProperty("total")
+    private Long total;
+
+    @JsonProperty("estrategiaTotal")
+    private String estrategiaTotal;
+
+    @JsonProperty("pagina")
+    private Integer pagina;
+
+    @JsonProperty("tamanhoPagina")
+    private int tamanhoPagina;
+
+    @JsonProperty("temProxima")
+    private boolean temProxima;
+
+    @JsonProperty("proximoCursor")
+    private String proximoCursor;
+}
@@ -31,4 +31,7 @@ public class ProdutoResponse {
     
     @JsonProperty("fornecedor")
     private String fornecedor;
+
+    @JsonProperty("versao")
+    private long versao;
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.lucasmks.api.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultadoImportacaoResponse {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ErroLinhaResponse {
+        @JsonProperty("linha")
+        private long linha;
+
+        @JsonProperty("codigoBarras")
+        private String codigoBarras;
+
+        @JsonProperty("mensagem")
+        private String mensagem;
+    }
+
+    @JsonProperty("linhas")
+    private long linhas;
+
+    @JsonProperty("inseridos")
+    private long inseridos;
+
+    @JsonProperty("atualizados")
+    private long atualizados;
+
+    @JsonProperty("ignorados")
+    private long ignorados;
+
+    @JsonProperty("rejeitados")
+    private long rejeitados;
+
+    @JsonProperty("erros")
+    private List<ErroLinhaResponse> erros;
+
+    // Erros além do limite da lista, apenas contados
+    @JsonProperty("errosOmitidos")
+    private long errosOmitidos;
+
+    // Presente quando a importação parou antes do fim do arquivo
+    @JsonProperty("interrupcao")
+    private String interrupcao;
+}
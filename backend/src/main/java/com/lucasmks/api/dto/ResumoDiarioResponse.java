@@ -0,0 +1,17 @@
+package com.lucasmks.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResumoDiarioResponse {
+    private String codigoBarras;
+    private String dia;                // YYYY-MM-DD
+    private long quantidadeEntradas;   // número de movimentações de entrada
+    private long quantidadeSaidas;     // número de movimentações de saída
+    private long totalEntradas;        // soma das quantidades de entrada
+    private long totalSaidas;          // soma das quantidades de saída
+}
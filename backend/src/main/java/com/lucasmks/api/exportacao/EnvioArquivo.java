@@ -0,0 +1,142 @@
+package com.lucasmks.api.exportacao;
+
+import org.eclipse.jetty.server.HttpOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Entrega um arquivo do spool sem passar o conteúdo pelo heap e sem prender a thread da requisição.
+// No Jetty, regiões do arquivo mapeadas em memória são entregues ao HttpOutput com escrita não
+// bloqueante (Servlet 3.1): o socket lê direto das páginas do arquivo e a thread da requisição
+// volta ao pool assim que o envio começa. Fora do Jetty o envio usa FileChannel.transferTo.
+public final class EnvioArquivo implements WriteListener, AsyncListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvioArquivo.class);
+
+    // Um mapeamento não passa de 2 GB; arquivos maiores são enviados em várias regiões
+    private static final long REGIAO_BYTES = 64L * 1024 * 1024;
+
+    private final FileChannel canal;
+    private final long tamanho;
+    private final HttpOutput saida;
+    private final AsyncContext contexto;
+
+    private long posicao;
+
+    private EnvioArquivo(FileChannel canal, long tamanho, HttpOutput saida, AsyncContext contexto) {
+        this.canal = canal;
+        this.tamanho = tamanho;
+        this.saida = saida;
+        this.contexto = contexto;
+    }
+
+    // Define Content-Type, Content-Length e Content-Disposition e inicia o envio.
+    // Ao retornar, a resposta já está comprometida: o Spark não escreve mais nada nela.
+    public static void enviar(Path arquivo, String contentType, String nomeArquivo,
+                              HttpServletRequest requisicao, HttpServletResponse resposta) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        try {
+            long tamanho = canal.size();
+            resposta.setStatus(200);
+            resposta.setContentType(contentType);
+            resposta.setContentLengthLong(tamanho);
+            resposta.setHeader("Content-Disposition", "attachment; filename=\"" + nomeArquivo + "\"");
+            ServletOutputStream saida = resposta.getOutputStream();
+            saida.flush(); // envia os cabeçalhos e faz o commit
+
+            if (saida instanceof HttpOutput httpOutput) {
+                AsyncContext contexto = requisicao.startAsync();
+                contexto.setTimeout(0); // o idle timeout do conector continua derrubando clientes parados
+                EnvioArquivo envio = new EnvioArquivo(canal, tamanho, httpOutput, contexto);
+                contexto.addListener(envio);
+                httpOutput.setWriteListener(envio); // o container chama onWritePossible e o envio começa
+                return;
+            }
+            try (canal) {
+                transferir(canal, tamanho, Channels.newChannel(saida));
+            }
+        } catch (IOException | RuntimeException e) {
+            fechar(canal);
+            throw e;
+        }
+    }
+
+    static void transferir(FileChannel canal, long tamanho, WritableByteChannel destino) throws IOException {
+        long posicao = 0;
+        while (posicao < tamanho) {
+            posicao += canal.transferTo(posicao, tamanho - posicao, destino);
+        }
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        while (saida.isReady()) {
+            if (posicao >= tamanho) {
+                fechar(canal);
+                contexto.complete();
+                return;
+            }
+            long bytes = Math.min(REGIAO_BYTES, tamanho - posicao);
+            // Região mapeada: o HttpOutput escreve o buffer sem copiá-lo para o heap
+            saida.write(canal.map(FileChannel.MapMode.READ_ONLY, posicao, bytes));
+            posicao += bytes;
+        }
+    }
+
+    @Override
+    public void onError(Throwable erro) {
+        logger.debug("Envio de arquivo de exportação interrompido: {}", erro.getMessage());
+        encerrar();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent evento) {
+        fechar(canal);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent evento) {
+        encerrar();
+    }
+
+    @Override
+    public void onError(AsyncEvent evento) {
+        encerrar();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent evento) {
+        // não usado
+    }
+
+    private void encerrar() {
+        fechar(canal);
+        try {
+            contexto.complete();
+        } catch (IllegalStateException e) {
+            // contexto já completado pelo container
+        }
+    }
+
+    private static void fechar(FileChannel canal) {
+        try {
+            canal.close();
+        } catch (IOException e) {
+            logger.warn("Erro ao fechar arquivo de exportação: {}", e.getMessage());
+        }
+    }
+}
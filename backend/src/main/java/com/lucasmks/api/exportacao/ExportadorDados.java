@@ -0,0 +1,213 @@
+package com.lucasmks.api.exportacao;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lucasmks.api.mapper.MovimentacaoApiMapper;
+import com.lucasmks.api.mapper.ProdutoApiMapper;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.usecase.ExportarDadosUseCase;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+// Escreve uma exportação em CSV ou NDJSON à medida que os registros saem do repositório:
+// nada além do buffer de escrita fica em memória, seja qual for o tamanho do histórico.
+// O CSV de produtos usa as mesmas colunas da importação, então pode ser reimportado.
+public class ExportadorDados {
+
+    private static final int BUFFER_CARACTERES = 64 * 1024;
+
+    static final String CABECALHO_PRODUTOS = "codigoBarras,nome,categoria,quantidade,precoCusto,precoVenda,fornecedor";
+    static final String CABECALHO_MOVIMENTACOES = "codigoBarras,quantidade,tipo,motivo,dataHora";
+
+    private final ExportarDadosUseCase exportarDadosUseCase;
+    private final ObjectMapper objectMapper;
+
+    public ExportadorDados(ExportarDadosUseCase exportarDadosUseCase) {
+        this.exportarDadosUseCase = exportarDadosUseCase;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        // Datas ISO, como no CSV, e nada de flush a cada registro
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.objectMapper.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    // Escreve a exportação inteira na saída (sem fechá-la) e retorna o número de registros
+    public long exportar(PedidoExportacao pedido, OutputStream saida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), BUFFER_CARACTERES);
+        Registro registro = pedido.getFormato() == PedidoExportacao.Formato.CSV
+                ? new RegistroCsv(escritor)
+                : new RegistroNdjson(escritor, objectMapper);
+        long[] registros = {0};
+        try {
+            if (pedido.getTipo() == PedidoExportacao.Tipo.PRODUTOS) {
+                registro.cabecalho(CABECALHO_PRODUTOS);
+                exportarDadosUseCase.exportarProdutos(produto -> {
+                    registro.produto(produto);
+                    registros[0]++;
+                });
+            } else {
+                registro.cabecalho(CABECALHO_MOVIMENTACOES);
+                exportarDadosUseCase.exportarMovimentacoes(pedido.getDataInicio(), pedido.getDataFim(), movimentacao -> {
+                    registro.movimentacao(movimentacao);
+                    registros[0]++;
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        registro.concluir();
+        return registros[0];
+    }
+
+    // Os consumidores do caso de uso não podem lançar IOException; ela atravessa como UncheckedIOException
+    private abstract static class Registro {
+        protected final Writer escritor;
+
+        Registro(Writer escritor) {
+            this.escritor = escritor;
+        }
+
+        abstract void cabecalho(String colunas) throws IOException;
+
+        abstract void produto(Produto produto);
+
+        abstract void movimentacao(Movimentacao movimentacao);
+
+        void concluir() throws IOException {
+            escritor.flush();
+        }
+    }
+
+    private static final class RegistroCsv extends Registro {
+
+        RegistroCsv(Writer escritor) {
+            super(escritor);
+        }
+
+        @Override
+        void cabecalho(String colunas) throws IOException {
+            escritor.write(colunas);
+            escritor.write('\n');
+        }
+
+        @Override
+        void produto(Produto produto) {
+            try {
+                campo(produto.getCodigoBarras());
+                escritor.write(',');
+                campo(produto.getNome());
+                escritor.write(',');
+                campo(produto.getCategoria());
+                escritor.write(',');
+                escritor.write(Integer.toString(produto.getQuantidade()));
+                escritor.write(',');
+                decimal(produto.getPrecoCusto());
+                escritor.write(',');
+                decimal(produto.getPrecoVenda());
+                escritor.write(',');
+                campo(produto.getFornecedor());
+                escritor.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void movimentacao(Movimentacao movimentacao) {
+            try {
+                campo(movimentacao.getCodigoBarras());
+                escritor.write(',');
+                escritor.write(Integer.toString(movimentacao.getQuantidade()));
+                escritor.write(',');
+                campo(movimentacao.getTipo() != null ? movimentacao.getTipo().name() : null);
+                escritor.write(',');
+                campo(movimentacao.getMotivo());
+                escritor.write(',');
+                campo(movimentacao.getDataHora() != null ? movimentacao.getDataHora().toString() : null);
+                escritor.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Aspas apenas quando o valor contém separador, aspas ou quebra de linha
+        private void campo(String valor) throws IOException {
+            if (valor == null) {
+                return;
+            }
+            boolean precisaAspas = false;
+            for (int i = 0; i < valor.length() && !precisaAspas; i++) {
+                char c = valor.charAt(i);
+                precisaAspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!precisaAspas) {
+                escritor.write(valor);
+                return;
+            }
+            escritor.write('"');
+            escritor.write(valor.replace("\"", "\"\""));
+            escritor.write('"');
+        }
+
+        // Sem notação científica (1.0E7), que planilhas e a importação não leriam como preço
+        private void decimal(Double valor) throws IOException {
+            if (valor != null) {
+                escritor.write(BigDecimal.valueOf(valor).toPlainString());
+            }
+        }
+    }
+
+    private static final class RegistroNdjson extends Registro {
+        private final ObjectMapper objectMapper;
+        private final JsonGenerator gerador;
+
+        RegistroNdjson(Writer escritor, ObjectMapper objectMapper) throws IOException {
+            super(escritor);
+            this.objectMapper = objectMapper;
+            this.gerador = objectMapper.getFactory().createGenerator(escritor);
+            // Cada objeto termina com a quebra de linha escrita abaixo, sem o espaço padrão entre valores
+            this.gerador.setRootValueSeparator(null);
+            this.gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        void cabecalho(String colunas) {
+            // NDJSON não tem cabeçalho
+        }
+
+        @Override
+        void produto(Produto produto) {
+            escrever(ProdutoApiMapper.toResponse(produto));
+        }
+
+        @Override
+        void movimentacao(Movimentacao movimentacao) {
+            escrever(MovimentacaoApiMapper.toResponse(movimentacao));
+        }
+
+        private void escrever(Object valor) {
+            try {
+                objectMapper.writeValue(gerador, valor);
+                gerador.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void concluir() throws IOException {
+            gerador.flush();
+            super.concluir();
+        }
+    }
+}
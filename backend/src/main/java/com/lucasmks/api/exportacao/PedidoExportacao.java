@@ -0,0 +1,97 @@
+package com.lucasmks.api.exportacao;
+
+import java.time.LocalDateTime;
+
+import com.lucasmks.domain.usecase.ExportarDadosUseCase;
+
+// O que exportar: tipo de dado, formato e, para movimentações, o período (datas opcionais)
+public final class PedidoExportacao {
+
+    public enum Tipo {
+        PRODUTOS, MOVIMENTACOES;
+
+        // null quando o valor não corresponde a nenhum tipo
+        public static Tipo de(String valor) {
+            if (valor == null) {
+                return null;
+            }
+            for (Tipo tipo : values()) {
+                if (tipo.name().equalsIgnoreCase(valor.trim())) {
+                    return tipo;
+                }
+            }
+            return null;
+        }
+    }
+
+    public enum Formato {
+        CSV("text/csv;charset=utf-8", "csv"),
+        NDJSON("application/x-ndjson;charset=utf-8", "ndjson");
+
+        private final String contentType;
+        private final String extensao;
+
+        Formato(String contentType, String extensao) {
+            this.contentType = contentType;
+            this.extensao = extensao;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtensao() {
+            return extensao;
+        }
+
+        // null quando o valor não corresponde a nenhum formato
+        public static Formato de(String valor) {
+            if (valor == null) {
+                return null;
+            }
+            for (Formato formato : values()) {
+                if (formato.extensao.equalsIgnoreCase(valor.trim())) {
+                    return formato;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Tipo tipo;
+    private final Formato formato;
+    private final LocalDateTime dataInicio;
+    private final LocalDateTime dataFim;
+
+    public PedidoExportacao(Tipo tipo, Formato formato, LocalDateTime dataInicio, LocalDateTime dataFim) {
+        if (tipo == null || formato == null) {
+            throw new IllegalArgumentException("Tipo e formato da exportação são obrigatórios.");
+        }
+        ExportarDadosUseCase.validarPeriodo(dataInicio, dataFim);
+        this.tipo = tipo;
+        this.formato = formato;
+        this.dataInicio = dataInicio;
+        this.dataFim = dataFim;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public Formato getFormato() {
+        return formato;
+    }
+
+    public LocalDateTime getDataInicio() {
+        return dataInicio;
+    }
+
+    public LocalDateTime getDataFim() {
+        return dataFim;
+    }
+
+    // Ex.: movimentacoes.csv
+    public String nomeArquivo() {
+        return tipo.name().toLowerCase() + "." + formato.getExtensao();
+    }
+}
@@ -0,0 +1,206 @@
+package com.lucasmks.api.exportacao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Exportações assíncronas: cada pedido vira uma tarefa que grava o arquivo em disco, fora das
+// threads de requisição; o cliente consulta a tarefa e baixa o arquivo quando ficar pronto.
+// O arquivo é escrito com sufixo ".parcial" e renomeado ao final, então um arquivo com o nome
+// definitivo está sempre completo. Tarefas concluídas expiram após a retenção configurada.
+public class SpoolExportacao implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolExportacao.class);
+
+    private static final String PREFIXO = "exportacao-";
+    private static final String SUFIXO_PARCIAL = ".parcial";
+
+    public enum Situacao { EM_ANDAMENTO, PRONTA, FALHOU }
+
+    private final ExportadorDados exportador;
+    private final Path diretorio;
+    private final int maxPendentes;
+    private final long retencaoMillis;
+    private final Map<String, Tarefa> tarefas = new ConcurrentHashMap<>();
+    private final AtomicInteger pendentes = new AtomicInteger();
+    private final ExecutorService executor;
+    private final ScheduledExecutorService limpeza;
+
+    public SpoolExportacao(ExportadorDados exportador, Path diretorio, int threads, int maxPendentes, long retencaoMinutos) {
+        this.exportador = exportador;
+        this.diretorio = diretorio;
+        this.maxPendentes = maxPendentes;
+        this.retencaoMillis = TimeUnit.MINUTES.toMillis(retencaoMinutos);
+        try {
+            Files.createDirectories(diretorio);
+            removerArquivosAnteriores();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao preparar diretório de exportações " + diretorio + ": " + e.getMessage(), e);
+        }
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "exportacao-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.limpeza = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "exportacao-limpeza");
+            thread.setDaemon(true);
+            return thread;
+        });
+        limpeza.scheduleWithFixedDelay(this::removerExpiradas, 1, 1, TimeUnit.MINUTES);
+    }
+
+    // Enfileira a exportação; retorna null quando já há maxPendentes tarefas em andamento
+    public Tarefa iniciar(PedidoExportacao pedido) {
+        if (pendentes.incrementAndGet() > maxPendentes) {
+            pendentes.decrementAndGet();
+            return null;
+        }
+        String id = UUID.randomUUID().toString();
+        Tarefa tarefa = new Tarefa(id, pedido, diretorio.resolve(PREFIXO + id + "." + pedido.getFormato().getExtensao()));
+        tarefas.put(id, tarefa);
+        try {
+            executor.execute(() -> executar(tarefa));
+        } catch (RejectedExecutionException e) {
+            tarefas.remove(id);
+            pendentes.decrementAndGet();
+            throw new IllegalStateException("Exportações assíncronas encerradas.", e);
+        }
+        return tarefa;
+    }
+
+    public Tarefa consultar(String id) {
+        return id == null ? null : tarefas.get(id);
+    }
+
+    private void executar(Tarefa tarefa) {
+        Path parcial = tarefa.arquivo.resolveSibling(tarefa.arquivo.getFileName() + SUFIXO_PARCIAL);
+        try {
+            long registros;
+            try (OutputStream saida = Files.newOutputStream(parcial)) {
+                registros = exportador.exportar(tarefa.pedido, saida);
+            }
+            Files.move(parcial, tarefa.arquivo, StandardCopyOption.ATOMIC_MOVE);
+            tarefa.concluir(registros, Files.size(tarefa.arquivo));
+            logger.info("Exportação {} ({}) pronta: {} registros, {} bytes.",
+                    tarefa.id, tarefa.pedido.nomeArquivo(), registros, tarefa.tamanhoBytes);
+        } catch (Exception e) {
+            logger.error("Erro na exportação {} ({}): {}", tarefa.id, tarefa.pedido.nomeArquivo(), e.getMessage(), e);
+            apagar(parcial);
+            tarefa.falhar(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            pendentes.decrementAndGet();
+        }
+    }
+
+    void removerExpiradas() {
+        long agora = System.currentTimeMillis();
+        tarefas.values().removeIf(tarefa -> {
+            if (tarefa.situacao == Situacao.EM_ANDAMENTO || agora - tarefa.concluidaEm < retencaoMillis) {
+                return false;
+            }
+            apagar(tarefa.arquivo);
+            return true;
+        });
+    }
+
+    // As tarefas só existem em memória: arquivos de um boot anterior não podem mais ser baixados
+    private void removerArquivosAnteriores() throws IOException {
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, PREFIXO + "*")) {
+            for (Path arquivo : arquivos) {
+                apagar(arquivo);
+            }
+        }
+    }
+
+    private static void apagar(Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            logger.warn("Não foi possível apagar o arquivo de exportação {}: {}", arquivo, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        limpeza.shutdownNow();
+    }
+
+    public static final class Tarefa {
+        private final String id;
+        private final PedidoExportacao pedido;
+        private final Path arquivo;
+        private volatile Situacao situacao = Situacao.EM_ANDAMENTO;
+        private volatile long registros;
+        private volatile long tamanhoBytes;
+        private volatile String erro;
+        private volatile long concluidaEm;
+
+        Tarefa(String id, PedidoExportacao pedido, Path arquivo) {
+            this.id = id;
+            this.pedido = pedido;
+            this.arquivo = arquivo;
+        }
+
+        // A situação é gravada por último: quem a lê como PRONTA já enxerga os demais campos
+        void concluir(long registros, long tamanhoBytes) {
+            this.registros = registros;
+            this.tamanhoBytes = tamanhoBytes;
+            this.concluidaEm = System.currentTimeMillis();
+            this.situacao = Situacao.PRONTA;
+        }
+
+        void falhar(String erro) {
+            this.erro = erro;
+            this.concluidaEm = System.currentTimeMillis();
+            this.situacao = Situacao.FALHOU;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public PedidoExportacao getPedido() {
+            return pedido;
+        }
+
+        public Path getArquivo() {
+            return arquivo;
+        }
+
+        public Situacao getSituacao() {
+            return situacao;
+        }
+
+        public long getRegistros() {
+            return registros;
+        }
+
+        public long getTamanhoBytes() {
+            return tamanhoBytes;
+        }
+
+        public String getErro() {
+            return erro;
+        }
+    }
+}
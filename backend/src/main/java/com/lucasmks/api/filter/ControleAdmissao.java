@@ -0,0 +1,130 @@
+package com.lucasmks.api.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lucasmks.api.dto.ApiResponse;
+import com.lucasmks.api.filter.LimiteConcorrenciaAdaptativo.Prioridade;
+import com.lucasmks.infrastructure.config.Configuracao;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.eclipse.jetty.server.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static spark.Spark.*;
+
+// Controle de admissão na frente de todas as rotas. Cada requisição ocupa uma vaga do
+// LimiteConcorrenciaAdaptativo; sem vaga, ou se já esperou demais na fila do Jetty (o cliente
+// provavelmente desistiu), responde 503 com Retry-After na hora, em vez de entrar na fila e
+// estourar o tempo junto com as demais. A latência medida inclui a espera na fila, então uma
+// fila crescendo reduz o limite e as recusas rápidas a esvaziam.
+// Prioridades: consulta de produto por código de barras e entradas/saídas de estoque (ALTA),
+// histórico, exportação e importação (BAIXA), o resto (NORMAL). Health check, preflight CORS
+// e o stream SSE não passam pelo limite.
+public class ControleAdmissao {
+    private static final Logger logger = LoggerFactory.getLogger(ControleAdmissao.class);
+
+    private static final String ATRIBUTO_INICIO = "admissao.inicio";
+    private static final String ATRIBUTO_AMOSTRA = "admissao.amostra";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private static volatile LimiteConcorrenciaAdaptativo limite;
+
+    private ControleAdmissao() {}
+
+    // Deve ser registrado depois do CORS, para que os 503 também levem os cabeçalhos de CORS
+    public static void habilitar(int threadsServidor) {
+        if (!Configuracao.getBoolean("estoque.http.admissao", true)) {
+            logger.info("Controle de admissão desabilitado.");
+            return;
+        }
+        int maximo = Configuracao.getInt("estoque.http.admissao.maximo", threadsServidor);
+        LimiteConcorrenciaAdaptativo novo = new LimiteConcorrenciaAdaptativo(
+                Configuracao.getInt("estoque.http.admissao.inicial", maximo),
+                Configuracao.getInt("estoque.http.admissao.minimo", 2),
+                maximo,
+                Configuracao.getLong("estoque.http.admissao.latencia-alvo-ms", 500),
+                0.9);
+        long esperaMaximaMs = Configuracao.getLong("estoque.http.admissao.espera-max-ms", 2000);
+        String retryAfter = String.valueOf(Configuracao.getInt("estoque.http.admissao.retry-after-segundos", 1));
+
+        before((request, response) -> {
+            Prioridade prioridade = classificar(request.requestMethod(), request.pathInfo());
+            if (prioridade == null) {
+                return;
+            }
+            long esperaFilaMs = esperaNaFilaMs(request.raw());
+            // Requisições de prioridade baixa desistem com metade da espera
+            boolean esperouDemais = esperaFilaMs > (prioridade == Prioridade.BAIXA ? esperaMaximaMs / 2 : esperaMaximaMs);
+            if (esperouDemais) {
+                novo.registrarRejeicao(prioridade);
+            }
+            if (esperouDemais || !novo.tentarAdmitir(prioridade)) {
+                response.type("application/json");
+                response.header("Retry-After", retryAfter);
+                halt(503, json(ApiResponse.error("Servidor sobrecarregado. Tente novamente em instantes.")));
+            }
+            request.attribute(ATRIBUTO_INICIO, System.nanoTime() - esperaFilaMs * 1_000_000L);
+            request.attribute(ATRIBUTO_AMOSTRA, prioridade != Prioridade.BAIXA);
+        });
+
+        // afterAfter roda também quando a rota lança exceção
+        afterAfter((request, response) -> {
+            Long inicio = request.attribute(ATRIBUTO_INICIO);
+            if (inicio != null) {
+                request.raw().removeAttribute(ATRIBUTO_INICIO);
+                novo.concluir(System.nanoTime() - inicio, Boolean.TRUE.equals(request.attribute(ATRIBUTO_AMOSTRA)));
+            }
+        });
+
+        limite = novo;
+        logger.info("Controle de admissão habilitado (limite inicial {}, máximo {}, espera máxima na fila {} ms).",
+                novo.getLimite(), maximo, esperaMaximaMs);
+    }
+
+    // null quando o controle de admissão está desabilitado
+    public static LimiteConcorrenciaAdaptativo getLimite() {
+        return limite;
+    }
+
+    // null para as rotas que não passam pelo limite
+    public static Prioridade classificar(String metodo, String caminho) {
+        if (caminho == null || "OPTIONS".equals(metodo) || caminho.startsWith("/api/health") || caminho.startsWith("/api/stream")) {
+            return null;
+        }
+        if (caminho.startsWith("/api/historico") || caminho.startsWith("/api/exportacao") || caminho.startsWith("/api/produtos/importacao")) {
+            return Prioridade.BAIXA;
+        }
+        if (caminho.startsWith("/api/produtos/")) {
+            String resto = caminho.substring("/api/produtos/".length());
+            int barra = resto.indexOf('/');
+            String acao = barra >= 0 ? resto.substring(barra + 1) : "";
+            boolean consultaPorCodigo = "GET".equals(metodo) && barra < 0 && !resto.equals("busca") && !resto.equals("estoque");
+            boolean movimentacao = "PUT".equals(metodo) && (acao.equals("adicionarEstoque") || acao.equals("removerEstoque"));
+            if (consultaPorCodigo || movimentacao) {
+                return Prioridade.ALTA;
+            }
+        }
+        return Prioridade.NORMAL;
+    }
+
+    // Tempo desde que o Jetty recebeu a requisição até uma thread começar a atendê-la
+    static long esperaNaFilaMs(HttpServletRequest raw) {
+        Request base = Request.getBaseRequest(raw);
+        if (base == null || base.getTimeStamp() <= 0) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - base.getTimeStamp());
+    }
+
+    private static String json(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            return "{\"success\":false,\"message\":\"Servidor sobrecarregado.\"}";
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.lucasmks.api.filter;
+
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Limite de requisições simultâneas ajustado pela latência observada (AIMD): enquanto a
+// latência fica abaixo do alvo e o limite está em uso, ele cresce ~1 a cada "limite" respostas
+// (aditivo); quando passa do alvo, é multiplicado por fatorReducao, no máximo uma vez por
+// intervalo de alvo, para que uma rajada de respostas lentas não o derrube de uma vez.
+// Cada prioridade só é admitida até uma fração do limite: as de prioridade mais baixa são
+// recusadas primeiro e sobra espaço para as mais importantes.
+public class LimiteConcorrenciaAdaptativo {
+
+    public enum Prioridade {
+        ALTA(1.0), NORMAL(0.85), BAIXA(0.6);
+
+        private final double fracaoLimite;
+
+        Prioridade(double fracaoLimite) {
+            this.fracaoLimite = fracaoLimite;
+        }
+    }
+
+    private final int minimo;
+    private final int maximo;
+    private final long alvoNanos;
+    private final double fatorReducao;
+
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private volatile double limite;
+    private long ultimaReducao;
+    private double latenciaMediaNanos;
+
+    private final AtomicLongArray admitidas = new AtomicLongArray(Prioridade.values().length);
+    private final AtomicLongArray rejeitadas = new AtomicLongArray(Prioridade.values().length);
+    private final AtomicLong reducoes = new AtomicLong();
+
+    public LimiteConcorrenciaAdaptativo(int inicial, int minimo, int maximo, long latenciaAlvoMs, double fatorReducao) {
+        if (minimo < 1 || maximo < minimo) {
+            throw new IllegalArgumentException("Limites de concorrência inválidos: mínimo " + minimo + ", máximo " + maximo + ".");
+        }
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.limite = Math.max(minimo, Math.min(maximo, inicial));
+        this.alvoNanos = TimeUnit.MILLISECONDS.toNanos(latenciaAlvoMs);
+        this.fatorReducao = fatorReducao;
+        this.ultimaReducao = System.nanoTime();
+    }
+
+    // true se a requisição pode seguir; nesse caso o chamador deve chamar concluir ao terminar
+    public boolean tentarAdmitir(Prioridade prioridade) {
+        double teto = limite * prioridade.fracaoLimite;
+        while (true) {
+            int atual = emAndamento.get();
+            if (atual + 1 > Math.max(1, teto)) {
+                rejeitadas.incrementAndGet(prioridade.ordinal());
+                return false;
+            }
+            if (emAndamento.compareAndSet(atual, atual + 1)) {
+                admitidas.incrementAndGet(prioridade.ordinal());
+                return true;
+            }
+        }
+    }
+
+    // Recusa contada fora do limite (ex.: requisição que esperou demais na fila do servidor)
+    public void registrarRejeicao(Prioridade prioridade) {
+        rejeitadas.incrementAndGet(prioridade.ordinal());
+    }
+
+    // amostra=false libera a vaga sem usar a latência (respostas longas por natureza, como exportações)
+    public void concluir(long latenciaNanos, boolean amostra) {
+        int emUso = emAndamento.getAndDecrement();
+        if (!amostra) {
+            return;
+        }
+        synchronized (this) {
+            latenciaMediaNanos = latenciaMediaNanos == 0 ? latenciaNanos : latenciaMediaNanos * 0.9 + latenciaNanos * 0.1;
+            long agora = System.nanoTime();
+            if (latenciaNanos > alvoNanos) {
+                if (agora - ultimaReducao >= alvoNanos) {
+                    limite = Math.max(minimo, limite * fatorReducao);
+                    ultimaReducao = agora;
+                    reducoes.incrementAndGet();
+                }
+            } else if (emUso * 2 >= limite) {
+                // Só cresce se o limite atual está sendo usado: ociosidade não prova capacidade
+                limite = Math.min(maximo, limite + 1.0 / limite);
+            }
+        }
+    }
+
+    public int getLimite() {
+        return (int) limite;
+    }
+
+    public int getEmAndamento() {
+        return emAndamento.get();
+    }
+
+    public synchronized Metricas metricas() {
+        Metricas metricas = new Metricas();
+        metricas.setLimite(limite);
+        metricas.setMinimo(minimo);
+        metricas.setMaximo(maximo);
+        metricas.setEmAndamento(emAndamento.get());
+        metricas.setLatenciaAlvoMs(alvoNanos / 1_000_000.0);
+        metricas.setLatenciaMediaMs(latenciaMediaNanos / 1_000_000.0);
+        metricas.setReducoes(reducoes.get());
+        Map<Prioridade, Long> admitidasPorPrioridade = new EnumMap<>(Prioridade.class);
+        Map<Prioridade, Long> rejeitadasPorPrioridade = new EnumMap<>(Prioridade.class);
+        for (Prioridade prioridade : Prioridade.values()) {
+            admitidasPorPrioridade.put(prioridade, admitidas.get(prioridade.ordinal()));
+            rejeitadasPorPrioridade.put(prioridade, rejeitadas.get(prioridade.ordinal()));
+        }
+        metricas.setAdmitidas(admitidasPorPrioridade);
+        metricas.setRejeitadas(rejeitadasPorPrioridade);
+        return metricas;
+    }
+
+    @Data
+    public static class Metricas {
+        private double limite;
+        private int minimo;
+        private int maximo;
+        private int emAndamento;
+        private double latenciaAlvoMs;
+        private double latenciaMediaMs;     // média móvel exponencial das amostras
+        private long reducoes;              // quantas vezes o limite foi reduzido
+        private Map<Prioridade, Long> admitidas;
+        private Map<Prioridade, Long> rejeitadas;
+    }
+}
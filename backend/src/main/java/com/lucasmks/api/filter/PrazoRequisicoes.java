@@ -0,0 +1,126 @@
+package com.lucasmks.api.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lucasmks.api.dto.ApiResponse;
+import com.lucasmks.api.idempotencia.Idempotencia;
+import com.lucasmks.domain.concurrency.Prazo;
+import com.lucasmks.domain.exception.PrazoExcedidoException;
+import com.lucasmks.infrastructure.config.Configuracao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static spark.Spark.*;
+
+// Prazo de cada requisição: o cabeçalho X-Request-Timeout (em ms, limitado a maximoMs) ou o
+// padrão da rota. Conta desde a chegada ao servidor (inclui a espera na fila) e fica aberto
+// como Prazo durante a rota; os repositórios MongoDB o usam como maxTime e param de ler
+// cursores quando ele acaba. Se a rota falhar depois do prazo, a resposta vira 504.
+// Exportação, importação e o stream SSE não têm prazo padrão (só com o cabeçalho).
+public class PrazoRequisicoes {
+    private static final Logger logger = LoggerFactory.getLogger(PrazoRequisicoes.class);
+
+    public static final String CABECALHO = "X-Request-Timeout";
+    private static final String ATRIBUTO_ESCOPO = "prazo.escopo";
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final long padraoMs;
+    private final long historicoMs;
+    private final long maximoMs;
+
+    public PrazoRequisicoes(long padraoMs, long historicoMs, long maximoMs) {
+        this.padraoMs = padraoMs;
+        this.historicoMs = historicoMs;
+        this.maximoMs = maximoMs;
+    }
+
+    public static void habilitar() {
+        if (!Configuracao.getBoolean("estoque.http.prazo", true)) {
+            logger.info("Prazos de requisição desabilitados.");
+            return;
+        }
+        PrazoRequisicoes prazos = new PrazoRequisicoes(
+                Configuracao.getLong("estoque.http.prazo.padrao-ms", 10000),
+                Configuracao.getLong("estoque.http.prazo.historico-ms", 30000),
+                Configuracao.getLong("estoque.http.prazo.maximo-ms", 60000));
+
+        before((request, response) -> {
+            Long prazoMs;
+            try {
+                prazoMs = prazos.prazoMs(request.requestMethod(), request.pathInfo(), request.headers(CABECALHO));
+            } catch (IllegalArgumentException e) {
+                response.type("application/json");
+                halt(400, json(ApiResponse.error(e.getMessage())));
+                return;
+            }
+            if (prazoMs == null) {
+                return;
+            }
+            long fim = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(prazoMs - ControleAdmissao.esperaNaFilaMs(request.raw()));
+            request.attribute(ATRIBUTO_ESCOPO, Prazo.abrirAte(fim));
+        });
+
+        // As rotas capturam as exceções e respondem 500; se o prazo já acabou, a causa foi ele.
+        // Respostas guardadas por chave de idempotência ficam como estão
+        after((request, response) -> {
+            if (request.attribute(ATRIBUTO_ESCOPO) != null && Prazo.expirado() && response.status() >= 500
+                    && request.attribute(Idempotencia.ATRIBUTO_GUARDADA) == null) {
+                responderPrazoExcedido(response);
+            }
+        });
+
+        // afterAfter roda também quando a rota lança exceção: a thread volta ao pool sem prazo
+        afterAfter((request, response) -> {
+            Prazo.Escopo escopo = request.attribute(ATRIBUTO_ESCOPO);
+            if (escopo != null) {
+                request.raw().removeAttribute(ATRIBUTO_ESCOPO);
+                escopo.close();
+            }
+        });
+
+        exception(PrazoExcedidoException.class, (exception, request, response) -> responderPrazoExcedido(response));
+
+        logger.info("Prazos de requisição habilitados (padrão {} ms, histórico {} ms, máximo {} ms).",
+                prazos.padraoMs, prazos.historicoMs, prazos.maximoMs);
+    }
+
+    // Prazo em ms para a requisição, ou null sem prazo; cabeçalho inválido lança IllegalArgumentException
+    public Long prazoMs(String metodo, String caminho, String cabecalho) {
+        if (cabecalho != null && !cabecalho.isBlank()) {
+            long pedido;
+            try {
+                pedido = Long.parseLong(cabecalho.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(CABECALHO + " deve ser um número de milissegundos: " + cabecalho);
+            }
+            if (pedido <= 0) {
+                throw new IllegalArgumentException(CABECALHO + " deve ser maior que zero.");
+            }
+            return Math.min(pedido, maximoMs);
+        }
+        if (caminho == null || "OPTIONS".equals(metodo) || caminho.startsWith("/api/stream")
+                || caminho.startsWith("/api/exportacao") || caminho.startsWith("/api/produtos/importacao")) {
+            return null;
+        }
+        long prazo = caminho.startsWith("/api/historico") ? historicoMs : padraoMs;
+        return prazo > 0 ? prazo : null;
+    }
+
+    private static void responderPrazoExcedido(spark.Response response) {
+        response.status(504);
+        response.type("application/json");
+        response.body(json(ApiResponse.error("Tempo limite da requisição excedido.")));
+    }
+
+    private static String json(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            return "{\"success\":false,\"message\":\"Tempo limite da requisição excedido.\"}";
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.lucasmks.api.filter;
+
+import spark.Request;
+import spark.Response;
+
+// GET condicional: a ETag é montada a partir dos contadores de versão, sem consultar o banco.
+// Se o If-None-Match do cliente contém a ETag atual, a rota responde 304 sem corpo.
+public class RespostaCondicional {
+
+    private RespostaCondicional() {}
+
+    public static String etag(String... partes) {
+        return "\"" + String.join("-", partes) + "\"";
+    }
+
+    // Define ETag e Cache-Control e retorna true quando a rota deve responder 304.
+    // A ETag deve ser calculada antes de ler os dados: se uma escrita ocorrer no meio,
+    // o cliente recebe dados novos com a ETag antiga e apenas busca de novo no próximo ciclo.
+    public static boolean naoModificado(Request request, Response response, String etag) {
+        response.header("ETag", etag);
+        // O cliente pode guardar a resposta, mas precisa revalidar a cada uso
+        response.header("Cache-Control", "no-cache");
+
+        String ifNoneMatch = request.headers("If-None-Match");
+        if (ifNoneMatch == null || !contem(ifNoneMatch, etag)) {
+            return false;
+        }
+        response.status(304);
+        return true;
+    }
+
+    // Versão persistida esperada pelo If-Match, extraída do sufixo "-v<versão>" da ETag do produto.
+    // Retorna null sem o cabeçalho ou com "*", e -1 quando a ETag não é deste servidor
+    // (nunca casa com uma versão real e resulta em 412).
+    public static Long versaoIfMatch(Request request) {
+        String ifMatch = request.headers("If-Match");
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String valor = ifMatch.split(",")[0].trim();
+        if (valor.startsWith("W/")) {
+            valor = valor.substring(2);
+        }
+        valor = valor.replace("\"", "");
+        int sufixo = valor.indexOf("--"); // ex.: "--gzip", acrescentado pelo GzipHandler
+        if (sufixo >= 0) {
+            valor = valor.substring(0, sufixo);
+        }
+        int indice = valor.lastIndexOf("-v");
+        try {
+            return indice >= 0 ? Long.parseLong(valor.substring(indice + 2)) : -1L;
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    // If-None-Match usa comparação fraca: "W/" é ignorado e "*" casa com qualquer ETag
+    private static boolean contem(String ifNoneMatch, String etag) {
+        for (String candidata : ifNoneMatch.split(",")) {
+            String valor = candidata.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
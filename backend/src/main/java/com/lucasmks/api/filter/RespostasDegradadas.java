@@ -0,0 +1,66 @@
+package com.lucasmks.api.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lucasmks.api.dto.ApiResponse;
+import com.lucasmks.api.idempotencia.Idempotencia;
+import com.lucasmks.domain.exception.BancoIndisponivelException;
+import com.lucasmks.infrastructure.resilience.Degradacao;
+import com.lucasmks.infrastructure.resilience.Disjuntor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static spark.Spark.*;
+
+// Respostas com o banco indisponível. Dados servidos da cópia em memória saem com
+// X-Dados-Desatualizados: true, o aviso padrão "Warning: 110" e sem cache. BancoIndisponivelException
+// que chega até o Spark vira 503 com Retry-After até a próxima sonda, em vez de um 500 genérico;
+// as rotas de entrada e saída de estoque a relançam, porque o ajuste pode ter sido gravado por
+// outra thread (ajustes combinados). Nas demais rotas, que capturam a exceção e respondem 500, a
+// recusa marcada na thread da requisição (Degradacao) tem o mesmo efeito.
+public class RespostasDegradadas {
+    private static final Logger logger = LoggerFactory.getLogger(RespostasDegradadas.class);
+
+    public static final String CABECALHO = "X-Dados-Desatualizados";
+    private static final String MENSAGEM = "Banco de dados indisponível no momento; tente novamente em instantes.";
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    public static void habilitar(Disjuntor disjuntor) {
+        if (disjuntor == null) {
+            logger.info("Disjuntor do banco desabilitado.");
+            return;
+        }
+
+        // Rotas que capturam as exceções e respondem 500, com a recusa marcada nesta thread
+        // (exceto respostas guardadas por chave de idempotência)
+        after((request, response) -> {
+            if (Degradacao.recusada() && response.status() >= 500 && request.attribute(Idempotencia.ATRIBUTO_GUARDADA) == null) {
+                responderIndisponivel(response, disjuntor);
+            } else if (Degradacao.copiaDesatualizada()) {
+                response.header(CABECALHO, "true");
+                response.header("Warning", "110 - \"Response is Stale\"");
+                response.header("Cache-Control", "no-store");
+            }
+        });
+
+        // afterAfter roda também quando a rota lança exceção: a thread volta ao pool sem marcas
+        afterAfter((request, response) -> Degradacao.limpar());
+
+        exception(BancoIndisponivelException.class, (exception, request, response) -> responderIndisponivel(response, disjuntor));
+
+        logger.info("Respostas degradadas habilitadas (disjuntor do banco).");
+    }
+
+    private static void responderIndisponivel(spark.Response response, Disjuntor disjuntor) {
+        response.status(503);
+        response.header("Retry-After", String.valueOf(Math.max(1, disjuntor.segundosParaSonda())));
+        response.type("application/json");
+        try {
+            response.body(objectMapper.writeValueAsString(ApiResponse.error(MENSAGEM)));
+        } catch (JsonProcessingException e) {
+            response.body("{\"success\":false,\"message\":\"" + MENSAGEM + "\"}");
+        }
+    }
+}
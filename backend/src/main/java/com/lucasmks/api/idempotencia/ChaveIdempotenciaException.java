@@ -0,0 +1,17 @@
+package com.lucasmks.api.idempotencia;
+
+// Requisição com Idempotency-Key que não pode ser atendida: chave inválida (400), chave ainda
+// em andamento em outro nó (409) ou reutilizada com outro pedido (422)
+public class ChaveIdempotenciaException extends RuntimeException {
+
+    private final int status;
+
+    public ChaveIdempotenciaException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,267 @@
+package com.lucasmks.api.idempotencia;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.lucasmks.api.dto.ApiResponse;
+import com.lucasmks.domain.concurrency.EscritaIniciada;
+import com.lucasmks.domain.model.RespostaIdempotente;
+import com.lucasmks.domain.repository.IdempotenciaRepository;
+import com.lucasmks.infrastructure.config.Configuracao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Executa uma requisição de escrita no máximo uma vez por Idempotency-Key. A primeira
+// requisição com a chave reserva a chave no repositório (vale entre nós), executa e guarda
+// status e corpo da resposta; repetições recebem a resposta guardada sem executar de novo.
+// Duplicatas simultâneas no mesmo nó esperam a original; em outro nó, consultam o
+// repositório até a resposta aparecer (ou respondem 409 após esperaMs).
+// O destino da chave numa falha depende de o saldo poder ter mudado (EscritaIniciada). Antes
+// do ajuste (erro numa leitura, prazo vencido, banco recusado), a chave é liberada na hora e
+// nada é guardado: a repetição executa de novo. Depois do ajuste (por exemplo, a movimentação
+// falhou), uma nova execução repetiria o ajuste: a falha é guardada pelo TTL inteiro como 500,
+// inclusive quando a ação lança exceção, e nunca como 503/504, que pedem para repetir.
+// As respostas mais recentes ficam também em memória (até maxMemoria, pelo mesmo TTL).
+public class Idempotencia {
+
+    private static final Logger logger = LoggerFactory.getLogger(Idempotencia.class);
+
+    public static final String CABECALHO = "Idempotency-Key";
+    public static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+    // Atributo da requisição cuja resposta foi guardada: os filtros não a reescrevem (504, 503)
+    public static final String ATRIBUTO_GUARDADA = "idempotencia.guardada";
+    private static final long INTERVALO_CONSULTA_MS = 50;
+    private static final String FALHA_DEPOIS_DA_ESCRITA = corpoErro(
+            "O estoque pode ter sido ajustado, mas a operação não foi concluída. Confira o estoque antes de repetir com uma nova Idempotency-Key.");
+
+    private final IdempotenciaRepository repositorio;
+    private final Duration ttl;
+    private final Duration reserva;
+    private final long esperaMs;
+    private final Map<String, RespostaIdempotente> memoria;
+    private final ConcurrentHashMap<String, CompletableFuture<RespostaIdempotente>> emAndamento = new ConcurrentHashMap<>();
+
+    // reserva: quanto tempo a chave fica presa a uma execução que não terminou (nó caiu no meio)
+    public Idempotencia(IdempotenciaRepository repositorio, Duration ttl, Duration reserva, int maxMemoria, long esperaMs) {
+        this.repositorio = repositorio;
+        this.ttl = ttl;
+        this.reserva = reserva;
+        this.esperaMs = esperaMs;
+        int limite = Math.max(1, maxMemoria);
+        this.memoria = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RespostaIdempotente> maisAntiga) {
+                return size() > limite;
+            }
+        });
+    }
+
+    // Chaves estoque.idempotencia.*; usada pelas rotas REST e pelo canal do scanner
+    public static Idempotencia daConfiguracao(IdempotenciaRepository repositorio) {
+        return new Idempotencia(repositorio,
+                Duration.ofHours(Configuracao.getLong("estoque.idempotencia.ttl-horas", 24)),
+                Duration.ofSeconds(Configuracao.getLong("estoque.idempotencia.reserva-segundos", 60)),
+                Configuracao.getInt("estoque.idempotencia.memoria-max", 10000),
+                Configuracao.getLong("estoque.idempotencia.espera-ms", 10000));
+    }
+
+    // acao devolve status e corpo da resposta (os demais campos são preenchidos aqui)
+    public Resultado executar(String chave, String impressao, Supplier<RespostaIdempotente> acao) {
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new ChaveIdempotenciaException(400, "Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres.");
+        }
+        RespostaIdempotente guardada = daMemoria(chave);
+        if (guardada != null) {
+            return repetida(guardada, impressao);
+        }
+
+        CompletableFuture<RespostaIdempotente> minha = new CompletableFuture<>();
+        CompletableFuture<RespostaIdempotente> original = emAndamento.putIfAbsent(chave, minha);
+        if (original != null) {
+            return repetida(aguardar(original), impressao);
+        }
+        try {
+            Resultado resultado = executarUmaVez(chave, impressao, acao);
+            minha.complete(resultado.getResposta());
+            return resultado;
+        } catch (RuntimeException e) {
+            minha.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chave, minha);
+        }
+    }
+
+    private Resultado executarUmaVez(String chave, String impressao, Supplier<RespostaIdempotente> acao) {
+        RespostaIdempotente reservaChave = new RespostaIdempotente(chave, impressao, 0, null, false, LocalDateTime.now().plus(reserva));
+        while (true) {
+            Optional<RespostaIdempotente> existente = repositorio.buscar(chave);
+            if (existente.isPresent() && existente.get().isConcluida()) {
+                guardarNaMemoria(existente.get());
+                return repetida(existente.get(), impressao);
+            }
+            if (existente.isEmpty() && repositorio.reservar(reservaChave)) {
+                break;
+            }
+            // Outro nó está executando: espera a resposta dele ou o vencimento da reserva
+            RespostaIdempotente deOutroNo = aguardarOutroNo(chave);
+            if (deOutroNo != null) {
+                guardarNaMemoria(deOutroNo);
+                return repetida(deOutroNo, impressao);
+            }
+        }
+
+        RespostaIdempotente resposta;
+        boolean escrita;
+        EscritaIniciada.limpar();
+        try {
+            resposta = acao.get();
+            escrita = EscritaIniciada.marcada();
+        } catch (RuntimeException e) {
+            if (!EscritaIniciada.marcada()) {
+                liberar(chave);
+                throw e;
+            }
+            logger.error("Erro depois do ajuste do saldo na requisição com a chave de idempotência {}: {}", chave, e.getMessage());
+            resposta = new RespostaIdempotente(null, null, 500, FALHA_DEPOIS_DA_ESCRITA, false, null);
+            escrita = true;
+        } finally {
+            EscritaIniciada.limpar();
+        }
+        resposta.setChave(chave);
+        resposta.setImpressao(impressao);
+        if (resposta.getStatus() >= 500) {
+            if (!escrita) {
+                // Nada mudou: a resposta sai como está e a retentativa executa de novo
+                liberar(chave);
+                return new Resultado(resposta, false);
+            }
+            if (resposta.getStatus() == 503 || resposta.getStatus() == 504) {
+                resposta.setStatus(500);
+            }
+        }
+        resposta.setConcluida(true);
+        resposta.setExpiraEm(LocalDateTime.now().plus(ttl));
+        guardarNaMemoria(resposta);
+        try {
+            repositorio.concluir(resposta);
+        } catch (RuntimeException e) {
+            // A escrita já aconteceu; só outros nós deixam de reconhecer a repetição
+            logger.error("Erro ao guardar a resposta da chave de idempotência {}: {}", chave, e.getMessage());
+        }
+        return new Resultado(resposta, false);
+    }
+
+    private void liberar(String chave) {
+        try {
+            repositorio.liberar(chave);
+        } catch (RuntimeException e) {
+            // A reserva vence sozinha; até lá as repetições recebem 409
+            logger.error("Erro ao liberar a chave de idempotência {}: {}", chave, e.getMessage());
+        }
+    }
+
+    // Resposta concluída por outro nó, ou null se a reserva venceu
+    private RespostaIdempotente aguardarOutroNo(String chave) {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        while (System.nanoTime() < limite) {
+            try {
+                Thread.sleep(INTERVALO_CONSULTA_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            Optional<RespostaIdempotente> atual = repositorio.buscar(chave);
+            if (atual.isEmpty()) {
+                return null;
+            }
+            if (atual.get().isConcluida()) {
+                return atual.get();
+            }
+        }
+        throw new ChaveIdempotenciaException(409, "Requisição com a chave " + chave + " ainda em andamento. Tente novamente.");
+    }
+
+    private RespostaIdempotente aguardar(CompletableFuture<RespostaIdempotente> original) {
+        try {
+            return original.get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ChaveIdempotenciaException(409, "Requisição com esta chave ainda em andamento. Tente novamente.");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException erro ? erro : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando requisição com a mesma chave.", e);
+        }
+    }
+
+    private Resultado repetida(RespostaIdempotente guardada, String impressao) {
+        if (!guardada.getImpressao().equals(impressao)) {
+            throw new ChaveIdempotenciaException(422, "Idempotency-Key " + guardada.getChave() + " já foi usada em outra requisição.");
+        }
+        return new Resultado(guardada, true);
+    }
+
+    private RespostaIdempotente daMemoria(String chave) {
+        RespostaIdempotente resposta = memoria.get(chave);
+        if (resposta != null && !resposta.getExpiraEm().isAfter(LocalDateTime.now())) {
+            memoria.remove(chave);
+            return null;
+        }
+        return resposta;
+    }
+
+    private void guardarNaMemoria(RespostaIdempotente resposta) {
+        memoria.put(resposta.getChave(), resposta);
+    }
+
+    // Resumo (SHA-256) das partes que identificam o pedido: método, rota e corpo
+    public static String impressao(String... partes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String parte : partes) {
+                digest.update((parte == null ? "" : parte).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String corpoErro(String mensagem) {
+        try {
+            return new ObjectMapper().registerModule(new JavaTimeModule()).writeValueAsString(ApiResponse.error(mensagem));
+        } catch (JsonProcessingException e) {
+            return "{\"success\":false,\"message\":\"" + mensagem + "\"}";
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Resultado {
+        private final RespostaIdempotente resposta;
+        private final boolean repetida;     // true quando a resposta veio de uma execução anterior
+    }
+}
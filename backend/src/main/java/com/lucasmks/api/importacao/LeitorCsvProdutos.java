@@ -0,0 +1,150 @@
+package com.lucasmks.api.importacao;
+
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.lucasmks.domain.model.LinhaImportacao;
+import com.lucasmks.domain.model.Produto;
+
+// CSV com cabeçalho na primeira linha (nomes dos campos do produto, em qualquer ordem).
+// O separador é "," ou ";", detectado pelo cabeçalho; campos entre aspas podem conter o
+// separador, aspas duplicadas ("") e quebras de linha. Decimais aceitam vírgula ("5,90").
+public class LeitorCsvProdutos extends LeitorImportacao {
+
+    private static final String[] CAMPOS = {
+        "codigoBarras", "nome", "categoria", "quantidade", "precoCusto", "precoVenda", "fornecedor"
+    };
+
+    private final char separador;
+    private final Map<String, Integer> colunas = new HashMap<>();
+
+    public LeitorCsvProdutos(BufferedReader leitor) {
+        super(leitor);
+        String cabecalho = lerLinha();
+        if (cabecalho == null || cabecalho.isBlank()) {
+            throw new IllegalArgumentException("Arquivo CSV vazio: o cabeçalho é obrigatório.");
+        }
+        if (cabecalho.startsWith("\uFEFF")) { // BOM do Excel
+            cabecalho = cabecalho.substring(1);
+        }
+        this.separador = cabecalho.indexOf(';') >= 0 ? ';' : ',';
+
+        List<String> nomes = dividir(cabecalho);
+        for (int i = 0; i < nomes.size(); i++) {
+            String nome = nomes.get(i).trim().toLowerCase(Locale.ROOT);
+            for (String campo : CAMPOS) {
+                if (campo.toLowerCase(Locale.ROOT).equals(nome)) {
+                    colunas.put(campo, i);
+                }
+            }
+        }
+        if (!colunas.containsKey("codigoBarras") || !colunas.containsKey("nome")) {
+            throw new IllegalArgumentException("Cabeçalho do CSV deve conter as colunas codigoBarras e nome.");
+        }
+    }
+
+    @Override
+    protected LinhaImportacao converter(String texto, long linha) {
+        List<String> valores;
+        try {
+            valores = dividirRegistro(texto);
+        } catch (IllegalArgumentException e) {
+            return LinhaImportacao.erro(linha, null, e.getMessage());
+        }
+        String codigoBarras = valor(valores, "codigoBarras");
+        try {
+            Produto produto = new Produto(
+                codigoBarras,
+                valor(valores, "nome"),
+                valor(valores, "categoria"),
+                inteiro(valor(valores, "quantidade")),
+                decimal(valor(valores, "precoCusto")),
+                decimal(valor(valores, "precoVenda")),
+                valor(valores, "fornecedor")
+            );
+            return LinhaImportacao.produto(linha, produto);
+        } catch (NumberFormatException e) {
+            return LinhaImportacao.erro(linha, codigoBarras, "Número inválido: " + e.getMessage());
+        }
+    }
+
+    private String valor(List<String> valores, String campo) {
+        Integer indice = colunas.get(campo);
+        if (indice == null || indice >= valores.size()) {
+            return null;
+        }
+        String valor = valores.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static int inteiro(String valor) {
+        return valor == null ? 0 : Integer.parseInt(valor);
+    }
+
+    private static Double decimal(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        if (valor.indexOf(',') >= 0) {
+            valor = valor.replace(".", "").replace(',', '.'); // 1.234,56
+        }
+        return Double.valueOf(valor);
+    }
+
+    // Um registro pode continuar nas linhas seguintes enquanto houver aspas abertas
+    private List<String> dividirRegistro(String texto) {
+        StringBuilder registro = new StringBuilder(texto);
+        while (aspasAbertas(registro)) {
+            String continuacao = lerLinha();
+            if (continuacao == null) {
+                throw new IllegalArgumentException("Aspas não fechadas até o fim do arquivo.");
+            }
+            registro.append('\n').append(continuacao);
+        }
+        return dividir(registro.toString());
+    }
+
+    private static boolean aspasAbertas(CharSequence texto) {
+        boolean aberta = false;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '"') {
+                aberta = !aberta;
+            }
+        }
+        return aberta;
+    }
+
+    private List<String> dividir(String registro) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < registro.length(); i++) {
+            char c = registro.charAt(i);
+            if (entreAspas) {
+                if (c == '"') {
+                    if (i + 1 < registro.length() && registro.charAt(i + 1) == '"') {
+                        atual.append('"');
+                        i++;
+                    } else {
+                        entreAspas = false;
+                    }
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == separador) {
+                valores.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        valores.add(atual.toString());
+        return valores;
+    }
+}
@@ -0,0 +1,65 @@
+package com.lucasmks.api.importacao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.lucasmks.domain.model.LinhaImportacao;
+
+// Base dos leitores de importação: percorre o arquivo linha a linha, sem carregá-lo,
+// e entrega cada registro já convertido. Falhas de leitura saem como UncheckedIOException.
+public abstract class LeitorImportacao implements Iterator<LinhaImportacao> {
+
+    private final BufferedReader leitor;
+    private long numeroLinha;
+    private LinhaImportacao proxima;
+    private boolean fim;
+
+    protected LeitorImportacao(BufferedReader leitor) {
+        this.leitor = leitor;
+    }
+
+    // Converte o registro que começa na linha informada; pode consumir mais linhas
+    protected abstract LinhaImportacao converter(String texto, long linha);
+
+    protected String lerLinha() {
+        try {
+            String texto = leitor.readLine();
+            if (texto != null) {
+                numeroLinha++;
+            }
+            return texto;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected long getNumeroLinha() {
+        return numeroLinha;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (proxima == null && !fim) {
+            String texto = lerLinha();
+            if (texto == null) {
+                fim = true;
+            } else if (!texto.isBlank()) {
+                proxima = converter(texto, numeroLinha);
+            }
+        }
+        return proxima != null;
+    }
+
+    @Override
+    public LinhaImportacao next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        LinhaImportacao linha = proxima;
+        proxima = null;
+        return linha;
+    }
+}
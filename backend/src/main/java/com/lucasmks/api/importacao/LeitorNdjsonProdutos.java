@@ -0,0 +1,35 @@
+package com.lucasmks.api.importacao;
+
+import java.io.BufferedReader;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucasmks.api.dto.ProdutoRequest;
+import com.lucasmks.api.mapper.ProdutoApiMapper;
+import com.lucasmks.domain.model.LinhaImportacao;
+
+// NDJSON: um objeto JSON por linha, com os mesmos campos do POST /api/produtos
+public class LeitorNdjsonProdutos extends LeitorImportacao {
+
+    private final ObjectMapper objectMapper;
+
+    public LeitorNdjsonProdutos(BufferedReader leitor, ObjectMapper objectMapper) {
+        super(leitor);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected LinhaImportacao converter(String texto, long linha) {
+        String codigoBarras = null;
+        try {
+            JsonNode json = objectMapper.readTree(texto);
+            if (json.hasNonNull("codigoBarras")) {
+                codigoBarras = json.get("codigoBarras").asText();
+            }
+            ProdutoRequest request = objectMapper.treeToValue(json, ProdutoRequest.class);
+            return LinhaImportacao.produto(linha, ProdutoApiMapper.toDomain(request));
+        } catch (Exception e) {
+            return LinhaImportacao.erro(linha, codigoBarras, "JSON inválido: " + e.getMessage());
+        }
+    }
+}
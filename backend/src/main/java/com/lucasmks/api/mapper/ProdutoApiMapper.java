@@ -1,12 +1,20 @@
 package com.lucasmks.api.mapper;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.lucasmks.api.dto.EditarProdutoRequest;
+import com.lucasmks.api.dto.PaginaProdutosResponse;
 import com.lucasmks.api.dto.ProdutoRequest;
 import com.lucasmks.api.dto.ProdutoResponse;
+import com.lucasmks.api.dto.ResultadoImportacaoResponse;
+import com.lucasmks.domain.model.FiltroProdutos;
+import com.lucasmks.domain.model.Pagina;
 import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.ResultadoImportacao;
 
 public class ProdutoApiMapper {
     
@@ -38,7 +46,8 @@ public class ProdutoApiMapper {
             produto.getQuantidade(),
             produto.getPrecoCusto(),
             produto.getPrecoVenda(),
-            produto.getFornecedor()
+            produto.getFornecedor(),
+            produto.getVersao()
         );
     }
 
@@ -51,6 +60,41 @@ public class ProdutoApiMapper {
                 .collect(Collectors.toList());
     }
     
+    public static PaginaProdutosResponse toPaginaResponse(Pagina<Produto> pagina, FiltroProdutos filtro) {
+        boolean projetar = filtro.getCampos() != null && !filtro.getCampos().isEmpty();
+        List<Object> itens = new ArrayList<>(pagina.getItens().size());
+        for (Produto produto : pagina.getItens()) {
+            itens.add(projetar ? toMapaCampos(produto, filtro.getCampos()) : toResponse(produto));
+        }
+        return new PaginaProdutosResponse(
+            itens,
+            pagina.getTotal(),
+            pagina.getEstrategiaTotal().name(),
+            filtro.usaCursor() ? null : filtro.getPagina(),
+            filtro.getTamanhoPagina(),
+            pagina.isTemProxima(),
+            pagina.getProximoCursor()
+        );
+    }
+
+    // Apenas os campos pedidos, sempre com o código de barras
+    private static Map<String, Object> toMapaCampos(Produto produto, List<String> campos) {
+        Map<String, Object> mapa = new LinkedHashMap<>();
+        mapa.put("codigoBarras", produto.getCodigoBarras());
+        for (String campo : campos) {
+            switch (campo) {
+                case "nome" -> mapa.put(campo, produto.getNome());
+                case "categoria" -> mapa.put(campo, produto.getCategoria());
+                case "quantidade" -> mapa.put(campo, produto.getQuantidade());
+                case "precoCusto" -> mapa.put(campo, produto.getPrecoCusto());
+                case "precoVenda" -> mapa.put(campo, produto.getPrecoVenda());
+                case "fornecedor" -> mapa.put(campo, produto.getFornecedor());
+                default -> { }
+            }
+        }
+        return mapa;
+    }
+
     public static Produto toDomainFromEditRequest(String codigoBarras, EditarProdutoRequest request) {
         if (request == null) {
             return null;
@@ -66,4 +110,20 @@ public class ProdutoApiMapper {
             request.getFornecedor()
         );
     }
-}
\ No newline at end of file
+
+    public static ResultadoImportacaoResponse toResultadoImportacaoResponse(ResultadoImportacao resultado) {
+        List<ResultadoImportacaoResponse.ErroLinhaResponse> erros = resultado.getErros().stream()
+                .map(e -> new ResultadoImportacaoResponse.ErroLinhaResponse(e.getLinha(), e.getCodigoBarras(), e.getMensagem()))
+                .collect(Collectors.toList());
+        return new ResultadoImportacaoResponse(
+            resultado.getLinhas(),
+            resultado.getInseridos(),
+            resultado.getAtualizados(),
+            resultado.getIgnorados(),
+            resultado.getRejeitados(),
+            erros,
+            resultado.getErrosOmitidos(),
+            resultado.getInterrupcao()
+        );
+    }
+}
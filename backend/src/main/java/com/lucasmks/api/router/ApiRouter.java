@@ -4,9 +4,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.lucasmks.api.controller.DashboardController;
+import com.lucasmks.api.controller.ExportacaoController;
 import com.lucasmks.api.controller.HealthController;
 import com.lucasmks.api.controller.HistoricoMovimentacaoController;
+import com.lucasmks.api.controller.MotivoController;
 import com.lucasmks.api.controller.ProdutoController;
+import com.lucasmks.api.controller.StreamController;
 
 public class ApiRouter {
     private static final Logger logger = LoggerFactory.getLogger(ApiRouter.class);
@@ -18,7 +21,10 @@ public class ApiRouter {
         new HealthController().setupRoutes();
         new ProdutoController().setupRoutes();
         new HistoricoMovimentacaoController().setupRoutes();
+        new MotivoController().setupRoutes();
         new DashboardController().setupRoutes();
+        new StreamController().setupRoutes();
+        new ExportacaoController().setupRoutes();
 
         logger.info("Todas as rotas da API configuradas.");
     }
@@ -0,0 +1,41 @@
+package com.lucasmks.api.service;
+
+import com.lucasmks.api.dto.AnaliseMovimentacaoDTO;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.infrastructure.analytics.MovimentacaoColunarStore;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Consultas analíticas do histórico servidas pelo store colunar em memória,
+// sem materializar objetos Movimentacao.
+public class AnaliseMovimentacaoService {
+
+    private final MovimentacaoColunarStore store;
+
+    public AnaliseMovimentacaoService(MovimentacaoColunarStore store) {
+        this.store = store;
+    }
+
+    public boolean isDisponivel() {
+        return store != null;
+    }
+
+    public AnaliseMovimentacaoDTO analisarPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim) {
+        return new AnaliseMovimentacaoDTO(
+                store.contar(dataInicio, dataFim, TipoMovimentacao.ENTRADA),
+                store.contar(dataInicio, dataFim, TipoMovimentacao.SAIDA),
+                store.somarQuantidade(dataInicio, dataFim, TipoMovimentacao.ENTRADA),
+                store.somarQuantidade(dataInicio, dataFim, TipoMovimentacao.SAIDA),
+                store.somarPorMotivo(dataInicio, dataFim, TipoMovimentacao.ENTRADA),
+                store.somarPorMotivo(dataInicio, dataFim, TipoMovimentacao.SAIDA));
+    }
+
+    public Map<String, Long> totaisPorProduto(String codigoBarras) {
+        Map<String, Long> totais = new LinkedHashMap<>();
+        totais.put("entradas", store.somarPorProduto(codigoBarras, TipoMovimentacao.ENTRADA));
+        totais.put("saidas", store.somarPorProduto(codigoBarras, TipoMovimentacao.SAIDA));
+        return totais;
+    }
+}
@@ -1,10 +1,12 @@
 package com.lucasmks.api.service;
 
 import com.lucasmks.api.dto.DashboardStatsDTO;
-import com.lucasmks.domain.model.Movimentacao;
 import com.lucasmks.domain.model.TipoMovimentacao;
 import com.lucasmks.infrastructure.database.MongoConnection;
+import com.lucasmks.infrastructure.database.PrazoMongo;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.Accumulators;
 import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
@@ -14,22 +16,25 @@ import org.bson.conversions.Bson;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class DashboardService {
 
     private final MongoCollection<Document> produtoCollection;
-    private final MongoCollection<Movimentacao> movimentacaoCollection;
+    private final MongoDatabase database;
+    private final LayoutMovimentacoes layoutMovimentacoes;
     private static final int LIMITE_ESTOQUE_BAIXO = 10;
 
     public DashboardService() {
         this.produtoCollection = MongoConnection.getDatabase().getCollection("produtos");
-        this.movimentacaoCollection = MongoConnection.getDatabase().getCollection("movimentacoes", Movimentacao.class);
+        this.database = MongoConnection.getDatabase();
+        this.layoutMovimentacoes = LayoutMovimentacoes.configurado();
     }
 
     public DashboardStatsDTO getDashboardStats() {
-        long totalProdutos = produtoCollection.countDocuments();
-        long estoqueBaixo = produtoCollection.countDocuments(Filters.lte("quantidade", LIMITE_ESTOQUE_BAIXO));
+        long totalProdutos = produtoCollection.countDocuments(new Document(), PrazoMongo.contagem());
+        long estoqueBaixo = produtoCollection.countDocuments(Filters.lte("quantidade", LIMITE_ESTOQUE_BAIXO), PrazoMongo.contagem());
         double valorEstoqueCusto = calcularValorTotalEstoque();
         Map<String, Long> ultimas24h = getMovimentacoesUltimas24h();
 
@@ -40,16 +45,25 @@ public class DashboardService {
         Bson groupStage = Aggregates.group(null,
                 Accumulators.sum("totalValue", new Document("$multiply", Arrays.asList("$quantidade", "$precoCusto"))));
 
-        Document result = produtoCollection.aggregate(Arrays.asList(groupStage)).first();
+        Document result = PrazoMongo.aplicar(produtoCollection.aggregate(Arrays.asList(groupStage))).first();
         return result != null ? result.getDouble("totalValue") : 0.0;
     }
 
+    // Uma agregação agrupada por tipo, válida para qualquer layout das movimentações
     private Map<String, Long> getMovimentacoesUltimas24h() {
         LocalDateTime vinteQuatroHorasAtras = LocalDateTime.now().minusHours(24);
-        Bson filter = Filters.gte("dataHora", vinteQuatroHorasAtras);
 
-        long entradas = movimentacaoCollection.countDocuments(Filters.and(filter, Filters.eq("tipo", TipoMovimentacao.ENTRADA.name())));
-        long saidas = movimentacaoCollection.countDocuments(Filters.and(filter, Filters.eq("tipo", TipoMovimentacao.SAIDA.name())));
+        long entradas = 0;
+        long saidas = 0;
+        for (Document grupo : layoutMovimentacoes.agregar(database, vinteQuatroHorasAtras,
+                List.of(Aggregates.group("$tipo", Accumulators.sum("total", 1))))) {
+            long total = grupo.get("total", Number.class).longValue();
+            if (TipoMovimentacao.ENTRADA.name().equals(grupo.getString("_id"))) {
+                entradas = total;
+            } else if (TipoMovimentacao.SAIDA.name().equals(grupo.getString("_id"))) {
+                saidas = total;
+            }
+        }
 
         Map<String, Long> movimentacoes = new HashMap<>();
         movimentacoes.put("entradas", entradas);
@@ -0,0 +1,141 @@
+package com.lucasmks.api.stream;
+
+import org.eclipse.jetty.server.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import java.io.IOException;
+
+// Uma conexão SSE. Não guarda fila própria: só a posição do último evento enviado na janela.
+// drenar() é chamado pelo despachante (novos eventos, heartbeat) e pelo container
+// (onWritePossible, quando uma escrita pendente termina); escreve enquanto o socket aceitar.
+final class AssinanteSse implements WriteListener, AsyncListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssinanteSse.class);
+
+    private static final int LOTE_BYTES = 16 * 1024;
+
+    private final FeedEstoque feed;
+    private final JanelaEventos janela;
+    private final AsyncContext contexto;
+    private final ServletOutputStream saida;
+    private final Request requisicaoBase;
+
+    private long enviado;
+    private boolean heartbeatPendente;
+    private volatile boolean encerrado;
+
+    AssinanteSse(FeedEstoque feed, JanelaEventos janela, AsyncContext contexto, ServletOutputStream saida,
+                 long enviado, Request requisicaoBase) {
+        this.feed = feed;
+        this.janela = janela;
+        this.contexto = contexto;
+        this.saida = saida;
+        this.enviado = enviado;
+        this.requisicaoBase = requisicaoBase;
+    }
+
+    synchronized void marcarHeartbeat() {
+        heartbeatPendente = true;
+    }
+
+    synchronized void drenar() {
+        if (encerrado) {
+            return;
+        }
+        try {
+            // Conexão parada há tanto tempo que os eventos dela já saíram da janela
+            if (enviado < janela.ultimo() && !janela.disponivel(enviado)) {
+                throw new JanelaEventos.Atrasado();
+            }
+            while (saida.isReady()) {
+                JanelaEventos.Lote lote = janela.ler(enviado, LOTE_BYTES);
+                byte[] bytes;
+                if (lote != null) {
+                    bytes = lote.bytes;
+                    enviado = lote.ultimoId;
+                    heartbeatPendente = false;
+                } else if (heartbeatPendente) {
+                    bytes = FeedEstoque.HEARTBEAT;
+                    heartbeatPendente = false;
+                } else {
+                    return;
+                }
+                saida.write(bytes);
+                // Escrita pendente: quando terminar, o container chama onWritePossible
+                if (!saida.isReady()) {
+                    return;
+                }
+                saida.flush();
+            }
+        } catch (JanelaEventos.Atrasado e) {
+            desconectarConsumidorLento();
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Assinante do feed de estoque encerrado: {}", e.getMessage());
+            encerrar();
+        }
+    }
+
+    // Aborta a conexão em vez de tentar completá-la: com o socket cheio, um complete()
+    // ficaria esperando o cliente lento
+    private void desconectarConsumidorLento() {
+        logger.info("Assinante do feed de estoque desconectado por não acompanhar os eventos.");
+        encerrado = true;
+        feed.remover(this);
+        if (requisicaoBase != null) {
+            requisicaoBase.getHttpChannel().abort(new IOException("Consumidor lento"));
+        } else {
+            contexto.complete();
+        }
+    }
+
+    private void encerrar() {
+        if (encerrado) {
+            return;
+        }
+        encerrado = true;
+        feed.remover(this);
+        try {
+            contexto.complete();
+        } catch (IllegalStateException e) {
+            // contexto já completado pelo container
+        }
+    }
+
+    @Override
+    public void onWritePossible() {
+        drenar();
+    }
+
+    @Override
+    public void onError(Throwable erro) {
+        encerrar();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent evento) {
+        encerrado = true;
+        feed.remover(this);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent evento) {
+        encerrar();
+    }
+
+    @Override
+    public void onError(AsyncEvent evento) {
+        encerrar();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent evento) {
+        // não usado
+    }
+}
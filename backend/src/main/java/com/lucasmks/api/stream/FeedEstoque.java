@@ -0,0 +1,188 @@
+package com.lucasmks.api.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucasmks.api.dto.EventoEstoqueDTO;
+import com.lucasmks.domain.event.ProdutoEventListener;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.Produto;
+
+import org.eclipse.jetty.server.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Feed de alterações de estoque por Server-Sent Events.
+// Cada evento dos casos de uso é serializado uma única vez na JanelaEventos; uma thread
+// despacha para os assinantes com escrita não bloqueante (Servlet 3.1), então uma conexão
+// lenta nunca prende uma thread: ela só deixa de receber e, se ficar para trás da janela,
+// é desconectada. Os ids incluem o boot para que um Last-Event-ID antigo não seja confundido.
+public class FeedEstoque implements ProdutoEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedEstoque.class);
+
+    static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final int RECONEXAO_MS = 3000;
+
+    private final String boot = UUID.randomUUID().toString().substring(0, 8);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JanelaEventos janela;
+    private final int maxAssinantes;
+    private final Set<AssinanteSse> assinantes = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService despachante;
+    private final AtomicBoolean despachoAgendado = new AtomicBoolean();
+
+    public FeedEstoque(int capacidadeJanela, long heartbeatSegundos, int maxAssinantes) {
+        this.janela = new JanelaEventos(capacidadeJanela);
+        this.maxAssinantes = maxAssinantes;
+        this.despachante = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "feed-estoque");
+            thread.setDaemon(true);
+            return thread;
+        });
+        despachante.scheduleAtFixedRate(this::heartbeat, heartbeatSegundos, heartbeatSegundos, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void aoCadastrar(Produto produto) {
+        publicar(new EventoEstoqueDTO(produto.getCodigoBarras(), produto.getQuantidade(), "CADASTRO", null));
+    }
+
+    @Override
+    public void aoEditar(Produto produto) {
+        publicar(new EventoEstoqueDTO(produto.getCodigoBarras(), produto.getQuantidade(), "EDICAO", null));
+    }
+
+    @Override
+    public void aoRemover(String codigoBarras) {
+        publicar(new EventoEstoqueDTO(codigoBarras, null, "REMOCAO", null));
+    }
+
+    @Override
+    public void aoMovimentarEstoque(Produto produto, Movimentacao movimentacao) {
+        publicar(new EventoEstoqueDTO(produto.getCodigoBarras(), produto.getQuantidade(),
+                movimentacao.getTipo().name(), movimentacao.getMotivo()));
+    }
+
+    public int assinantes() {
+        return assinantes.size();
+    }
+
+    // Inicia o stream na resposta e a coloca em modo assíncrono; a thread da requisição é liberada
+    // em seguida. Retorna false quando o limite de assinantes foi atingido (nada é escrito).
+    public boolean assinar(HttpServletRequest requisicao, HttpServletResponse resposta, String ultimoIdEvento) throws IOException {
+        if (assinantes.size() >= maxAssinantes) {
+            return false;
+        }
+        long desde = posicaoInicial(ultimoIdEvento);
+
+        resposta.setStatus(200);
+        resposta.setContentType("text/event-stream;charset=utf-8");
+        resposta.setHeader("Cache-Control", "no-cache");
+        resposta.setHeader("X-Accel-Buffering", "no"); // proxies não devem acumular o stream
+        ServletOutputStream saida = resposta.getOutputStream();
+        saida.write(("retry: " + RECONEXAO_MS + "\n\n").getBytes(StandardCharsets.UTF_8));
+        if (desde < 0) {
+            // Last-Event-ID fora da janela ou de outro boot: eventos foram perdidos e o cliente
+            // precisa recarregar os dados; daqui em diante recebe só os novos
+            desde = janela.ultimo();
+            saida.write(quadro(desde, "reset", "{}".getBytes(StandardCharsets.UTF_8)));
+        }
+        saida.flush(); // faz o commit: o Spark não escreve mais nada nesta resposta
+
+        AsyncContext contexto = requisicao.startAsync();
+        contexto.setTimeout(0); // a conexão vive até o cliente sair ou ser desconectado
+        AssinanteSse assinante = new AssinanteSse(this, janela, contexto, saida, desde, Request.getBaseRequest(requisicao));
+        assinantes.add(assinante);
+        contexto.addListener(assinante);
+        saida.setWriteListener(assinante); // o container chama onWritePossible e a reprodução começa
+        return true;
+    }
+
+    // Último id já entregue ao cliente, ou -1 quando não é possível retomar a partir dele
+    long posicaoInicial(String ultimoIdEvento) {
+        if (ultimoIdEvento == null || ultimoIdEvento.isBlank()) {
+            return janela.ultimo();
+        }
+        String valor = ultimoIdEvento.trim();
+        int separador = valor.lastIndexOf('-');
+        if (separador < 0 || !boot.equals(valor.substring(0, separador))) {
+            return -1;
+        }
+        try {
+            long id = Long.parseLong(valor.substring(separador + 1));
+            return janela.disponivel(id) ? id : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    void remover(AssinanteSse assinante) {
+        assinantes.remove(assinante);
+    }
+
+    private void publicar(EventoEstoqueDTO evento) {
+        byte[] dados;
+        try {
+            dados = objectMapper.writeValueAsBytes(evento);
+        } catch (JsonProcessingException e) {
+            logger.error("Erro ao serializar evento de estoque do produto {}: {}", evento.getCodigoBarras(), e.getMessage(), e);
+            return;
+        }
+        janela.publicar(id -> quadro(id, "estoque", dados));
+        agendarDespacho();
+    }
+
+    private byte[] quadro(long id, String evento, byte[] dados) {
+        ByteArrayOutputStream quadro = new ByteArrayOutputStream(dados.length + 48);
+        byte[] cabecalho = ("id: " + boot + "-" + id + "\nevent: " + evento + "\ndata: ").getBytes(StandardCharsets.UTF_8);
+        quadro.write(cabecalho, 0, cabecalho.length);
+        quadro.write(dados, 0, dados.length);
+        quadro.write('\n');
+        quadro.write('\n');
+        return quadro.toByteArray();
+    }
+
+    // Vários eventos seguidos viram um único despacho
+    private void agendarDespacho() {
+        if (assinantes.isEmpty() || !despachoAgendado.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            despachante.execute(this::despachar);
+        } catch (RejectedExecutionException e) {
+            despachoAgendado.set(false);
+        }
+    }
+
+    private void despachar() {
+        despachoAgendado.set(false);
+        for (AssinanteSse assinante : assinantes) {
+            assinante.drenar();
+        }
+    }
+
+    // Mantém proxies e o idle timeout satisfeitos e revela conexões mortas
+    private void heartbeat() {
+        for (AssinanteSse assinante : assinantes) {
+            assinante.marcarHeartbeat();
+            assinante.drenar();
+        }
+    }
+}
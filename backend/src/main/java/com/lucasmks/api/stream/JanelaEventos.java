@@ -0,0 +1,87 @@
+package com.lucasmks.api.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+
+// Janela circular com os últimos quadros SSE já serializados, compartilhada por todos os
+// assinantes: cada um guarda apenas o id do último quadro enviado, não uma fila própria.
+// Um único escritor (publicar é sincronizado) e leitores sem lock; quem ficar
+// "capacidade" eventos ou mais para trás não pode mais ser atendido pela janela.
+public final class JanelaEventos {
+
+    private final int capacidade;
+    private final AtomicReferenceArray<byte[]> quadros;
+    private volatile long ultimo; // id do quadro mais recente; 0 = nenhum
+
+    public JanelaEventos(int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade da janela deve ser positiva.");
+        }
+        this.capacidade = capacidade;
+        this.quadros = new AtomicReferenceArray<>(capacidade);
+    }
+
+    // O quadro é montado com o id recebido, para que o id do evento SSE e a posição na janela coincidam
+    public synchronized long publicar(LongFunction<byte[]> quadro) {
+        long id = ultimo + 1;
+        quadros.set(posicao(id), quadro.apply(id));
+        ultimo = id;
+        return id;
+    }
+
+    public long ultimo() {
+        return ultimo;
+    }
+
+    // Indica se os eventos depois de "desde" ainda estão todos na janela
+    public boolean disponivel(long desde) {
+        return desde >= 0 && desde <= ultimo && ultimo - desde < capacidade;
+    }
+
+    // Concatena os quadros seguintes a "desde" até somar ao menos limiteBytes (ou acabar a janela).
+    // Retorna null quando não há nada novo e lança Atrasado quando parte deles já foi sobrescrita.
+    public Lote ler(long desde, int limiteBytes) {
+        long fim = ultimo;
+        if (desde >= fim) {
+            return null;
+        }
+        if (!disponivel(desde)) {
+            throw new Atrasado();
+        }
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(Math.min(limiteBytes, 4096));
+        long id = desde;
+        while (id < fim && saida.size() < limiteBytes) {
+            id++;
+            byte[] quadro = quadros.get(posicao(id));
+            // O escritor pode ter dado a volta na janela enquanto líamos; o +1 cobre
+            // o quadro que ele pode estar gravando agora, antes de avançar "ultimo"
+            if (quadro == null || ultimo + 1 - id >= capacidade) {
+                throw new Atrasado();
+            }
+            saida.write(quadro, 0, quadro.length);
+        }
+        return new Lote(saida.toByteArray(), id);
+    }
+
+    private int posicao(long id) {
+        return (int) (id % capacidade);
+    }
+
+    public static final class Lote {
+        public final byte[] bytes;
+        public final long ultimoId;
+
+        Lote(byte[] bytes, long ultimoId) {
+            this.bytes = bytes;
+            this.ultimoId = ultimoId;
+        }
+    }
+
+    // O assinante consome mais devagar do que os eventos chegam
+    public static final class Atrasado extends RuntimeException {
+        Atrasado() {
+            super("Assinante ficou para trás da janela de eventos", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.lucasmks.api.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucasmks.api.idempotencia.Idempotencia;
+import com.lucasmks.infrastructure.config.Configuracao;
+import com.lucasmks.infrastructure.factory.ApplicationFactory;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketConnect;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketError;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
+import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Canal WebSocket dos terminais de leitura: uma conexão por terminal, com quadros JSON de
+// busca e movimentação em vez de uma requisição HTTP (e um preflight de CORS) por leitura.
+// Uma única instância atende todas as conexões; o estado de cada uma fica em SessaoScanner.
+@WebSocket(maxTextMessageSize = 16 * 1024)
+public class CanalScannerWebSocket {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanalScannerWebSocket.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor;
+    private final int maxPendentes;
+    private final long prazoMs;
+    private volatile Idempotencia idempotencia;
+    private final Map<Session, SessaoScanner> sessoes = new ConcurrentHashMap<>();
+
+    public CanalScannerWebSocket() {
+        this.maxPendentes = Configuracao.getInt("estoque.ws.max-pendentes", 64);
+        // Prazo de cada quadro, como o padrão das rotas REST; 0 desliga
+        this.prazoMs = Configuracao.getLong("estoque.ws.prazo-ms", Configuracao.getLong("estoque.http.prazo.padrao-ms", 10000));
+        // Pool próprio: as operações não ocupam as threads de I/O do Jetty nem as das rotas REST
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Configuracao.getInt("estoque.ws.threads", 4), r -> {
+            Thread thread = new Thread(r, "canal-scanner-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @OnWebSocketConnect
+    public void aoConectar(Session session) {
+        // Casos de uso obtidos na conexão: o canal é registrado antes de o banco ser inicializado
+        sessoes.put(session, new SessaoScanner(objectMapper, ApplicationFactory.getBuscarProdutoUseCase(),
+                ApplicationFactory.getAdicionarEstoqueUseCase(), ApplicationFactory.getRemoverEstoqueUseCase(),
+                idempotencia(), prazoMs, executor, maxPendentes, texto -> enviar(session, texto)));
+        logger.debug("Terminal conectado ao canal do scanner: {}", session.getRemoteAddress());
+    }
+
+    // Uma para todas as conexões: a mesma chave reenviada por uma nova conexão do terminal espera
+    // a execução original em memória
+    private Idempotencia idempotencia() {
+        if (idempotencia == null) {
+            synchronized (this) {
+                if (idempotencia == null) {
+                    idempotencia = Idempotencia.daConfiguracao(ApplicationFactory.getIdempotenciaRepository());
+                }
+            }
+        }
+        return idempotencia;
+    }
+
+    @OnWebSocketMessage
+    public void aoReceber(Session session, String texto) {
+        SessaoScanner sessao = sessoes.get(session);
+        if (sessao != null) {
+            sessao.receber(texto);
+        }
+    }
+
+    @OnWebSocketClose
+    public void aoFechar(Session session, int codigo, String motivo) {
+        sessoes.remove(session);
+    }
+
+    @OnWebSocketError
+    public void aoFalhar(Session session, Throwable erro) {
+        logger.debug("Erro no canal do scanner: {}", erro.getMessage());
+        sessoes.remove(session);
+    }
+
+    // Envio assíncrono: as respostas saem das threads do executor sem esperar o socket
+    private void enviar(Session session, String texto) {
+        if (!session.isOpen()) {
+            return;
+        }
+        session.getRemote().sendString(texto, new WriteCallback() {
+            @Override
+            public void writeFailed(Throwable erro) {
+                logger.debug("Falha ao enviar resposta no canal do scanner: {}", erro.getMessage());
+            }
+
+            @Override
+            public void writeSuccess() {
+                // nada a fazer
+            }
+        });
+    }
+}
@@ -0,0 +1,226 @@
+package com.lucasmks.api.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucasmks.api.dto.MensagemScannerRequest;
+import com.lucasmks.api.dto.MensagemScannerResponse;
+import com.lucasmks.api.idempotencia.ChaveIdempotenciaException;
+import com.lucasmks.api.idempotencia.Idempotencia;
+import com.lucasmks.api.mapper.ProdutoApiMapper;
+import com.lucasmks.domain.concurrency.Prazo;
+import com.lucasmks.domain.exception.BancoIndisponivelException;
+import com.lucasmks.domain.exception.EstoqueInsuficienteException;
+import com.lucasmks.domain.exception.PrazoExcedidoException;
+import com.lucasmks.domain.exception.ProdutoNaoEncontradoException;
+import com.lucasmks.domain.exception.ValidacaoProdutoException;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.RespostaIdempotente;
+import com.lucasmks.domain.usecase.AdicionarEstoqueUseCase;
+import com.lucasmks.domain.usecase.BuscarProdutoUseCase;
+import com.lucasmks.domain.usecase.RemoverEstoqueUseCase;
+import com.lucasmks.infrastructure.resilience.Degradacao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Estado de uma conexão do canal do scanner. Os quadros são processados no executor em paralelo
+// e respondidos assim que ficam prontos, fora de ordem; o id de correlação liga cada resposta
+// ao seu pedido. Operações do mesmo código de barras ficam em fila, na ordem de chegada: os
+// ajustes são atômicos no banco, mas o terminal espera vê-los aplicados na ordem em que os
+// enviou (uma saída não pode passar à frente da entrada bipada antes dela e falhar por saldo,
+// e uma consulta enviada depois de uma entrada deve enxergá-la).
+//
+// Como nas rotas REST: cada quadro roda sob um Prazo contado desde a chegada (prazoMs; 0 = sem
+// prazo), que vencido vira 504; o banco indisponível vira 503; e uma movimentação com chave
+// passa pela Idempotencia, de modo que o terminal pode reenviá-la depois de uma queda da
+// conexão sem ajustar o saldo duas vezes.
+public class SessaoScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessaoScanner.class);
+
+    private final ObjectMapper objectMapper;
+    private final BuscarProdutoUseCase buscarProdutoUseCase;
+    private final AdicionarEstoqueUseCase adicionarEstoqueUseCase;
+    private final RemoverEstoqueUseCase removerEstoqueUseCase;
+    private final Idempotencia idempotencia;
+    private final long prazoMs;
+    private final Executor executor;
+    private final int maxPendentes;
+    private final Consumer<String> enviar;
+
+    private final Map<String, CompletableFuture<Void>> filasPorCodigo = new ConcurrentHashMap<>();
+    private final AtomicInteger pendentes = new AtomicInteger();
+
+    public SessaoScanner(ObjectMapper objectMapper, BuscarProdutoUseCase buscarProdutoUseCase,
+                         AdicionarEstoqueUseCase adicionarEstoqueUseCase, RemoverEstoqueUseCase removerEstoqueUseCase,
+                         Executor executor, int maxPendentes, Consumer<String> enviar) {
+        this(objectMapper, buscarProdutoUseCase, adicionarEstoqueUseCase, removerEstoqueUseCase, null, 0,
+                executor, maxPendentes, enviar);
+    }
+
+    // idempotencia null: a chave dos quadros é ignorada
+    public SessaoScanner(ObjectMapper objectMapper, BuscarProdutoUseCase buscarProdutoUseCase,
+                         AdicionarEstoqueUseCase adicionarEstoqueUseCase, RemoverEstoqueUseCase removerEstoqueUseCase,
+                         Idempotencia idempotencia, long prazoMs,
+                         Executor executor, int maxPendentes, Consumer<String> enviar) {
+        this.objectMapper = objectMapper;
+        this.buscarProdutoUseCase = buscarProdutoUseCase;
+        this.adicionarEstoqueUseCase = adicionarEstoqueUseCase;
+        this.removerEstoqueUseCase = removerEstoqueUseCase;
+        this.idempotencia = idempotencia;
+        this.prazoMs = prazoMs;
+        this.executor = executor;
+        this.maxPendentes = maxPendentes;
+        this.enviar = enviar;
+    }
+
+    public int pendentes() {
+        return pendentes.get();
+    }
+
+    // Chamado pela thread de leitura da conexão; só decodifica e enfileira
+    public void receber(String texto) {
+        long recebidaEm = System.nanoTime();
+        MensagemScannerRequest mensagem;
+        try {
+            mensagem = objectMapper.readValue(texto, MensagemScannerRequest.class);
+        } catch (Exception e) {
+            responder(new MensagemScannerResponse(null, 400, false, "Mensagem inválida: " + e.getMessage(), null));
+            return;
+        }
+        if (mensagem.getId() == null || mensagem.getId().isBlank()) {
+            responder(new MensagemScannerResponse(null, 400, false, "O campo id é obrigatório.", null));
+            return;
+        }
+        if (mensagem.getCodigoBarras() == null || mensagem.getCodigoBarras().trim().isEmpty()) {
+            responder(new MensagemScannerResponse(mensagem.getId(), 400, false, "Código de barras é obrigatório.", null));
+            return;
+        }
+        // Limite de pedidos em andamento por terminal: um cliente que não para de enviar
+        // recebe recusas em vez de ocupar todo o executor
+        if (pendentes.incrementAndGet() > maxPendentes) {
+            pendentes.decrementAndGet();
+            responder(new MensagemScannerResponse(mensagem.getId(), 429, false,
+                    "Muitas operações pendentes nesta conexão; aguarde as respostas.", null));
+            return;
+        }
+        enfileirar(mensagem.getCodigoBarras().trim(), mensagem, recebidaEm);
+    }
+
+    private void enfileirar(String codigoBarras, MensagemScannerRequest mensagem, long recebidaEm) {
+        Runnable tarefa = () -> {
+            try {
+                responder(processar(codigoBarras, mensagem, recebidaEm));
+            } finally {
+                pendentes.decrementAndGet();
+            }
+        };
+        CompletableFuture<Void> criada;
+        try {
+            criada = filasPorCodigo.compute(codigoBarras, (codigo, anterior) -> anterior == null
+                    ? CompletableFuture.runAsync(tarefa, executor)
+                    : anterior.thenRunAsync(tarefa, executor));
+        } catch (RejectedExecutionException e) {
+            pendentes.decrementAndGet();
+            responder(new MensagemScannerResponse(mensagem.getId(), 503, false, "Servidor sobrecarregado.", null));
+            return;
+        }
+        // A fila some quando a última operação do código termina
+        criada.whenComplete((r, erro) -> filasPorCodigo.remove(codigoBarras, criada));
+    }
+
+    MensagemScannerResponse processar(String codigoBarras, MensagemScannerRequest mensagem, long recebidaEm) {
+        String op = mensagem.getOp() == null ? "" : mensagem.getOp().trim().toUpperCase();
+        // O prazo inclui a espera atrás das operações anteriores do mesmo código
+        try (Prazo.Escopo escopo = prazoMs > 0 ? Prazo.abrirAte(recebidaEm + TimeUnit.MILLISECONDS.toNanos(prazoMs)) : null) {
+            if (mensagem.getChave() == null || idempotencia == null || "BUSCAR".equals(op)) {
+                return executar(codigoBarras, op, mensagem, mensagem.getId());
+            }
+            return comIdempotencia(codigoBarras, op, mensagem);
+        } finally {
+            // A thread do executor volta ao pool sem as marcas desta operação
+            Degradacao.limpar();
+        }
+    }
+
+    // A resposta é guardada sem o id do quadro, que muda a cada envio, e recebe o id atual
+    private MensagemScannerResponse comIdempotencia(String codigoBarras, String op, MensagemScannerRequest mensagem) {
+        String id = mensagem.getId();
+        try {
+            String impressao = Idempotencia.impressao("WS", op, codigoBarras, String.valueOf(mensagem.getQuantidade()), mensagem.getMotivo());
+            Idempotencia.Resultado resultado = idempotencia.executar(mensagem.getChave().trim(), impressao, () -> {
+                MensagemScannerResponse resposta = executar(codigoBarras, op, mensagem, null);
+                try {
+                    return new RespostaIdempotente(null, null, resposta.getStatus(), objectMapper.writeValueAsString(resposta), false, null);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            MensagemScannerResponse resposta = objectMapper.readValue(resultado.getResposta().getCorpo(), MensagemScannerResponse.class);
+            resposta.setId(id);
+            // Guardada depois do ajuste, uma falha sai como 500 em vez de 503/504
+            resposta.setStatus(resultado.getResposta().getStatus());
+            if (resultado.isRepetida()) {
+                resposta.setRepetida(true);
+            }
+            return resposta;
+        } catch (ChaveIdempotenciaException e) {
+            return new MensagemScannerResponse(id, e.getStatus(), false, e.getMessage(), null);
+        } catch (Exception e) {
+            return falha(id, op, codigoBarras, e);
+        }
+    }
+
+    private MensagemScannerResponse executar(String codigoBarras, String op, MensagemScannerRequest mensagem, String id) {
+        try {
+            Prazo.verificar();
+            switch (op) {
+                case "BUSCAR":
+                    Produto produto = buscarProdutoUseCase.executar(codigoBarras);
+                    return new MensagemScannerResponse(id, 200, true, "Produto encontrado", ProdutoApiMapper.toResponse(produto));
+                case "ENTRADA":
+                    adicionarEstoqueUseCase.executar(codigoBarras, mensagem.getQuantidade(), mensagem.getMotivo());
+                    return new MensagemScannerResponse(id, 200, true, "Estoque adicionado com sucesso para o produto " + codigoBarras, null);
+                case "SAIDA":
+                    removerEstoqueUseCase.executar(codigoBarras, mensagem.getQuantidade(), mensagem.getMotivo());
+                    return new MensagemScannerResponse(id, 200, true, "Estoque removido com sucesso para o produto " + codigoBarras, null);
+                default:
+                    return new MensagemScannerResponse(id, 400, false, "Operação inválida. Use BUSCAR, ENTRADA ou SAIDA.", null);
+            }
+        } catch (ProdutoNaoEncontradoException e) {
+            return new MensagemScannerResponse(id, 404, false, e.getMessage(), null);
+        } catch (ValidacaoProdutoException | EstoqueInsuficienteException | IllegalArgumentException e) {
+            return new MensagemScannerResponse(id, 400, false, e.getMessage(), null);
+        } catch (Exception e) {
+            return falha(id, op, codigoBarras, e);
+        }
+    }
+
+    // Mesmos status das rotas REST: 503 com o banco recusado, 504 com o prazo vencido, senão 500
+    private MensagemScannerResponse falha(String id, String op, String codigoBarras, Exception e) {
+        if (e instanceof BancoIndisponivelException || Degradacao.recusada()) {
+            return new MensagemScannerResponse(id, 503, false, "Banco de dados indisponível no momento; tente novamente em instantes.", null);
+        }
+        if (e instanceof PrazoExcedidoException || Prazo.expirado()) {
+            return new MensagemScannerResponse(id, 504, false, "Tempo limite da operação excedido.", null);
+        }
+        logger.error("Erro ao processar operação {} do scanner para o produto {}: {}", op, codigoBarras, e.getMessage(), e);
+        return new MensagemScannerResponse(id, 500, false, "Erro ao processar operação: " + e.getMessage(), null);
+    }
+
+    private void responder(MensagemScannerResponse resposta) {
+        try {
+            enviar.accept(objectMapper.writeValueAsString(resposta));
+        } catch (Exception e) {
+            logger.debug("Falha ao responder no canal do scanner: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.lucasmks.domain.concurrency;
+
+import com.lucasmks.domain.exception.BancoIndisponivelException;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Marca, na thread da operação em andamento, que um ajuste de saldo pode ter chegado ao banco.
+// Quem repete operações com segurança (chaves de idempotência) a consulta quando a operação
+// falha: sem a marca, nada mudou e a operação pode ser executada de novo; com ela, a repetição
+// ajustaria o saldo duas vezes. Um ajuste que lança exceção continua marcado (um timeout no meio
+// da escrita não diz se ela foi aplicada), exceto a recusa do disjuntor, que não vai ao banco.
+public final class EscritaIniciada {
+
+    private static final ThreadLocal<Boolean> MARCA = new ThreadLocal<>();
+
+    private EscritaIniciada() {}
+
+    // Executa o ajuste com a marca; resultado vazio (produto inexistente, saldo insuficiente) a desfaz
+    public static <T> Optional<T> ajustar(Supplier<Optional<T>> ajuste) {
+        Boolean anterior = MARCA.get();
+        MARCA.set(Boolean.TRUE);
+        try {
+            Optional<T> resultado = ajuste.get();
+            if (resultado.isEmpty()) {
+                restaurar(anterior);
+            }
+            return resultado;
+        } catch (BancoIndisponivelException e) {
+            restaurar(anterior);
+            throw e;
+        }
+    }
+
+    public static boolean marcada() {
+        return MARCA.get() != null;
+    }
+
+    public static void limpar() {
+        MARCA.remove();
+    }
+
+    private static void restaurar(Boolean anterior) {
+        if (anterior == null) {
+            MARCA.remove();
+        }
+    }
+}
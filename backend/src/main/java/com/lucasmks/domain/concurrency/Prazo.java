@@ -0,0 +1,66 @@
+package com.lucasmks.domain.concurrency;
+
+import com.lucasmks.domain.exception.PrazoExcedidoException;
+
+import java.util.concurrent.TimeUnit;
+
+// Prazo da operação em andamento na thread atual (em geral, de uma requisição HTTP). Quem
+// começa a operação abre um Escopo; os repositórios consultam o tempo restante para limitar
+// as consultas ao banco e param de ler cursores quando ele acaba. Sem escopo aberto (tarefas
+// em segundo plano), não há prazo.
+public final class Prazo {
+
+    private static final ThreadLocal<Long> FIM = new ThreadLocal<>();
+
+    private Prazo() {}
+
+    // Fecha restaurando o prazo anterior, para que escopos aninhados funcionem
+    public static Escopo abrir(long duracaoMs) {
+        return abrirAte(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(duracaoMs));
+    }
+
+    public static Escopo abrirAte(long fimNanos) {
+        Long anterior = FIM.get();
+        // Um escopo interno nunca estende o prazo de quem o abriu
+        FIM.set(anterior != null ? Math.min(anterior, fimNanos) : fimNanos);
+        return new Escopo(anterior);
+    }
+
+    public static boolean definido() {
+        return FIM.get() != null;
+    }
+
+    // Long.MAX_VALUE sem prazo; zero ou negativo quando já acabou
+    public static long restanteMs() {
+        Long fim = FIM.get();
+        return fim == null ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(fim - System.nanoTime());
+    }
+
+    public static boolean expirado() {
+        Long fim = FIM.get();
+        return fim != null && System.nanoTime() - fim >= 0;
+    }
+
+    public static void verificar() {
+        if (expirado()) {
+            throw new PrazoExcedidoException("Prazo da requisição excedido.");
+        }
+    }
+
+    public static final class Escopo implements AutoCloseable {
+        private final Long anterior;
+
+        private Escopo(Long anterior) {
+            this.anterior = anterior;
+        }
+
+        @Override
+        public void close() {
+            if (anterior == null) {
+                FIM.remove();
+            } else {
+                FIM.set(anterior);
+            }
+        }
+    }
+}
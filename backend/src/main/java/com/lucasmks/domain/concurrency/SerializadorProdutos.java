@@ -0,0 +1,26 @@
+package com.lucasmks.domain.concurrency;
+
+import java.util.function.Supplier;
+
+// Executa as ações sobre um mesmo produto uma de cada vez, dentro do processo. Usado pelos casos
+// de uso que leem e gravam o produto, para que duas alterações simultâneas não se sobrescrevam.
+// Não protege contra escritas de outros nós: só vale quando este nó é o único que grava.
+// Uma ação não deve pedir a serialização de outro produto (ordem de locks indefinida).
+public interface SerializadorProdutos {
+
+    SerializadorProdutos NENHUM = new SerializadorProdutos() {
+        @Override
+        public <T> T calcular(String codigoBarras, Supplier<T> acao) {
+            return acao.get();
+        }
+    };
+
+    <T> T calcular(String codigoBarras, Supplier<T> acao);
+
+    default void executar(String codigoBarras, Runnable acao) {
+        calcular(codigoBarras, () -> {
+            acao.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package com.lucasmks.domain.event;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.Produto;
+
+// Notificações emitidas pelos casos de uso depois que uma alteração de produto é gravada.
+// Usado para manter estruturas em memória (índices, contadores) sincronizadas com o repositório.
+public interface ProdutoEventListener {
+
+    ProdutoEventListener NENHUM = new ProdutoEventListener() {};
+
+    default void aoCadastrar(Produto produto) {}
+
+    default void aoEditar(Produto produto) {}
+
+    default void aoRemover(String codigoBarras) {}
+
+    // Entrada ou saída de estoque: o produto já está com a quantidade atualizada
+    default void aoMovimentarEstoque(Produto produto, Movimentacao movimentacao) {}
+}
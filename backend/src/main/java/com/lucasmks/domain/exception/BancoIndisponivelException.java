@@ -0,0 +1,7 @@
+package com.lucasmks.domain.exception;
+
+public class BancoIndisponivelException extends RuntimeException {
+    public BancoIndisponivelException(String message) {
+        super(message);
+    }
+}
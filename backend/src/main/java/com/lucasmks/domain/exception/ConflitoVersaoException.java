@@ -0,0 +1,7 @@
+package com.lucasmks.domain.exception;
+
+public class ConflitoVersaoException extends RuntimeException {
+    public ConflitoVersaoException(String message) {
+        super(message);
+    }
+}
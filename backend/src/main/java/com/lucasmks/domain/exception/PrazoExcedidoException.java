@@ -0,0 +1,7 @@
+package com.lucasmks.domain.exception;
+
+public class PrazoExcedidoException extends RuntimeException {
+    public PrazoExcedidoException(String message) {
+        super(message);
+    }
+}
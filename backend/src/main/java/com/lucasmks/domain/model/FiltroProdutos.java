@@ -0,0 +1,43 @@
+package com.lucasmks.domain.model;
+
+import java.util.List;
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Critérios da listagem paginada de produtos. Campos nulos não filtram.
+// A paginação é por número de página (pagina) ou por cursor, nunca os dois.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FiltroProdutos {
+    public static final Set<String> CAMPOS = Set.of(
+            "codigoBarras", "nome", "categoria", "quantidade", "precoCusto", "precoVenda", "fornecedor");
+
+    public static final int TAMANHO_PADRAO = 50;
+    public static final int TAMANHO_MAXIMO = 500;
+
+    private String categoria;
+    private String fornecedor;
+    private Integer estoqueMax;
+
+    private String ordenarPor = "nome";
+    private boolean decrescente;
+
+    private int pagina = 1;
+    private int tamanhoPagina = TAMANHO_PADRAO;
+    private String cursor;
+
+    // Campos retornados; null ou vazio retorna todos. O código de barras sempre é incluído.
+    private List<String> campos;
+
+    public boolean temFiltro() {
+        return categoria != null || fornecedor != null || estoqueMax != null;
+    }
+
+    public boolean usaCursor() {
+        return cursor != null;
+    }
+}
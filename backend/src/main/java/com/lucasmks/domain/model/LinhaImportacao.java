@@ -0,0 +1,25 @@
+package com.lucasmks.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Uma linha do arquivo de importação já interpretada: o produto lido ou, quando a linha
+// não pôde ser convertida, o erro (codigoBarras é informado se chegou a ser lido)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LinhaImportacao {
+    private long linha;
+    private String codigoBarras;
+    private Produto produto;
+    private String erro;
+
+    public static LinhaImportacao produto(long linha, Produto produto) {
+        return new LinhaImportacao(linha, produto.getCodigoBarras(), produto, null);
+    }
+
+    public static LinhaImportacao erro(long linha, String codigoBarras, String erro) {
+        return new LinhaImportacao(linha, codigoBarras, null, erro);
+    }
+}
@@ -14,6 +14,13 @@ public class Movimentacao {
     private TipoMovimentacao tipo;
     private String motivo;
     private LocalDateTime dataHora;
+    // Identificador atribuído por quem grava (nulo até lá): com ele, regravar um lote que
+    // falhou não duplica as movimentações que chegaram ao banco
+    private String id;
+
+    public Movimentacao(String codigoBarras, int quantidade, TipoMovimentacao tipo, String motivo, LocalDateTime dataHora) {
+        this(codigoBarras, quantidade, tipo, motivo, dataHora, null);
+    }
 
     // Construtor auxiliar para facilitar a criação nos UseCases
     public Movimentacao(String codigoBarras, int quantidade, TipoMovimentacao tipo, String motivo) {
@@ -0,0 +1,23 @@
+package com.lucasmks.domain.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Pagina<T> {
+
+    // Como o total foi obtido: EXATO (contado ou deduzido da última página),
+    // ESTIMADO (metadados da coleção, sem filtro) ou NENHUM (páginas seguintes por cursor)
+    public enum EstrategiaTotal { EXATO, ESTIMADO, NENHUM }
+
+    private List<T> itens;
+    private Long total;
+    private EstrategiaTotal estrategiaTotal;
+    private boolean temProxima;
+    private String proximoCursor;
+}
@@ -0,0 +1,18 @@
+package com.lucasmks.domain.model;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Estoque reconstruído de um produto em uma data: a quantidade de referência (snapshot ou
+// estoque atual) lida em "referencia", corrigida pelas movimentações entre "referencia" e "em"
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PosicaoEstoque {
+    private String codigoBarras;
+    private int quantidade;
+    private LocalDateTime em;
+    private LocalDateTime referencia;
+}
@@ -17,6 +17,13 @@ public class Produto {
     private Double precoCusto;
     private Double precoVenda;
     private String fornecedor;
+    // Versão persistida, incrementada a cada gravação; usada no controle de concorrência otimista
+    private long versao;
+
+    public Produto(String codigoBarras, String nome, String categoria, int quantidade,
+                   Double precoCusto, Double precoVenda, String fornecedor) {
+        this(codigoBarras, nome, categoria, quantidade, precoCusto, precoVenda, fornecedor, 0L);
+    }
 
     @Override
     public boolean equals(Object o) {
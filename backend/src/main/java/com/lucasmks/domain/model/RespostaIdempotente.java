@@ -0,0 +1,22 @@
+package com.lucasmks.domain.model;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resposta guardada para uma chave de idempotência (cabeçalho Idempotency-Key).
+// "impressao" resume método, rota e corpo da requisição original: a mesma chave com outro
+// pedido é recusada. Enquanto a requisição original está em andamento, concluida=false e
+// expiraEm marca até quando a reserva vale (depois disso outro nó pode assumi-la).
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RespostaIdempotente {
+    private String chave;
+    private String impressao;
+    private int status;
+    private String corpo;
+    private boolean concluida;
+    private LocalDateTime expiraEm;
+}
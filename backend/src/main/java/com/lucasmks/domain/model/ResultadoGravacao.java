@@ -0,0 +1,24 @@
+package com.lucasmks.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Resultado da gravação de um produto dentro de um lote
+@Data
+@AllArgsConstructor
+public class ResultadoGravacao {
+
+    // IGNORADO: já existia e o lote não substitui existentes
+    public enum Situacao { INSERIDO, ATUALIZADO, IGNORADO, FALHOU }
+
+    private Situacao situacao;
+    private String erro;
+
+    public static ResultadoGravacao de(Situacao situacao) {
+        return new ResultadoGravacao(situacao, null);
+    }
+
+    public static ResultadoGravacao falha(String erro) {
+        return new ResultadoGravacao(Situacao.FALHOU, erro);
+    }
+}
@@ -0,0 +1,86 @@
+package com.lucasmks.domain.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Resumo de uma importação em lote. Atualizado pelas threads que gravam os lotes, por isso
+// os métodos são sincronizados; a lista de erros é limitada para que um arquivo inteiro
+// inválido não vire uma resposta do tamanho do arquivo.
+public class ResultadoImportacao {
+
+    @Data
+    @AllArgsConstructor
+    public static class ErroLinha {
+        private long linha;
+        private String codigoBarras;
+        private String mensagem;
+    }
+
+    private final int maxErros;
+    private long linhas;
+    private long inseridos;
+    private long atualizados;
+    private long ignorados;
+    private long rejeitados;
+    private long errosOmitidos;
+    private final List<ErroLinha> erros = new ArrayList<>();
+    private String interrupcao;
+
+    public ResultadoImportacao(int maxErros) {
+        this.maxErros = maxErros;
+    }
+
+    public synchronized void contarLinha() {
+        linhas++;
+    }
+
+    public synchronized void registrar(long linha, String codigoBarras, ResultadoGravacao resultado) {
+        switch (resultado.getSituacao()) {
+            case INSERIDO:
+                inseridos++;
+                break;
+            case ATUALIZADO:
+                atualizados++;
+                break;
+            case IGNORADO:
+                ignorados++;
+                registrarErro(linha, codigoBarras, "Produto já cadastrado; mantido sem alteração.");
+                break;
+            default:
+                rejeitar(linha, codigoBarras, resultado.getErro());
+        }
+    }
+
+    public synchronized void rejeitar(long linha, String codigoBarras, String mensagem) {
+        rejeitados++;
+        registrarErro(linha, codigoBarras, mensagem);
+    }
+
+    // Primeira falha que impediu o restante do arquivo de ser processado
+    public synchronized void interromper(String motivo) {
+        if (interrupcao == null) {
+            interrupcao = motivo;
+        }
+    }
+
+    private void registrarErro(long linha, String codigoBarras, String mensagem) {
+        if (erros.size() < maxErros) {
+            erros.add(new ErroLinha(linha, codigoBarras, mensagem));
+        } else {
+            errosOmitidos++;
+        }
+    }
+
+    public synchronized long getLinhas() { return linhas; }
+    public synchronized long getInseridos() { return inseridos; }
+    public synchronized long getAtualizados() { return atualizados; }
+    public synchronized long getIgnorados() { return ignorados; }
+    public synchronized long getRejeitados() { return rejeitados; }
+    public synchronized long getErrosOmitidos() { return errosOmitidos; }
+    public synchronized List<ErroLinha> getErros() { return new ArrayList<>(erros); }
+    public synchronized String getInterrupcao() { return interrupcao; }
+    public synchronized boolean isInterrompida() { return interrupcao != null; }
+}
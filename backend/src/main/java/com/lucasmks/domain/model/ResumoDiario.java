@@ -0,0 +1,34 @@
+package com.lucasmks.domain.model;
+
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Totais das movimentações de um produto em um dia
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResumoDiario {
+    private String codigoBarras;
+    private LocalDate dia;
+    private long quantidadeEntradas;   // número de movimentações de entrada
+    private long quantidadeSaidas;     // número de movimentações de saída
+    private long totalEntradas;        // soma das quantidades de entrada
+    private long totalSaidas;          // soma das quantidades de saída
+
+    public ResumoDiario(String codigoBarras, LocalDate dia) {
+        this.codigoBarras = codigoBarras;
+        this.dia = dia;
+    }
+
+    public void somar(TipoMovimentacao tipo, long movimentacoes, long quantidade) {
+        if (tipo == TipoMovimentacao.ENTRADA) {
+            quantidadeEntradas += movimentacoes;
+            totalEntradas += quantidade;
+        } else if (tipo == TipoMovimentacao.SAIDA) {
+            quantidadeSaidas += movimentacoes;
+            totalSaidas += quantidade;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.lucasmks.domain.model;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Quantidade em estoque de um produto lida por uma execução da tarefa de snapshots.
+// "execucao" identifica a execução (seu início); "dataHora" é o instante em que este produto foi lido.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SnapshotEstoque {
+    private LocalDateTime execucao;
+    private String codigoBarras;
+    private int quantidade;
+    private LocalDateTime dataHora;
+}
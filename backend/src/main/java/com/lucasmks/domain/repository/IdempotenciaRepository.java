@@ -0,0 +1,19 @@
+package com.lucasmks.domain.repository;
+
+import com.lucasmks.domain.model.RespostaIdempotente;
+
+import java.util.Optional;
+
+public interface IdempotenciaRepository {
+    // Resposta ou reserva ainda válida (expiraEm no futuro) para a chave
+    Optional<RespostaIdempotente> buscar(String chave);
+
+    // Grava a reserva se não houver outra válida para a chave; false se alguém já a tem
+    boolean reservar(RespostaIdempotente reserva);
+
+    // Substitui a reserva pela resposta final
+    void concluir(RespostaIdempotente resposta);
+
+    // Apaga a reserva ainda não concluída: a execução falhou sem alterar nada
+    void liberar(String chave);
+}
@@ -6,13 +6,51 @@ import com.lucasmks.domain.model.TipoMovimentacao;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface MovimentacaoRepository {
     void salvar(Movimentacao movimentacao);
+
+    // Grava um lote de movimentações. A implementação padrão grava uma a uma; repositórios
+    // remotos devem usar uma única ida ao banco.
+    default void salvarTodas(List<Movimentacao> movimentacoes) {
+        movimentacoes.forEach(this::salvar);
+    }
+
+    // Regrava um lote cuja gravação falhou, talvez depois de gravar parte dele: movimentações
+    // com id que já estão no banco não são gravadas de novo. A implementação padrão usa
+    // salvarTodas; repositórios remotos devem consultar os ids antes.
+    default void regravarTodas(List<Movimentacao> movimentacoes) {
+        salvarTodas(movimentacoes);
+    }
+
     List<Movimentacao> buscarTodasMovimentacoes();
     List<Movimentacao> buscarMovimentacoesPorProduto(String codigoBarras);
     List<Movimentacao> buscarMovimentacoesPorPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim);
     List<Movimentacao> buscarMovimentacoesPorMotivo(String motivo);
     List<Movimentacao> buscarMovimentacoesPorTipo(TipoMovimentacao tipo);
     Optional<Movimentacao> getUltimaMovimentacao();
+
+    // Entrega as movimentações do período uma a uma, sem montar a lista inteira em memória.
+    // Datas nulas deixam o período aberto naquele extremo. A implementação padrão filtra
+    // buscarTodasMovimentacoes; repositórios remotos devem ler de um cursor.
+    default void percorrerMovimentacoes(LocalDateTime dataInicio, LocalDateTime dataFim, Consumer<Movimentacao> consumidor) {
+        for (Movimentacao movimentacao : buscarTodasMovimentacoes()) {
+            LocalDateTime dataHora = movimentacao.getDataHora();
+            if ((dataInicio == null || !dataHora.isBefore(dataInicio)) && (dataFim == null || !dataHora.isAfter(dataFim))) {
+                consumidor.accept(movimentacao);
+            }
+        }
+    }
+
+    // Como percorrerMovimentacoes, restrito a um produto
+    default void percorrerMovimentacoesDoProduto(String codigoBarras, LocalDateTime dataInicio, LocalDateTime dataFim,
+                                                 Consumer<Movimentacao> consumidor) {
+        for (Movimentacao movimentacao : buscarMovimentacoesPorProduto(codigoBarras)) {
+            LocalDateTime dataHora = movimentacao.getDataHora();
+            if ((dataInicio == null || !dataHora.isBefore(dataInicio)) && (dataFim == null || !dataHora.isAfter(dataFim))) {
+                consumidor.accept(movimentacao);
+            }
+        }
+    }
 }
\ No newline at end of file
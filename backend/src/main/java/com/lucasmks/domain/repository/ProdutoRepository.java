@@ -1,9 +1,14 @@
 package com.lucasmks.domain.repository;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import com.lucasmks.domain.model.FiltroProdutos;
+import com.lucasmks.domain.model.Pagina;
 import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.ResultadoGravacao;
 
 public interface ProdutoRepository {
     void salvar(Produto produto);
@@ -16,5 +21,79 @@ public interface ProdutoRepository {
     
     void atualizar(Produto produto);
 
+    // Compare-and-set: grava apenas se a versão persistida ainda for a esperada.
+    // Retorna false quando o produto não existe ou foi alterado por outra escrita.
+    boolean atualizarSeVersao(Produto produto, long versaoEsperada);
+
+    // Soma delta (negativo para saídas) à quantidade em estoque numa única operação atômica e
+    // devolve o produto já alterado. Vazio quando o produto não existe ou ficaria com estoque
+    // negativo; nesse caso nada é gravado. A implementação padrão relê e grava com
+    // atualizarSeVersao até não haver conflito; repositórios remotos devem usar um $inc condicional.
+    default Optional<Produto> ajustarQuantidade(String codigoBarras, int delta) {
+        while (true) {
+            Optional<Produto> atual = buscarPorCodigoBarras(codigoBarras);
+            if (atual.isEmpty() || atual.get().getQuantidade() + delta < 0) {
+                return Optional.empty();
+            }
+            Produto produto = atual.get();
+            long versao = produto.getVersao();
+            produto.setQuantidade(produto.getQuantidade() + delta);
+            if (atualizarSeVersao(produto, versao)) {
+                return Optional.of(produto);
+            }
+        }
+    }
+
+    // Grava os dados cadastrais (nome, categoria, preços e fornecedor) sem tocar na quantidade,
+    // que só muda por ajustarQuantidade ou por uma edição com versão, e devolve o produto gravado.
+    // Vazio quando o produto não existe. A implementação padrão relê e grava com atualizarSeVersao
+    // até não haver conflito; repositórios remotos devem usar um $set só desses campos.
+    default Optional<Produto> atualizarDados(Produto produto) {
+        while (true) {
+            Optional<Produto> atual = buscarPorCodigoBarras(produto.getCodigoBarras());
+            if (atual.isEmpty()) {
+                return Optional.empty();
+            }
+            long versao = atual.get().getVersao();
+            produto.setQuantidade(atual.get().getQuantidade());
+            if (atualizarSeVersao(produto, versao)) {
+                return Optional.of(produto);
+            }
+        }
+    }
+
     List<Produto> buscarTodos();
+
+    // Entrega todos os produtos um a um, sem montar a lista inteira em memória.
+    // A implementação padrão usa buscarTodos; repositórios remotos devem ler de um cursor.
+    default void percorrerTodos(Consumer<Produto> consumidor) {
+        buscarTodos().forEach(consumidor);
+    }
+
+    // Produtos existentes entre os códigos informados, em qualquer ordem
+    List<Produto> buscarPorCodigosBarras(List<String> codigosBarras);
+
+    // Listagem filtrada, ordenada e paginada (por página ou cursor)
+    Pagina<Produto> buscarPagina(FiltroProdutos filtro);
+
+    // Grava um lote de produtos; sem substituirExistentes, os já cadastrados ficam intactos.
+    // Retorna um resultado por produto, na mesma ordem, e atualiza a versão dos gravados.
+    // A implementação padrão grava um a um; repositórios remotos devem usar uma única ida ao banco.
+    default List<ResultadoGravacao> gravarLote(List<Produto> produtos, boolean substituirExistentes) {
+        List<ResultadoGravacao> resultados = new ArrayList<>(produtos.size());
+        for (Produto produto : produtos) {
+            try {
+                boolean existe = existePorCodigoBarras(produto.getCodigoBarras());
+                if (existe && !substituirExistentes) {
+                    resultados.add(ResultadoGravacao.de(ResultadoGravacao.Situacao.IGNORADO));
+                    continue;
+                }
+                salvar(produto);
+                resultados.add(ResultadoGravacao.de(existe ? ResultadoGravacao.Situacao.ATUALIZADO : ResultadoGravacao.Situacao.INSERIDO));
+            } catch (RuntimeException e) {
+                resultados.add(ResultadoGravacao.falha(e.getMessage()));
+            }
+        }
+        return resultados;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.lucasmks.domain.repository;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.ResumoDiario;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Totais diários por produto, mantidos a cada movimentação gravada para que os relatórios
+// não precisem ler as movimentações.
+public interface ResumoDiarioRepository {
+    void registrar(Movimentacao movimentacao);
+
+    // Soma um lote de movimentações. A implementação padrão registra uma a uma; repositórios
+    // remotos devem juntar as do mesmo produto e dia em uma só atualização.
+    default void registrarTodas(List<Movimentacao> movimentacoes) {
+        movimentacoes.forEach(this::registrar);
+    }
+
+    // Resumos de dataInicio a dataFim (inclusive), ordenados por dia e código de barras.
+    // codigoBarras nulo traz todos os produtos.
+    List<ResumoDiario> buscarResumos(LocalDate dataInicio, LocalDate dataFim, String codigoBarras);
+}
@@ -0,0 +1,25 @@
+package com.lucasmks.domain.repository;
+
+import com.lucasmks.domain.model.SnapshotEstoque;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface SnapshotEstoqueRepository {
+    void salvarTodos(List<SnapshotEstoque> snapshots);
+
+    // Snapshot mais recente do produto lido até "em" (inclusive) e o primeiro lido depois
+    Optional<SnapshotEstoque> buscarAnterior(String codigoBarras, LocalDateTime em);
+    Optional<SnapshotEstoque> buscarPosterior(String codigoBarras, LocalDateTime em);
+
+    // Execuções (início) mais próximas de "em", antes (inclusive) e depois
+    Optional<LocalDateTime> buscarExecucaoAnterior(LocalDateTime em);
+    Optional<LocalDateTime> buscarExecucaoPosterior(LocalDateTime em);
+
+    void percorrerExecucao(LocalDateTime execucao, Consumer<SnapshotEstoque> consumidor);
+
+    // Remove as execuções iniciadas antes do limite; retorna quantos snapshots foram removidos
+    long removerAnteriores(LocalDateTime limite);
+}
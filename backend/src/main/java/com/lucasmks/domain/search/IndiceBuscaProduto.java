@@ -0,0 +1,8 @@
+package com.lucasmks.domain.search;
+
+import java.util.List;
+
+public interface IndiceBuscaProduto {
+    // Retorna os códigos de barras mais relevantes para o termo, do mais para o menos relevante
+    List<String> buscar(String termo, int limite);
+}
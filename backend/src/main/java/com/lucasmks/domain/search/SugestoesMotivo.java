@@ -0,0 +1,11 @@
+package com.lucasmks.domain.search;
+
+import java.util.List;
+
+import com.lucasmks.domain.model.TipoMovimentacao;
+
+public interface SugestoesMotivo {
+    // Motivos que começam com o prefixo, do mais para o menos usado.
+    // Tipo null considera entradas e saídas juntas.
+    List<String> sugerir(String prefixo, TipoMovimentacao tipo, int limite);
+}
@@ -1,5 +1,8 @@
 package com.lucasmks.domain.usecase;
 
+import com.lucasmks.domain.concurrency.EscritaIniciada;
+import com.lucasmks.domain.concurrency.SerializadorProdutos;
+import com.lucasmks.domain.event.ProdutoEventListener;
 import com.lucasmks.domain.exception.ProdutoNaoEncontradoException;
 import com.lucasmks.domain.exception.ValidacaoProdutoException;
 import com.lucasmks.domain.model.Produto;
@@ -11,10 +14,23 @@ import com.lucasmks.domain.repository.ProdutoRepository;
 public class AdicionarEstoqueUseCase {
     private final ProdutoRepository produtoRepository;
     private final MovimentacaoRepository movimentacaoRepository;
+    private final ProdutoEventListener eventos;
+    private final SerializadorProdutos serializador;
 
     public AdicionarEstoqueUseCase(ProdutoRepository produtoRepository, MovimentacaoRepository movimentacaoRepository) {
+        this(produtoRepository, movimentacaoRepository, ProdutoEventListener.NENHUM);
+    }
+
+    public AdicionarEstoqueUseCase(ProdutoRepository produtoRepository, MovimentacaoRepository movimentacaoRepository, ProdutoEventListener eventos) {
+        this(produtoRepository, movimentacaoRepository, eventos, SerializadorProdutos.NENHUM);
+    }
+
+    public AdicionarEstoqueUseCase(ProdutoRepository produtoRepository, MovimentacaoRepository movimentacaoRepository, ProdutoEventListener eventos,
+            SerializadorProdutos serializador) {
         this.produtoRepository = produtoRepository;
         this.movimentacaoRepository = movimentacaoRepository;
+        this.eventos = eventos;
+        this.serializador = serializador;
     }
 
     public void executar(String codigoBarras, int quantidadeAdicionar, String motivo) { // Adicionado 'motivo' para o histórico
@@ -28,14 +44,18 @@ public class AdicionarEstoqueUseCase {
             throw new ValidacaoProdutoException("Motivo da entrada não pode ser nulo ou vazio.");
         }
 
-        Produto produto = produtoRepository.buscarPorCodigoBarras(codigoBarras)
-                .orElseThrow(() -> new ProdutoNaoEncontradoException("Produto não encontrado com código: " + codigoBarras));
-
-        produto.setQuantidade(produto.getQuantidade() + quantidadeAdicionar);
-        produtoRepository.salvar(produto); // Salva o produto atualizado
-
-        // Lógica para registrar movimentação, se já estiver implementando Movimentacao
-        movimentacaoRepository.salvar(new Movimentacao(codigoBarras, quantidadeAdicionar, TipoMovimentacao.ENTRADA, motivo));
+        // Ajuste, movimentação e evento do mesmo produto em sequência: sem intercalação, o
+        // horário da movimentação segue a ordem em que o saldo mudou
+        serializador.executar(codigoBarras, () -> {
+            // Soma atômica no repositório: entradas simultâneas não se sobrescrevem
+            Produto produto = EscritaIniciada.ajustar(() -> produtoRepository.ajustarQuantidade(codigoBarras, quantidadeAdicionar))
+                    .orElseThrow(() -> new ProdutoNaoEncontradoException("Produto não encontrado com código: " + codigoBarras));
+
+            // Lógica para registrar movimentação, se já estiver implementando Movimentacao
+            Movimentacao movimentacao = new Movimentacao(codigoBarras, quantidadeAdicionar, TipoMovimentacao.ENTRADA, motivo);
+            movimentacaoRepository.salvar(movimentacao);
+            eventos.aoMovimentarEstoque(produto, movimentacao);
+        });
     }
     
 
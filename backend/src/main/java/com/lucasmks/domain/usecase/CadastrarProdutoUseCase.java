@@ -1,5 +1,6 @@
 package com.lucasmks.domain.usecase;
 
+import com.lucasmks.domain.event.ProdutoEventListener;
 import com.lucasmks.domain.exception.ProdutoJaExistenteException;
 import com.lucasmks.domain.exception.ValidacaoProdutoException;
 import com.lucasmks.domain.model.Produto;
@@ -7,9 +8,15 @@ import com.lucasmks.domain.repository.ProdutoRepository;
 
 public class CadastrarProdutoUseCase {
     private final ProdutoRepository repository;
+    private final ProdutoEventListener eventos;
 
     public CadastrarProdutoUseCase(ProdutoRepository repository) {
+        this(repository, ProdutoEventListener.NENHUM);
+    }
+
+    public CadastrarProdutoUseCase(ProdutoRepository repository, ProdutoEventListener eventos) {
         this.repository = repository;
+        this.eventos = eventos;
     }
 
     public void executar(Produto produto) {
@@ -27,11 +34,12 @@ public class CadastrarProdutoUseCase {
         }
 
         // 4. Salvar o novo produto
-        repository.salvar(produto); 
+        repository.salvar(produto);
+        eventos.aoCadastrar(produto);
     }
 
-    // Método privado para agrupar as validações do produto
-    private void validarDadosProduto(Produto produto) {
+    // Agrupa as validações do produto; também aplicada a cada linha da importação em lote
+    static void validarDadosProduto(Produto produto) {
         if (produto.getCodigoBarras() == null || produto.getCodigoBarras().isBlank()) {
             throw new ValidacaoProdutoException("Código de barras não pode ser nulo ou vazio.");
         }
@@ -0,0 +1,153 @@
+package com.lucasmks.domain.usecase;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.lucasmks.domain.exception.ProdutoNaoEncontradoException;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.PosicaoEstoque;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.SnapshotEstoque;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.repository.MovimentacaoRepository;
+import com.lucasmks.domain.repository.ProdutoRepository;
+import com.lucasmks.domain.repository.SnapshotEstoqueRepository;
+
+// Estoque de um produto (ou do catálogo) em uma data passada. Parte da referência mais próxima
+// da data pedida - o snapshot anterior, o posterior ou o estoque atual - e aplica só as
+// movimentações entre a referência e a data: somando a partir de uma referência anterior,
+// desfazendo a partir de uma posterior. Assim nenhuma consulta relê o histórico inteiro.
+public class ConsultarEstoqueEmUseCase {
+    private final ProdutoRepository produtoRepository;
+    private final MovimentacaoRepository movimentacaoRepository;
+    private final SnapshotEstoqueRepository snapshotRepository;
+
+    public ConsultarEstoqueEmUseCase(ProdutoRepository produtoRepository, MovimentacaoRepository movimentacaoRepository,
+                                     SnapshotEstoqueRepository snapshotRepository) {
+        this.produtoRepository = produtoRepository;
+        this.movimentacaoRepository = movimentacaoRepository;
+        this.snapshotRepository = snapshotRepository;
+    }
+
+    public PosicaoEstoque executar(String codigoBarras, LocalDateTime em) {
+        if (codigoBarras == null || codigoBarras.trim().isEmpty()) {
+            throw new IllegalArgumentException("Código de barras não pode ser nulo ou vazio.");
+        }
+        if (em == null) {
+            throw new IllegalArgumentException("A data da consulta não pode ser nula.");
+        }
+        String codigo = codigoBarras.trim();
+        Produto produto = produtoRepository.buscarPorCodigoBarras(codigo)
+                .orElseThrow(() -> new ProdutoNaoEncontradoException("Produto com código de barras " + codigo + " não encontrado."));
+
+        LocalDateTime agora = LocalDateTime.now();
+        if (!em.isBefore(agora)) {
+            return new PosicaoEstoque(codigo, produto.getQuantidade(), em, agora);
+        }
+
+        // Referência padrão: o estoque atual; troca por um snapshot se ele estiver mais perto
+        SnapshotEstoque referencia = new SnapshotEstoque(agora, codigo, produto.getQuantidade(), agora);
+        Optional<SnapshotEstoque> anterior = snapshotRepository.buscarAnterior(codigo, em);
+        if (anterior.isPresent() && maisProxima(anterior.get().getDataHora(), referencia.getDataHora(), em)) {
+            referencia = anterior.get();
+        }
+        Optional<SnapshotEstoque> posterior = snapshotRepository.buscarPosterior(codigo, em);
+        if (posterior.isPresent() && maisProxima(posterior.get().getDataHora(), referencia.getDataHora(), em)) {
+            referencia = posterior.get();
+        }
+
+        LocalDateTime dataReferencia = referencia.getDataHora();
+        boolean avancar = !dataReferencia.isAfter(em);
+        LocalDateTime inicio = avancar ? dataReferencia : em;
+        LocalDateTime fim = avancar ? em : dataReferencia;
+        int[] quantidade = {referencia.getQuantidade()};
+        if (inicio.isBefore(fim)) {
+            movimentacaoRepository.percorrerMovimentacoesDoProduto(codigo, inicio, fim, movimentacao -> {
+                // Intervalo (inicio, fim]: o que aconteceu no instante da referência já está nela
+                if (movimentacao.getDataHora().isAfter(inicio) && !movimentacao.getDataHora().isAfter(fim)) {
+                    quantidade[0] += avancar ? efeito(movimentacao) : -efeito(movimentacao);
+                }
+            });
+        }
+        return new PosicaoEstoque(codigo, quantidade[0], em, dataReferencia);
+    }
+
+    // Estoque de todos os produtos em "em", ordenado por código de barras. A referência é uma
+    // execução inteira de snapshots (ou o catálogo atual) e as movimentações da janela são lidas
+    // uma única vez. Produtos que não existiam na referência não aparecem no resultado.
+    public List<PosicaoEstoque> executarCatalogo(LocalDateTime em) {
+        if (em == null) {
+            throw new IllegalArgumentException("A data da consulta não pode ser nula.");
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime execucao = agora;
+        if (em.isBefore(agora)) {
+            Optional<LocalDateTime> anterior = snapshotRepository.buscarExecucaoAnterior(em);
+            if (anterior.isPresent() && maisProxima(anterior.get(), execucao, em)) {
+                execucao = anterior.get();
+            }
+            Optional<LocalDateTime> posterior = snapshotRepository.buscarExecucaoPosterior(em);
+            if (posterior.isPresent() && maisProxima(posterior.get(), execucao, em)) {
+                execucao = posterior.get();
+            }
+        }
+
+        Map<String, SnapshotEstoque> base = new HashMap<>();
+        if (execucao == agora) {
+            produtoRepository.percorrerTodos(produto -> base.put(produto.getCodigoBarras(),
+                    new SnapshotEstoque(agora, produto.getCodigoBarras(), produto.getQuantidade(), agora)));
+        } else {
+            snapshotRepository.percorrerExecucao(execucao, snapshot -> base.put(snapshot.getCodigoBarras(), snapshot));
+        }
+
+        // Cada produto tem o próprio instante de leitura dentro da execução; a janela cobre todos
+        boolean avancar = !execucao.isAfter(em);
+        LocalDateTime inicio = em;
+        LocalDateTime fim = em;
+        for (SnapshotEstoque snapshot : base.values()) {
+            if (snapshot.getDataHora().isBefore(inicio)) {
+                inicio = snapshot.getDataHora();
+            }
+            if (snapshot.getDataHora().isAfter(fim)) {
+                fim = snapshot.getDataHora();
+            }
+        }
+        Map<String, int[]> quantidades = new HashMap<>(base.size() * 2);
+        base.forEach((codigo, snapshot) -> quantidades.put(codigo, new int[]{snapshot.getQuantidade()}));
+        if (inicio.isBefore(fim)) {
+            movimentacaoRepository.percorrerMovimentacoes(inicio, fim, movimentacao -> {
+                SnapshotEstoque snapshot = base.get(movimentacao.getCodigoBarras());
+                if (snapshot == null) {
+                    return;
+                }
+                LocalDateTime dataHora = movimentacao.getDataHora();
+                if (avancar && dataHora.isAfter(snapshot.getDataHora()) && !dataHora.isAfter(em)) {
+                    quantidades.get(movimentacao.getCodigoBarras())[0] += efeito(movimentacao);
+                } else if (!avancar && dataHora.isAfter(em) && !dataHora.isAfter(snapshot.getDataHora())) {
+                    quantidades.get(movimentacao.getCodigoBarras())[0] -= efeito(movimentacao);
+                }
+            });
+        }
+
+        List<PosicaoEstoque> posicoes = new ArrayList<>(base.size());
+        for (SnapshotEstoque snapshot : base.values()) {
+            posicoes.add(new PosicaoEstoque(snapshot.getCodigoBarras(), quantidades.get(snapshot.getCodigoBarras())[0],
+                    em, snapshot.getDataHora()));
+        }
+        posicoes.sort((a, b) -> a.getCodigoBarras().compareTo(b.getCodigoBarras()));
+        return posicoes;
+    }
+
+    private static boolean maisProxima(LocalDateTime candidata, LocalDateTime atual, LocalDateTime em) {
+        return Duration.between(candidata, em).abs().compareTo(Duration.between(atual, em).abs()) < 0;
+    }
+
+    private static int efeito(Movimentacao movimentacao) {
+        return movimentacao.getTipo() == TipoMovimentacao.ENTRADA ? movimentacao.getQuantidade() : -movimentacao.getQuantidade();
+    }
+}
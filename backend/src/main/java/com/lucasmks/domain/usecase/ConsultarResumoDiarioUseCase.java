@@ -0,0 +1,27 @@
+package com.lucasmks.domain.usecase;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.lucasmks.domain.model.ResumoDiario;
+import com.lucasmks.domain.repository.ResumoDiarioRepository;
+
+public class ConsultarResumoDiarioUseCase {
+    private final ResumoDiarioRepository resumoDiarioRepository;
+
+    public ConsultarResumoDiarioUseCase(ResumoDiarioRepository resumoDiarioRepository) {
+        this.resumoDiarioRepository = resumoDiarioRepository;
+    }
+
+    // Entradas e saídas por dia e por produto, lidas apenas dos resumos pré-agregados
+    public List<ResumoDiario> executar(LocalDate dataInicio, LocalDate dataFim, String codigoBarras) {
+        if (dataInicio == null || dataFim == null) {
+            throw new IllegalArgumentException("As datas de início e fim não podem ser nulas.");
+        }
+        if (dataInicio.isAfter(dataFim)) {
+            throw new IllegalArgumentException("A data de início não pode ser posterior à data de fim.");
+        }
+        String codigo = codigoBarras == null || codigoBarras.isBlank() ? null : codigoBarras.trim();
+        return resumoDiarioRepository.buscarResumos(dataInicio, dataFim, codigo);
+    }
+}
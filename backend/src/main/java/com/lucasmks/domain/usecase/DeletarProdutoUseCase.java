@@ -1,13 +1,20 @@
 package com.lucasmks.domain.usecase;
 
+import com.lucasmks.domain.event.ProdutoEventListener;
 import com.lucasmks.domain.exception.ProdutoNaoEncontradoException;
 import com.lucasmks.domain.repository.ProdutoRepository;
 
 public class DeletarProdutoUseCase {
     private final ProdutoRepository repository;
+    private final ProdutoEventListener eventos;
 
     public DeletarProdutoUseCase(ProdutoRepository repository) {
+        this(repository, ProdutoEventListener.NENHUM);
+    }
+
+    public DeletarProdutoUseCase(ProdutoRepository repository, ProdutoEventListener eventos) {
         this.repository = repository;
+        this.eventos = eventos;
     }
 
     public void executar(String codigoBarras) {
@@ -23,5 +30,6 @@ public class DeletarProdutoUseCase {
 
         // 3. Remover o produto
         repository.remover(codigoBarras);
+        eventos.aoRemover(codigoBarras);
     }
 } 
\ No newline at end of file
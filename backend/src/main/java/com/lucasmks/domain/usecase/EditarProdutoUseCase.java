@@ -1,5 +1,8 @@
 package com.lucasmks.domain.usecase;
 
+import com.lucasmks.domain.concurrency.SerializadorProdutos;
+import com.lucasmks.domain.event.ProdutoEventListener;
+import com.lucasmks.domain.exception.ConflitoVersaoException;
 import com.lucasmks.domain.exception.ProdutoNaoEncontradoException;
 import com.lucasmks.domain.exception.ValidacaoProdutoException;
 import com.lucasmks.domain.model.Produto;
@@ -7,12 +10,32 @@ import com.lucasmks.domain.repository.ProdutoRepository;
 
 public class EditarProdutoUseCase {
     private final ProdutoRepository repository;
+    private final ProdutoEventListener eventos;
+    private final SerializadorProdutos serializador;
 
     public EditarProdutoUseCase(ProdutoRepository repository) {
+        this(repository, ProdutoEventListener.NENHUM);
+    }
+
+    public EditarProdutoUseCase(ProdutoRepository repository, ProdutoEventListener eventos) {
+        this(repository, eventos, SerializadorProdutos.NENHUM);
+    }
+
+    public EditarProdutoUseCase(ProdutoRepository repository, ProdutoEventListener eventos, SerializadorProdutos serializador) {
         this.repository = repository;
+        this.eventos = eventos;
+        this.serializador = serializador;
     }
 
     public Produto executar(String codigoBarras, Produto produtoAtualizado) {
+        return executar(codigoBarras, produtoAtualizado, null);
+    }
+
+    // Com versaoEsperada, a edição (inclusive a quantidade) só é aplicada se ninguém alterou o
+    // produto desde que o cliente o leu; caso contrário lança ConflitoVersaoException. Sem ela,
+    // só os dados cadastrais são gravados e a quantidade enviada é ignorada: um valor lido antes
+    // de uma entrada ou saída desfaria o ajuste.
+    public Produto executar(String codigoBarras, Produto produtoAtualizado, Long versaoEsperada) {
         // 1. Validação de Parâmetros
         if (codigoBarras == null || codigoBarras.trim().isEmpty()) {
             throw new IllegalArgumentException("Código de barras não pode ser nulo ou vazio.");
@@ -22,23 +45,39 @@ public class EditarProdutoUseCase {
             throw new IllegalArgumentException("Produto atualizado não pode ser nulo.");
         }
 
-        // 2. Verificar se o produto existe
-        if (!repository.existePorCodigoBarras(codigoBarras)) {
-            throw new ProdutoNaoEncontradoException("Produto com código de barras " + codigoBarras + " não encontrado.");
-        }
+        // Da checagem de existência ao evento com o produto relido, sem que um ajuste de estoque
+        // do mesmo produto aconteça no meio (a edição com versão grava a quantidade inteira)
+        return serializador.calcular(codigoBarras, () -> {
+            // 2. Verificar se o produto existe
+            if (!repository.existePorCodigoBarras(codigoBarras)) {
+                throw new ProdutoNaoEncontradoException("Produto com código de barras " + codigoBarras + " não encontrado.");
+            }
 
-        // 3. Validação de Dados do Produto
-        validarDadosProduto(produtoAtualizado);
+            // 3. Validação de Dados do Produto
+            validarDadosProduto(produtoAtualizado);
 
-        // 4. Garantir que o código de barras não seja alterado
-        produtoAtualizado.setCodigoBarras(codigoBarras);
+            // 4. Garantir que o código de barras não seja alterado
+            produtoAtualizado.setCodigoBarras(codigoBarras);
 
-        // 5. Atualizar o produto
-        repository.atualizar(produtoAtualizado);
-        
-        // 6. Retornar o produto atualizado
-        return repository.buscarPorCodigoBarras(codigoBarras)
-                .orElseThrow(() -> new ProdutoNaoEncontradoException("Erro ao recuperar produto após atualização."));
+            // 5. Atualizar o produto
+            if (versaoEsperada == null) {
+                if (repository.atualizarDados(produtoAtualizado).isEmpty()) {
+                    throw new ProdutoNaoEncontradoException("Produto com código de barras " + codigoBarras + " não encontrado.");
+                }
+            } else if (!repository.atualizarSeVersao(produtoAtualizado, versaoEsperada)) {
+                if (!repository.existePorCodigoBarras(codigoBarras)) {
+                    throw new ProdutoNaoEncontradoException("Produto com código de barras " + codigoBarras + " não encontrado.");
+                }
+                throw new ConflitoVersaoException("Produto " + codigoBarras + " foi alterado por outra operação (versão esperada "
+                        + versaoEsperada + "). Recarregue o produto e tente novamente.");
+            }
+
+            // 6. Retornar o produto atualizado
+            Produto produtoEditado = repository.buscarPorCodigoBarras(codigoBarras)
+                    .orElseThrow(() -> new ProdutoNaoEncontradoException("Erro ao recuperar produto após atualização."));
+            eventos.aoEditar(produtoEditado);
+            return produtoEditado;
+        });
     }
 
     private void validarDadosProduto(Produto produto) {
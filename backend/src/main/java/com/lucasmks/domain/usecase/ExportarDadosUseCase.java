@@ -0,0 +1,38 @@
+package com.lucasmks.domain.usecase;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.repository.MovimentacaoRepository;
+import com.lucasmks.domain.repository.ProdutoRepository;
+
+// Exportação completa de produtos e movimentações. Os registros são entregues um a um ao
+// consumidor (que normalmente os escreve direto na resposta ou em um arquivo), então o
+// tamanho da exportação não depende da memória disponível.
+public class ExportarDadosUseCase {
+    private final ProdutoRepository produtoRepository;
+    private final MovimentacaoRepository movimentacaoRepository;
+
+    public ExportarDadosUseCase(ProdutoRepository produtoRepository, MovimentacaoRepository movimentacaoRepository) {
+        this.produtoRepository = produtoRepository;
+        this.movimentacaoRepository = movimentacaoRepository;
+    }
+
+    public void exportarProdutos(Consumer<Produto> consumidor) {
+        produtoRepository.percorrerTodos(consumidor);
+    }
+
+    // Datas opcionais: sem nenhuma, exporta o histórico inteiro
+    public void exportarMovimentacoes(LocalDateTime dataInicio, LocalDateTime dataFim, Consumer<Movimentacao> consumidor) {
+        validarPeriodo(dataInicio, dataFim);
+        movimentacaoRepository.percorrerMovimentacoes(dataInicio, dataFim, consumidor);
+    }
+
+    public static void validarPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim) {
+        if (dataInicio != null && dataFim != null && dataInicio.isAfter(dataFim)) {
+            throw new IllegalArgumentException("A data de início não pode ser posterior à data de fim.");
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.lucasmks.domain.usecase;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import com.lucasmks.domain.event.ProdutoEventListener;
+import com.lucasmks.domain.model.LinhaImportacao;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.ResultadoGravacao;
+import com.lucasmks.domain.model.ResultadoImportacao;
+import com.lucasmks.domain.repository.ProdutoRepository;
+
+// Importação em lote de produtos. As linhas são consumidas à medida que chegam e agrupadas
+// em lotes gravados com gravarLote; no máximo "lotesEmVoo" lotes ficam pendentes, e a leitura
+// espera quando o limite é atingido. Como quem produz as linhas é a leitura do corpo da
+// requisição, essa espera também segura o cliente: o arquivo nunca fica inteiro em memória.
+public class ImportarProdutosUseCase {
+
+    public static final int MAX_ERROS_PADRAO = 1000;
+
+    private final ProdutoRepository repository;
+    private final ProdutoEventListener eventos;
+    private final Executor executor;
+    private final int tamanhoLote;
+    private final int lotesEmVoo;
+    private final int maxErros;
+
+    public ImportarProdutosUseCase(ProdutoRepository repository, ProdutoEventListener eventos, Executor executor,
+                                   int tamanhoLote, int lotesEmVoo, int maxErros) {
+        if (tamanhoLote <= 0 || lotesEmVoo <= 0) {
+            throw new IllegalArgumentException("Tamanho do lote e lotes em voo devem ser positivos.");
+        }
+        this.repository = repository;
+        this.eventos = eventos;
+        this.executor = executor;
+        this.tamanhoLote = tamanhoLote;
+        this.lotesEmVoo = lotesEmVoo;
+        this.maxErros = maxErros;
+    }
+
+    public ResultadoImportacao executar(Iterator<LinhaImportacao> linhas, boolean substituirExistentes) {
+        ResultadoImportacao resultado = new ResultadoImportacao(maxErros);
+        Semaphore vagas = new Semaphore(lotesEmVoo);
+        // Códigos dos lotes ainda não gravados: uma repetição espera o lote anterior terminar,
+        // para que duas gravações do mesmo código não concorram (a última linha prevalece)
+        Set<String> codigosEmVoo = new HashSet<>();
+        Lote lote = new Lote(tamanhoLote);
+
+        try {
+            while (linhas.hasNext() && !resultado.isInterrompida()) {
+                LinhaImportacao linha = linhas.next();
+                resultado.contarLinha();
+                if (linha.getErro() != null) {
+                    resultado.rejeitar(linha.getLinha(), linha.getCodigoBarras(), linha.getErro());
+                    continue;
+                }
+                Produto produto = linha.getProduto();
+                try {
+                    CadastrarProdutoUseCase.validarDadosProduto(produto);
+                } catch (RuntimeException e) {
+                    resultado.rejeitar(linha.getLinha(), linha.getCodigoBarras(), e.getMessage());
+                    continue;
+                }
+
+                String codigo = produto.getCodigoBarras();
+                if (lote.contem(codigo)) {
+                    enviar(lote, substituirExistentes, resultado, vagas, codigosEmVoo);
+                    lote = new Lote(tamanhoLote);
+                }
+                if (emVoo(codigosEmVoo, codigo)) {
+                    aguardarTodos(vagas);
+                }
+                lote.adicionar(linha.getLinha(), produto);
+                if (lote.cheio()) {
+                    enviar(lote, substituirExistentes, resultado, vagas, codigosEmVoo);
+                    lote = new Lote(tamanhoLote);
+                }
+            }
+            if (!lote.vazio() && !resultado.isInterrompida()) {
+                enviar(lote, substituirExistentes, resultado, vagas, codigosEmVoo);
+            }
+            aguardarTodos(vagas);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resultado.interromper("Importação interrompida.");
+        } catch (UncheckedIOException e) {
+            // Leitura do arquivo falhou no meio (conexão caiu, por exemplo): o que já foi
+            // enviado termina de gravar e o resumo informa até onde se chegou
+            resultado.interromper("Erro ao ler o arquivo: " + e.getCause().getMessage());
+            aguardarSemInterrupcao(vagas);
+        }
+        return resultado;
+    }
+
+    private void enviar(Lote lote, boolean substituirExistentes, ResultadoImportacao resultado,
+                        Semaphore vagas, Set<String> codigosEmVoo) throws InterruptedException {
+        vagas.acquire(); // backpressure: espera um lote em voo terminar
+        synchronized (codigosEmVoo) {
+            codigosEmVoo.addAll(lote.codigos);
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    gravar(lote, substituirExistentes, resultado);
+                } finally {
+                    synchronized (codigosEmVoo) {
+                        codigosEmVoo.removeAll(lote.codigos);
+                    }
+                    vagas.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (codigosEmVoo) {
+                codigosEmVoo.removeAll(lote.codigos);
+            }
+            vagas.release();
+            throw e;
+        }
+    }
+
+    private void gravar(Lote lote, boolean substituirExistentes, ResultadoImportacao resultado) {
+        List<ResultadoGravacao> gravacoes;
+        try {
+            gravacoes = repository.gravarLote(lote.produtos, substituirExistentes);
+        } catch (RuntimeException e) {
+            // Falha do lote inteiro (banco fora do ar, por exemplo): as linhas do lote são
+            // rejeitadas e o restante do arquivo não é lido
+            for (int i = 0; i < lote.produtos.size(); i++) {
+                resultado.rejeitar(lote.linhas.get(i), lote.produtos.get(i).getCodigoBarras(), e.getMessage());
+            }
+            resultado.interromper("Falha ao gravar lote: " + e.getMessage());
+            return;
+        }
+        for (int i = 0; i < lote.produtos.size(); i++) {
+            Produto produto = lote.produtos.get(i);
+            ResultadoGravacao gravacao = gravacoes.get(i);
+            resultado.registrar(lote.linhas.get(i), produto.getCodigoBarras(), gravacao);
+            // Mantém índices, caches e o feed de estoque coerentes, como no cadastro e na edição
+            if (gravacao.getSituacao() == ResultadoGravacao.Situacao.INSERIDO) {
+                eventos.aoCadastrar(produto);
+            } else if (gravacao.getSituacao() == ResultadoGravacao.Situacao.ATUALIZADO) {
+                eventos.aoEditar(produto);
+            }
+        }
+    }
+
+    private boolean emVoo(Set<String> codigosEmVoo, String codigo) {
+        synchronized (codigosEmVoo) {
+            return codigosEmVoo.contains(codigo);
+        }
+    }
+
+    private void aguardarSemInterrupcao(Semaphore vagas) {
+        vagas.acquireUninterruptibly(lotesEmVoo);
+        vagas.release(lotesEmVoo);
+    }
+
+    private void aguardarTodos(Semaphore vagas) throws InterruptedException {
+        vagas.acquire(lotesEmVoo);
+        vagas.release(lotesEmVoo);
+    }
+
+    private static final class Lote {
+        private final List<Long> linhas;
+        private final List<Produto> produtos;
+        private final Set<String> codigos;
+        private final int capacidade;
+
+        Lote(int capacidade) {
+            this.capacidade = capacidade;
+            this.linhas = new ArrayList<>(capacidade);
+            this.produtos = new ArrayList<>(capacidade);
+            this.codigos = new HashSet<>();
+        }
+
+        void adicionar(long linha, Produto produto) {
+            linhas.add(linha);
+            produtos.add(produto);
+            codigos.add(produto.getCodigoBarras());
+        }
+
+        boolean contem(String codigo) {
+            return codigos.contains(codigo);
+        }
+
+        boolean cheio() {
+            return produtos.size() >= capacidade;
+        }
+
+        boolean vazio() {
+            return produtos.isEmpty();
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.lucasmks.domain.usecase;
 
+import com.lucasmks.domain.exception.ValidacaoProdutoException;
+import com.lucasmks.domain.model.FiltroProdutos;
+import com.lucasmks.domain.model.Pagina;
 import com.lucasmks.domain.model.Produto;
 import com.lucasmks.domain.repository.ProdutoRepository;
 import java.util.List;
@@ -14,4 +17,36 @@ public class ListarTodosProdutosUseCase {
     public List<Produto> executar() {
         return produtoRepository.buscarTodos(); // Este método precisa ser adicionado ao ProdutoRepository
     }
-}
\ No newline at end of file
+
+    public Pagina<Produto> executar(FiltroProdutos filtro) {
+        // 1. Validação de Parâmetros
+        if (filtro == null) {
+            throw new IllegalArgumentException("Filtro não pode ser nulo.");
+        }
+        if (!FiltroProdutos.CAMPOS.contains(filtro.getOrdenarPor())) {
+            throw new ValidacaoProdutoException("Campo de ordenação inválido: " + filtro.getOrdenarPor());
+        }
+        if (filtro.getCampos() != null) {
+            for (String campo : filtro.getCampos()) {
+                if (!FiltroProdutos.CAMPOS.contains(campo)) {
+                    throw new ValidacaoProdutoException("Campo inválido: " + campo);
+                }
+            }
+        }
+        if (filtro.getTamanhoPagina() <= 0 || filtro.getTamanhoPagina() > FiltroProdutos.TAMANHO_MAXIMO) {
+            throw new ValidacaoProdutoException("Tamanho da página deve estar entre 1 e " + FiltroProdutos.TAMANHO_MAXIMO + ".");
+        }
+        if (filtro.getPagina() < 1) {
+            throw new ValidacaoProdutoException("Página deve ser maior ou igual a 1.");
+        }
+        if (filtro.usaCursor() && filtro.getPagina() > 1) {
+            throw new ValidacaoProdutoException("Use página ou cursor, não os dois.");
+        }
+        if (filtro.getEstoqueMax() != null && filtro.getEstoqueMax() < 0) {
+            throw new ValidacaoProdutoException("Estoque máximo não pode ser negativo.");
+        }
+
+        // 2. Consulta paginada no repositório
+        return produtoRepository.buscarPagina(filtro);
+    }
+}
@@ -0,0 +1,54 @@
+package com.lucasmks.domain.usecase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.lucasmks.domain.exception.ValidacaoProdutoException;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.repository.ProdutoRepository;
+import com.lucasmks.domain.search.IndiceBuscaProduto;
+
+public class PesquisarProdutosUseCase {
+    public static final int LIMITE_PADRAO = 20;
+    public static final int LIMITE_MAXIMO = 100;
+
+    private final IndiceBuscaProduto indice;
+    private final ProdutoRepository repository;
+
+    public PesquisarProdutosUseCase(IndiceBuscaProduto indice, ProdutoRepository repository) {
+        this.indice = indice;
+        this.repository = repository;
+    }
+
+    public List<Produto> executar(String termo, int limite) {
+        // 1. Validação de Parâmetros
+        if (termo == null || termo.trim().length() < 2) {
+            throw new ValidacaoProdutoException("Termo de busca deve ter ao menos 2 caracteres.");
+        }
+        if (limite <= 0 || limite > LIMITE_MAXIMO) {
+            throw new ValidacaoProdutoException("Limite deve estar entre 1 e " + LIMITE_MAXIMO + ".");
+        }
+
+        // 2. Consulta ao índice (códigos já ordenados por relevância)
+        List<String> codigos = indice.buscar(termo, limite);
+        if (codigos.isEmpty()) {
+            return List.of();
+        }
+
+        // 3. Carrega os produtos em uma única consulta e restaura a ordem do índice
+        Map<String, Produto> porCodigo = new HashMap<>();
+        for (Produto produto : repository.buscarPorCodigosBarras(codigos)) {
+            porCodigo.put(produto.getCodigoBarras(), produto);
+        }
+        List<Produto> resultado = new ArrayList<>(codigos.size());
+        for (String codigo : codigos) {
+            Produto produto = porCodigo.get(codigo);
+            if (produto != null) {
+                resultado.add(produto);
+            }
+        }
+        return resultado;
+    }
+}
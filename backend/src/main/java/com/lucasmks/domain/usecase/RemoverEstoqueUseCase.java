@@ -1,5 +1,8 @@
 package com.lucasmks.domain.usecase;
 
+import com.lucasmks.domain.concurrency.EscritaIniciada;
+import com.lucasmks.domain.concurrency.SerializadorProdutos;
+import com.lucasmks.domain.event.ProdutoEventListener;
 import com.lucasmks.domain.exception.ProdutoNaoEncontradoException;
 import com.lucasmks.domain.exception.ValidacaoProdutoException;
 import com.lucasmks.domain.model.Movimentacao;
@@ -11,10 +14,23 @@ import com.lucasmks.domain.repository.ProdutoRepository;
 public class RemoverEstoqueUseCase {
     private final ProdutoRepository produtoRepository;
     private final MovimentacaoRepository movimentacaoRepository;
+    private final ProdutoEventListener eventos;
+    private final SerializadorProdutos serializador;
 
     public RemoverEstoqueUseCase(ProdutoRepository produtoRepository, MovimentacaoRepository movimentacaoRepository) {
+        this(produtoRepository, movimentacaoRepository, ProdutoEventListener.NENHUM);
+    }
+
+    public RemoverEstoqueUseCase(ProdutoRepository produtoRepository, MovimentacaoRepository movimentacaoRepository, ProdutoEventListener eventos) {
+        this(produtoRepository, movimentacaoRepository, eventos, SerializadorProdutos.NENHUM);
+    }
+
+    public RemoverEstoqueUseCase(ProdutoRepository produtoRepository, MovimentacaoRepository movimentacaoRepository, ProdutoEventListener eventos,
+            SerializadorProdutos serializador) {
         this.produtoRepository = produtoRepository;
         this.movimentacaoRepository = movimentacaoRepository;
+        this.eventos = eventos;
+        this.serializador = serializador;
     }
 
     public void executar(String codigoBarras, int quantidadeRemover, String motivo) {
@@ -28,18 +44,21 @@ public class RemoverEstoqueUseCase {
             throw new ValidacaoProdutoException("Motivo da saída não pode ser nulo ou vazio.");
         }
 
-        Produto produto = produtoRepository.buscarPorCodigoBarras(codigoBarras)
-                .orElseThrow(() -> new ProdutoNaoEncontradoException("Produto não encontrado com código: " + codigoBarras));
-
-        if (produto.getQuantidade() < quantidadeRemover) {
-            throw new ValidacaoProdutoException("Quantidade a remover é maior que a quantidade disponível no estoque.");
-        }        
-
-        produto.setQuantidade(produto.getQuantidade() - quantidadeRemover);
-        produtoRepository.salvar(produto);
+        // Ajuste, movimentação e evento do mesmo produto em sequência: sem intercalação, o
+        // horário da movimentação segue a ordem em que o saldo mudou
+        serializador.executar(codigoBarras, () -> {
+            // Checagem de saldo e baixa numa só operação atômica; sem ela, duas saídas simultâneas
+            // podiam ler o mesmo saldo e uma sobrescrever a outra
+            Produto produto = EscritaIniciada.ajustar(() -> produtoRepository.ajustarQuantidade(codigoBarras, -quantidadeRemover))
+                    .orElseThrow(() -> produtoRepository.existePorCodigoBarras(codigoBarras)
+                            ? new ValidacaoProdutoException("Quantidade a remover é maior que a quantidade disponível no estoque.")
+                            : new ProdutoNaoEncontradoException("Produto não encontrado com código: " + codigoBarras));
 
-        // Lógica para registrar movimentação, se já estiver implementando Movimentacao
-        movimentacaoRepository.salvar(new Movimentacao(codigoBarras, quantidadeRemover, TipoMovimentacao.SAIDA, motivo));
+            // Lógica para registrar movimentação, se já estiver implementando Movimentacao
+            Movimentacao movimentacao = new Movimentacao(codigoBarras, quantidadeRemover, TipoMovimentacao.SAIDA, motivo);
+            movimentacaoRepository.salvar(movimentacao);
+            eventos.aoMovimentarEstoque(produto, movimentacao);
+        });
     }
     
 }
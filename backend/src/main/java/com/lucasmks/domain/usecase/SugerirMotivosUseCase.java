@@ -0,0 +1,26 @@
+package com.lucasmks.domain.usecase;
+
+import java.util.List;
+
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.search.SugestoesMotivo;
+
+public class SugerirMotivosUseCase {
+    public static final int LIMITE_PADRAO = 10;
+
+    private final SugestoesMotivo sugestoes;
+
+    public SugerirMotivosUseCase(SugestoesMotivo sugestoes) {
+        this.sugestoes = sugestoes;
+    }
+
+    public List<String> executar(String prefixo, TipoMovimentacao tipo, int limite) {
+        // 1. Validação de Parâmetros
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero.");
+        }
+
+        // 2. Prefixo ausente lista os motivos mais usados
+        return sugestoes.sugerir(prefixo == null ? "" : prefixo.trim(), tipo, limite);
+    }
+}
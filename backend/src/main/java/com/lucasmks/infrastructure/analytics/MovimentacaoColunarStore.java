@@ -0,0 +1,331 @@
+package com.lucasmks.infrastructure.analytics;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Projections;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Armazenamento colunar, fora do heap, das movimentações para consultas analíticas.
+// Cada movimentação ocupa 21 bytes distribuídos em colunas primitivas
+// (dataHora em epoch millis, quantidade, tipo e ids de dicionário para código de barras e motivo),
+// alocadas em blocos de ByteBuffer direto. As agregações percorrem as colunas sem criar objetos.
+//
+// Escrita: um único escritor por vez (append sincronizado).
+// Leitura: sem lock; o tamanho publicado é volátil e só avança após a linha estar completa.
+public class MovimentacaoColunarStore implements Consumer<Movimentacao> {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovimentacaoColunarStore.class);
+
+    private static final int BITS_BLOCO = 20;
+    private static final int LINHAS_POR_BLOCO = 1 << BITS_BLOCO; // ~1M linhas por bloco
+    private static final int MASCARA_BLOCO = LINHAS_POR_BLOCO - 1;
+    private static final int BYTES_POR_LINHA = Long.BYTES + Integer.BYTES + Byte.BYTES + Integer.BYTES + Integer.BYTES;
+
+    private static final byte TIPO_ENTRADA = 0;
+    private static final byte TIPO_SAIDA = 1;
+
+    // Trocado por inteiro na recarga: cada leitura usa um único conjunto de colunas
+    private volatile Colunas colunas = new Colunas();
+
+    // Movimentações recebidas durante uma recarga, reaplicadas sobre o conteúdo novo; protegido pelo lock do store
+    private List<Consumer<MovimentacaoColunarStore>> recebidasNaRecarga;
+
+    // Consumer<Movimentacao>: permite registrar o store como ouvinte do repositório
+    @Override
+    public void accept(Movimentacao movimentacao) {
+        adicionar(movimentacao.getCodigoBarras(), movimentacao.getQuantidade(), movimentacao.getTipo(),
+                movimentacao.getMotivo(), movimentacao.getDataHora());
+    }
+
+    public synchronized void adicionar(String codigo, int qtd, TipoMovimentacao tipoMovimentacao, String motivoTexto, LocalDateTime quando) {
+        if (recebidasNaRecarga != null) {
+            recebidasNaRecarga.add(novo -> novo.adicionar(codigo, qtd, tipoMovimentacao, motivoTexto, quando));
+        }
+        Colunas c = colunas;
+        long linha = c.tamanho;
+        int bloco = (int) (linha >>> BITS_BLOCO);
+        if (bloco == c.dataHora.length) {
+            c.alocarBloco();
+        }
+        int posicao = (int) (linha & MASCARA_BLOCO);
+
+        c.dataHora[bloco].putLong(posicao * Long.BYTES, quando != null ? paraMillis(quando) : Long.MIN_VALUE);
+        c.quantidade[bloco].putInt(posicao * Integer.BYTES, qtd);
+        c.tipo[bloco].put(posicao, tipoMovimentacao == TipoMovimentacao.SAIDA ? TIPO_SAIDA : TIPO_ENTRADA);
+        c.codigoBarras[bloco].putInt(posicao * Integer.BYTES, c.codigos.id(codigo));
+        c.motivo[bloco].putInt(posicao * Integer.BYTES, c.motivos.id(motivoTexto));
+
+        c.tamanho = linha + 1; // publica a linha para os leitores
+    }
+
+    // Substitui todo o conteúdo pelo que `carga` adicionar a um store vazio (em geral, carregar
+    // do banco). A carga roda sem o lock: leitores veem o conteúdo antigo até a troca, e as
+    // movimentações recebidas nesse meio-tempo são reaplicadas sobre o novo. Uma gravada bem no
+    // início da carga pode ser lida por ela e reaplicada, contando duas vezes até a próxima recarga.
+    public void recarregar(Consumer<MovimentacaoColunarStore> carga) {
+        synchronized (this) {
+            recebidasNaRecarga = new ArrayList<>();
+        }
+        MovimentacaoColunarStore novo = new MovimentacaoColunarStore();
+        try {
+            carga.accept(novo);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                recebidasNaRecarga = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            recebidasNaRecarga.forEach(reaplicar -> reaplicar.accept(novo));
+            recebidasNaRecarga = null;
+            colunas = novo.colunas;
+        }
+    }
+
+    // Carrega todas as movimentações do banco lendo apenas os campos necessários,
+    // sem materializar objetos de domínio.
+    public void carregar(MongoDatabase database, LayoutMovimentacoes layout) {
+        long inicio = System.nanoTime();
+        try (MongoCursor<Document> cursor = layout.agregar(database, null, List.of(
+                        Aggregates.project(Projections.include("codigoBarras", "quantidade", "tipo", "motivo", "dataHora"))))
+                .batchSize(10_000)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                String tipoTexto = doc.getString("tipo");
+                Date data = doc.getDate("dataHora");
+                adicionar(doc.getString("codigoBarras"),
+                        doc.getInteger("quantidade", 0),
+                        tipoTexto != null ? TipoMovimentacao.valueOf(tipoTexto) : TipoMovimentacao.ENTRADA,
+                        doc.getString("motivo"),
+                        data != null ? LocalDateTime.ofInstant(data.toInstant(), ZoneOffset.UTC) : null);
+            }
+        }
+        logger.info("Store colunar de movimentações carregado: {} linhas, {} MB fora do heap, {} ms.",
+                tamanho(), bytesAlocados() / (1024 * 1024), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // --- Agregações ---
+
+    // Soma das quantidades no período [inicio, fim] para o tipo informado
+    public long somarQuantidade(LocalDateTime inicio, LocalDateTime fim, TipoMovimentacao tipoMovimentacao) {
+        Colunas c = colunas;
+        long n = c.tamanho; // lido antes das colunas: as colunas sempre cobrem as n linhas
+        long de = paraMillis(inicio);
+        long ate = paraMillis(fim);
+        byte tipoAlvo = codigoTipo(tipoMovimentacao);
+
+        ByteBuffer[] colData = c.dataHora;
+        ByteBuffer[] colQtd = c.quantidade;
+        ByteBuffer[] colTipo = c.tipo;
+        long total = 0;
+        for (int b = 0; (long) b * LINHAS_POR_BLOCO < n; b++) {
+            int limite = (int) Math.min(LINHAS_POR_BLOCO, n - (long) b * LINHAS_POR_BLOCO);
+            ByteBuffer d = colData[b];
+            ByteBuffer q = colQtd[b];
+            ByteBuffer t = colTipo[b];
+            for (int i = 0; i < limite; i++) {
+                long instante = d.getLong(i * Long.BYTES);
+                if (instante >= de && instante <= ate && t.get(i) == tipoAlvo) {
+                    total += q.getInt(i * Integer.BYTES);
+                }
+            }
+        }
+        return total;
+    }
+
+    // Quantidade de movimentações no período [inicio, fim] para o tipo informado
+    public long contar(LocalDateTime inicio, LocalDateTime fim, TipoMovimentacao tipoMovimentacao) {
+        Colunas c = colunas;
+        long n = c.tamanho; // lido antes das colunas: as colunas sempre cobrem as n linhas
+        long de = paraMillis(inicio);
+        long ate = paraMillis(fim);
+        byte tipoAlvo = codigoTipo(tipoMovimentacao);
+
+        ByteBuffer[] colData = c.dataHora;
+        ByteBuffer[] colTipo = c.tipo;
+        long total = 0;
+        for (int b = 0; (long) b * LINHAS_POR_BLOCO < n; b++) {
+            int limite = (int) Math.min(LINHAS_POR_BLOCO, n - (long) b * LINHAS_POR_BLOCO);
+            ByteBuffer d = colData[b];
+            ByteBuffer t = colTipo[b];
+            for (int i = 0; i < limite; i++) {
+                long instante = d.getLong(i * Long.BYTES);
+                if (instante >= de && instante <= ate && t.get(i) == tipoAlvo) {
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    // Soma das quantidades de um produto para o tipo informado (todo o histórico)
+    public long somarPorProduto(String codigo, TipoMovimentacao tipoMovimentacao) {
+        Colunas atuais = colunas;
+        long n = atuais.tamanho; // lido antes das colunas: as colunas sempre cobrem as n linhas
+        int idAlvo = atuais.codigos.idExistente(codigo);
+        if (idAlvo < 0) {
+            return 0;
+        }
+        byte tipoAlvo = codigoTipo(tipoMovimentacao);
+
+        ByteBuffer[] colCodigo = atuais.codigoBarras;
+        ByteBuffer[] colQtd = atuais.quantidade;
+        ByteBuffer[] colTipo = atuais.tipo;
+        long total = 0;
+        for (int b = 0; (long) b * LINHAS_POR_BLOCO < n; b++) {
+            int limite = (int) Math.min(LINHAS_POR_BLOCO, n - (long) b * LINHAS_POR_BLOCO);
+            ByteBuffer c = colCodigo[b];
+            ByteBuffer q = colQtd[b];
+            ByteBuffer t = colTipo[b];
+            for (int i = 0; i < limite; i++) {
+                if (c.getInt(i * Integer.BYTES) == idAlvo && t.get(i) == tipoAlvo) {
+                    total += q.getInt(i * Integer.BYTES);
+                }
+            }
+        }
+        return total;
+    }
+
+    // Soma das quantidades por motivo no período [inicio, fim] para o tipo informado.
+    // A varredura acumula em um array indexado pelo id do motivo; só o resultado final aloca.
+    public Map<String, Long> somarPorMotivo(LocalDateTime inicio, LocalDateTime fim, TipoMovimentacao tipoMovimentacao) {
+        Colunas c = colunas;
+        long n = c.tamanho; // lido antes das colunas: as colunas sempre cobrem as n linhas
+        long de = paraMillis(inicio);
+        long ate = paraMillis(fim);
+        byte tipoAlvo = codigoTipo(tipoMovimentacao);
+
+        ByteBuffer[] colData = c.dataHora;
+        ByteBuffer[] colQtd = c.quantidade;
+        ByteBuffer[] colTipo = c.tipo;
+        ByteBuffer[] colMotivo = c.motivo;
+        long[] somas = new long[c.motivos.tamanho()];
+        for (int b = 0; (long) b * LINHAS_POR_BLOCO < n; b++) {
+            int limite = (int) Math.min(LINHAS_POR_BLOCO, n - (long) b * LINHAS_POR_BLOCO);
+            ByteBuffer d = colData[b];
+            ByteBuffer q = colQtd[b];
+            ByteBuffer t = colTipo[b];
+            ByteBuffer m = colMotivo[b];
+            for (int i = 0; i < limite; i++) {
+                long instante = d.getLong(i * Long.BYTES);
+                if (instante >= de && instante <= ate && t.get(i) == tipoAlvo) {
+                    int id = m.getInt(i * Integer.BYTES);
+                    if (id < somas.length) { // motivo criado após o início da varredura
+                        somas[id] += q.getInt(i * Integer.BYTES);
+                    }
+                }
+            }
+        }
+
+        Map<String, Long> resultado = new LinkedHashMap<>();
+        for (int id = 0; id < somas.length; id++) {
+            if (somas[id] != 0) {
+                resultado.put(c.motivos.valor(id), somas[id]);
+            }
+        }
+        return resultado;
+    }
+
+    public long tamanho() {
+        return colunas.tamanho;
+    }
+
+    // Memória fora do heap ocupada pelas colunas (inclui espaço reservado e ainda não usado)
+    public long bytesAlocados() {
+        return (long) colunas.dataHora.length * LINHAS_POR_BLOCO * BYTES_POR_LINHA;
+    }
+
+    // Colunas por bloco; arrays substituídos (cópia) ao crescer, nunca alterados no lugar
+    private static final class Colunas {
+        volatile ByteBuffer[] dataHora = new ByteBuffer[0];
+        volatile ByteBuffer[] quantidade = new ByteBuffer[0];
+        volatile ByteBuffer[] tipo = new ByteBuffer[0];
+        volatile ByteBuffer[] codigoBarras = new ByteBuffer[0];
+        volatile ByteBuffer[] motivo = new ByteBuffer[0];
+        volatile long tamanho;
+
+        final Dicionario codigos = new Dicionario();
+        final Dicionario motivos = new Dicionario();
+
+        void alocarBloco() {
+            dataHora = anexar(dataHora, ByteBuffer.allocateDirect(LINHAS_POR_BLOCO * Long.BYTES));
+            quantidade = anexar(quantidade, ByteBuffer.allocateDirect(LINHAS_POR_BLOCO * Integer.BYTES));
+            tipo = anexar(tipo, ByteBuffer.allocateDirect(LINHAS_POR_BLOCO));
+            codigoBarras = anexar(codigoBarras, ByteBuffer.allocateDirect(LINHAS_POR_BLOCO * Integer.BYTES));
+            motivo = anexar(motivo, ByteBuffer.allocateDirect(LINHAS_POR_BLOCO * Integer.BYTES));
+        }
+    }
+
+    private static ByteBuffer[] anexar(ByteBuffer[] blocos, ByteBuffer novo) {
+        ByteBuffer[] copia = Arrays.copyOf(blocos, blocos.length + 1);
+        copia[blocos.length] = novo.order(ByteOrder.nativeOrder());
+        return copia;
+    }
+
+    private static byte codigoTipo(TipoMovimentacao tipoMovimentacao) {
+        return tipoMovimentacao == TipoMovimentacao.SAIDA ? TIPO_SAIDA : TIPO_ENTRADA;
+    }
+
+    // O LocalDateTime é gravado no Mongo como UTC pelo codec padrão; a mesma convenção é usada aqui
+    private static long paraMillis(LocalDateTime dataHora) {
+        return dataHora.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    // Dicionário texto <-> id denso, usado para as colunas de código de barras e motivo
+    private static final class Dicionario {
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final List<String> valores = new ArrayList<>();
+
+        // Chamado apenas pelo escritor (sob o lock do store)
+        int id(String valor) {
+            String chave = valor != null ? valor : "";
+            Integer existente = ids.get(chave);
+            if (existente != null) {
+                return existente;
+            }
+            synchronized (valores) {
+                int novo = valores.size();
+                valores.add(chave);
+                ids.put(chave, novo);
+                return novo;
+            }
+        }
+
+        int idExistente(String valor) {
+            return ids.getOrDefault(valor != null ? valor : "", -1);
+        }
+
+        String valor(int id) {
+            synchronized (valores) {
+                return valores.get(id);
+            }
+        }
+
+        int tamanho() {
+            synchronized (valores) {
+                return valores.size();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.lucasmks.infrastructure.cache;
+
+import com.lucasmks.domain.event.ProdutoEventListener;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.Produto;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Contadores de versão dos dados, incrementados pelos eventos dos casos de uso de escrita.
+// Todos os contadores recebem valores de uma única sequência, então nenhuma versão se repete,
+// nem mesmo para um produto removido e cadastrado de novo.
+// Os contadores vivem só em memória: o identificador do boot entra nas ETags para que
+// versões de uma execução anterior nunca sejam confundidas com as atuais.
+public class VersoesDados implements ProdutoEventListener {
+
+    private final String boot = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequencia = new AtomicLong();
+    private final AtomicLong catalogo = new AtomicLong();
+    private final AtomicLong movimentacoes = new AtomicLong();
+    private final Map<String, Long> porProduto = new ConcurrentHashMap<>();
+    // Última versão persistida conhecida de cada produto (campo versao), para montar a ETag
+    // sem ler o banco; aprendida pelos eventos e pelas leituras
+    private final Map<String, Long> persistidas = new ConcurrentHashMap<>();
+
+    public String getBoot() {
+        return boot;
+    }
+
+    public long versaoCatalogo() {
+        return catalogo.get();
+    }
+
+    public long versaoMovimentacoes() {
+        return movimentacoes.get();
+    }
+
+    public long versaoProduto(String codigoBarras) {
+        return porProduto.getOrDefault(codigoBarras, 0L);
+    }
+
+    // Null quando a versão persistida ainda não é conhecida nesta instância
+    public Long versaoPersistida(String codigoBarras) {
+        return persistidas.get(codigoBarras);
+    }
+
+    public void registrarVersaoPersistida(String codigoBarras, long versao) {
+        persistidas.merge(codigoBarras, versao, Math::max);
+    }
+
+    @Override
+    public void aoCadastrar(Produto produto) {
+        alterarProduto(produto.getCodigoBarras());
+        registrarVersaoPersistida(produto.getCodigoBarras(), produto.getVersao());
+    }
+
+    @Override
+    public void aoEditar(Produto produto) {
+        alterarProduto(produto.getCodigoBarras());
+        registrarVersaoPersistida(produto.getCodigoBarras(), produto.getVersao());
+    }
+
+    @Override
+    public void aoRemover(String codigoBarras) {
+        alterarProduto(codigoBarras);
+        persistidas.remove(codigoBarras);
+    }
+
+    @Override
+    public void aoMovimentarEstoque(Produto produto, Movimentacao movimentacao) {
+        long versao = alterarProduto(produto.getCodigoBarras());
+        avancar(movimentacoes, versao);
+        registrarVersaoPersistida(produto.getCodigoBarras(), produto.getVersao());
+    }
+
+    // Movimentação gravada por outro nó, sem o produto correspondente em mãos
+    public void alterarMovimentacoes() {
+        avancar(movimentacoes, sequencia.incrementAndGet());
+    }
+
+    // Invalida tudo de uma vez (ex.: alterações feitas fora desta instância)
+    public void invalidarTudo() {
+        long versao = sequencia.incrementAndGet();
+        avancar(catalogo, versao);
+        avancar(movimentacoes, versao);
+        porProduto.replaceAll((codigo, atual) -> versao);
+        persistidas.clear();
+    }
+
+    private long alterarProduto(String codigoBarras) {
+        long versao = sequencia.incrementAndGet();
+        porProduto.merge(codigoBarras, versao, Math::max);
+        avancar(catalogo, versao);
+        return versao;
+    }
+
+    // Escritas concorrentes podem chegar fora de ordem; o contador nunca volta
+    private static void avancar(AtomicLong contador, long versao) {
+        contador.accumulateAndGet(versao, Math::max);
+    }
+}
@@ -0,0 +1,134 @@
+package com.lucasmks.infrastructure.concurrency;
+
+import com.lucasmks.domain.concurrency.SerializadorProdutos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Locks listrados: um número fixo de locks (faixas), e cada código de barras usa o da faixa dada
+// pelo seu hash. Produtos diferentes raramente disputam o mesmo lock e a memória não cresce com
+// o catálogo. Com justo=true, quem espera há mais tempo é atendido primeiro (menos vazão, sem
+// inanição). Mede por faixa as aquisições, as que precisaram esperar e o tempo de espera.
+public class SerializadorProdutosListrado implements SerializadorProdutos {
+
+    private final ReentrantLock[] faixas;
+    private final int mascara;
+    private final boolean justo;
+    private final AtomicLongArray aquisicoes;
+    private final AtomicLongArray contencoes;
+    private final AtomicLongArray esperaNanos;
+    private final AtomicLongArray esperaMaximaNanos;
+
+    public SerializadorProdutosListrado(int quantidadeFaixas, boolean justo) {
+        if (quantidadeFaixas < 1 || quantidadeFaixas > (1 << 20)) {
+            throw new IllegalArgumentException("Quantidade de faixas deve estar entre 1 e " + (1 << 20) + ".");
+        }
+        // Potência de 2 para trocar o resto da divisão por uma máscara
+        int tamanho = Integer.highestOneBit(quantidadeFaixas);
+        if (tamanho < quantidadeFaixas) {
+            tamanho <<= 1;
+        }
+        this.faixas = new ReentrantLock[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            faixas[i] = new ReentrantLock(justo);
+        }
+        this.mascara = tamanho - 1;
+        this.justo = justo;
+        this.aquisicoes = new AtomicLongArray(tamanho);
+        this.contencoes = new AtomicLongArray(tamanho);
+        this.esperaNanos = new AtomicLongArray(tamanho);
+        this.esperaMaximaNanos = new AtomicLongArray(tamanho);
+    }
+
+    public int faixa(String codigoBarras) {
+        int h = codigoBarras.hashCode();
+        return (h ^ (h >>> 16)) & mascara;
+    }
+
+    @Override
+    public <T> T calcular(String codigoBarras, Supplier<T> acao) {
+        int faixa = faixa(codigoBarras);
+        ReentrantLock lock = faixas[faixa];
+        travar(faixa, lock);
+        try {
+            return acao.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void travar(int faixa, ReentrantLock lock) {
+        aquisicoes.incrementAndGet(faixa);
+        try {
+            // tryLock() sem tempo ignora a fila mesmo num lock justo; com tempo zero, respeita
+            if (lock.tryLock(0, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long inicio = System.nanoTime();
+        lock.lock();
+        long espera = System.nanoTime() - inicio;
+        contencoes.incrementAndGet(faixa);
+        esperaNanos.addAndGet(faixa, espera);
+        esperaMaximaNanos.accumulateAndGet(faixa, espera, Math::max);
+    }
+
+    // Totais e as faixas que mais esperaram (no máximo limiteFaixas), da maior espera para a menor
+    public Metricas metricas(int limiteFaixas) {
+        Metricas metricas = new Metricas();
+        metricas.setFaixas(faixas.length);
+        metricas.setJusto(justo);
+        List<MetricasFaixa> disputadas = new ArrayList<>();
+        long totalAquisicoes = 0;
+        long totalContencoes = 0;
+        long totalEspera = 0;
+        for (int i = 0; i < faixas.length; i++) {
+            totalAquisicoes += aquisicoes.get(i);
+            totalContencoes += contencoes.get(i);
+            totalEspera += esperaNanos.get(i);
+            if (contencoes.get(i) > 0) {
+                disputadas.add(new MetricasFaixa(i, aquisicoes.get(i), contencoes.get(i),
+                        esperaNanos.get(i) / 1_000_000.0, esperaMaximaNanos.get(i) / 1_000_000.0, faixas[i].getQueueLength()));
+            }
+        }
+        disputadas.sort(Comparator.comparingDouble(MetricasFaixa::getEsperaTotalMs).reversed());
+        metricas.setAquisicoes(totalAquisicoes);
+        metricas.setContencoes(totalContencoes);
+        metricas.setEsperaTotalMs(totalEspera / 1_000_000.0);
+        metricas.setFaixasMaisDisputadas(disputadas.subList(0, Math.min(limiteFaixas, disputadas.size())));
+        return metricas;
+    }
+
+    @Data
+    public static class Metricas {
+        private int faixas;
+        private boolean justo;
+        private long aquisicoes;
+        private long contencoes;            // aquisições que encontraram o lock ocupado
+        private double esperaTotalMs;
+        private List<MetricasFaixa> faixasMaisDisputadas;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class MetricasFaixa {
+        private int faixa;
+        private long aquisicoes;
+        private long contencoes;
+        private double esperaTotalMs;
+        private double esperaMaximaMs;
+        private int aguardandoAgora;        // threads na fila do lock no momento da leitura
+    }
+}
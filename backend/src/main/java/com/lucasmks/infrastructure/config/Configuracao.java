@@ -0,0 +1,59 @@
+package com.lucasmks.infrastructure.config;
+
+// Leitura centralizada de configurações: primeiro a propriedade de sistema (-Destoque.x.y),
+// depois a variável de ambiente equivalente (ESTOQUE_X_Y) e, por fim, o valor padrão.
+public final class Configuracao {
+
+    private static volatile String identificadorNo;
+
+    private Configuracao() {}
+
+    // Identifica esta instância da API entre os vários nós que gravam no mesmo banco.
+    // Precisa ser estável entre reinícios; por padrão é o nome do host, então estoque.no.id
+    // deve ser definido quando houver mais de um nó no mesmo host.
+    public static String identificadorNo() {
+        if (identificadorNo == null) {
+            identificadorNo = get("estoque.no.id", nomeHost());
+        }
+        return identificadorNo;
+    }
+
+    private static String nomeHost() {
+        try {
+            return java.net.InetAddress.getLocalHost().getHostName();
+        } catch (java.net.UnknownHostException e) {
+            return "desconhecido";
+        }
+    }
+
+    public static String get(String chave, String padrao) {
+        String valor = System.getProperty(chave);
+        if (valor == null || valor.isBlank()) {
+            valor = System.getenv(chave.toUpperCase().replace('.', '_').replace('-', '_'));
+        }
+        return (valor == null || valor.isBlank()) ? padrao : valor.trim();
+    }
+
+    public static int getInt(String chave, int padrao) {
+        String valor = get(chave, null);
+        try {
+            return valor != null ? Integer.parseInt(valor) : padrao;
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Configuração inválida para " + chave + ": " + valor, e);
+        }
+    }
+
+    public static long getLong(String chave, long padrao) {
+        String valor = get(chave, null);
+        try {
+            return valor != null ? Long.parseLong(valor) : padrao;
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Configuração inválida para " + chave + ": " + valor, e);
+        }
+    }
+
+    public static boolean getBoolean(String chave, boolean padrao) {
+        String valor = get(chave, null);
+        return valor != null ? Boolean.parseBoolean(valor) : padrao;
+    }
+}
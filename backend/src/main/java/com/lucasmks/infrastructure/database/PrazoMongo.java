@@ -0,0 +1,56 @@
+package com.lucasmks.infrastructure.database;
+
+import com.lucasmks.domain.concurrency.Prazo;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.EstimatedDocumentCountOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+
+import java.util.concurrent.TimeUnit;
+
+// Aplica o prazo da requisição (Prazo) às consultas como maxTime: o próprio MongoDB
+// interrompe a consulta quando o cliente já não espera a resposta (MongoExecutionTimeoutException),
+// em vez de seguir consumindo o banco. Sem prazo, as consultas ficam como estão.
+// Se o prazo já acabou, lança PrazoExcedidoException sem ir ao banco.
+public final class PrazoMongo {
+
+    private PrazoMongo() {}
+
+    public static <T> FindIterable<T> aplicar(FindIterable<T> busca) {
+        long restante = restanteMs();
+        return restante > 0 ? busca.maxTime(restante, TimeUnit.MILLISECONDS) : busca;
+    }
+
+    public static <T> AggregateIterable<T> aplicar(AggregateIterable<T> agregacao) {
+        long restante = restanteMs();
+        return restante > 0 ? agregacao.maxTime(restante, TimeUnit.MILLISECONDS) : agregacao;
+    }
+
+    // findOneAndUpdate (ajustes de estoque e edições): a única escrita com maxTime no driver
+    public static FindOneAndUpdateOptions aplicar(FindOneAndUpdateOptions opcoes) {
+        long restante = restanteMs();
+        return restante > 0 ? opcoes.maxTime(restante, TimeUnit.MILLISECONDS) : opcoes;
+    }
+
+    public static CountOptions contagem() {
+        long restante = restanteMs();
+        CountOptions opcoes = new CountOptions();
+        return restante > 0 ? opcoes.maxTime(restante, TimeUnit.MILLISECONDS) : opcoes;
+    }
+
+    public static EstimatedDocumentCountOptions contagemEstimada() {
+        long restante = restanteMs();
+        EstimatedDocumentCountOptions opcoes = new EstimatedDocumentCountOptions();
+        return restante > 0 ? opcoes.maxTime(restante, TimeUnit.MILLISECONDS) : opcoes;
+    }
+
+    // 0 = sem prazo; o mínimo é 1 ms (maxTime 0 significaria "sem limite")
+    private static long restanteMs() {
+        if (!Prazo.definido()) {
+            return 0;
+        }
+        Prazo.verificar();
+        return Math.max(1, Prazo.restanteMs());
+    }
+}
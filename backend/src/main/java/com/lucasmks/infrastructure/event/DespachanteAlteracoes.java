@@ -0,0 +1,179 @@
+package com.lucasmks.infrastructure.event;
+
+import com.lucasmks.domain.event.ProdutoEventListener;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.lucasmks.infrastructure.persistence.document.MovimentacaoDocument;
+import com.lucasmks.infrastructure.persistence.document.ProdutoDocument;
+import com.lucasmks.infrastructure.persistence.mapper.MovimentacaoMapper;
+import com.lucasmks.infrastructure.persistence.mapper.ProdutoMapper;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoBucketsMongoRepositoryImpl;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Repasse dos eventos do change stream às estruturas em memória deste nó, separado do cursor
+// (ObservadorAlteracoesMongo) para poder ser exercitado sem replica set. Escritas do próprio nó
+// (campo "origem") e eventos até o instante da carga são ignorados; remoções de produto trazem
+// só o _id e são resolvidas pelo mapa codigoPorId, mantido a partir dos próprios eventos.
+//
+// No layout BUCKETS as movimentações chegam como upserts em movimentacoes_buckets: a inserção
+// traz o bucket com seus itens e cada $push traz apenas os itens novos em updatedFields.
+public class DespachanteAlteracoes {
+
+    public static final String PRODUTOS = "produtos";
+    private static final String PREFIXO_ITENS = "movimentacoes.";
+    private static final int HISTORICO_PERDIDO = 286; // ChangeStreamHistoryLost
+    private static final int ERRO_FATAL = 280; // ChangeStreamFatalError
+
+    private final String no;
+    private final LayoutMovimentacoes layout;
+    private final ProdutoEventListener produtos;
+    private final Consumer<Movimentacao> movimentacoes;
+    private final ProdutoMapper produtoMapper;
+    private final MovimentacaoMapper movimentacaoMapper;
+    private final CodecRegistry codecs;
+
+    // Eventos de remoção trazem apenas o _id do documento
+    private final Map<BsonValue, String> codigoPorId = new ConcurrentHashMap<>();
+
+    private volatile BsonTimestamp carga; // eventos até este instante já estão refletidos na carga em memória
+
+    public DespachanteAlteracoes(String no, LayoutMovimentacoes layout, ProdutoEventListener produtos,
+                                 Consumer<Movimentacao> movimentacoes, ProdutoMapper produtoMapper,
+                                 MovimentacaoMapper movimentacaoMapper, CodecRegistry codecs) {
+        this.no = no;
+        this.layout = layout;
+        this.produtos = produtos;
+        this.movimentacoes = movimentacoes;
+        this.produtoMapper = produtoMapper;
+        this.movimentacaoMapper = movimentacaoMapper;
+        this.codecs = codecs;
+    }
+
+    // Nova carga em memória: instante em que foi feita e o _id de cada produto carregado
+    public void recarregado(BsonTimestamp carga, Map<BsonValue, String> ids) {
+        this.carga = carga;
+        codigoPorId.clear();
+        codigoPorId.putAll(ids);
+    }
+
+    public List<String> colecoesObservadas() {
+        return layout == LayoutMovimentacoes.SERIE_TEMPORAL ? List.of(PRODUTOS) : List.of(PRODUTOS, layout.colecao());
+    }
+
+    // Motivo pelo qual o stream não pode seguir deste evento (coleção removida ou renomeada), ou null
+    public static String eventosPerdidos(ChangeStreamDocument<?> evento) {
+        OperationType operacao = evento.getOperationType();
+        if (operacao == OperationType.INVALIDATE || operacao == OperationType.DROP
+                || operacao == OperationType.RENAME || operacao == OperationType.DROP_DATABASE) {
+            return "coleção removida ou renomeada (" + operacao.getValue() + ")";
+        }
+        return null;
+    }
+
+    // Motivo pelo qual o stream não pode ser retomado depois deste erro (oplog já não alcança o
+    // token, erro fatal do stream), ou null se basta tentar de novo
+    public static String eventosPerdidos(MongoException erro) {
+        if (erro.getCode() == HISTORICO_PERDIDO || erro.getCode() == ERRO_FATAL) {
+            return "não é possível retomar o change stream: " + erro.getMessage();
+        }
+        return null;
+    }
+
+    public void processar(ChangeStreamDocument<BsonDocument> evento) {
+        OperationType operacao = evento.getOperationType();
+        // Retomando de um token anterior à carga, ou do próprio instante dela: já refletido na memória
+        if (carga != null && evento.getClusterTime() != null && evento.getClusterTime().compareTo(carga) <= 0) {
+            return;
+        }
+        String colecao = evento.getNamespace() != null ? evento.getNamespace().getCollectionName() : null;
+        BsonValue id = evento.getDocumentKey() != null ? evento.getDocumentKey().get("_id") : null;
+
+        if (PRODUTOS.equals(colecao)) {
+            if (operacao == OperationType.DELETE) {
+                String codigoBarras = id != null ? codigoPorId.remove(id) : null;
+                if (codigoBarras != null) {
+                    produtos.aoRemover(codigoBarras);
+                }
+                return;
+            }
+            // Sem documento: foi removido antes da consulta, e o evento de remoção vem a seguir
+            if (evento.getFullDocument() == null || evento.getFullDocument().isEmpty()) {
+                return;
+            }
+            Document documento = decodificar(evento.getFullDocument(), Document.class);
+            String codigoBarras = documento.getString("codigoBarras");
+            if (id != null && codigoBarras != null) {
+                codigoPorId.put(id, codigoBarras);
+            }
+            if (no.equals(documento.getString("origem"))) {
+                return;
+            }
+            Produto produto = produtoMapper.toDomain(ProdutoDocument.fromDocument(documento));
+            if (operacao == OperationType.INSERT) {
+                produtos.aoCadastrar(produto);
+            } else {
+                produtos.aoEditar(produto);
+            }
+        } else if (layout == LayoutMovimentacoes.BUCKETS && layout.colecao().equals(colecao)) {
+            processarBucket(evento, operacao);
+        } else if (layout.colecao().equals(colecao) && operacao == OperationType.INSERT && evento.getFullDocument() != null) {
+            // Movimentações só são inseridas; remoções manuais não afetam os contadores
+            MovimentacaoDocument documento = decodificar(evento.getFullDocument(), MovimentacaoDocument.class);
+            if (!no.equals(documento.getOrigem())) {
+                movimentacoes.accept(movimentacaoMapper.toDomain(documento));
+            }
+        }
+    }
+
+    // Bucket criado: todos os itens são novos. Bucket atualizado: só os campos "movimentacoes.<i>"
+    // gravados pelo $push; o código de barras vem do bucket consultado pelo UPDATE_LOOKUP
+    private void processarBucket(ChangeStreamDocument<BsonDocument> evento, OperationType operacao) {
+        BsonDocument bucket = evento.getFullDocument();
+        if (bucket == null || !bucket.isString("codigoBarras")) {
+            return;
+        }
+        String codigoBarras = bucket.getString("codigoBarras").getValue();
+        if (operacao == OperationType.INSERT && bucket.isArray(MovimentacaoBucketsMongoRepositoryImpl.ITENS)) {
+            for (BsonValue item : bucket.getArray(MovimentacaoBucketsMongoRepositoryImpl.ITENS)) {
+                emitirItem(codigoBarras, item);
+            }
+        } else if (operacao == OperationType.UPDATE && evento.getUpdateDescription() != null
+                && evento.getUpdateDescription().getUpdatedFields() != null) {
+            for (Map.Entry<String, BsonValue> campo : evento.getUpdateDescription().getUpdatedFields().entrySet()) {
+                if (campo.getKey().startsWith(PREFIXO_ITENS)) {
+                    emitirItem(codigoBarras, campo.getValue());
+                }
+            }
+        }
+    }
+
+    private void emitirItem(String codigoBarras, BsonValue valor) {
+        if (!valor.isDocument()) {
+            return;
+        }
+        Document item = decodificar(valor.asDocument(), Document.class);
+        if (!no.equals(item.getString("origem"))) {
+            movimentacoes.accept(MovimentacaoBucketsMongoRepositoryImpl.paraDominio(codigoBarras, item));
+        }
+    }
+
+    private <T> T decodificar(BsonDocument documento, Class<T> tipo) {
+        return codecs.get(tipo).decode(new BsonDocumentReader(documento), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,264 @@
+package com.lucasmks.infrastructure.event;
+
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoBucketsMongoRepositoryImpl;
+import com.mongodb.MongoException;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Acompanha, por change stream, as escritas feitas por outros nós da API nas coleções
+// produtos e movimentacoes e as repassa (DespachanteAlteracoes) às estruturas em memória deste
+// nó, como se os casos de uso tivessem rodado aqui.
+//
+// O resume token é gravado periodicamente na coleção "sincronizacao" (um documento por nó) e,
+// no boot, o stream é retomado dele; os eventos até o instante da carga em memória já estão
+// nela e são ignorados. Sem token gravado, o stream começa na carga. Se o oplog não alcança
+// mais o token (o nó ficou parado tempo demais) ou a coleção é removida, os eventos perdidos
+// não podem ser recuperados: aoPerderEventos recarrega as estruturas em memória do banco e o
+// stream recomeça do instante atual. Change streams exigem replica set (um nó basta).
+//
+// Coleções time-series não aceitam change streams: no layout SERIE_TEMPORAL só os produtos
+// são sincronizados, e as movimentações de outros nós só entram nos contadores no próximo boot.
+public class ObservadorAlteracoesMongo implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ObservadorAlteracoesMongo.class);
+
+    private static final String COLECAO_TOKENS = "sincronizacao";
+    private static final long ESPERA_INICIAL_MS = 500;
+    private static final long ESPERA_MAXIMA_MS = 30_000;
+
+    private final MongoClient cliente;
+    private final MongoDatabase database;
+    private final MongoCollection<BsonDocument> tokens;
+    private final LayoutMovimentacoes layout;
+    private final String no;
+    private final DespachanteAlteracoes despachante;
+    private final Runnable aoPerderEventos;
+    private final long intervaloTokenMs;
+
+    private volatile boolean ativo;
+    private Thread thread;
+
+    // Estado abaixo acessado apenas pela thread do stream (ou antes de iniciá-la)
+    private BsonTimestamp carga; // eventos até este instante já estão refletidos na carga em memória
+    private BsonDocument token;
+    private BsonDocument tokenGravado;
+    private long tokenGravadoEm;
+    private boolean reabrir;
+
+    public ObservadorAlteracoesMongo(MongoClient cliente, MongoDatabase database, String no,
+                                     DespachanteAlteracoes despachante, Runnable aoPerderEventos,
+                                     LayoutMovimentacoes layout, long intervaloTokenMs) {
+        this.cliente = cliente;
+        this.database = database;
+        this.tokens = database.getCollection(COLECAO_TOKENS, BsonDocument.class);
+        this.no = no;
+        this.despachante = despachante;
+        this.aoPerderEventos = aoPerderEventos;
+        this.layout = layout;
+        this.intervaloTokenMs = intervaloTokenMs;
+    }
+
+    // Deve ser chamado antes de carregar as estruturas em memória: eventos até este instante
+    // são ignorados, então nada gravado durante a carga se perde. Retorna false sem replica set.
+    public boolean marcarInicioCarga() {
+        try (ClientSession sessao = cliente.startSession()) {
+            database.runCommand(sessao, new Document("ping", 1));
+            carga = sessao.getOperationTime();
+        }
+        if (carga == null) {
+            logger.error("O MongoDB não informou o operationTime: change streams exigem replica set. Sincronização entre nós desativada.");
+            return false;
+        }
+        return true;
+    }
+
+    public void iniciar() {
+        if (carga == null && !marcarInicioCarga()) {
+            return;
+        }
+        token = lerTokenGravado();
+        carregarIds();
+        ativo = true;
+        thread = new Thread(this::executar, "mongo-change-stream");
+        thread.setDaemon(true);
+        thread.start();
+        if (layout == LayoutMovimentacoes.SERIE_TEMPORAL) {
+            logger.warn("Coleções time-series não suportam change streams: movimentações de outros nós não serão sincronizadas.");
+        }
+        logger.info("Change stream de {} iniciado (nó {}, {}).", String.join(" e ", despachante.colecoesObservadas()), no,
+                token != null ? "retomando do token gravado" : "a partir da carga");
+    }
+
+    @Override
+    public void close() {
+        ativo = false;
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(3));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void executar() {
+        long espera = ESPERA_INICIAL_MS;
+        while (ativo) {
+            reabrir = false;
+            try (MongoChangeStreamCursor<ChangeStreamDocument<BsonDocument>> cursor = abrir()) {
+                espera = ESPERA_INICIAL_MS;
+                while (ativo && !reabrir) {
+                    // Aguarda até maxAwaitTime; assim o laço percebe o encerramento e grava o token mesmo sem eventos
+                    ChangeStreamDocument<BsonDocument> evento = cursor.tryNext();
+                    if (evento != null) {
+                        String perda = DespachanteAlteracoes.eventosPerdidos(evento);
+                        if (perda != null) {
+                            perderEventos(perda);
+                        } else {
+                            despachante.processar(evento);
+                        }
+                    }
+                    BsonDocument atual = cursor.getResumeToken();
+                    if (atual != null && !reabrir) {
+                        token = atual;
+                    }
+                    gravarToken(false);
+                }
+            } catch (MongoException e) {
+                if (!ativo) {
+                    break;
+                }
+                String perda = DespachanteAlteracoes.eventosPerdidos(e);
+                if (perda != null) {
+                    perderEventos(perda);
+                    continue;
+                }
+                // O driver já tenta retomar uma vez sozinho; aqui a espera cresce até o banco voltar
+                logger.warn("Change stream interrompido, nova tentativa em {} ms: {}", espera, e.getMessage());
+                dormir(espera);
+                espera = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+            } catch (RuntimeException e) {
+                logger.error("Erro inesperado no change stream: {}", e.getMessage(), e);
+                dormir(espera);
+                espera = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+            }
+        }
+        gravarToken(true);
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<BsonDocument>> abrir() {
+        List<Bson> pipeline = new ArrayList<>(2);
+        pipeline.add(Aggregates.match(Filters.in("ns.coll", despachante.colecoesObservadas())));
+        if (layout == LayoutMovimentacoes.BUCKETS) {
+            // Nas atualizações os itens novos já vêm em updatedFields: o bucket consultado pelo
+            // UPDATE_LOOKUP chega sem o array, que pode ter centenas de movimentações
+            pipeline.add(new Document("$addFields", new Document("fullDocument." + MovimentacaoBucketsMongoRepositoryImpl.ITENS,
+                    new Document("$cond", List.of(new Document("$eq", List.of("$operationType", "update")),
+                            "$$REMOVE", "$fullDocument." + MovimentacaoBucketsMongoRepositoryImpl.ITENS)))));
+        }
+        ChangeStreamIterable<BsonDocument> stream = database
+                .watch(pipeline, BsonDocument.class)
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (token != null) {
+            stream.resumeAfter(token);
+        } else {
+            stream.startAtOperationTime(carga);
+        }
+        return stream.cursor();
+    }
+
+    // Recomeça do instante atual e só então recarrega as estruturas em memória: o que for
+    // gravado durante a recarga chega pelo novo stream. No boot, um token gravado que o oplog
+    // já não alcança cai aqui e a carga recém-feita é refeita
+    private void perderEventos(String motivo) {
+        logger.warn("Change stream perdeu eventos ({}); recarregando as estruturas em memória.", motivo);
+        token = null;
+        reabrir = true;
+        if (!marcarInicioCarga()) {
+            ativo = false;
+            return;
+        }
+        carregarIds();
+        try {
+            aoPerderEventos.run();
+        } catch (RuntimeException e) {
+            logger.error("Erro ao recarregar as estruturas em memória após perda de eventos: {}", e.getMessage(), e);
+        }
+    }
+
+    private void carregarIds() {
+        Map<BsonValue, String> ids = new HashMap<>();
+        for (BsonDocument doc : database.getCollection(DespachanteAlteracoes.PRODUTOS, BsonDocument.class)
+                .find().projection(Projections.include("codigoBarras"))) {
+            BsonValue codigoBarras = doc.get("codigoBarras");
+            if (codigoBarras != null && codigoBarras.isString()) {
+                ids.put(doc.get("_id"), codigoBarras.asString().getValue());
+            }
+        }
+        despachante.recarregado(carga, ids);
+    }
+
+    private BsonDocument lerTokenGravado() {
+        try {
+            BsonDocument gravado = tokens.find(Filters.eq("_id", no)).first();
+            return gravado != null && gravado.isDocument("token") ? gravado.getDocument("token") : null;
+        } catch (MongoException e) {
+            logger.warn("Não foi possível ler o resume token gravado: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Uma escrita por intervalo, não por evento
+    private void gravarToken(boolean forcar) {
+        long agora = System.currentTimeMillis();
+        if (token == null || token.equals(tokenGravado) || (!forcar && agora - tokenGravadoEm < intervaloTokenMs)) {
+            return;
+        }
+        try {
+            BsonDocument registro = new BsonDocument("_id", new BsonString(no))
+                    .append("token", token)
+                    .append("atualizadoEm", new BsonDateTime(agora));
+            tokens.replaceOne(Filters.eq("_id", no), registro, new ReplaceOptions().upsert(true));
+            tokenGravado = token;
+            tokenGravadoEm = agora;
+        } catch (MongoException e) {
+            logger.warn("Não foi possível gravar o resume token: {}", e.getMessage());
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.lucasmks.infrastructure.event;
+
+import com.lucasmks.domain.event.ProdutoEventListener;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.Produto;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Repassa os eventos de produto a todos os ouvintes registrados.
+// A gravação já foi concluída quando o evento chega, então a falha de um ouvinte
+// é registrada em log e não interrompe os demais nem a requisição.
+public class ProdutoEventPublisher implements ProdutoEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProdutoEventPublisher.class);
+
+    private final List<ProdutoEventListener> ouvintes = new CopyOnWriteArrayList<>();
+
+    public void registrar(ProdutoEventListener ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    @Override
+    public void aoCadastrar(Produto produto) {
+        publicar(ouvinte -> ouvinte.aoCadastrar(produto), produto.getCodigoBarras());
+    }
+
+    @Override
+    public void aoEditar(Produto produto) {
+        publicar(ouvinte -> ouvinte.aoEditar(produto), produto.getCodigoBarras());
+    }
+
+    @Override
+    public void aoRemover(String codigoBarras) {
+        publicar(ouvinte -> ouvinte.aoRemover(codigoBarras), codigoBarras);
+    }
+
+    @Override
+    public void aoMovimentarEstoque(Produto produto, Movimentacao movimentacao) {
+        publicar(ouvinte -> ouvinte.aoMovimentarEstoque(produto, movimentacao), produto.getCodigoBarras());
+    }
+
+    private void publicar(Consumer<ProdutoEventListener> evento, String codigoBarras) {
+        for (ProdutoEventListener ouvinte : ouvintes) {
+            try {
+                evento.accept(ouvinte);
+            } catch (RuntimeException e) {
+                logger.error("Erro ao propagar evento do produto {} para {}: {}",
+                        codigoBarras, ouvinte.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -1,12 +1,49 @@
 package com.lucasmks.infrastructure.factory;
 
+import com.lucasmks.domain.concurrency.SerializadorProdutos;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.repository.IdempotenciaRepository;
 import com.lucasmks.domain.repository.ProdutoRepository;
 import com.lucasmks.domain.repository.MovimentacaoRepository;
+import com.lucasmks.domain.repository.ResumoDiarioRepository;
+import com.lucasmks.domain.repository.SnapshotEstoqueRepository;
 import com.lucasmks.domain.usecase.*;
+import com.lucasmks.infrastructure.analytics.MovimentacaoColunarStore;
+import com.lucasmks.infrastructure.cache.VersoesDados;
+import com.lucasmks.infrastructure.concurrency.SerializadorProdutosListrado;
+import com.lucasmks.infrastructure.config.Configuracao;
+import com.lucasmks.infrastructure.database.MongoConnection;
+import com.lucasmks.infrastructure.event.DespachanteAlteracoes;
+import com.lucasmks.infrastructure.event.ObservadorAlteracoesMongo;
+import com.lucasmks.infrastructure.event.ProdutoEventPublisher;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.lucasmks.infrastructure.persistence.ModoGravacaoMovimentacoes;
+import com.lucasmks.infrastructure.persistence.local.ProdutoLocalRepositoryImpl;
 import com.lucasmks.infrastructure.persistence.mapper.ProdutoMapper;
 import com.lucasmks.infrastructure.persistence.mapper.MovimentacaoMapper;
 import com.lucasmks.infrastructure.persistence.repository.ProdutoMongoRepositoryImpl;
+import com.lucasmks.infrastructure.persistence.repository.ProdutoRepositoryAjustesCombinados;
+import com.lucasmks.infrastructure.persistence.repository.ProdutoRepositoryDisjuntor;
+import com.lucasmks.infrastructure.persistence.repository.IdempotenciaMongoRepositoryImpl;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoBucketsMongoRepositoryImpl;
 import com.lucasmks.infrastructure.persistence.repository.MovimentacaoMongoRepositoryImpl;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoRepositoryDisjuntor;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoRepositoryGravacaoAssincrona;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoRepositoryNotificador;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoRepositoryResumoDiario;
+import com.lucasmks.infrastructure.persistence.repository.ResumoDiarioMongoRepositoryImpl;
+import com.lucasmks.infrastructure.persistence.repository.SnapshotEstoqueMongoRepositoryImpl;
+import com.lucasmks.infrastructure.resilience.Disjuntor;
+import com.lucasmks.infrastructure.search.ContadorMotivos;
+import com.lucasmks.infrastructure.search.IndiceTrigramaProduto;
+import com.lucasmks.infrastructure.snapshot.TarefaSnapshotEstoque;
+
+import java.time.Duration;
+import java.util.List;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ApplicationFactory {
 
@@ -16,7 +53,30 @@ public class ApplicationFactory {
 
     // Repositories
     private static ProdutoRepository produtoRepository;
-    private static MovimentacaoRepository movimentacaoRepository;
+    private static ProdutoRepository produtoRepositoryAjustes;
+    private static ProdutoRepositoryDisjuntor produtoRepositoryDisjuntor;
+    private static Disjuntor disjuntorMongo;
+    private static MovimentacaoRepositoryNotificador movimentacaoRepository;
+    private static MovimentacaoRepositoryGravacaoAssincrona gravacaoMovimentacoes;
+    private static ResumoDiarioRepository resumoDiarioRepository;
+    private static SnapshotEstoqueRepository snapshotEstoqueRepository;
+    private static IdempotenciaRepository idempotenciaRepository;
+
+    // Estruturas em memória
+    private static MovimentacaoColunarStore movimentacaoColunarStore;
+    private static IndiceTrigramaProduto indiceBuscaProduto;
+    private static ContadorMotivos contadorMotivos;
+
+    // Concorrência
+    private static SerializadorProdutosListrado serializadorProdutos;
+
+    // Eventos
+    private static ProdutoEventPublisher produtoEventos;
+    private static VersoesDados versoesDados;
+    private static ObservadorAlteracoesMongo observadorAlteracoes;
+
+    // Tarefas agendadas
+    private static TarefaSnapshotEstoque tarefaSnapshotEstoque;
 
     // Use Cases
     private static CadastrarProdutoUseCase cadastrarProdutoUseCase;
@@ -27,6 +87,12 @@ public class ApplicationFactory {
     private static ListarTodosProdutosUseCase listarTodosProdutosUseCase;
     private static EditarProdutoUseCase editarProdutoUseCase;
     private static DeletarProdutoUseCase deletarProdutoUseCase; 
+    private static PesquisarProdutosUseCase pesquisarProdutosUseCase;
+    private static SugerirMotivosUseCase sugerirMotivosUseCase;
+    private static ImportarProdutosUseCase importarProdutosUseCase;
+    private static ExportarDadosUseCase exportarDadosUseCase;
+    private static ConsultarResumoDiarioUseCase consultarResumoDiarioUseCase;
+    private static ConsultarEstoqueEmUseCase consultarEstoqueEmUseCase;
     
     // Mappers
     public static ProdutoMapper getProdutoMapper() {
@@ -46,22 +112,258 @@ public class ApplicationFactory {
     // Repositories
     public static ProdutoRepository getProdutoRepository() {
         if (produtoRepository == null) {
-            produtoRepository = new ProdutoMongoRepositoryImpl(getProdutoMapper());
+            // "mongo" (padrão) ou "local" (snapshot + journal em disco)
+            if ("local".equalsIgnoreCase(Configuracao.get("estoque.produtos.repositorio", "mongo"))) {
+                produtoRepository = ProdutoLocalRepositoryImpl.aPartirDaConfiguracao();
+            } else if (getDisjuntorMongo() != null) {
+                produtoRepositoryDisjuntor = new ProdutoRepositoryDisjuntor(new ProdutoMongoRepositoryImpl(getProdutoMapper()), getDisjuntorMongo());
+                produtoRepository = produtoRepositoryDisjuntor;
+            } else {
+                produtoRepository = new ProdutoMongoRepositoryImpl(getProdutoMapper());
+            }
         }
         return produtoRepository;
     }
 
+    // Com estoque.mongo.disjuntor=true (padrão), as chamadas aos repositórios de produtos e de
+    // movimentações no MongoDB passam por um disjuntor compartilhado (chaves estoque.mongo.disjuntor.*):
+    // com o banco fora do ar, são recusadas na hora e a busca e a listagem de produtos usam a
+    // última cópia conhecida. Null quando desligado.
+    public static Disjuntor getDisjuntorMongo() {
+        if (disjuntorMongo == null && Configuracao.getBoolean("estoque.mongo.disjuntor", true)) {
+            disjuntorMongo = Disjuntor.mongoDaConfiguracao();
+        }
+        return disjuntorMongo;
+    }
+
+    // Decorador com a cópia dos produtos; null com o repositório local ou sem disjuntor
+    public static ProdutoRepositoryDisjuntor getProdutoRepositoryDisjuntor() {
+        getProdutoRepository();
+        return produtoRepositoryDisjuntor;
+    }
+
+    // Repositório usado pelas entradas e saídas de estoque: com estoque.produtos.ajustes.combinar=true
+    // (padrão), ajustes simultâneos no mesmo produto viram uma única gravação
+    // (estoque.produtos.ajustes.janela-ms de espera extra, até estoque.produtos.ajustes.max por gravação)
+    public static ProdutoRepository getProdutoRepositoryAjustes() {
+        if (produtoRepositoryAjustes == null) {
+            produtoRepositoryAjustes = Configuracao.getBoolean("estoque.produtos.ajustes.combinar", true)
+                    ? new ProdutoRepositoryAjustesCombinados(getProdutoRepository(),
+                            Configuracao.getLong("estoque.produtos.ajustes.janela-ms", 0),
+                            Configuracao.getInt("estoque.produtos.ajustes.max", 1000))
+                    : getProdutoRepository();
+        }
+        return produtoRepositoryAjustes;
+    }
+
+    // Com estoque.produtos.serializar=true, entradas, saídas e edições do mesmo produto rodam uma
+    // de cada vez neste processo (estoque.produtos.serializar.faixas locks, justos com
+    // estoque.produtos.serializar.justo). Só faz sentido com um único nó gravando; com ele ligado,
+    // a combinação de ajustes não encontra ajustes simultâneos vindos deste nó.
+    public static SerializadorProdutos getSerializadorProdutos() {
+        if (!Configuracao.getBoolean("estoque.produtos.serializar", false)) {
+            return SerializadorProdutos.NENHUM;
+        }
+        if (serializadorProdutos == null) {
+            serializadorProdutos = new SerializadorProdutosListrado(
+                    Configuracao.getInt("estoque.produtos.serializar.faixas", 256),
+                    Configuracao.getBoolean("estoque.produtos.serializar.justo", false));
+        }
+        return serializadorProdutos;
+    }
+
+    // null quando a serialização está desligada
+    public static SerializadorProdutosListrado getSerializadorProdutosListrado() {
+        getSerializadorProdutos();
+        return serializadorProdutos;
+    }
+
     public static MovimentacaoRepository getMovimentacaoRepository() {
+        return getMovimentacaoRepositoryNotificador();
+    }
+
+    // Layout das movimentações no banco: documentos avulsos (padrão), buckets por produto e dia
+    // (estoque.movimentacoes.layout=buckets) ou coleção time-series (serie-temporal).
+    // Com estoque.movimentacoes.gravacao=fila ou lote, as gravações passam por uma fila gravada
+    // em lotes (MovimentacaoRepositoryGravacaoAssincrona); os resumos diários ficam abaixo dela.
+    // O repositório de movimentações é sempre decorado para que as estruturas em memória
+    // possam acompanhar cada nova movimentação gravada
+    private static MovimentacaoRepositoryNotificador getMovimentacaoRepositoryNotificador() {
         if (movimentacaoRepository == null) {
-            movimentacaoRepository = new MovimentacaoMongoRepositoryImpl(getMovimentacaoMapper());
+            LayoutMovimentacoes layout = LayoutMovimentacoes.configurado();
+            MovimentacaoRepository repositorio = layout == LayoutMovimentacoes.BUCKETS
+                    ? new MovimentacaoBucketsMongoRepositoryImpl()
+                    : new MovimentacaoMongoRepositoryImpl(getMovimentacaoMapper(), layout);
+            if (getDisjuntorMongo() != null) {
+                repositorio = new MovimentacaoRepositoryDisjuntor(repositorio, getDisjuntorMongo());
+            }
+            if (Configuracao.getBoolean("estoque.movimentacoes.resumo-diario", true)) {
+                repositorio = new MovimentacaoRepositoryResumoDiario(repositorio, getResumoDiarioRepository());
+            }
+            ModoGravacaoMovimentacoes modo = ModoGravacaoMovimentacoes.configurado();
+            if (modo != ModoGravacaoMovimentacoes.SINCRONA) {
+                gravacaoMovimentacoes = new MovimentacaoRepositoryGravacaoAssincrona(repositorio, modo,
+                        Configuracao.getInt("estoque.movimentacoes.gravacao.fila", 10_000),
+                        Configuracao.getInt("estoque.movimentacoes.gravacao.lote", 500),
+                        Configuracao.getLong("estoque.movimentacoes.gravacao.espera-ms", 5),
+                        Configuracao.getLong("estoque.movimentacoes.gravacao.bloqueio-ms", 2000));
+                repositorio = gravacaoMovimentacoes;
+            }
+            movimentacaoRepository = new MovimentacaoRepositoryNotificador(repositorio);
         }
         return movimentacaoRepository;
     }
 
+    // Fila de gravação de movimentações, para as métricas; null no modo síncrono (padrão)
+    public static MovimentacaoRepositoryGravacaoAssincrona getGravacaoMovimentacoes() {
+        getMovimentacaoRepositoryNotificador();
+        return gravacaoMovimentacoes;
+    }
+
+    // Resumos diários por produto (coleção movimentacoes_diarias), somados a cada movimentação
+    // gravada enquanto estoque.movimentacoes.resumo-diario=true (padrão)
+    public static ResumoDiarioRepository getResumoDiarioRepository() {
+        if (resumoDiarioRepository == null) {
+            resumoDiarioRepository = new ResumoDiarioMongoRepositoryImpl();
+        }
+        return resumoDiarioRepository;
+    }
+
+    // Quantidade em estoque de cada produto gravada periodicamente (coleção estoque_snapshots)
+    public static SnapshotEstoqueRepository getSnapshotEstoqueRepository() {
+        if (snapshotEstoqueRepository == null) {
+            snapshotEstoqueRepository = new SnapshotEstoqueMongoRepositoryImpl();
+        }
+        return snapshotEstoqueRepository;
+    }
+
+    public static IdempotenciaRepository getIdempotenciaRepository() {
+        if (idempotenciaRepository == null) {
+            idempotenciaRepository = new IdempotenciaMongoRepositoryImpl();
+        }
+        return idempotenciaRepository;
+    }
+
+    // Estruturas em memória
+    // Retorna null quando o store colunar está desabilitado (estoque.analytics.colunar=false)
+    public static MovimentacaoColunarStore getMovimentacaoColunarStore() {
+        if (movimentacaoColunarStore == null && Configuracao.getBoolean("estoque.analytics.colunar", false)) {
+            MovimentacaoColunarStore store = new MovimentacaoColunarStore();
+            store.carregar(MongoConnection.getDatabase(), LayoutMovimentacoes.configurado());
+            getMovimentacaoRepositoryNotificador().adicionarOuvinte(store);
+            movimentacaoColunarStore = store;
+        }
+        return movimentacaoColunarStore;
+    }
+
+    // Índice de busca por nome, categoria e fornecedor, construído a partir do catálogo completo
+    // e mantido pelos eventos dos casos de uso de cadastro, edição e remoção
+    public static IndiceTrigramaProduto getIndiceBuscaProduto() {
+        if (indiceBuscaProduto == null) {
+            IndiceTrigramaProduto indice = new IndiceTrigramaProduto();
+            getProdutoEventos().registrar(indice);
+            indice.reconstruir(getProdutoRepository().buscarTodos());
+            indiceBuscaProduto = indice;
+        }
+        return indiceBuscaProduto;
+    }
+
+    // Contagem de uso dos motivos: uma agregação no boot e depois +1 a cada movimentação gravada
+    public static ContadorMotivos getContadorMotivos() {
+        if (contadorMotivos == null) {
+            ContadorMotivos contador = new ContadorMotivos();
+            contador.carregar(MongoConnection.getDatabase(), LayoutMovimentacoes.configurado());
+            getMovimentacaoRepositoryNotificador().adicionarOuvinte(contador);
+            contadorMotivos = contador;
+        }
+        return contadorMotivos;
+    }
+
+    // Eventos
+    public static ProdutoEventPublisher getProdutoEventos() {
+        if (produtoEventos == null) {
+            produtoEventos = new ProdutoEventPublisher();
+        }
+        return produtoEventos;
+    }
+
+    // Contadores de versão usados nas ETags dos GETs mais consultados
+    public static VersoesDados getVersoesDados() {
+        if (versoesDados == null) {
+            versoesDados = new VersoesDados();
+            getProdutoEventos().registrar(versoesDados);
+        }
+        return versoesDados;
+    }
+
+    // Sincronização entre nós: as escritas de outros nós chegam pelo change stream e são
+    // publicadas nos mesmos ouvintes dos casos de uso locais.
+    // Retorna null quando desabilitada (estoque.sync.change-streams=false, o padrão)
+    public static ObservadorAlteracoesMongo getObservadorAlteracoes() {
+        if (observadorAlteracoes == null && Configuracao.getBoolean("estoque.sync.change-streams", false)) {
+            DespachanteAlteracoes despachante = new DespachanteAlteracoes(
+                    Configuracao.identificadorNo(),
+                    LayoutMovimentacoes.configurado(),
+                    getProdutoEventos(),
+                    movimentacao -> {
+                        getMovimentacaoRepositoryNotificador().notificar(movimentacao);
+                        getVersoesDados().alterarMovimentacoes();
+                    },
+                    getProdutoMapper(),
+                    getMovimentacaoMapper(),
+                    MongoConnection.getDatabase().getCodecRegistry());
+            observadorAlteracoes = new ObservadorAlteracoesMongo(
+                    MongoConnection.getClient(),
+                    MongoConnection.getDatabase(),
+                    Configuracao.identificadorNo(),
+                    despachante,
+                    ApplicationFactory::descartarCaches,
+                    LayoutMovimentacoes.configurado(),
+                    Configuracao.getLong("estoque.sync.token-intervalo-ms", 1000));
+        }
+        return observadorAlteracoes;
+    }
+
+    // Chamado quando o change stream perdeu eventos: as ETags são invalidadas e tudo o que foi
+    // carregado do banco é relido (índice de busca, cópia dos produtos do disjuntor, contagem de
+    // motivos e store colunar). Os contadores seguem respondendo com o conteúdo antigo até a troca.
+    private static void descartarCaches() {
+        getVersoesDados().invalidarTudo();
+        if (produtoRepositoryDisjuntor != null || indiceBuscaProduto != null) {
+            // Uma única leitura do catálogo renova a cópia do disjuntor e o índice
+            List<Produto> produtos = produtoRepositoryDisjuntor != null
+                    ? produtoRepositoryDisjuntor.recarregarCopia()
+                    : getProdutoRepository().buscarTodos();
+            if (indiceBuscaProduto != null) {
+                indiceBuscaProduto.reconstruir(produtos);
+            }
+        }
+        if (contadorMotivos != null) {
+            contadorMotivos.recarregar(novo -> novo.carregar(MongoConnection.getDatabase(), LayoutMovimentacoes.configurado()));
+        }
+        if (movimentacaoColunarStore != null) {
+            movimentacaoColunarStore.recarregar(novo -> novo.carregar(MongoConnection.getDatabase(), LayoutMovimentacoes.configurado()));
+        }
+    }
+
+    // Tarefas agendadas
+    // Snapshots do estoque a cada estoque.snapshots.intervalo-minutos (padrão: um por dia), mantidos
+    // por estoque.snapshots.retencao-dias (0 = para sempre). Retorna null quando desabilitada
+    // (estoque.snapshots.habilitado=false); a tarefa ainda precisa ser iniciada
+    public static TarefaSnapshotEstoque getTarefaSnapshotEstoque() {
+        if (tarefaSnapshotEstoque == null && Configuracao.getBoolean("estoque.snapshots.habilitado", true)) {
+            tarefaSnapshotEstoque = new TarefaSnapshotEstoque(getProdutoRepository(), getSnapshotEstoqueRepository(),
+                    Duration.ofMinutes(Configuracao.getLong("estoque.snapshots.intervalo-minutos", 1440)),
+                    Configuracao.getInt("estoque.snapshots.retencao-dias", 0),
+                    Configuracao.getInt("estoque.snapshots.lote", 1000));
+        }
+        return tarefaSnapshotEstoque;
+    }
+
     // Use Cases
     public static CadastrarProdutoUseCase getCadastrarProdutoUseCase() {
         if (cadastrarProdutoUseCase == null) {
-            cadastrarProdutoUseCase = new CadastrarProdutoUseCase(getProdutoRepository());
+            cadastrarProdutoUseCase = new CadastrarProdutoUseCase(getProdutoRepository(), getProdutoEventos());
         }
         return cadastrarProdutoUseCase;
     }
@@ -75,14 +377,16 @@ public class ApplicationFactory {
 
     public static AdicionarEstoqueUseCase getAdicionarEstoqueUseCase() {
         if (adicionarEstoqueUseCase == null) {
-            adicionarEstoqueUseCase = new AdicionarEstoqueUseCase(getProdutoRepository(), getMovimentacaoRepository());
+            adicionarEstoqueUseCase = new AdicionarEstoqueUseCase(getProdutoRepositoryAjustes(), getMovimentacaoRepository(), getProdutoEventos(),
+                    getSerializadorProdutos());
         }
         return adicionarEstoqueUseCase;
     }
 
     public static RemoverEstoqueUseCase getRemoverEstoqueUseCase() {
         if (removerEstoqueUseCase == null) {
-            removerEstoqueUseCase = new RemoverEstoqueUseCase(getProdutoRepository(), getMovimentacaoRepository());
+            removerEstoqueUseCase = new RemoverEstoqueUseCase(getProdutoRepositoryAjustes(), getMovimentacaoRepository(), getProdutoEventos(),
+                    getSerializadorProdutos());
         }
         return removerEstoqueUseCase;
     }
@@ -103,21 +407,111 @@ public class ApplicationFactory {
 
     public static EditarProdutoUseCase getEditarProdutoUseCase() {
         if (editarProdutoUseCase == null) {
-            editarProdutoUseCase = new EditarProdutoUseCase(getProdutoRepository());
+            editarProdutoUseCase = new EditarProdutoUseCase(getProdutoRepository(), getProdutoEventos(), getSerializadorProdutos());
         }
         return editarProdutoUseCase;
     }
 
     public static DeletarProdutoUseCase getDeletarProdutoUseCase() {
         if (deletarProdutoUseCase == null) {
-            deletarProdutoUseCase = new DeletarProdutoUseCase(getProdutoRepository());
+            deletarProdutoUseCase = new DeletarProdutoUseCase(getProdutoRepository(), getProdutoEventos());
         }
         return deletarProdutoUseCase;
     }
 
+    public static PesquisarProdutosUseCase getPesquisarProdutosUseCase() {
+        if (pesquisarProdutosUseCase == null) {
+            pesquisarProdutosUseCase = new PesquisarProdutosUseCase(getIndiceBuscaProduto(), getProdutoRepository());
+        }
+        return pesquisarProdutosUseCase;
+    }
+
+    public static SugerirMotivosUseCase getSugerirMotivosUseCase() {
+        if (sugerirMotivosUseCase == null) {
+            sugerirMotivosUseCase = new SugerirMotivosUseCase(getContadorMotivos());
+        }
+        return sugerirMotivosUseCase;
+    }
+
+    // Lotes da importação gravados fora da thread que lê o arquivo; cada importação limita
+    // quantos lotes seus ficam pendentes (estoque.importacao.lotes-em-voo)
+    public static ImportarProdutosUseCase getImportarProdutosUseCase() {
+        if (importarProdutosUseCase == null) {
+            AtomicInteger contador = new AtomicInteger();
+            ExecutorService executor = Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "importacao-produtos-" + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            importarProdutosUseCase = new ImportarProdutosUseCase(getProdutoRepository(), getProdutoEventos(), executor,
+                    Configuracao.getInt("estoque.importacao.lote", 500),
+                    Configuracao.getInt("estoque.importacao.lotes-em-voo", 2),
+                    Configuracao.getInt("estoque.importacao.max-erros", ImportarProdutosUseCase.MAX_ERROS_PADRAO));
+        }
+        return importarProdutosUseCase;
+    }
+
+    public static ExportarDadosUseCase getExportarDadosUseCase() {
+        if (exportarDadosUseCase == null) {
+            exportarDadosUseCase = new ExportarDadosUseCase(getProdutoRepository(), getMovimentacaoRepository());
+        }
+        return exportarDadosUseCase;
+    }
+
+    public static ConsultarResumoDiarioUseCase getConsultarResumoDiarioUseCase() {
+        if (consultarResumoDiarioUseCase == null) {
+            consultarResumoDiarioUseCase = new ConsultarResumoDiarioUseCase(getResumoDiarioRepository());
+        }
+        return consultarResumoDiarioUseCase;
+    }
+
+    public static ConsultarEstoqueEmUseCase getConsultarEstoqueEmUseCase() {
+        if (consultarEstoqueEmUseCase == null) {
+            consultarEstoqueEmUseCase = new ConsultarEstoqueEmUseCase(getProdutoRepository(), getMovimentacaoRepository(),
+                    getSnapshotEstoqueRepository());
+        }
+        return consultarEstoqueEmUseCase;
+    }
+
+    // Libera recursos dos componentes que precisam ser encerrados (ex.: repositório local)
+    public static void encerrar() {
+        // Primeiro grava as movimentações ainda na fila, enquanto a conexão está aberta
+        if (gravacaoMovimentacoes != null) {
+            gravacaoMovimentacoes.close();
+        }
+        if (tarefaSnapshotEstoque != null) {
+            tarefaSnapshotEstoque.close();
+        }
+        if (observadorAlteracoes != null) {
+            observadorAlteracoes.close();
+        }
+        if (produtoRepository instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new RuntimeException("Erro ao encerrar repositório de produtos: " + e.getMessage(), e);
+            }
+        }
+    }
+
     public static void resetFactory() {
         produtoRepository = null;
+        produtoRepositoryAjustes = null;
+        produtoRepositoryDisjuntor = null;
+        disjuntorMongo = null;
         movimentacaoRepository = null;
+        gravacaoMovimentacoes = null;
+        resumoDiarioRepository = null;
+        snapshotEstoqueRepository = null;
+        idempotenciaRepository = null;
+        movimentacaoColunarStore = null;
+        indiceBuscaProduto = null;
+        contadorMotivos = null;
+        serializadorProdutos = null;
+        produtoEventos = null;
+        versoesDados = null;
+        observadorAlteracoes = null;
+        tarefaSnapshotEstoque = null;
         cadastrarProdutoUseCase = null;
         buscarProdutoUseCase = null;
         adicionarEstoqueUseCase = null;
@@ -126,6 +520,12 @@ public class ApplicationFactory {
         listarTodosProdutosUseCase = null;
         editarProdutoUseCase = null;
         deletarProdutoUseCase = null;
+        pesquisarProdutosUseCase = null;
+        sugerirMotivosUseCase = null;
+        importarProdutosUseCase = null;
+        exportarDadosUseCase = null;
+        consultarResumoDiarioUseCase = null;
+        consultarEstoqueEmUseCase = null;
         produtoMapper = null;
     }
 }
\ No newline at end of file
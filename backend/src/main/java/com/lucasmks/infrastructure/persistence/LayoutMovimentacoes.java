@@ -0,0 +1,120 @@
+package com.lucasmks.infrastructure.persistence;
+
+import com.lucasmks.infrastructure.config.Configuracao;
+import com.lucasmks.infrastructure.database.PrazoMongo;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoBucketsMongoRepositoryImpl;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Field;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.TimeSeriesGranularity;
+import com.mongodb.client.model.TimeSeriesOptions;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Forma como as movimentações são gravadas no MongoDB (estoque.movimentacoes.layout):
+//  - DOCUMENTOS (padrão): um documento por movimentação na coleção "movimentacoes";
+//  - BUCKETS: um documento por produto e por dia em "movimentacoes_buckets", com as
+//    movimentações em um array e totais de ENTRADA/SAIDA já somados;
+//  - SERIE_TEMPORAL: coleção time-series "movimentacoes_ts" com dataHora como timeField e
+//    {codigoBarras, tipo} no metaField "meta"; o próprio MongoDB agrupa as movimentações
+//    do mesmo produto e tipo em buckets comprimidos por intervalo de tempo.
+// Quem agrega direto no banco (carga das estruturas em memória, dashboard) usa agregar(),
+// que sempre entrega documentos no formato de uma movimentação, seja qual for o layout.
+public enum LayoutMovimentacoes {
+    DOCUMENTOS("movimentacoes"),
+    BUCKETS("movimentacoes_buckets"),
+    SERIE_TEMPORAL("movimentacoes_ts");
+
+    public static final String META = "meta";
+
+    private static final Logger logger = LoggerFactory.getLogger(LayoutMovimentacoes.class);
+
+    private final String colecao;
+
+    LayoutMovimentacoes(String colecao) {
+        this.colecao = colecao;
+    }
+
+    public String colecao() {
+        return colecao;
+    }
+
+    public static LayoutMovimentacoes configurado() {
+        String valor = Configuracao.get("estoque.movimentacoes.layout", "documentos");
+        for (LayoutMovimentacoes layout : values()) {
+            if (layout.name().equalsIgnoreCase(valor.replace('-', '_'))) {
+                return layout;
+            }
+        }
+        throw new IllegalStateException("Configuração inválida para estoque.movimentacoes.layout: " + valor
+                + " (use documentos, buckets ou serie-temporal)");
+    }
+
+    // Chamado no boot da API: cria a coleção e os índices que o layout precisa (idempotente).
+    // A coleção time-series tem de ser criada explicitamente; uma coleção comum com o mesmo
+    // nome não é convertida e impede o boot.
+    public void preparar(MongoDatabase database) {
+        if (this == DOCUMENTOS) {
+            // Movimentações de um produto em um período (reconstrução do estoque em uma data)
+            database.getCollection(colecao).createIndex(Indexes.ascending("codigoBarras", "dataHora"));
+        } else if (this == BUCKETS) {
+            MovimentacaoBucketsMongoRepositoryImpl.criarIndices(database.getCollection(colecao));
+        } else if (this == SERIE_TEMPORAL) {
+            Document existente = database.listCollections().filter(Filters.eq("name", colecao)).first();
+            if (existente == null) {
+                TimeSeriesGranularity granularidade = TimeSeriesGranularity.valueOf(
+                        Configuracao.get("estoque.movimentacoes.serie.granularidade", "hours").toUpperCase());
+                database.createCollection(colecao, new CreateCollectionOptions().timeSeriesOptions(
+                        new TimeSeriesOptions("dataHora").metaField(META).granularity(granularidade)));
+                logger.info("Coleção time-series {} criada (granularidade {}).", colecao, granularidade);
+            } else if (!"timeseries".equals(existente.getString("type"))) {
+                throw new IllegalStateException("A coleção " + colecao + " já existe e não é time-series.");
+            }
+            // Consultas por produto: índice secundário no campo do metaField seguido do tempo
+            database.getCollection(colecao).createIndex(Indexes.ascending(META + ".codigoBarras", "dataHora"));
+        }
+    }
+
+    // Início do dia de uma data/hora: chave "dia" dos buckets
+    public static LocalDateTime dia(LocalDateTime dataHora) {
+        return dataHora.toLocalDate().atStartOfDay();
+    }
+
+    // Executa os estágios sobre as movimentações a partir de "desde" (null = todas), cada uma
+    // com os campos codigoBarras, quantidade, tipo, motivo, dataHora e origem. Nos buckets,
+    // o filtro por dia vem antes do $unwind para que o índice descarte os dias fora do período.
+    // Na time-series, o filtro no timeField é o primeiro estágio: o MongoDB o reescreve sobre
+    // o intervalo de cada bucket interno e só descomprime os buckets do período.
+    public AggregateIterable<Document> agregar(MongoDatabase database, LocalDateTime desde, List<Bson> estagios) {
+        List<Bson> pipeline = new ArrayList<>(estagios.size() + 4);
+        if (this == BUCKETS) {
+            if (desde != null) {
+                pipeline.add(Aggregates.match(Filters.gte("dia", dia(desde))));
+            }
+            pipeline.add(Aggregates.unwind("$movimentacoes"));
+            pipeline.add(Aggregates.replaceRoot(new Document("$mergeObjects",
+                    List.of("$movimentacoes", new Document("codigoBarras", "$codigoBarras")))));
+        }
+        if (desde != null) {
+            pipeline.add(Aggregates.match(Filters.gte("dataHora", desde)));
+        }
+        if (this == SERIE_TEMPORAL) {
+            pipeline.add(Aggregates.addFields(
+                    new Field<>("codigoBarras", "$" + META + ".codigoBarras"),
+                    new Field<>("tipo", "$" + META + ".tipo")));
+        }
+        pipeline.addAll(estagios);
+        return PrazoMongo.aplicar(database.getCollection(colecao).aggregate(pipeline)).allowDiskUse(true);
+    }
+}
@@ -0,0 +1,26 @@
+package com.lucasmks.infrastructure.persistence;
+
+import com.lucasmks.infrastructure.config.Configuracao;
+
+// Quando a gravação de uma movimentação é confirmada ao caso de uso (estoque.movimentacoes.gravacao):
+//  - SINCRONA (padrão): cada movimentação é gravada na thread da requisição, uma ida ao banco por vez;
+//  - FILA: confirmada assim que entra na fila de gravação; uma thread grava a fila em lotes.
+//    Movimentações ainda na fila se perdem se o processo morrer sem o shutdown;
+//  - LOTE: confirmada só depois que o lote que a contém foi gravado (group commit): as requisições
+//    concorrentes dividem uma ida ao banco e os erros de gravação chegam a quem esperava.
+public enum ModoGravacaoMovimentacoes {
+    SINCRONA,
+    FILA,
+    LOTE;
+
+    public static ModoGravacaoMovimentacoes configurado() {
+        String valor = Configuracao.get("estoque.movimentacoes.gravacao", "sincrona");
+        for (ModoGravacaoMovimentacoes modo : values()) {
+            if (modo.name().equalsIgnoreCase(valor.trim())) {
+                return modo;
+            }
+        }
+        throw new IllegalStateException("Configuração inválida para estoque.movimentacoes.gravacao: " + valor
+                + " (use sincrona, fila ou lote)");
+    }
+}
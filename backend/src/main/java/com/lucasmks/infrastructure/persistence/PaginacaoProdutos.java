@@ -0,0 +1,123 @@
+package com.lucasmks.infrastructure.persistence;
+
+import com.lucasmks.domain.exception.ValidacaoProdutoException;
+import com.lucasmks.domain.model.FiltroProdutos;
+import com.lucasmks.domain.model.Pagina;
+import com.lucasmks.domain.model.Produto;
+
+import org.bson.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+// Regras de paginação compartilhadas pelos repositórios de produto.
+// O cursor é o par (valor do campo de ordenação, código de barras) do último item da página,
+// serializado como JSON em base64 url-safe; o código de barras desempata valores iguais.
+public final class PaginacaoProdutos {
+
+    private PaginacaoProdutos() {}
+
+    public static String codificarCursor(Produto ultimo, String campoOrdenacao) {
+        Document chave = new Document("v", valorDoCampo(ultimo, campoOrdenacao)).append("c", ultimo.getCodigoBarras());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(chave.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Retorna um documento com "v" (valor, possivelmente null) e "c" (código de barras)
+    public static Document decodificarCursor(String cursor) {
+        try {
+            Document chave = Document.parse(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (chave.getString("c") == null || !chave.containsKey("v")) {
+                throw new ValidacaoProdutoException("Cursor inválido.");
+            }
+            return chave;
+        } catch (RuntimeException e) {
+            if (e instanceof ValidacaoProdutoException) {
+                throw e;
+            }
+            throw new ValidacaoProdutoException("Cursor inválido.");
+        }
+    }
+
+    public static Object valorDoCampo(Produto produto, String campo) {
+        switch (campo) {
+            case "codigoBarras": return produto.getCodigoBarras();
+            case "nome": return produto.getNome();
+            case "categoria": return produto.getCategoria();
+            case "quantidade": return produto.getQuantidade();
+            case "precoCusto": return produto.getPrecoCusto();
+            case "precoVenda": return produto.getPrecoVenda();
+            case "fornecedor": return produto.getFornecedor();
+            default: throw new ValidacaoProdutoException("Campo desconhecido: " + campo);
+        }
+    }
+
+    // Mesma ordem do MongoDB: nulos primeiro na ordem crescente e por último na decrescente
+    public static int compararValores(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a instanceof Number numeroA && b instanceof Number numeroB) {
+            return Double.compare(numeroA.doubleValue(), numeroB.doubleValue());
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    public static boolean aceita(FiltroProdutos filtro, Produto produto) {
+        return (filtro.getCategoria() == null || filtro.getCategoria().equals(produto.getCategoria()))
+                && (filtro.getFornecedor() == null || filtro.getFornecedor().equals(produto.getFornecedor()))
+                && (filtro.getEstoqueMax() == null || produto.getQuantidade() <= filtro.getEstoqueMax());
+    }
+
+    // Implementação em memória usada pelos repositórios que já mantêm o catálogo carregado
+    public static Pagina<Produto> paginarEmMemoria(Collection<Produto> produtos, FiltroProdutos filtro) {
+        String campo = filtro.getOrdenarPor();
+        Comparator<Produto> comparador = (a, b) -> {
+            int resultado = compararValores(valorDoCampo(a, campo), valorDoCampo(b, campo));
+            return resultado != 0 ? resultado : a.getCodigoBarras().compareTo(b.getCodigoBarras());
+        };
+        if (filtro.isDecrescente()) {
+            comparador = comparador.reversed();
+        }
+
+        List<Produto> filtrados = new ArrayList<>();
+        for (Produto produto : produtos) {
+            if (aceita(filtro, produto)) {
+                filtrados.add(produto);
+            }
+        }
+        filtrados.sort(comparador);
+
+        int inicio;
+        if (filtro.usaCursor()) {
+            Document chave = decodificarCursor(filtro.getCursor());
+            Object valor = chave.get("v");
+            String codigo = chave.getString("c");
+            int sinal = filtro.isDecrescente() ? -1 : 1;
+            inicio = 0;
+            while (inicio < filtrados.size()) {
+                Produto produto = filtrados.get(inicio);
+                int resultado = compararValores(valorDoCampo(produto, campo), valor);
+                if (resultado == 0) {
+                    resultado = produto.getCodigoBarras().compareTo(codigo);
+                }
+                if (resultado * sinal > 0) {
+                    break;
+                }
+                inicio++;
+            }
+        } else {
+            inicio = (int) Math.min((long) (filtro.getPagina() - 1) * filtro.getTamanhoPagina(), filtrados.size());
+        }
+
+        int fim = Math.min(inicio + filtro.getTamanhoPagina(), filtrados.size());
+        List<Produto> itens = new ArrayList<>(filtrados.subList(inicio, fim));
+        boolean temProxima = fim < filtrados.size();
+        String proximoCursor = temProxima && !itens.isEmpty() ? codificarCursor(itens.get(itens.size() - 1), campo) : null;
+        // Em memória a contagem não custa nada
+        return new Pagina<>(itens, (long) filtrados.size(), Pagina.EstrategiaTotal.EXATO, temProxima, proximoCursor);
+    }
+}
@@ -1,9 +1,12 @@
 package com.lucasmks.infrastructure.persistence.document;
 
 import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.infrastructure.persistence.intern.DicionarioStrings;
 import org.bson.codecs.pojo.annotations.BsonProperty;
 import org.bson.codecs.pojo.annotations.BsonId;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 
@@ -26,6 +29,10 @@ public class MovimentacaoDocument {
     @BsonProperty("dataHora")
     private LocalDateTime dataHora;
 
+    // Nó da API que gravou a movimentação (usado para ignorar as próprias escritas no change stream)
+    @BsonProperty("origem")
+    private String origem;
+
     public MovimentacaoDocument() {}
 
     // Construtor para criar a partir do domínio (sem ID, MongoDB gera)
@@ -58,6 +65,9 @@ public class MovimentacaoDocument {
            .append("tipo", tipo != null ? tipo.name() : null)
            .append("motivo", motivo)
            .append("dataHora", dataHora);
+        if (origem != null) {
+            doc.append("origem", origem);
+        }
         return doc;
     }
 
@@ -72,7 +82,42 @@ public class MovimentacaoDocument {
         String tipoStr = doc.getString("tipo");
         movimentacao.tipo = tipoStr != null ? TipoMovimentacao.valueOf(tipoStr) : null;
         movimentacao.dataHora = doc.get("dataHora", LocalDateTime.class);
+        movimentacao.motivo = DicionarioStrings.MOTIVO.canonizar(doc.getString("motivo"));
+        return movimentacao;
+    }
+
+    // Formato da coleção time-series: código de barras e tipo no metaField "meta", que o
+    // MongoDB usa para agrupar as medições em buckets
+    public Document toSerieTemporal() {
+        Document doc = new Document();
+        if (id != null) {
+            doc.append("_id", id);
+        }
+        doc.append("dataHora", dataHora)
+           .append("meta", new Document("codigoBarras", codigoBarras).append("tipo", tipo != null ? tipo.name() : null))
+           .append("quantidade", quantidade)
+           .append("motivo", motivo);
+        if (origem != null) {
+            doc.append("origem", origem);
+        }
+        return doc;
+    }
+
+    public static MovimentacaoDocument fromSerieTemporal(Document doc) {
+        if (doc == null) {
+            return null;
+        }
+        Document meta = doc.get("meta", new Document());
+        MovimentacaoDocument movimentacao = new MovimentacaoDocument();
+        movimentacao.id = doc.getObjectId("_id");
+        movimentacao.codigoBarras = meta.getString("codigoBarras");
+        movimentacao.quantidade = doc.getInteger("quantidade", 0);
+        String tipoStr = meta.getString("tipo");
+        movimentacao.tipo = tipoStr != null ? TipoMovimentacao.valueOf(tipoStr) : null;
+        Date dataHora = doc.getDate("dataHora");
+        movimentacao.dataHora = dataHora != null ? LocalDateTime.ofInstant(dataHora.toInstant(), ZoneOffset.UTC) : null;
         movimentacao.motivo = doc.getString("motivo");
+        movimentacao.origem = doc.getString("origem");
         return movimentacao;
     }
 
@@ -94,4 +139,7 @@ public class MovimentacaoDocument {
     
     public LocalDateTime getDataHora() { return dataHora; }
     public void setDataHora(LocalDateTime dataHora) { this.dataHora = dataHora; }
+
+    public String getOrigem() { return origem; }
+    public void setOrigem(String origem) { this.origem = origem; }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.lucasmks.infrastructure.persistence.document;
 
+import com.lucasmks.infrastructure.persistence.intern.DicionarioStrings;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 
@@ -13,6 +14,7 @@ public class ProdutoDocument {
     private Double precoCusto;
     private Double precoVenda;
     private String fornecedor;
+    private long versao;
 
     // Construtores
     public ProdutoDocument() {}
@@ -41,7 +43,8 @@ public class ProdutoDocument {
            .append("quantidade", quantidade)
            .append("precoCusto", precoCusto)
            .append("precoVenda", precoVenda)
-           .append("fornecedor", fornecedor);
+           .append("fornecedor", fornecedor)
+           .append("versao", versao);
         return doc;
     }
 
@@ -55,7 +58,7 @@ public class ProdutoDocument {
         produto.id = doc.getObjectId("_id");
         produto.codigoBarras = doc.getString("codigoBarras");
         produto.nome = doc.getString("nome");
-        produto.categoria = doc.getString("categoria");
+        produto.categoria = DicionarioStrings.CATEGORIA.canonizar(doc.getString("categoria"));
         produto.quantidade = doc.getInteger("quantidade", 0); 
         
         Number precoCustoNum = doc.get("precoCusto", Number.class);
@@ -64,7 +67,11 @@ public class ProdutoDocument {
         Number precoVendaNum = doc.get("precoVenda", Number.class);
         produto.precoVenda = precoVendaNum != null ? precoVendaNum.doubleValue() : null;
 
-        produto.fornecedor = doc.getString("fornecedor");
+        produto.fornecedor = DicionarioStrings.FORNECEDOR.canonizar(doc.getString("fornecedor"));
+
+        // Documentos anteriores ao controle de versão não têm o campo
+        Number versaoNum = doc.get("versao", Number.class);
+        produto.versao = versaoNum != null ? versaoNum.longValue() : 0L;
         return produto;
     }
 
@@ -92,4 +99,7 @@ public class ProdutoDocument {
     
     public String getFornecedor() { return fornecedor; }
     public void setFornecedor(String fornecedor) { this.fornecedor = fornecedor; }
+
+    public long getVersao() { return versao; }
+    public void setVersao(long versao) { this.versao = versao; }
 }
\ No newline at end of file
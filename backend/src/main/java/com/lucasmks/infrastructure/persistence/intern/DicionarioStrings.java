@@ -0,0 +1,78 @@
+package com.lucasmks.infrastructure.persistence.intern;
+
+import com.lucasmks.infrastructure.config.Configuracao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Dicionário concorrente e limitado que canoniza campos de baixa cardinalidade
+// (motivo, categoria, fornecedor) no caminho de leitura dos documentos: cada valor
+// repetido passa a apontar para a mesma instância de String, em vez de uma cópia por documento.
+//
+// Se a cardinalidade do campo ultrapassar o limite, o dicionário se desativa e libera
+// as entradas, pois nesse caso o custo do mapa supera a economia.
+public final class DicionarioStrings {
+
+    private static final Logger logger = LoggerFactory.getLogger(DicionarioStrings.class);
+
+    private static final int TAMANHO_MAXIMO_VALOR = 128;
+
+    public static final DicionarioStrings MOTIVO = new DicionarioStrings("motivo",
+            Configuracao.getInt("estoque.intern.motivo.limite", 10_000));
+    public static final DicionarioStrings CATEGORIA = new DicionarioStrings("categoria",
+            Configuracao.getInt("estoque.intern.categoria.limite", 10_000));
+    public static final DicionarioStrings FORNECEDOR = new DicionarioStrings("fornecedor",
+            Configuracao.getInt("estoque.intern.fornecedor.limite", 10_000));
+
+    private final String campo;
+    private final int limite;
+    private final ConcurrentHashMap<String, String> valores = new ConcurrentHashMap<>();
+    private final LongAdder acertos = new LongAdder();
+    private volatile boolean ativo;
+
+    public DicionarioStrings(String campo, int limite) {
+        this.campo = campo;
+        this.limite = limite;
+        this.ativo = limite > 0;
+    }
+
+    public String canonizar(String valor) {
+        if (valor == null || !ativo || valor.length() > TAMANHO_MAXIMO_VALOR) {
+            return valor;
+        }
+        String existente = valores.get(valor);
+        if (existente != null) {
+            acertos.increment();
+            return existente;
+        }
+        if (valores.size() >= limite) {
+            desativar();
+            return valor;
+        }
+        existente = valores.putIfAbsent(valor, valor);
+        return existente != null ? existente : valor;
+    }
+
+    private void desativar() {
+        if (ativo) {
+            ativo = false;
+            logger.warn("Cardinalidade do campo '{}' passou de {} valores distintos; canonização desativada.", campo, limite);
+            valores.clear();
+        }
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    public int tamanho() {
+        return valores.size();
+    }
+
+    public long acertos() {
+        return acertos.sum();
+    }
+}
@@ -0,0 +1,62 @@
+package com.lucasmks.infrastructure.persistence.local;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.lucasmks.domain.model.Produto;
+
+// Formato binário compacto de um Produto, compartilhado pelo snapshot e pelo journal.
+// A versão vem por último; arquivos gravados antes dela são lidos com comVersao = false.
+final class ProdutoBinarioCodec {
+
+    private ProdutoBinarioCodec() {}
+
+    static void escrever(DataOutput out, Produto produto) throws IOException {
+        out.writeUTF(produto.getCodigoBarras());
+        escreverTexto(out, produto.getNome());
+        escreverTexto(out, produto.getCategoria());
+        out.writeInt(produto.getQuantidade());
+        escreverDecimal(out, produto.getPrecoCusto());
+        escreverDecimal(out, produto.getPrecoVenda());
+        escreverTexto(out, produto.getFornecedor());
+        out.writeLong(produto.getVersao());
+    }
+
+    static Produto ler(DataInput in, boolean comVersao) throws IOException {
+        Produto produto = new Produto();
+        produto.setCodigoBarras(in.readUTF());
+        produto.setNome(lerTexto(in));
+        produto.setCategoria(lerTexto(in));
+        produto.setQuantidade(in.readInt());
+        produto.setPrecoCusto(lerDecimal(in));
+        produto.setPrecoVenda(lerDecimal(in));
+        produto.setFornecedor(lerTexto(in));
+        if (comVersao) {
+            produto.setVersao(in.readLong());
+        }
+        return produto;
+    }
+
+    private static void escreverTexto(DataOutput out, String valor) throws IOException {
+        out.writeBoolean(valor != null);
+        if (valor != null) {
+            out.writeUTF(valor);
+        }
+    }
+
+    private static String lerTexto(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void escreverDecimal(DataOutput out, Double valor) throws IOException {
+        out.writeBoolean(valor != null);
+        if (valor != null) {
+            out.writeDouble(valor);
+        }
+    }
+
+    private static Double lerDecimal(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+}
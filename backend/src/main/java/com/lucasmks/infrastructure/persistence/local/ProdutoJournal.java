@@ -0,0 +1,158 @@
+package com.lucasmks.infrastructure.persistence.local;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import com.lucasmks.domain.model.Produto;
+
+// Journal append-only das mutações feitas entre dois snapshots.
+// Cada registro é gravado como [tamanho][crc32][operação + dados]; um registro
+// truncado ou corrompido no fim do arquivo (queda no meio da escrita) encerra a reprodução.
+final class ProdutoJournal implements Closeable {
+
+    static final byte OP_GRAVAR = 1; // formato anterior, sem a versão do produto
+    static final byte OP_REMOVER = 2;
+    static final byte OP_GRAVAR_VERSIONADO = 3;
+
+    private static final String PREFIXO = "produtos-";
+    private static final String EXTENSAO = ".journal";
+
+    private final FileChannel canal;
+    private final boolean fsync;
+    private long registros;
+
+    ProdutoJournal(Path arquivo, boolean fsync) throws IOException {
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.fsync = fsync;
+    }
+
+    static Path arquivo(Path diretorio, long geracao) {
+        return diretorio.resolve(String.format("%s%020d%s", PREFIXO, geracao, EXTENSAO));
+    }
+
+    // Retorna a geração do arquivo de journal, ou -1 se o nome não seguir o padrão
+    static long geracao(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        if (!nome.startsWith(PREFIXO) || !nome.endsWith(EXTENSAO)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - EXTENSAO.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    void registrarGravacao(Produto produto) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_GRAVAR_VERSIONADO);
+        ProdutoBinarioCodec.escrever(out, produto);
+        anexar(bytes.toByteArray());
+    }
+
+    void registrarRemocao(String codigoBarras) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_REMOVER);
+        out.writeUTF(codigoBarras);
+        anexar(bytes.toByteArray());
+    }
+
+    private void anexar(byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        if (fsync) {
+            canal.force(false);
+        }
+        registros++;
+    }
+
+    long registros() {
+        return registros;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.force(false);
+        canal.close();
+    }
+
+    // Lê o journal em ordem, entregando cada entrada válida ao consumidor. Retorna o total lido.
+    static long reproduzir(Path arquivo, Consumer<Entrada> consumidor) throws IOException {
+        long lidos = 0;
+        try (InputStream arquivoIn = Files.newInputStream(arquivo);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(arquivoIn, 1 << 16))) {
+            while (true) {
+                int tamanho;
+                int crcEsperado;
+                byte[] payload;
+                try {
+                    tamanho = in.readInt();
+                    crcEsperado = in.readInt();
+                    if (tamanho <= 0 || tamanho > (1 << 20)) {
+                        break;
+                    }
+                    payload = new byte[tamanho];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != crcEsperado) {
+                    break;
+                }
+                consumidor.accept(decodificar(payload));
+                lidos++;
+            }
+        }
+        return lidos;
+    }
+
+    private static Entrada decodificar(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte operacao = in.readByte();
+        if (operacao == OP_GRAVAR || operacao == OP_GRAVAR_VERSIONADO) {
+            Produto produto = ProdutoBinarioCodec.ler(in, operacao == OP_GRAVAR_VERSIONADO);
+            return new Entrada(operacao, produto.getCodigoBarras(), produto);
+        }
+        if (operacao == OP_REMOVER) {
+            return new Entrada(operacao, in.readUTF(), null);
+        }
+        throw new IOException("Operação desconhecida no journal: " + operacao);
+    }
+
+    static final class Entrada {
+        final byte operacao;
+        final String codigoBarras;
+        final Produto produto;
+
+        Entrada(byte operacao, String codigoBarras, Produto produto) {
+            this.operacao = operacao;
+            this.codigoBarras = codigoBarras;
+            this.produto = produto;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.lucasmks.infrastructure.persistence.local;
+
+import com.lucasmks.domain.model.FiltroProdutos;
+import com.lucasmks.domain.model.Pagina;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.repository.ProdutoRepository;
+import com.lucasmks.infrastructure.config.Configuracao;
+import com.lucasmks.infrastructure.persistence.PaginacaoProdutos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Implementação durável e local do ProdutoRepository (sem MongoDB).
+// Os produtos ficam em memória; cada mutação é registrada em um journal e,
+// periodicamente, todo o catálogo é gravado em um snapshot binário compacto.
+// No boot, o snapshot mais recente é carregado e o journal restante é reproduzido,
+// ambos em paralelo.
+public class ProdutoLocalRepositoryImpl implements ProdutoRepository, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProdutoLocalRepositoryImpl.class);
+
+    private final Path diretorio;
+    private final boolean fsync;
+    private final long limiteRegistrosJournal;
+    private final int segmentosSnapshot;
+
+    private final Map<String, Produto> produtos = new ConcurrentHashMap<>();
+    private final Object escrita = new Object(); // mantém a ordem do journal igual à ordem das mutações
+    private final AtomicBoolean snapshotEmAndamento = new AtomicBoolean(false);
+    private final ScheduledExecutorService agendador;
+
+    private volatile ProdutoJournal journal;
+    private long geracaoAtual;
+
+    public ProdutoLocalRepositoryImpl(Path diretorio, long intervaloSnapshotSegundos, long limiteRegistrosJournal, boolean fsync) {
+        this.diretorio = diretorio;
+        this.fsync = fsync;
+        this.limiteRegistrosJournal = limiteRegistrosJournal;
+        this.segmentosSnapshot = Math.max(1, Runtime.getRuntime().availableProcessors() * 2);
+        try {
+            Files.createDirectories(diretorio);
+            long inicio = System.nanoTime();
+            carregar();
+            logger.info("Repositório local de produtos carregado de {}: {} produtos em {} ms.",
+                    diretorio, produtos.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        } catch (IOException e) {
+            logger.error("Erro ao inicializar repositório local de produtos em {}: {}", diretorio, e.getMessage(), e);
+            throw new RuntimeException("Erro ao inicializar repositório local de produtos: " + e.getMessage(), e);
+        }
+
+        this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "produtos-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (intervaloSnapshotSegundos > 0) {
+            agendador.scheduleWithFixedDelay(this::snapshotAgendado, intervaloSnapshotSegundos, intervaloSnapshotSegundos, TimeUnit.SECONDS);
+        }
+    }
+
+    public static ProdutoLocalRepositoryImpl aPartirDaConfiguracao() {
+        return new ProdutoLocalRepositoryImpl(
+                Paths.get(Configuracao.get("estoque.produtos.local.diretorio", "data/produtos")),
+                Configuracao.getLong("estoque.produtos.local.snapshot-intervalo-segundos", 300),
+                Configuracao.getLong("estoque.produtos.local.snapshot-limite-journal", 100_000),
+                Configuracao.getBoolean("estoque.produtos.local.fsync", false));
+    }
+
+    @Override
+    public void salvar(Produto produto) {
+        Produto copia = copiar(produto);
+        synchronized (escrita) {
+            copia.setVersao(proximaVersao(copia.getCodigoBarras()));
+            try {
+                journal.registrarGravacao(copia);
+            } catch (IOException e) {
+                logger.error("Erro ao salvar produto {}: {}", produto.getCodigoBarras(), e.getMessage(), e);
+                throw new RuntimeException("Erro ao salvar produto: " + e.getMessage(), e);
+            }
+            produtos.put(copia.getCodigoBarras(), copia);
+        }
+        produto.setVersao(copia.getVersao());
+        verificarLimiteJournal();
+    }
+
+    @Override
+    public Optional<Produto> buscarPorCodigoBarras(String codigoBarras) {
+        return Optional.ofNullable(produtos.get(codigoBarras)).map(ProdutoLocalRepositoryImpl::copiar);
+    }
+
+    @Override
+    public boolean existePorCodigoBarras(String codigoBarras) {
+        return produtos.containsKey(codigoBarras);
+    }
+
+    @Override
+    public void remover(String codigoBarras) {
+        synchronized (escrita) {
+            if (!produtos.containsKey(codigoBarras)) {
+                return;
+            }
+            try {
+                journal.registrarRemocao(codigoBarras);
+            } catch (IOException e) {
+                logger.error("Erro ao remover produto {}: {}", codigoBarras, e.getMessage(), e);
+                throw new RuntimeException("Erro ao remover produto: " + e.getMessage(), e);
+            }
+            produtos.remove(codigoBarras);
+        }
+        verificarLimiteJournal();
+    }
+
+    @Override
+    public void atualizar(Produto produto) {
+        // Assim como o replaceOne sem upsert, atualizar um produto inexistente não tem efeito
+        Produto copia = copiar(produto);
+        synchronized (escrita) {
+            if (!produtos.containsKey(copia.getCodigoBarras())) {
+                return;
+            }
+            copia.setVersao(proximaVersao(copia.getCodigoBarras()));
+            gravarAtualizacao(produto, copia);
+        }
+        produto.setVersao(copia.getVersao());
+        verificarLimiteJournal();
+    }
+
+    @Override
+    public boolean atualizarSeVersao(Produto produto, long versaoEsperada) {
+        Produto copia = copiar(produto);
+        synchronized (escrita) {
+            Produto atual = produtos.get(copia.getCodigoBarras());
+            if (atual == null || atual.getVersao() != versaoEsperada) {
+                return false;
+            }
+            copia.setVersao(versaoEsperada + 1);
+            gravarAtualizacao(produto, copia);
+        }
+        produto.setVersao(copia.getVersao());
+        verificarLimiteJournal();
+        return true;
+    }
+
+    // Chamado sob o lock de escrita
+    private void gravarAtualizacao(Produto produto, Produto copia) {
+        try {
+            journal.registrarGravacao(copia);
+        } catch (IOException e) {
+            logger.error("Erro ao atualizar produto {}: {}", produto.getCodigoBarras(), e.getMessage(), e);
+            throw new RuntimeException("Erro ao atualizar produto: " + e.getMessage(), e);
+        }
+        produtos.put(copia.getCodigoBarras(), copia);
+    }
+
+    // Chamado sob o lock de escrita
+    private long proximaVersao(String codigoBarras) {
+        Produto atual = produtos.get(codigoBarras);
+        return atual == null ? 1 : atual.getVersao() + 1;
+    }
+
+    @Override
+    public List<Produto> buscarTodos() {
+        List<Produto> resultado = new ArrayList<>(produtos.size());
+        for (Produto produto : produtos.values()) {
+            resultado.add(copiar(produto));
+        }
+        return resultado;
+    }
+
+    // Copia um produto por vez em vez do catálogo inteiro
+    @Override
+    public void percorrerTodos(Consumer<Produto> consumidor) {
+        for (Produto produto : produtos.values()) {
+            consumidor.accept(copiar(produto));
+        }
+    }
+
+    @Override
+    public List<Produto> buscarPorCodigosBarras(List<String> codigosBarras) {
+        List<Produto> resultado = new ArrayList<>(codigosBarras.size());
+        for (String codigoBarras : codigosBarras) {
+            Produto produto = produtos.get(codigoBarras);
+            if (produto != null) {
+                resultado.add(copiar(produto));
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public Pagina<Produto> buscarPagina(FiltroProdutos filtro) {
+        Pagina<Produto> pagina = PaginacaoProdutos.paginarEmMemoria(produtos.values(), filtro);
+        pagina.setItens(pagina.getItens().stream().map(ProdutoLocalRepositoryImpl::copiar).collect(Collectors.toList()));
+        return pagina;
+    }
+
+    // Gera um snapshot imediatamente. O journal é rotacionado sob o lock de escrita,
+    // e a gravação do snapshot acontece fora dele, sem bloquear novas mutações.
+    public void gerarSnapshot() {
+        List<Produto> estado;
+        long geracaoSnapshot;
+        synchronized (escrita) {
+            try {
+                journal.close();
+                geracaoAtual++;
+                journal = new ProdutoJournal(ProdutoJournal.arquivo(diretorio, geracaoAtual), fsync);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Erro ao rotacionar journal de produtos", e);
+            }
+            geracaoSnapshot = geracaoAtual;
+            // Os valores do mapa nunca são alterados após inseridos, então basta copiar as referências
+            estado = new ArrayList<>(produtos.values());
+        }
+
+        try {
+            long inicio = System.nanoTime();
+            ProdutoSnapshot.escrever(diretorio, geracaoSnapshot, estado, segmentosSnapshot);
+            removerArquivosAnteriores(geracaoSnapshot);
+            logger.info("Snapshot de produtos gerado (geração {}, {} produtos, {} ms).",
+                    geracaoSnapshot, estado.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar snapshot de produtos", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        agendador.shutdownNow();
+        try {
+            gerarSnapshot();
+        } catch (RuntimeException e) {
+            logger.error("Erro ao gerar snapshot final de produtos: {}", e.getMessage(), e);
+        }
+        synchronized (escrita) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.error("Erro ao fechar journal de produtos: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void carregar() throws IOException {
+        List<Path> arquivos;
+        try (Stream<Path> listagem = Files.list(diretorio)) {
+            arquivos = listagem.collect(Collectors.toList());
+        }
+
+        Optional<Path> snapshot = arquivos.stream()
+                .filter(p -> ProdutoSnapshot.geracao(p) >= 0)
+                .max(Comparator.comparingLong(ProdutoSnapshot::geracao));
+        long geracaoSnapshot = 0;
+        if (snapshot.isPresent()) {
+            geracaoSnapshot = ProdutoSnapshot.carregar(snapshot.get(), produtos);
+        }
+
+        final long inicioJournal = geracaoSnapshot;
+        List<Path> journais = arquivos.stream()
+                .filter(p -> ProdutoJournal.geracao(p) >= inicioJournal)
+                .sorted(Comparator.comparingLong(ProdutoJournal::geracao))
+                .collect(Collectors.toList());
+
+        long reproduzidos = reproduzirEmParalelo(journais);
+        if (reproduzidos > 0) {
+            logger.info("{} mutações reproduzidas a partir de {} arquivo(s) de journal.", reproduzidos, journais.size());
+        }
+
+        long ultimaGeracao = journais.isEmpty() ? geracaoSnapshot : ProdutoJournal.geracao(journais.get(journais.size() - 1));
+        geracaoAtual = Math.max(geracaoSnapshot, ultimaGeracao) + 1;
+        journal = new ProdutoJournal(ProdutoJournal.arquivo(diretorio, geracaoAtual), fsync);
+    }
+
+    // Lê os journais em ordem e distribui as entradas em partições por código de barras;
+    // cada partição é aplicada em paralelo, preservando a ordem das mutações de um mesmo produto.
+    private long reproduzirEmParalelo(List<Path> journais) throws IOException {
+        int particoes = Math.max(1, Runtime.getRuntime().availableProcessors());
+        List<List<ProdutoJournal.Entrada>> porParticao = new ArrayList<>(particoes);
+        for (int i = 0; i < particoes; i++) {
+            porParticao.add(new ArrayList<>());
+        }
+
+        long total = 0;
+        for (Path arquivo : journais) {
+            total += ProdutoJournal.reproduzir(arquivo,
+                    entrada -> porParticao.get(Math.floorMod(entrada.codigoBarras.hashCode(), particoes)).add(entrada));
+        }
+
+        IntStream.range(0, particoes).parallel().forEach(i -> {
+            for (ProdutoJournal.Entrada entrada : porParticao.get(i)) {
+                if (entrada.operacao != ProdutoJournal.OP_REMOVER) {
+                    produtos.put(entrada.codigoBarras, entrada.produto);
+                } else {
+                    produtos.remove(entrada.codigoBarras);
+                }
+            }
+        });
+        return total;
+    }
+
+    private void removerArquivosAnteriores(long geracaoSnapshot) throws IOException {
+        try (Stream<Path> listagem = Files.list(diretorio)) {
+            for (Path arquivo : listagem.collect(Collectors.toList())) {
+                long geracaoJournal = ProdutoJournal.geracao(arquivo);
+                long geracaoArquivoSnapshot = ProdutoSnapshot.geracao(arquivo);
+                if ((geracaoJournal >= 0 && geracaoJournal < geracaoSnapshot)
+                        || (geracaoArquivoSnapshot >= 0 && geracaoArquivoSnapshot < geracaoSnapshot)) {
+                    Files.deleteIfExists(arquivo);
+                }
+            }
+        }
+    }
+
+    private void verificarLimiteJournal() {
+        if (limiteRegistrosJournal > 0 && !agendador.isShutdown() && journal.registros() >= limiteRegistrosJournal
+                && snapshotEmAndamento.compareAndSet(false, true)) {
+            agendador.execute(this::snapshotAgendado);
+        }
+    }
+
+    private void snapshotAgendado() {
+        try {
+            snapshotEmAndamento.set(true);
+            gerarSnapshot();
+        } catch (RuntimeException e) {
+            logger.error("Erro ao gerar snapshot agendado de produtos: {}", e.getMessage(), e);
+        } finally {
+            snapshotEmAndamento.set(false);
+        }
+    }
+
+    private static Produto copiar(Produto produto) {
+        return new Produto(
+            produto.getCodigoBarras(),
+            produto.getNome(),
+            produto.getCategoria(),
+            produto.getQuantidade(),
+            produto.getPrecoCusto(),
+            produto.getPrecoVenda(),
+            produto.getFornecedor(),
+            produto.getVersao()
+        );
+    }
+}
@@ -0,0 +1,170 @@
+package com.lucasmks.infrastructure.persistence.local;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+import com.lucasmks.domain.model.Produto;
+
+// Snapshot binário de todos os produtos, dividido em segmentos independentes
+// para que a carga no boot possa ser feita em paralelo.
+//
+// Layout: [magic][formato][geração][total][segmentos] seguido do índice
+// ([offset][tamanho][quantidade][crc32] por segmento) e dos segmentos em si.
+final class ProdutoSnapshot {
+
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final int FORMATO = 2; // 2: produtos com versão
+    private static final int FORMATO_SEM_VERSAO = 1;
+    private static final int TAMANHO_CABECALHO = 4 + 4 + 8 + 4 + 4;
+    private static final int TAMANHO_ENTRADA_INDICE = 8 + 4 + 4 + 4;
+
+    private static final String PREFIXO = "produtos-";
+    private static final String EXTENSAO = ".snapshot";
+
+    private ProdutoSnapshot() {}
+
+    static Path arquivo(Path diretorio, long geracao) {
+        return diretorio.resolve(String.format("%s%020d%s", PREFIXO, geracao, EXTENSAO));
+    }
+
+    // Retorna a geração do snapshot, ou -1 se o nome não seguir o padrão
+    static long geracao(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        if (!nome.startsWith(PREFIXO) || !nome.endsWith(EXTENSAO)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - EXTENSAO.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Grava o snapshot em um arquivo temporário e o publica com rename atômico.
+    // A geração indica a partir de qual journal a reprodução deve continuar.
+    static void escrever(Path diretorio, long geracao, List<Produto> produtos, int segmentos) throws IOException {
+        int totalSegmentos = Math.max(1, Math.min(segmentos, Math.max(1, produtos.size())));
+        int porSegmento = (produtos.size() + totalSegmentos - 1) / Math.max(1, totalSegmentos);
+
+        byte[][] dados = new byte[totalSegmentos][];
+        int[] quantidades = new int[totalSegmentos];
+        IntStream.range(0, totalSegmentos).parallel().forEach(i -> {
+            int inicio = Math.min(produtos.size(), i * porSegmento);
+            int fim = Math.min(produtos.size(), inicio + porSegmento);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, (fim - inicio) * 96));
+            DataOutputStream out = new DataOutputStream(bytes);
+            try {
+                for (int j = inicio; j < fim; j++) {
+                    ProdutoBinarioCodec.escrever(out, produtos.get(j));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            dados[i] = bytes.toByteArray();
+            quantidades[i] = fim - inicio;
+        });
+
+        Path temporario = diretorio.resolve(arquivo(diretorio, geracao).getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO + totalSegmentos * TAMANHO_ENTRADA_INDICE);
+            cabecalho.putInt(MAGIC).putInt(FORMATO).putLong(geracao).putInt(produtos.size()).putInt(totalSegmentos);
+
+            long offset = cabecalho.capacity();
+            for (int i = 0; i < totalSegmentos; i++) {
+                CRC32 crc = new CRC32();
+                crc.update(dados[i]);
+                cabecalho.putLong(offset).putInt(dados[i].length).putInt(quantidades[i]).putInt((int) crc.getValue());
+                offset += dados[i].length;
+            }
+            cabecalho.flip();
+            escreverTudo(canal, cabecalho);
+            for (byte[] segmento : dados) {
+                escreverTudo(canal, ByteBuffer.wrap(segmento));
+            }
+            canal.force(true);
+        }
+        Files.move(temporario, arquivo(diretorio, geracao), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Carrega os segmentos em paralelo diretamente no mapa de destino. Retorna a geração gravada.
+    static long carregar(Path arquivo, Map<String, Produto> destino) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer cabecalho = lerBloco(canal, 0, TAMANHO_CABECALHO);
+            int magic = cabecalho.getInt();
+            int formato = cabecalho.getInt();
+            if (magic != MAGIC || (formato != FORMATO && formato != FORMATO_SEM_VERSAO)) {
+                throw new IOException("Snapshot inválido ou de formato desconhecido: " + arquivo);
+            }
+            boolean comVersao = formato == FORMATO;
+            long geracao = cabecalho.getLong();
+            cabecalho.getInt(); // total de produtos, usado apenas para diagnóstico
+            int totalSegmentos = cabecalho.getInt();
+
+            ByteBuffer indice = lerBloco(canal, TAMANHO_CABECALHO, totalSegmentos * TAMANHO_ENTRADA_INDICE);
+            long[] offsets = new long[totalSegmentos];
+            int[] tamanhos = new int[totalSegmentos];
+            int[] quantidades = new int[totalSegmentos];
+            int[] crcs = new int[totalSegmentos];
+            for (int i = 0; i < totalSegmentos; i++) {
+                offsets[i] = indice.getLong();
+                tamanhos[i] = indice.getInt();
+                quantidades[i] = indice.getInt();
+                crcs[i] = indice.getInt();
+            }
+
+            IntStream.range(0, totalSegmentos).parallel().forEach(i -> {
+                try {
+                    ByteBuffer bloco = lerBloco(canal, offsets[i], tamanhos[i]);
+                    CRC32 crc = new CRC32();
+                    crc.update(bloco.duplicate());
+                    if ((int) crc.getValue() != crcs[i]) {
+                        throw new IOException("Segmento " + i + " do snapshot corrompido: " + arquivo);
+                    }
+                    DataInputStream in = new DataInputStream(
+                            new ByteArrayInputStream(bloco.array(), bloco.arrayOffset(), bloco.remaining()));
+                    for (int j = 0; j < quantidades[i]; j++) {
+                        Produto produto = ProdutoBinarioCodec.ler(in, comVersao);
+                        destino.put(produto.getCodigoBarras(), produto);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return geracao;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static ByteBuffer lerBloco(FileChannel canal, long posicao, int tamanho) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(tamanho);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicao + buffer.position()) < 0) {
+                throw new IOException("Fim inesperado do snapshot na posição " + (posicao + buffer.position()));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void escreverTudo(FileChannel canal, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+}
@@ -2,11 +2,14 @@ package com.lucasmks.infrastructure.persistence.mapper;
 
 import com.lucasmks.domain.model.Movimentacao;
 import com.lucasmks.infrastructure.persistence.document.MovimentacaoDocument;
+import com.lucasmks.infrastructure.persistence.intern.DicionarioStrings;
+import org.bson.types.ObjectId;
 
 public class MovimentacaoMapper {
     public MovimentacaoDocument toDocument(Movimentacao movimentacao) {
-        // Passa null para o ID, deixando o MongoDB gerá-lo automaticamente
+        // Sem id atribuído, o MongoDB gera um
         return new MovimentacaoDocument(
+            movimentacao.getId() != null ? new ObjectId(movimentacao.getId()) : null,
             movimentacao.getCodigoBarras(),
             movimentacao.getQuantidade(),
             movimentacao.getTipo(),
@@ -16,13 +19,14 @@ public class MovimentacaoMapper {
     }
 
     public Movimentacao toDomain(MovimentacaoDocument doc) {
-        // Não precisa lidar com o ID aqui, pois a entidade de domínio não o tem.
+        // O motivo é canonizado aqui porque a coleção usa o codec POJO, que não passa por fromDocument.
         return new Movimentacao(
             doc.getCodigoBarras(),
             doc.getQuantidade(),
             doc.getTipo(),
-            doc.getMotivo(),
-            doc.getDataHora()
+            DicionarioStrings.MOTIVO.canonizar(doc.getMotivo()),
+            doc.getDataHora(),
+            doc.getId() != null ? doc.getId().toHexString() : null
         );
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.lucasmks.infrastructure.persistence.mapper;
 
 import com.lucasmks.domain.model.Produto;
 import com.lucasmks.infrastructure.persistence.document.ProdutoDocument;
+import com.lucasmks.infrastructure.persistence.intern.DicionarioStrings;
 
 public class ProdutoMapper {
     
@@ -10,7 +11,7 @@ public class ProdutoMapper {
             return null;
         }
         
-        return new ProdutoDocument(
+        ProdutoDocument document = new ProdutoDocument(
             produto.getCodigoBarras(),
             produto.getNome(),
             produto.getCategoria(),
@@ -19,6 +20,8 @@ public class ProdutoMapper {
             produto.getPrecoVenda(),
             produto.getFornecedor()
         );
+        document.setVersao(produto.getVersao());
+        return document;
     }
     
     public Produto toDomain(ProdutoDocument document) {
@@ -29,11 +32,12 @@ public class ProdutoMapper {
         return new Produto(
             document.getCodigoBarras(),
             document.getNome(),
-            document.getCategoria(),
+            DicionarioStrings.CATEGORIA.canonizar(document.getCategoria()),
             document.getQuantidade(),
             document.getPrecoCusto(),
             document.getPrecoVenda(),
-            document.getFornecedor()
+            DicionarioStrings.FORNECEDOR.canonizar(document.getFornecedor()),
+            document.getVersao()
         );
     }
 }
\ No newline at end of file
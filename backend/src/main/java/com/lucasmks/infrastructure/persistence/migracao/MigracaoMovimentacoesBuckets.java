@@ -0,0 +1,129 @@
+package com.lucasmks.infrastructure.persistence.migracao;
+
+import com.lucasmks.infrastructure.config.Configuracao;
+import com.lucasmks.infrastructure.database.MongoConnection;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoBucketsMongoRepositoryImpl;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Copia a coleção "movimentacoes" (um documento por movimentação) para "movimentacoes_buckets".
+// A origem não é alterada. Deve rodar com a API parada; depois, suba a API com
+// estoque.movimentacoes.layout=buckets. O destino precisa estar vazio, ou use --recriar para
+// removê-lo antes: assim uma migração interrompida pode ser refeita do zero.
+//
+//   mvn exec:java -Dexec.mainClass=com.lucasmks.infrastructure.persistence.migracao.MigracaoMovimentacoesBuckets [-Dexec.args=--recriar]
+public class MigracaoMovimentacoesBuckets {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigracaoMovimentacoesBuckets.class);
+
+    public static void main(String[] args) {
+        boolean recriar = args.length > 0 && "--recriar".equals(args[0]);
+        try {
+            MongoDatabase database = MongoConnection.getDatabase();
+            new MigracaoMovimentacoesBuckets().migrar(database, recriar,
+                    Configuracao.getInt("estoque.movimentacoes.bucket.max-itens", MovimentacaoBucketsMongoRepositoryImpl.MAX_ITENS_PADRAO),
+                    Configuracao.getInt("estoque.movimentacoes.migracao.lote", 10_000));
+        } catch (Exception e) {
+            logger.error("Migração das movimentações para buckets falhou: {}", e.getMessage(), e);
+            System.exit(1);
+        } finally {
+            MongoConnection.closeConnection();
+        }
+    }
+
+    public long migrar(MongoDatabase database, boolean recriar, int maxItens, int lote) {
+        MongoCollection<Document> origem = database.getCollection(LayoutMovimentacoes.DOCUMENTOS.colecao());
+        MongoCollection<Document> destino = database.getCollection(LayoutMovimentacoes.BUCKETS.colecao());
+        if (recriar) {
+            destino.drop();
+        } else if (destino.estimatedDocumentCount() > 0) {
+            throw new IllegalStateException("A coleção " + LayoutMovimentacoes.BUCKETS.colecao()
+                    + " já tem documentos. Use --recriar para migrar novamente do zero.");
+        }
+        MovimentacaoBucketsMongoRepositoryImpl.criarIndices(destino);
+
+        long inicio = System.currentTimeMillis();
+        long migradas = 0;
+        List<Document> pendentes = new ArrayList<>(lote);
+        try (MongoCursor<Document> cursor = origem.find().sort(Sorts.ascending("_id")).batchSize(lote).iterator()) {
+            while (cursor.hasNext()) {
+                pendentes.add(cursor.next());
+                if (pendentes.size() == lote || !cursor.hasNext()) {
+                    List<UpdateOneModel<Document>> escritas = agrupar(pendentes, maxItens);
+                    if (!escritas.isEmpty()) {
+                        // Sem ordem: cada escrita é um upsert independente; escritas do mesmo produto e dia
+                        // em paralelo, no pior caso, abrem buckets a mais, nunca perdem itens
+                        destino.bulkWrite(escritas, new BulkWriteOptions().ordered(false));
+                    }
+                    migradas += pendentes.size();
+                    pendentes.clear();
+                    logger.info("Migração para buckets: {} movimentações copiadas.", migradas);
+                }
+            }
+        }
+        logger.info("Migração para buckets concluída: {} movimentações em {} buckets, {} ms.",
+                migradas, destino.countDocuments(), System.currentTimeMillis() - inicio);
+        return migradas;
+    }
+
+    // Agrupa um lote de documentos de movimentação por produto e dia, na ordem do lote, e gera um
+    // upsert por grupo de até maxItens itens. Documentos sem código de barras ou data são ignorados.
+    public static List<UpdateOneModel<Document>> agrupar(List<Document> movimentacoes, int maxItens) {
+        Map<String, List<Document>> grupos = new LinkedHashMap<>();
+        Map<String, LocalDateTime> dias = new LinkedHashMap<>();
+        for (Document movimentacao : movimentacoes) {
+            String codigoBarras = movimentacao.getString("codigoBarras");
+            LocalDateTime dataHora = dataHora(movimentacao.get("dataHora"));
+            if (codigoBarras == null || dataHora == null) {
+                logger.warn("Movimentação {} sem código de barras ou data; ignorada.", movimentacao.get("_id"));
+                continue;
+            }
+            LocalDateTime dia = LayoutMovimentacoes.dia(dataHora);
+            String chave = codigoBarras + '\u0000' + dia;
+            dias.putIfAbsent(chave, dia);
+            Document item = new Document("quantidade", movimentacao.getInteger("quantidade", 0))
+                    .append("tipo", movimentacao.getString("tipo"))
+                    .append("motivo", movimentacao.getString("motivo"))
+                    .append("dataHora", dataHora);
+            if (movimentacao.getString("origem") != null) {
+                item.append("origem", movimentacao.getString("origem"));
+            }
+            grupos.computeIfAbsent(chave, k -> new ArrayList<>()).add(item);
+        }
+
+        List<UpdateOneModel<Document>> escritas = new ArrayList<>();
+        for (Map.Entry<String, List<Document>> grupo : grupos.entrySet()) {
+            List<Document> itens = grupo.getValue();
+            String codigoBarras = grupo.getKey().substring(0, grupo.getKey().indexOf('\u0000'));
+            for (int i = 0; i < itens.size(); i += maxItens) {
+                escritas.add(MovimentacaoBucketsMongoRepositoryImpl.anexar(codigoBarras, dias.get(grupo.getKey()),
+                        itens.subList(i, Math.min(i + maxItens, itens.size())), maxItens));
+            }
+        }
+        return escritas;
+    }
+
+    private static LocalDateTime dataHora(Object valor) {
+        if (valor instanceof Date data) {
+            return LocalDateTime.ofInstant(data.toInstant(), ZoneOffset.UTC);
+        }
+        return valor instanceof LocalDateTime dataHora ? dataHora : null;
+    }
+}
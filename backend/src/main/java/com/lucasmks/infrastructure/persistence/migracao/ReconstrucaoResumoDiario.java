@@ -0,0 +1,35 @@
+package com.lucasmks.infrastructure.persistence.migracao;
+
+import com.lucasmks.infrastructure.database.MongoConnection;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.lucasmks.infrastructure.persistence.repository.ResumoDiarioMongoRepositoryImpl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Preenche (ou corrige) a coleção "movimentacoes_diarias" a partir de todas as movimentações
+// do layout configurado. Cada resumo recalculado substitui o existente, então a reconstrução
+// pode ser repetida; deve rodar com a API parada, senão os $inc feitos durante a agregação
+// podem ser sobrescritos.
+//
+//   mvn exec:java -Dexec.mainClass=com.lucasmks.infrastructure.persistence.migracao.ReconstrucaoResumoDiario
+public class ReconstrucaoResumoDiario {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconstrucaoResumoDiario.class);
+
+    public static void main(String[] args) {
+        try {
+            LayoutMovimentacoes layout = LayoutMovimentacoes.configurado();
+            long inicio = System.currentTimeMillis();
+            ResumoDiarioMongoRepositoryImpl.reconstruir(MongoConnection.getDatabase(), layout);
+            logger.info("Resumos diários reconstruídos a partir de {} em {} ms: {} documentos.", layout.colecao(),
+                    System.currentTimeMillis() - inicio,
+                    MongoConnection.getDatabase().getCollection(ResumoDiarioMongoRepositoryImpl.COLECAO).countDocuments());
+        } catch (Exception e) {
+            logger.error("Reconstrução dos resumos diários falhou: {}", e.getMessage(), e);
+            System.exit(1);
+        } finally {
+            MongoConnection.closeConnection();
+        }
+    }
+}
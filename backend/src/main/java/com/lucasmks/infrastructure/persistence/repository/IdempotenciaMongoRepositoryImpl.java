@@ -0,0 +1,88 @@
+package com.lucasmks.infrastructure.persistence.repository;
+
+import com.lucasmks.domain.model.RespostaIdempotente;
+import com.lucasmks.domain.repository.IdempotenciaRepository;
+import com.lucasmks.infrastructure.database.MongoConnection;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOptions;
+
+import org.bson.Document;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Coleção "idempotencia": um documento por chave, com a chave no _id (a reserva entre nós é o
+// insert; a segunda tentativa falha por chave duplicada). O índice TTL em expiraEm faz o
+// MongoDB apagar respostas e reservas vencidas (o monitor de TTL roda a cada ~60 s, por isso
+// buscar também ignora documentos vencidos que ainda não foram apagados).
+public class IdempotenciaMongoRepositoryImpl implements IdempotenciaRepository {
+
+    public static final String COLECAO = "idempotencia";
+
+    private final MongoCollection<Document> collection;
+
+    public IdempotenciaMongoRepositoryImpl() {
+        this.collection = MongoConnection.getDatabase().getCollection(COLECAO);
+        collection.createIndex(Indexes.ascending("expiraEm"), new IndexOptions().expireAfter(0L, TimeUnit.SECONDS));
+    }
+
+    @Override
+    public Optional<RespostaIdempotente> buscar(String chave) {
+        Document documento = collection.find(Filters.and(Filters.eq("_id", chave), Filters.gt("expiraEm", agora()))).first();
+        return Optional.ofNullable(documento).map(IdempotenciaMongoRepositoryImpl::paraDominio);
+    }
+
+    @Override
+    public boolean reservar(RespostaIdempotente reserva) {
+        try {
+            collection.insertOne(paraDocumento(reserva));
+            return true;
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+        }
+        // Já existe um documento: só assume a chave se ele venceu e o TTL ainda não o apagou
+        return collection.replaceOne(Filters.and(Filters.eq("_id", reserva.getChave()), Filters.lte("expiraEm", agora())),
+                paraDocumento(reserva)).getModifiedCount() > 0;
+    }
+
+    @Override
+    public void concluir(RespostaIdempotente resposta) {
+        collection.replaceOne(Filters.eq("_id", resposta.getChave()), paraDocumento(resposta), new ReplaceOptions().upsert(true));
+    }
+
+    @Override
+    public void liberar(String chave) {
+        collection.deleteOne(Filters.and(Filters.eq("_id", chave), Filters.eq("concluida", false)));
+    }
+
+    private static Date agora() {
+        return new Date();
+    }
+
+    // expiraEm no fuso da JVM, e não em UTC como os LocalDateTime gravados pelo codec:
+    // o monitor de TTL compara com o relógio real do servidor
+    private static Document paraDocumento(RespostaIdempotente resposta) {
+        return new Document("_id", resposta.getChave())
+                .append("impressao", resposta.getImpressao())
+                .append("status", resposta.getStatus())
+                .append("corpo", resposta.getCorpo())
+                .append("concluida", resposta.isConcluida())
+                .append("expiraEm", Date.from(resposta.getExpiraEm().atZone(ZoneId.systemDefault()).toInstant()));
+    }
+
+    private static RespostaIdempotente paraDominio(Document documento) {
+        return new RespostaIdempotente(documento.getString("_id"), documento.getString("impressao"),
+                documento.getInteger("status", 0), documento.getString("corpo"), documento.getBoolean("concluida", false),
+                LocalDateTime.ofInstant(documento.getDate("expiraEm").toInstant(), ZoneId.systemDefault()));
+    }
+}
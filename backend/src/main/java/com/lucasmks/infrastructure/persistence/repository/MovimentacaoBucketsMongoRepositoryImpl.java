@@ -0,0 +1,308 @@
+package com.lucasmks.infrastructure.persistence.repository;
+
+import com.lucasmks.domain.concurrency.Prazo;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.repository.MovimentacaoRepository;
+import com.lucasmks.infrastructure.config.Configuracao;
+import com.lucasmks.infrastructure.database.MongoConnection;
+import com.lucasmks.infrastructure.database.PrazoMongo;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.lucasmks.infrastructure.persistence.intern.DicionarioStrings;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.PushOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Movimentações agrupadas em buckets: um documento por produto e por dia na coleção
+// "movimentacoes_buckets", com as movimentações no array "movimentacoes" e os totais por tipo
+// em "totais.<TIPO>.movimentacoes" e "totais.<TIPO>.quantidade". Cada gravação é um único
+// upsert com $push e $inc. Um bucket guarda no máximo "maxItens" movimentações; quando enche,
+// o upsert não o encontra mais e cria outro para o mesmo produto e dia.
+//
+// As consultas leem os buckets pelo índice (codigoBarras, dia) ou (dia) e filtram os itens
+// aqui; só os dias das pontas de um período têm itens descartados.
+public class MovimentacaoBucketsMongoRepositoryImpl implements MovimentacaoRepository {
+
+    public static final String ITENS = "movimentacoes";
+    public static final int MAX_ITENS_PADRAO = 500;
+
+    private final MongoCollection<Document> collection;
+    private final int maxItens;
+    private final int loteCursor;
+
+    public MovimentacaoBucketsMongoRepositoryImpl() {
+        this.collection = MongoConnection.getDatabase().getCollection(LayoutMovimentacoes.BUCKETS.colecao());
+        this.maxItens = Configuracao.getInt("estoque.movimentacoes.bucket.max-itens", MAX_ITENS_PADRAO);
+        this.loteCursor = Configuracao.getInt("estoque.exportacao.lote-cursor", 2000);
+    }
+
+    // createIndexes é idempotente; chamado no boot (LayoutMovimentacoes.preparar) e pela migração
+    public static void criarIndices(MongoCollection<Document> collection) {
+        collection.createIndexes(List.of(
+                new IndexModel(Indexes.ascending("codigoBarras", "dia")),
+                new IndexModel(Indexes.ascending("dia"))));
+    }
+
+    @Override
+    public void salvar(Movimentacao movimentacao) {
+        Document item = item(movimentacao, Configuracao.identificadorNo());
+        UpdateOneModel<Document> anexar = anexar(movimentacao.getCodigoBarras(), LayoutMovimentacoes.dia(movimentacao.getDataHora()),
+                List.of(item), maxItens);
+        collection.updateOne(anexar.getFilter(), anexar.getUpdate(), anexar.getOptions());
+    }
+
+    // Um upsert por produto e dia do lote (mais de um se passar de maxItens), todos em um bulkWrite.
+    // Sem ordem, como na migração: no pior caso abrem buckets a mais, nunca perdem itens
+    @Override
+    public void salvarTodas(List<Movimentacao> movimentacoes) {
+        if (movimentacoes.isEmpty()) {
+            return;
+        }
+        String origem = Configuracao.identificadorNo();
+        Map<String, List<Document>> grupos = new LinkedHashMap<>();
+        Map<String, Movimentacao> primeiras = new HashMap<>();
+        for (Movimentacao movimentacao : movimentacoes) {
+            String chave = movimentacao.getCodigoBarras() + '\u0000' + LayoutMovimentacoes.dia(movimentacao.getDataHora());
+            primeiras.putIfAbsent(chave, movimentacao);
+            grupos.computeIfAbsent(chave, k -> new ArrayList<>()).add(item(movimentacao, origem));
+        }
+        List<UpdateOneModel<Document>> escritas = new ArrayList<>();
+        for (Map.Entry<String, List<Document>> grupo : grupos.entrySet()) {
+            Movimentacao primeira = primeiras.get(grupo.getKey());
+            List<Document> itens = grupo.getValue();
+            for (int i = 0; i < itens.size(); i += maxItens) {
+                escritas.add(anexar(primeira.getCodigoBarras(), LayoutMovimentacoes.dia(primeira.getDataHora()),
+                        itens.subList(i, Math.min(i + maxItens, itens.size())), maxItens));
+            }
+        }
+        collection.bulkWrite(escritas, new BulkWriteOptions().ordered(false));
+    }
+
+    // Os ids dos itens ficam dentro dos buckets: consulta os buckets dos produtos do lote que já
+    // têm algum deles (pelo índice codigoBarras + dia) e grava só o restante
+    @Override
+    public void regravarTodas(List<Movimentacao> movimentacoes) {
+        Set<String> ids = new HashSet<>();
+        Set<String> codigos = new HashSet<>();
+        for (Movimentacao movimentacao : movimentacoes) {
+            if (movimentacao.getId() != null) {
+                ids.add(movimentacao.getId());
+                codigos.add(movimentacao.getCodigoBarras());
+            }
+        }
+        Set<String> gravados = new HashSet<>();
+        if (!ids.isEmpty()) {
+            for (Document bucket : collection.find(Filters.and(Filters.in("codigoBarras", codigos), Filters.in(ITENS + ".id", ids)))
+                    .projection(Projections.include(ITENS + ".id"))) {
+                for (Document item : bucket.getList(ITENS, Document.class, List.of())) {
+                    String id = item.getString("id");
+                    if (id != null && ids.contains(id)) {
+                        gravados.add(id);
+                    }
+                }
+            }
+        }
+        List<Movimentacao> faltantes = new ArrayList<>(movimentacoes.size());
+        for (Movimentacao movimentacao : movimentacoes) {
+            if (movimentacao.getId() == null || !gravados.contains(movimentacao.getId())) {
+                faltantes.add(movimentacao);
+            }
+        }
+        salvarTodas(faltantes);
+    }
+
+    // Upsert que acrescenta os itens (todos do mesmo produto e dia) ao primeiro bucket com espaço
+    // para eles. As igualdades do filtro (codigoBarras, dia) são copiadas para o bucket criado.
+    public static UpdateOneModel<Document> anexar(String codigoBarras, LocalDateTime dia, List<Document> itens, int maxItens) {
+        if (itens.isEmpty() || itens.size() > maxItens) {
+            throw new IllegalArgumentException("Um bucket recebe de 1 a " + maxItens + " movimentações por vez.");
+        }
+        List<Bson> alteracoes = new ArrayList<>();
+        alteracoes.add(itens.size() == 1
+                ? Updates.push(ITENS, itens.get(0))
+                : Updates.pushEach(ITENS, itens, new PushOptions()));
+        alteracoes.add(Updates.inc("n", itens.size()));
+        for (TipoMovimentacao tipo : TipoMovimentacao.values()) {
+            int movimentacoes = 0;
+            long quantidade = 0;
+            for (Document item : itens) {
+                if (tipo.name().equals(item.getString("tipo"))) {
+                    movimentacoes++;
+                    quantidade += item.getInteger("quantidade", 0);
+                }
+            }
+            if (movimentacoes > 0) {
+                alteracoes.add(Updates.inc("totais." + tipo.name() + ".movimentacoes", movimentacoes));
+                alteracoes.add(Updates.inc("totais." + tipo.name() + ".quantidade", quantidade));
+            }
+        }
+        Bson filtro = Filters.and(
+                Filters.eq("codigoBarras", codigoBarras),
+                Filters.eq("dia", dia),
+                Filters.lte("n", maxItens - itens.size()));
+        return new UpdateOneModel<>(filtro, Updates.combine(alteracoes), new UpdateOptions().upsert(true));
+    }
+
+    // Item do array: os mesmos campos de um documento de movimentação, menos o código de barras
+    public static Document item(Movimentacao movimentacao, String origem) {
+        Document item = new Document("quantidade", movimentacao.getQuantidade())
+                .append("tipo", movimentacao.getTipo() != null ? movimentacao.getTipo().name() : null)
+                .append("motivo", movimentacao.getMotivo())
+                .append("dataHora", movimentacao.getDataHora());
+        if (origem != null) {
+            item.append("origem", origem);
+        }
+        if (movimentacao.getId() != null) {
+            item.append("id", movimentacao.getId());
+        }
+        return item;
+    }
+
+    // Movimentações do bucket que passam no filtro, na ordem em que foram gravadas
+    public static void itens(Document bucket, Predicate<Movimentacao> filtro, Consumer<Movimentacao> consumidor) {
+        String codigoBarras = bucket.getString("codigoBarras");
+        List<Document> itens = bucket.getList(ITENS, Document.class);
+        if (itens == null) {
+            return;
+        }
+        for (Document item : itens) {
+            Movimentacao movimentacao = paraDominio(codigoBarras, item);
+            if (filtro == null || filtro.test(movimentacao)) {
+                consumidor.accept(movimentacao);
+            }
+        }
+    }
+
+    public static Movimentacao paraDominio(String codigoBarras, Document item) {
+        String tipo = item.getString("tipo");
+        Object dataHora = item.get("dataHora");
+        return new Movimentacao(
+                codigoBarras,
+                item.getInteger("quantidade", 0),
+                tipo != null ? TipoMovimentacao.valueOf(tipo) : null,
+                DicionarioStrings.MOTIVO.canonizar(item.getString("motivo")),
+                // O codec de LocalDateTime grava em UTC; lido como Document, volta como Date
+                dataHora instanceof Date data ? LocalDateTime.ofInstant(data.toInstant(), ZoneOffset.UTC) : (LocalDateTime) dataHora,
+                item.getString("id"));
+    }
+
+    @Override
+    public List<Movimentacao> buscarTodasMovimentacoes() {
+        List<Movimentacao> resultado = new ArrayList<>();
+        percorrer(collection.find(), null, resultado::add);
+        return resultado;
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorProduto(String codigoBarras) {
+        List<Movimentacao> resultado = new ArrayList<>();
+        percorrer(collection.find(Filters.eq("codigoBarras", codigoBarras)).sort(Sorts.ascending("dia")), null, resultado::add);
+        return resultado;
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim) {
+        List<Movimentacao> resultado = new ArrayList<>();
+        percorrerMovimentacoes(dataInicio, dataFim, resultado::add);
+        return resultado;
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorMotivo(String motivo) {
+        List<Movimentacao> resultado = new ArrayList<>();
+        percorrer(collection.find(Filters.eq(ITENS + ".motivo", motivo)),
+                movimentacao -> motivo.equals(movimentacao.getMotivo()), resultado::add);
+        return resultado;
+    }
+
+    // Os totais do bucket descartam, sem ler os itens, os dias em que o tipo não ocorreu
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorTipo(TipoMovimentacao tipo) {
+        List<Movimentacao> resultado = new ArrayList<>();
+        percorrer(collection.find(Filters.gt("totais." + tipo.name() + ".movimentacoes", 0)),
+                movimentacao -> movimentacao.getTipo() == tipo, resultado::add);
+        return resultado;
+    }
+
+    // A última movimentação está em algum bucket do dia mais recente
+    @Override
+    public Optional<Movimentacao> getUltimaMovimentacao() {
+        Document maisRecente = PrazoMongo.aplicar(collection.find()).sort(Sorts.descending("dia")).projection(Projections.include("dia")).first();
+        if (maisRecente == null) {
+            return Optional.empty();
+        }
+        Movimentacao[] ultima = {null};
+        percorrer(collection.find(Filters.eq("dia", maisRecente.get("dia"))), null, movimentacao -> {
+            if (ultima[0] == null || !movimentacao.getDataHora().isBefore(ultima[0].getDataHora())) {
+                ultima[0] = movimentacao;
+            }
+        });
+        return Optional.ofNullable(ultima[0]);
+    }
+
+    @Override
+    public void percorrerMovimentacoes(LocalDateTime dataInicio, LocalDateTime dataFim, Consumer<Movimentacao> consumidor) {
+        percorrerPeriodo(new ArrayList<>(3), dataInicio, dataFim, consumidor);
+    }
+
+    @Override
+    public void percorrerMovimentacoesDoProduto(String codigoBarras, LocalDateTime dataInicio, LocalDateTime dataFim,
+                                                Consumer<Movimentacao> consumidor) {
+        List<Bson> condicoes = new ArrayList<>(3);
+        condicoes.add(Filters.eq("codigoBarras", codigoBarras));
+        percorrerPeriodo(condicoes, dataInicio, dataFim, consumidor);
+    }
+
+    private void percorrerPeriodo(List<Bson> condicoes, LocalDateTime dataInicio, LocalDateTime dataFim, Consumer<Movimentacao> consumidor) {
+        if (dataInicio != null) {
+            condicoes.add(Filters.gte("dia", LayoutMovimentacoes.dia(dataInicio)));
+        }
+        if (dataFim != null) {
+            condicoes.add(Filters.lte("dia", LayoutMovimentacoes.dia(dataFim)));
+        }
+        FindIterable<Document> busca = collection.find(condicoes.isEmpty() ? new Document() : Filters.and(condicoes));
+        if (dataInicio != null || dataFim != null) {
+            busca.sort(Sorts.ascending("dia"));
+        }
+        Predicate<Movimentacao> noPeriodo = movimentacao ->
+                (dataInicio == null || !movimentacao.getDataHora().isBefore(dataInicio))
+                        && (dataFim == null || !movimentacao.getDataHora().isAfter(dataFim));
+        percorrer(busca, dataInicio == null && dataFim == null ? null : noPeriodo, consumidor);
+    }
+
+    private void percorrer(FindIterable<Document> busca, Predicate<Movimentacao> filtro, Consumer<Movimentacao> consumidor) {
+        try (MongoCursor<Document> cursor = PrazoMongo.aplicar(busca).batchSize(Math.max(1, loteCursor / maxItens)).iterator()) {
+            while (cursor.hasNext()) {
+                Prazo.verificar();
+                itens(cursor.next(), filtro, consumidor);
+            }
+        }
+    }
+}
@@ -1,43 +1,128 @@
 package com.lucasmks.infrastructure.persistence.repository;
 
+import com.lucasmks.domain.concurrency.Prazo;
 import com.lucasmks.domain.model.Movimentacao;
 import com.lucasmks.domain.model.TipoMovimentacao;
 import com.lucasmks.domain.repository.MovimentacaoRepository;
+import com.lucasmks.infrastructure.config.Configuracao;
 import com.lucasmks.infrastructure.database.MongoConnection;
+import com.lucasmks.infrastructure.database.PrazoMongo;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
 import com.lucasmks.infrastructure.persistence.document.MovimentacaoDocument;
 import com.lucasmks.infrastructure.persistence.mapper.MovimentacaoMapper;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
 import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static com.mongodb.client.model.Filters.*;
 
+// Movimentações com um documento por movimentação, na coleção comum "movimentacoes" (layout
+// DOCUMENTOS) ou na coleção time-series "movimentacoes_ts" (layout SERIE_TEMPORAL), em que
+// código de barras e tipo ficam no metaField "meta". As consultas são as mesmas; só mudam
+// os nomes desses dois campos e a conversão do documento.
 public class MovimentacaoMongoRepositoryImpl implements MovimentacaoRepository {
     private final MongoCollection<MovimentacaoDocument> collection;
+    private final MongoCollection<Document> serieTemporal;
     private final MovimentacaoMapper mapper;
+    private final int loteCursor;
 
     public MovimentacaoMongoRepositoryImpl(MovimentacaoMapper mapper) {
+        this(mapper, LayoutMovimentacoes.DOCUMENTOS);
+    }
+
+    public MovimentacaoMongoRepositoryImpl(MovimentacaoMapper mapper, LayoutMovimentacoes layout) {
         MongoDatabase db = MongoConnection.getDatabase();
-        this.collection = db.getCollection("movimentacoes", MovimentacaoDocument.class);
+        if (layout == LayoutMovimentacoes.SERIE_TEMPORAL) {
+            this.collection = null;
+            this.serieTemporal = db.getCollection(layout.colecao());
+        } else {
+            this.collection = db.getCollection(LayoutMovimentacoes.DOCUMENTOS.colecao(), MovimentacaoDocument.class);
+            this.serieTemporal = null;
+        }
         this.mapper = mapper;
+        this.loteCursor = Configuracao.getInt("estoque.exportacao.lote-cursor", 2000);
     }
 
     @Override
     public void salvar(Movimentacao movimentacao) {
         MovimentacaoDocument doc = mapper.toDocument(movimentacao);
-        collection.insertOne(doc); 
+        doc.setOrigem(Configuracao.identificadorNo());
+        if (serieTemporal != null) {
+            serieTemporal.insertOne(doc.toSerieTemporal());
+        } else {
+            collection.insertOne(doc);
+        }
+    }
+
+    // Um único insertMany; sem ordem, uma movimentação rejeitada não impede as demais
+    @Override
+    public void salvarTodas(List<Movimentacao> movimentacoes) {
+        if (movimentacoes.isEmpty()) {
+            return;
+        }
+        String origem = Configuracao.identificadorNo();
+        InsertManyOptions opcoes = new InsertManyOptions().ordered(false);
+        if (serieTemporal != null) {
+            List<Document> documentos = new ArrayList<>(movimentacoes.size());
+            for (Movimentacao movimentacao : movimentacoes) {
+                MovimentacaoDocument doc = mapper.toDocument(movimentacao);
+                doc.setOrigem(origem);
+                documentos.add(doc.toSerieTemporal());
+            }
+            serieTemporal.insertMany(documentos, opcoes);
+            return;
+        }
+        List<MovimentacaoDocument> documentos = new ArrayList<>(movimentacoes.size());
+        for (Movimentacao movimentacao : movimentacoes) {
+            MovimentacaoDocument doc = mapper.toDocument(movimentacao);
+            doc.setOrigem(origem);
+            documentos.add(doc);
+        }
+        collection.insertMany(documentos, opcoes);
+    }
+
+    // O _id de cada movimentação é o id atribuído: consulta quais já estão no banco e grava o
+    // restante (na time-series o _id não é único, então não basta ignorar chaves duplicadas)
+    @Override
+    public void regravarTodas(List<Movimentacao> movimentacoes) {
+        List<ObjectId> ids = new ArrayList<>(movimentacoes.size());
+        for (Movimentacao movimentacao : movimentacoes) {
+            if (movimentacao.getId() != null) {
+                ids.add(new ObjectId(movimentacao.getId()));
+            }
+        }
+        Set<String> gravados = new HashSet<>();
+        if (!ids.isEmpty()) {
+            MongoCollection<Document> alvo = serieTemporal != null ? serieTemporal : collection.withDocumentClass(Document.class);
+            for (Document doc : alvo.find(in("_id", ids)).projection(new Document("_id", 1))) {
+                gravados.add(doc.getObjectId("_id").toHexString());
+            }
+        }
+        List<Movimentacao> faltantes = new ArrayList<>(movimentacoes.size());
+        for (Movimentacao movimentacao : movimentacoes) {
+            if (movimentacao.getId() == null || !gravados.contains(movimentacao.getId())) {
+                faltantes.add(movimentacao);
+            }
+        }
+        salvarTodas(faltantes);
     }
 
     @Override
     public List<Movimentacao> buscarTodasMovimentacoes() {
         List<Movimentacao> result = new ArrayList<>();
-        for (MovimentacaoDocument doc : collection.find()) {
-            result.add(mapper.toDomain(doc));
-        }
+        buscar(new Document(), null, 0, result::add);
         return result;
     }
 
@@ -45,28 +130,24 @@ public class MovimentacaoMongoRepositoryImpl implements MovimentacaoRepository {
     public List<Movimentacao> buscarMovimentacoesPorProduto(String codigoBarras) {
         List<Movimentacao> result = new ArrayList<>();
         // O nome do campo na coleção é 'codigoBarras' (do MovimentacaoDocument)
-        for (MovimentacaoDocument doc : collection.find(eq("codigoBarras", codigoBarras))) {
-            result.add(mapper.toDomain(doc));
-        }
+        buscar(eq(campo("codigoBarras"), codigoBarras), null, 0, result::add);
         return result;
     }
 
+    // Na time-series o filtro de período fica só no timeField: o MongoDB descarta pelos limites
+    // de tempo de cada bucket interno e descomprime apenas os buckets do período
     @Override
     public List<Movimentacao> buscarMovimentacoesPorPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim) {
         List<Movimentacao> result = new ArrayList<>();
         // O nome do campo na coleção é 'dataHora' (do MovimentacaoDocument)
-        for (MovimentacaoDocument doc : collection.find(and(gte("dataHora", dataInicio), lte("dataHora", dataFim)))) {
-            result.add(mapper.toDomain(doc));
-        }
+        buscar(and(gte("dataHora", dataInicio), lte("dataHora", dataFim)), null, 0, result::add);
         return result;
     }
 
     @Override
     public List<Movimentacao> buscarMovimentacoesPorMotivo(String motivo) {
         List<Movimentacao> result = new ArrayList<>();
-        for (MovimentacaoDocument doc : collection.find(eq("motivo", motivo))) {
-            result.add(mapper.toDomain(doc));
-        }
+        buscar(eq("motivo", motivo), null, 0, result::add);
         return result;
     }
 
@@ -74,18 +155,65 @@ public class MovimentacaoMongoRepositoryImpl implements MovimentacaoRepository {
     public List<Movimentacao> buscarMovimentacoesPorTipo(TipoMovimentacao tipo) {
         List<Movimentacao> result = new ArrayList<>();
         // Salvar enum como String, então buscar por String
-        for (MovimentacaoDocument doc : collection.find(eq("tipo", tipo.name()))) {
-            result.add(mapper.toDomain(doc));
-        }
+        buscar(eq(campo("tipo"), tipo.name()), null, 0, result::add);
         return result;
     }
 
     @Override
     public Optional<Movimentacao> getUltimaMovimentacao() {
-        MovimentacaoDocument doc = collection.find().sort(new Document("dataHora", -1)).first();
-        if (doc == null) {
-            return Optional.empty();
+        Movimentacao[] ultima = {null};
+        buscar(new Document(), new Document("dataHora", -1), 1, movimentacao -> ultima[0] = movimentacao);
+        return Optional.ofNullable(ultima[0]);
+    }
+
+    // Lê do cursor em lotes grandes (menos idas ao banco) e entrega cada documento assim que
+    // convertido; se o consumidor falhar, o cursor é fechado no servidor
+    @Override
+    public void percorrerMovimentacoes(LocalDateTime dataInicio, LocalDateTime dataFim, Consumer<Movimentacao> consumidor) {
+        buscar(periodo(new ArrayList<>(2), dataInicio, dataFim), null, 0, consumidor);
+    }
+
+    // Usa o índice (codigoBarras, dataHora) criado por LayoutMovimentacoes.preparar
+    @Override
+    public void percorrerMovimentacoesDoProduto(String codigoBarras, LocalDateTime dataInicio, LocalDateTime dataFim,
+                                                Consumer<Movimentacao> consumidor) {
+        List<Bson> condicoes = new ArrayList<>(3);
+        condicoes.add(eq(campo("codigoBarras"), codigoBarras));
+        buscar(periodo(condicoes, dataInicio, dataFim), null, 0, consumidor);
+    }
+
+    private static Bson periodo(List<Bson> condicoes, LocalDateTime dataInicio, LocalDateTime dataFim) {
+        if (dataInicio != null) {
+            condicoes.add(gte("dataHora", dataInicio));
+        }
+        if (dataFim != null) {
+            condicoes.add(lte("dataHora", dataFim));
+        }
+        return condicoes.isEmpty() ? new Document() : and(condicoes);
+    }
+
+    // codigoBarras e tipo ficam no metaField na coleção time-series
+    private String campo(String nome) {
+        return serieTemporal != null ? LayoutMovimentacoes.META + "." + nome : nome;
+    }
+
+    private void buscar(Bson filtro, Bson ordem, int limite, Consumer<Movimentacao> consumidor) {
+        if (serieTemporal != null) {
+            FindIterable<Document> busca = PrazoMongo.aplicar(serieTemporal.find(filtro)).sort(ordem).limit(limite).batchSize(loteCursor);
+            try (MongoCursor<Document> cursor = busca.iterator()) {
+                while (cursor.hasNext()) {
+                    Prazo.verificar();
+                    consumidor.accept(mapper.toDomain(MovimentacaoDocument.fromSerieTemporal(cursor.next())));
+                }
+            }
+            return;
+        }
+        FindIterable<MovimentacaoDocument> busca = PrazoMongo.aplicar(collection.find(filtro)).sort(ordem).limit(limite).batchSize(loteCursor);
+        try (MongoCursor<MovimentacaoDocument> cursor = busca.iterator()) {
+            while (cursor.hasNext()) {
+                Prazo.verificar();
+                consumidor.accept(mapper.toDomain(cursor.next()));
+            }
         }
-        return Optional.ofNullable(mapper.toDomain(doc));
     }
-} 
\ No newline at end of file
+}
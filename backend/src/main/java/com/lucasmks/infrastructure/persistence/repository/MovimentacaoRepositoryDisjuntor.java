@@ -0,0 +1,82 @@
+package com.lucasmks.infrastructure.persistence.repository;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.repository.MovimentacaoRepository;
+import com.lucasmks.infrastructure.resilience.Disjuntor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// Decorador que passa cada chamada ao repositório de movimentações pelo disjuntor do banco
+// (o mesmo dos produtos): com o banco indisponível, gravações e consultas falham na hora com
+// BancoIndisponivelException em vez de prender a thread até o timeout do driver.
+// As listagens do histórico crescem com o volume e não contam como chamadas lentas.
+public class MovimentacaoRepositoryDisjuntor implements MovimentacaoRepository {
+
+    private final MovimentacaoRepository delegate;
+    private final Disjuntor disjuntor;
+
+    public MovimentacaoRepositoryDisjuntor(MovimentacaoRepository delegate, Disjuntor disjuntor) {
+        this.delegate = delegate;
+        this.disjuntor = disjuntor;
+    }
+
+    @Override
+    public void salvar(Movimentacao movimentacao) {
+        disjuntor.executar(() -> delegate.salvar(movimentacao));
+    }
+
+    @Override
+    public void salvarTodas(List<Movimentacao> movimentacoes) {
+        disjuntor.executar(() -> delegate.salvarTodas(movimentacoes));
+    }
+
+    @Override
+    public void regravarTodas(List<Movimentacao> movimentacoes) {
+        disjuntor.executar(() -> delegate.regravarTodas(movimentacoes));
+    }
+
+    @Override
+    public List<Movimentacao> buscarTodasMovimentacoes() {
+        return disjuntor.executarSemLimiteDeTempo(delegate::buscarTodasMovimentacoes);
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorProduto(String codigoBarras) {
+        return disjuntor.executarSemLimiteDeTempo(() -> delegate.buscarMovimentacoesPorProduto(codigoBarras));
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim) {
+        return disjuntor.executarSemLimiteDeTempo(() -> delegate.buscarMovimentacoesPorPeriodo(dataInicio, dataFim));
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorMotivo(String motivo) {
+        return disjuntor.executarSemLimiteDeTempo(() -> delegate.buscarMovimentacoesPorMotivo(motivo));
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorTipo(TipoMovimentacao tipo) {
+        return disjuntor.executarSemLimiteDeTempo(() -> delegate.buscarMovimentacoesPorTipo(tipo));
+    }
+
+    @Override
+    public Optional<Movimentacao> getUltimaMovimentacao() {
+        return disjuntor.executar(delegate::getUltimaMovimentacao);
+    }
+
+    @Override
+    public void percorrerMovimentacoes(LocalDateTime dataInicio, LocalDateTime dataFim, Consumer<Movimentacao> consumidor) {
+        disjuntor.executarSemLimiteDeTempo(() -> delegate.percorrerMovimentacoes(dataInicio, dataFim, consumidor));
+    }
+
+    @Override
+    public void percorrerMovimentacoesDoProduto(String codigoBarras, LocalDateTime dataInicio, LocalDateTime dataFim,
+                                                Consumer<Movimentacao> consumidor) {
+        disjuntor.executarSemLimiteDeTempo(() -> delegate.percorrerMovimentacoesDoProduto(codigoBarras, dataInicio, dataFim, consumidor));
+    }
+}
@@ -0,0 +1,467 @@
+package com.lucasmks.infrastructure.persistence.repository;
+
+import com.lucasmks.domain.exception.BancoIndisponivelException;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.repository.MovimentacaoRepository;
+import com.lucasmks.infrastructure.persistence.ModoGravacaoMovimentacoes;
+import com.lucasmks.infrastructure.resilience.Disjuntor;
+
+import lombok.Data;
+import org.slf4j.Logger;
+import org.bson.types.ObjectId;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Decorador write-behind: salvar põe a movimentação em uma fila limitada e uma única thread
+// grava a fila com salvarTodas (insertMany/bulkWrite), em lotes de até maxLote movimentações
+// ou do que chegar em esperaLoteMs depois da primeira. No modo FILA salvar retorna logo após
+// enfileirar; no modo LOTE espera o lote ser gravado e repassa o erro, se houver.
+// Com a fila cheia, salvar espera até bloqueioMs por espaço e depois falha (contrapressão).
+// As leituras vão direto ao repositório real: no modo FILA, movimentações ainda na fila não
+// aparecem nelas. Cada movimentação recebe um id ao entrar na fila. No modo FILA quem chamou já
+// recebeu a confirmação, então um lote que falha por um motivo transitório (banco fora do ar,
+// disjuntor aberto) é regravado com regravarTodas, com espera crescente, antes dos lotes
+// seguintes, até dar certo; pelos ids, o que chegou ao banco na tentativa anterior não é
+// duplicado. Enquanto isso a fila enche e a contrapressão atua. Uma falha que não passa sozinha
+// (documento inválido ou grande demais) não segura a fila: o lote é regravado uma movimentação
+// por vez e as que falharem de novo vão para o log de letra morta, para regravação manual.
+// Fora isso, só se perde o que ainda estiver pendente quando o processo termina.
+public class MovimentacaoRepositoryGravacaoAssincrona implements MovimentacaoRepository, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovimentacaoRepositoryGravacaoAssincrona.class);
+    // Movimentações confirmadas que não puderam ser gravadas; configurável à parte no logger
+    private static final Logger letraMorta = LoggerFactory.getLogger(MovimentacaoRepositoryGravacaoAssincrona.class.getName() + ".letra-morta");
+
+    // Limites superiores das faixas do histograma de tamanho dos lotes; a última é aberta
+    private static final int[] FAIXAS_LOTE = {1, 10, 50, 100, 500};
+    private static final long ESPERA_INICIAL_MS = 100;
+    private static final long ESPERA_MAXIMA_MS = 30_000;
+
+    private final MovimentacaoRepository delegate;
+    private final ModoGravacaoMovimentacoes modo;
+    private final BlockingQueue<Pendente> fila;
+    private final int capacidade;
+    private final int maxLote;
+    private final long esperaLoteNanos;
+    private final long bloqueioMs;
+    private final Predicate<Throwable> transitoria;
+    private final Thread gravador;
+    // salvar segura a leitura enquanto enfileira; close segura a escrita para marcar o
+    // encerramento, assim nada entra na fila depois da última drenagem
+    private final ReadWriteLock encerramento = new ReentrantReadWriteLock();
+    private volatile boolean encerrado;
+
+    // Métricas
+    private final AtomicLong enfileiradas = new AtomicLong();
+    private final AtomicLong gravadas = new AtomicLong();
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicInteger maiorLote = new AtomicInteger();
+    private final AtomicLongArray lotesPorFaixa = new AtomicLongArray(FAIXAS_LOTE.length + 1);
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong regravacoes = new AtomicLong();
+    private final AtomicLong perdidas = new AtomicLong();
+    private final AtomicLong letraMortaTotal = new AtomicLong();
+    private final AtomicInteger aguardandoRegravacao = new AtomicInteger();
+    private final AtomicLong esperasFilaCheia = new AtomicLong();
+    private final AtomicLong rejeitadasFilaCheia = new AtomicLong();
+    private final AtomicLong duracaoUltimoLoteMicros = new AtomicLong();
+
+    public MovimentacaoRepositoryGravacaoAssincrona(MovimentacaoRepository delegate, ModoGravacaoMovimentacoes modo,
+                                                    int capacidade, int maxLote, long esperaLoteMs, long bloqueioMs) {
+        this(delegate, modo, capacidade, maxLote, esperaLoteMs, bloqueioMs, MovimentacaoRepositoryGravacaoAssincrona::falhaTransitoria);
+    }
+
+    // transitoria: falhas que justificam insistir no lote (as demais vão para a letra morta)
+    public MovimentacaoRepositoryGravacaoAssincrona(MovimentacaoRepository delegate, ModoGravacaoMovimentacoes modo,
+                                                    int capacidade, int maxLote, long esperaLoteMs, long bloqueioMs,
+                                                    Predicate<Throwable> transitoria) {
+        if (modo == ModoGravacaoMovimentacoes.SINCRONA) {
+            throw new IllegalArgumentException("A gravação assíncrona exige o modo FILA ou LOTE.");
+        }
+        if (capacidade < 1 || maxLote < 1) {
+            throw new IllegalArgumentException("Capacidade da fila e tamanho do lote devem ser positivos.");
+        }
+        this.delegate = delegate;
+        this.modo = modo;
+        this.capacidade = capacidade;
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+        this.maxLote = maxLote;
+        this.esperaLoteNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, esperaLoteMs));
+        this.bloqueioMs = Math.max(0, bloqueioMs);
+        this.transitoria = transitoria;
+        this.gravador = new Thread(this::executar, "gravacao-movimentacoes");
+        this.gravador.setDaemon(true);
+        this.gravador.start();
+        logger.info("Gravação de movimentações em lotes (modo {}, fila {}, lote até {}, espera {} ms).",
+                modo.name().toLowerCase(), capacidade, maxLote, esperaLoteMs);
+    }
+
+    // Banco fora do ar, inalcançável ou recusado pelo disjuntor: passa sozinho
+    public static boolean falhaTransitoria(Throwable erro) {
+        return erro instanceof BancoIndisponivelException || Disjuntor.falhaDoMongo(erro);
+    }
+
+    @Override
+    public void salvar(Movimentacao movimentacao) {
+        aguardar(enfileirar(movimentacao));
+    }
+
+    // Enfileira todas antes de esperar: no modo LOTE elas tendem a cair no mesmo lote
+    @Override
+    public void salvarTodas(List<Movimentacao> movimentacoes) {
+        List<Pendente> pendentes = new ArrayList<>(movimentacoes.size());
+        for (Movimentacao movimentacao : movimentacoes) {
+            pendentes.add(enfileirar(movimentacao));
+        }
+        pendentes.forEach(this::aguardar);
+    }
+
+    // Regravação pedida de fora: vai direto ao repositório real, sem passar pela fila
+    @Override
+    public void regravarTodas(List<Movimentacao> movimentacoes) {
+        delegate.regravarTodas(movimentacoes);
+    }
+
+    // Depois do encerramento a gravação volta a ser síncrona (retorna null)
+    private Pendente enfileirar(Movimentacao movimentacao) {
+        if (movimentacao.getId() == null) {
+            movimentacao.setId(new ObjectId().toHexString());
+        }
+        Pendente pendente = new Pendente(movimentacao,
+                modo == ModoGravacaoMovimentacoes.LOTE ? new CompletableFuture<>() : null);
+        encerramento.readLock().lock();
+        try {
+            if (encerrado) {
+                delegate.salvar(movimentacao);
+                return null;
+            }
+            if (!fila.offer(pendente)) {
+                esperasFilaCheia.incrementAndGet();
+                if (!fila.offer(pendente, bloqueioMs, TimeUnit.MILLISECONDS)) {
+                    rejeitadasFilaCheia.incrementAndGet();
+                    throw new IllegalStateException("Fila de gravação de movimentações cheia (" + capacidade
+                            + "); tente novamente.");
+                }
+            }
+            enfileiradas.incrementAndGet();
+            return pendente;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando espaço na fila de gravação de movimentações.", e);
+        } finally {
+            encerramento.readLock().unlock();
+        }
+    }
+
+    private void aguardar(Pendente pendente) {
+        if (pendente == null || pendente.gravada == null) {
+            return;
+        }
+        try {
+            pendente.gravada.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private void executar() {
+        List<Pendente> lote = new ArrayList<>(maxLote);
+        while (true) {
+            try {
+                Pendente primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    if (encerrado) {
+                        return;
+                    }
+                    continue;
+                }
+                lote.add(primeiro);
+                fila.drainTo(lote, maxLote - 1);
+                // Espera um pouco por mais movimentações antes de gravar um lote incompleto
+                long limite = System.nanoTime() + esperaLoteNanos;
+                while (lote.size() < maxLote && !encerrado) {
+                    long resta = limite - System.nanoTime();
+                    Pendente proximo = resta > 0 ? fila.poll(resta, TimeUnit.NANOSECONDS) : null;
+                    if (proximo == null) {
+                        break;
+                    }
+                    lote.add(proximo);
+                    fila.drainTo(lote, maxLote - lote.size());
+                }
+                gravar(lote, true);
+            } catch (InterruptedException e) {
+                // Só close interrompe, e close drena a fila depois
+                gravar(lote, false);
+                return;
+            } catch (Throwable e) {
+                logger.error("Erro inesperado na gravação de movimentações: {}", e.getMessage(), e);
+                // Ninguém pode ficar esperando por um lote que não será gravado
+                for (Pendente pendente : lote) {
+                    if (pendente.gravada != null) {
+                        pendente.gravada.completeExceptionally(e);
+                    }
+                }
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    // regravar: no modo FILA, insiste no lote que falhou (só a thread de gravação; no close não)
+    private void gravar(List<Pendente> lote, boolean regravar) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        List<Movimentacao> movimentacoes = new ArrayList<>(lote.size());
+        for (Pendente pendente : lote) {
+            movimentacoes.add(pendente.movimentacao);
+        }
+        long inicio = System.nanoTime();
+        int naoGravadas = 0;
+        try {
+            delegate.salvarTodas(movimentacoes);
+        } catch (RuntimeException e) {
+            falhas.addAndGet(lote.size());
+            logger.error("Falha ao gravar lote de {} movimentações: {}", lote.size(), e.getMessage(), e);
+            if (modo == ModoGravacaoMovimentacoes.LOTE) {
+                for (Pendente pendente : lote) {
+                    pendente.gravada.completeExceptionally(e);
+                }
+                return;
+            }
+            naoGravadas = regravar ? regravar(movimentacoes, e) : -1;
+            if (naoGravadas < 0) {
+                // Fica o registro para regravar manualmente
+                perdidas.addAndGet(lote.size());
+                movimentacoes.forEach(movimentacao -> letraMorta.error("Movimentação não gravada: {}", movimentacao));
+                return;
+            }
+        }
+        duracaoUltimoLoteMicros.set(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio));
+        gravadas.addAndGet(lote.size() - naoGravadas);
+        lotes.incrementAndGet();
+        maiorLote.accumulateAndGet(lote.size(), Math::max);
+        lotesPorFaixa.incrementAndGet(faixa(lote.size()));
+        for (Pendente pendente : lote) {
+            if (pendente.gravada != null) {
+                pendente.gravada.complete(null);
+            }
+        }
+    }
+
+    // Regrava o lote que falhou com erro. Falha transitória: tenta de novo até conseguir. Falha
+    // permanente: regrava uma a uma e manda para a letra morta as que não passarem.
+    // Retorna quantas foram para a letra morta; -1 se close desistiu de esperar (interrupção)
+    private int regravar(List<Movimentacao> movimentacoes, RuntimeException erro) {
+        aguardandoRegravacao.set(movimentacoes.size());
+        try {
+            return regravarLote(movimentacoes, erro);
+        } finally {
+            aguardandoRegravacao.set(0);
+        }
+    }
+
+    private int regravarLote(List<Movimentacao> movimentacoes, RuntimeException erro) {
+        long espera = ESPERA_INICIAL_MS;
+        while (transitoria.test(erro)) {
+            try {
+                Thread.sleep(espera);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+            try {
+                regravacoes.incrementAndGet();
+                delegate.regravarTodas(movimentacoes);
+                logger.info("Lote de {} movimentações regravado.", movimentacoes.size());
+                return 0;
+            } catch (RuntimeException e) {
+                erro = e;
+                espera = Math.min(espera * 2, ESPERA_MAXIMA_MS);
+                logger.warn("Nova falha ao regravar lote de {} movimentações, próxima tentativa em {} ms: {}",
+                        movimentacoes.size(), espera, e.getMessage());
+            }
+        }
+        if (movimentacoes.size() == 1) {
+            letraMortaTotal.incrementAndGet();
+            letraMorta.error("Movimentação não gravada ({}): {}", erro.getMessage(), movimentacoes.get(0));
+            return 1;
+        }
+        // Separa as movimentações que o banco recusa das que só estavam no mesmo lote
+        int naoGravadas = 0;
+        for (Movimentacao movimentacao : movimentacoes) {
+            List<Movimentacao> sozinha = List.of(movimentacao);
+            try {
+                regravacoes.incrementAndGet();
+                delegate.regravarTodas(sozinha);
+            } catch (RuntimeException e) {
+                int resultado = regravarLote(sozinha, e);
+                if (resultado < 0) {
+                    return -1;
+                }
+                naoGravadas += resultado;
+            }
+        }
+        return naoGravadas;
+    }
+
+    private static int faixa(int tamanho) {
+        for (int i = 0; i < FAIXAS_LOTE.length; i++) {
+            if (tamanho <= FAIXAS_LOTE[i]) {
+                return i;
+            }
+        }
+        return FAIXAS_LOTE.length;
+    }
+
+    // Grava o que está na fila e para a thread; chamado no shutdown (ApplicationFactory.encerrar)
+    @Override
+    public void close() {
+        encerramento.writeLock().lock();
+        try {
+            encerrado = true;
+        } finally {
+            encerramento.writeLock().unlock();
+        }
+        try {
+            gravador.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (gravador.isAlive()) {
+            gravador.interrupt();
+        }
+        // Se a thread parou antes de esvaziar a fila, o restante é gravado aqui
+        List<Pendente> restantes = new ArrayList<>();
+        fila.drainTo(restantes);
+        for (int i = 0; i < restantes.size(); i += maxLote) {
+            gravar(restantes.subList(i, Math.min(i + maxLote, restantes.size())), false);
+        }
+        logger.info("Gravação de movimentações encerrada: {} gravadas em {} lotes, {} falhas, {} não gravadas.",
+                gravadas.get(), lotes.get(), falhas.get(), perdidas.get());
+    }
+
+    public Metricas metricas() {
+        Metricas metricas = new Metricas();
+        metricas.setModo(modo.name().toLowerCase());
+        metricas.setProfundidadeFila(fila.size());
+        metricas.setCapacidadeFila(capacidade);
+        metricas.setMovimentacoesEnfileiradas(enfileiradas.get());
+        metricas.setMovimentacoesGravadas(gravadas.get());
+        metricas.setLotesGravados(lotes.get());
+        metricas.setMediaLote(lotes.get() > 0 ? (double) gravadas.get() / lotes.get() : 0);
+        metricas.setMaiorLote(maiorLote.get());
+        Map<String, Long> porFaixa = new LinkedHashMap<>();
+        int inicioFaixa = 1;
+        for (int i = 0; i < FAIXAS_LOTE.length; i++) {
+            porFaixa.put(inicioFaixa == FAIXAS_LOTE[i] ? String.valueOf(inicioFaixa) : inicioFaixa + "-" + FAIXAS_LOTE[i],
+                    lotesPorFaixa.get(i));
+            inicioFaixa = FAIXAS_LOTE[i] + 1;
+        }
+        porFaixa.put(inicioFaixa + "+", lotesPorFaixa.get(FAIXAS_LOTE.length));
+        metricas.setLotesPorTamanho(porFaixa);
+        metricas.setFalhas(falhas.get());
+        metricas.setRegravacoes(regravacoes.get());
+        metricas.setAguardandoRegravacao(aguardandoRegravacao.get());
+        metricas.setPerdidas(perdidas.get());
+        metricas.setLetraMorta(letraMortaTotal.get());
+        metricas.setEsperasFilaCheia(esperasFilaCheia.get());
+        metricas.setRejeitadasFilaCheia(rejeitadasFilaCheia.get());
+        metricas.setDuracaoUltimoLoteMs(duracaoUltimoLoteMicros.get() / 1000.0);
+        return metricas;
+    }
+
+    @Data
+    public static class Metricas {
+        private String modo;
+        private int profundidadeFila;            // movimentações aguardando gravação
+        private int capacidadeFila;
+        private long movimentacoesEnfileiradas;
+        private long movimentacoesGravadas;
+        private long lotesGravados;
+        private double mediaLote;
+        private int maiorLote;
+        private Map<String, Long> lotesPorTamanho; // faixa de tamanho -> lotes gravados
+        private long falhas;                     // movimentações de lotes que falharam (cada tentativa)
+        private long regravacoes;                // novas tentativas de lotes que falharam (modo FILA)
+        private int aguardandoRegravacao;        // movimentações do lote sendo regravado agora
+        private long perdidas;                   // confirmadas e não gravadas no encerramento
+        private long letraMorta;                 // recusadas pelo banco por falha permanente
+        private long esperasFilaCheia;           // salvar que encontrou a fila cheia
+        private long rejeitadasFilaCheia;        // ... e desistiu após bloqueioMs
+        private double duracaoUltimoLoteMs;
+    }
+
+    private static final class Pendente {
+        final Movimentacao movimentacao;
+        final CompletableFuture<Void> gravada; // só no modo LOTE
+
+        Pendente(Movimentacao movimentacao, CompletableFuture<Void> gravada) {
+            this.movimentacao = movimentacao;
+            this.gravada = gravada;
+        }
+    }
+
+    @Override
+    public List<Movimentacao> buscarTodasMovimentacoes() {
+        return delegate.buscarTodasMovimentacoes();
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorProduto(String codigoBarras) {
+        return delegate.buscarMovimentacoesPorProduto(codigoBarras);
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim) {
+        return delegate.buscarMovimentacoesPorPeriodo(dataInicio, dataFim);
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorMotivo(String motivo) {
+        return delegate.buscarMovimentacoesPorMotivo(motivo);
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorTipo(TipoMovimentacao tipo) {
+        return delegate.buscarMovimentacoesPorTipo(tipo);
+    }
+
+    @Override
+    public Optional<Movimentacao> getUltimaMovimentacao() {
+        return delegate.getUltimaMovimentacao();
+    }
+
+    @Override
+    public void percorrerMovimentacoes(LocalDateTime dataInicio, LocalDateTime dataFim, Consumer<Movimentacao> consumidor) {
+        delegate.percorrerMovimentacoes(dataInicio, dataFim, consumidor);
+    }
+
+    @Override
+    public void percorrerMovimentacoesDoProduto(String codigoBarras, LocalDateTime dataInicio, LocalDateTime dataFim,
+                                                Consumer<Movimentacao> consumidor) {
+        delegate.percorrerMovimentacoesDoProduto(codigoBarras, dataInicio, dataFim, consumidor);
+    }
+}
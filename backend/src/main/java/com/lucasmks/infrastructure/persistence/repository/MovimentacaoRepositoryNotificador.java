@@ -0,0 +1,104 @@
+package com.lucasmks.infrastructure.persistence.repository;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.repository.MovimentacaoRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Decorador que repassa todas as operações ao repositório real e, após cada
+// movimentação gravada com sucesso, avisa as estruturas em memória interessadas.
+public class MovimentacaoRepositoryNotificador implements MovimentacaoRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovimentacaoRepositoryNotificador.class);
+
+    private final MovimentacaoRepository delegate;
+    private final List<Consumer<Movimentacao>> ouvintes = new CopyOnWriteArrayList<>();
+
+    public MovimentacaoRepositoryNotificador(MovimentacaoRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    public void adicionarOuvinte(Consumer<Movimentacao> ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    @Override
+    public void salvar(Movimentacao movimentacao) {
+        delegate.salvar(movimentacao);
+        notificar(movimentacao);
+    }
+
+    @Override
+    public void salvarTodas(List<Movimentacao> movimentacoes) {
+        delegate.salvarTodas(movimentacoes);
+        movimentacoes.forEach(this::notificar);
+    }
+
+    @Override
+    public void regravarTodas(List<Movimentacao> movimentacoes) {
+        delegate.regravarTodas(movimentacoes);
+        movimentacoes.forEach(this::notificar);
+    }
+
+    // Entrega a movimentação aos ouvintes; uma falha em um deles não afeta os demais
+    // nem a gravação, que já foi concluída. Também recebe as movimentações gravadas
+    // por outros nós, vindas do change stream.
+    public void notificar(Movimentacao movimentacao) {
+        for (Consumer<Movimentacao> ouvinte : ouvintes) {
+            try {
+                ouvinte.accept(movimentacao);
+            } catch (RuntimeException e) {
+                logger.error("Erro ao notificar movimentação do produto {}: {}", movimentacao.getCodigoBarras(), e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public List<Movimentacao> buscarTodasMovimentacoes() {
+        return delegate.buscarTodasMovimentacoes();
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorProduto(String codigoBarras) {
+        return delegate.buscarMovimentacoesPorProduto(codigoBarras);
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim) {
+        return delegate.buscarMovimentacoesPorPeriodo(dataInicio, dataFim);
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorMotivo(String motivo) {
+        return delegate.buscarMovimentacoesPorMotivo(motivo);
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorTipo(TipoMovimentacao tipo) {
+        return delegate.buscarMovimentacoesPorTipo(tipo);
+    }
+
+    @Override
+    public Optional<Movimentacao> getUltimaMovimentacao() {
+        return delegate.getUltimaMovimentacao();
+    }
+
+    @Override
+    public void percorrerMovimentacoes(LocalDateTime dataInicio, LocalDateTime dataFim, Consumer<Movimentacao> consumidor) {
+        delegate.percorrerMovimentacoes(dataInicio, dataFim, consumidor);
+    }
+
+    @Override
+    public void percorrerMovimentacoesDoProduto(String codigoBarras, LocalDateTime dataInicio, LocalDateTime dataFim,
+                                                Consumer<Movimentacao> consumidor) {
+        delegate.percorrerMovimentacoesDoProduto(codigoBarras, dataInicio, dataFim, consumidor);
+    }
+}
@@ -0,0 +1,107 @@
+package com.lucasmks.infrastructure.persistence.repository;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.repository.MovimentacaoRepository;
+import com.lucasmks.domain.repository.ResumoDiarioRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// Decorador que, após cada movimentação gravada, soma a movimentação ao resumo diário do
+// produto. Fica abaixo do notificador: as movimentações de outros nós, que chegam pelo
+// change stream, já foram somadas pelo nó que as gravou.
+public class MovimentacaoRepositoryResumoDiario implements MovimentacaoRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovimentacaoRepositoryResumoDiario.class);
+
+    private final MovimentacaoRepository delegate;
+    private final ResumoDiarioRepository resumos;
+
+    public MovimentacaoRepositoryResumoDiario(MovimentacaoRepository delegate, ResumoDiarioRepository resumos) {
+        this.delegate = delegate;
+        this.resumos = resumos;
+    }
+
+    // A movimentação já está gravada quando o resumo falha: o erro não é repassado ao caso de
+    // uso, e o resumo daquele dia fica defasado até a próxima reconstrução
+    @Override
+    public void salvar(Movimentacao movimentacao) {
+        delegate.salvar(movimentacao);
+        try {
+            resumos.registrar(movimentacao);
+        } catch (RuntimeException e) {
+            logger.error("Erro ao atualizar o resumo diário do produto {} (reconstrua os resumos): {}",
+                    movimentacao.getCodigoBarras(), e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void salvarTodas(List<Movimentacao> movimentacoes) {
+        delegate.salvarTodas(movimentacoes);
+        try {
+            resumos.registrarTodas(movimentacoes);
+        } catch (RuntimeException e) {
+            logger.error("Erro ao atualizar os resumos diários de {} movimentações (reconstrua os resumos): {}",
+                    movimentacoes.size(), e.getMessage(), e);
+        }
+    }
+
+    // Os resumos só são somados depois que a gravação dá certo: o lote que falhou não entrou neles
+    @Override
+    public void regravarTodas(List<Movimentacao> movimentacoes) {
+        delegate.regravarTodas(movimentacoes);
+        try {
+            resumos.registrarTodas(movimentacoes);
+        } catch (RuntimeException e) {
+            logger.error("Erro ao atualizar os resumos diários de {} movimentações (reconstrua os resumos): {}",
+                    movimentacoes.size(), e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Movimentacao> buscarTodasMovimentacoes() {
+        return delegate.buscarTodasMovimentacoes();
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorProduto(String codigoBarras) {
+        return delegate.buscarMovimentacoesPorProduto(codigoBarras);
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorPeriodo(LocalDateTime dataInicio, LocalDateTime dataFim) {
+        return delegate.buscarMovimentacoesPorPeriodo(dataInicio, dataFim);
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorMotivo(String motivo) {
+        return delegate.buscarMovimentacoesPorMotivo(motivo);
+    }
+
+    @Override
+    public List<Movimentacao> buscarMovimentacoesPorTipo(TipoMovimentacao tipo) {
+        return delegate.buscarMovimentacoesPorTipo(tipo);
+    }
+
+    @Override
+    public Optional<Movimentacao> getUltimaMovimentacao() {
+        return delegate.getUltimaMovimentacao();
+    }
+
+    @Override
+    public void percorrerMovimentacoes(LocalDateTime dataInicio, LocalDateTime dataFim, Consumer<Movimentacao> consumidor) {
+        delegate.percorrerMovimentacoes(dataInicio, dataFim, consumidor);
+    }
+
+    @Override
+    public void percorrerMovimentacoesDoProduto(String codigoBarras, LocalDateTime dataInicio, LocalDateTime dataFim,
+                                                Consumer<Movimentacao> consumidor) {
+        delegate.percorrerMovimentacoesDoProduto(codigoBarras, dataInicio, dataFim, consumidor);
+    }
+}
@@ -1,22 +1,51 @@
 package com.lucasmks.infrastructure.persistence.repository;
 
+import com.lucasmks.domain.concurrency.Prazo;
+import com.lucasmks.domain.model.FiltroProdutos;
+import com.lucasmks.domain.model.Pagina;
 import com.lucasmks.domain.model.Produto;  // Import correto: model
+import com.lucasmks.domain.model.ResultadoGravacao;
 import com.lucasmks.domain.repository.ProdutoRepository;
+import com.lucasmks.infrastructure.config.Configuracao;
 import com.lucasmks.infrastructure.database.MongoConnection;
+import com.lucasmks.infrastructure.database.PrazoMongo;
+import com.lucasmks.infrastructure.persistence.PaginacaoProdutos;
 import com.lucasmks.infrastructure.persistence.document.ProdutoDocument;
 import com.lucasmks.infrastructure.persistence.mapper.ProdutoMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
-import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
 
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class ProdutoMongoRepositoryImpl implements ProdutoRepository {
     
@@ -25,13 +54,16 @@ public class ProdutoMongoRepositoryImpl implements ProdutoRepository {
     
     private final MongoCollection<Document> collection;
     private final ProdutoMapper mapper;
+    private final int loteCursor;
     
     public ProdutoMongoRepositoryImpl(ProdutoMapper mapper) {
         this.mapper = mapper;
+        this.loteCursor = Configuracao.getInt("estoque.exportacao.lote-cursor", 2000);
         try {
             logger.debug("Inicializando repositório MongoDB para produtos...");
             MongoDatabase database = MongoConnection.getDatabase();
             this.collection = database.getCollection(COLLECTION_NAME);
+            criarIndices();
             logger.info("Repositório MongoDB inicializado com sucesso para coleção: {}", COLLECTION_NAME);
         } catch (Exception e) {
             logger.error("Erro ao inicializar repositório MongoDB: {}", e.getMessage(), e);
@@ -44,14 +76,7 @@ public class ProdutoMongoRepositoryImpl implements ProdutoRepository {
         try {
             logger.debug("Salvando produto com código de barras: {}", produto.getCodigoBarras());
             
-            ProdutoDocument document = mapper.toDocument(produto);
-            Document bsonDoc = document.toDocument();
-            
-            collection.replaceOne(
-                Filters.eq("codigoBarras", produto.getCodigoBarras()),
-                bsonDoc,
-                new ReplaceOptions().upsert(true)
-            );
+            gravarIncrementandoVersao(produto, true);
             logger.info("Produto atualizado com sucesso: {}", produto.getCodigoBarras());
 
         } catch (Exception e) {
@@ -65,7 +90,7 @@ public class ProdutoMongoRepositoryImpl implements ProdutoRepository {
         try {
             logger.debug("Buscando produto por código de barras: {}", codigoBarras);
             
-            Document doc = collection.find(Filters.eq("codigoBarras", codigoBarras)).first();
+            Document doc = PrazoMongo.aplicar(collection.find(Filters.eq("codigoBarras", codigoBarras))).first();
             
             if (doc != null) {
                 ProdutoDocument produtoDoc = ProdutoDocument.fromDocument(doc);
@@ -88,7 +113,7 @@ public class ProdutoMongoRepositoryImpl implements ProdutoRepository {
         try {
             logger.debug("Verificando existência do produto: {}", codigoBarras);
             
-            long count = collection.countDocuments(Filters.eq("codigoBarras", codigoBarras));
+            long count = collection.countDocuments(Filters.eq("codigoBarras", codigoBarras), PrazoMongo.contagem());
             boolean existe = count > 0;
             
             logger.debug("Produto {} existe: {}", codigoBarras, existe);
@@ -120,13 +145,7 @@ public class ProdutoMongoRepositoryImpl implements ProdutoRepository {
         try {
             logger.debug("Atualizando produto: {}", produto.getCodigoBarras());
             
-            ProdutoDocument document = mapper.toDocument(produto);
-            Document bsonDoc = document.toDocument();
-            
-            collection.replaceOne(
-                Filters.eq("codigoBarras", produto.getCodigoBarras()),
-                bsonDoc
-            );
+            gravarIncrementandoVersao(produto, false);
             
             logger.info("Produto atualizado com sucesso: {}", produto.getCodigoBarras());
             
@@ -136,12 +155,200 @@ public class ProdutoMongoRepositoryImpl implements ProdutoRepository {
         }
     }
 
+    @Override
+    public boolean atualizarSeVersao(Produto produto, long versaoEsperada) {
+        try {
+            logger.debug("Atualizando produto {} condicionado à versão {}", produto.getCodigoBarras(), versaoEsperada);
+
+            ProdutoDocument document = mapper.toDocument(produto);
+            document.setVersao(versaoEsperada + 1);
+
+            // O filtro inclui a versão: se outra escrita chegou antes, nada casa e nada é gravado
+            UpdateResult resultado = collection.replaceOne(
+                Filters.and(Filters.eq("codigoBarras", produto.getCodigoBarras()), versaoIgual(versaoEsperada)),
+                document.toDocument().append("origem", Configuracao.identificadorNo())
+            );
+            if (resultado.getMatchedCount() == 0) {
+                logger.debug("Conflito de versão ao atualizar produto {}", produto.getCodigoBarras());
+                return false;
+            }
+            produto.setVersao(versaoEsperada + 1);
+            logger.info("Produto atualizado com sucesso: {} (versão {})", produto.getCodigoBarras(), produto.getVersao());
+            return true;
+
+        } catch (Exception e) {
+            logger.error("Erro ao atualizar produto {}: {}", produto.getCodigoBarras(), e.getMessage(), e);
+            throw new RuntimeException("Erro ao atualizar produto: " + e.getMessage(), e);
+        }
+    }
+
+    // $set dos dados cadastrais e $inc da versão: a quantidade gravada fica como está
+    @Override
+    public Optional<Produto> atualizarDados(Produto produto) {
+        try {
+            Document campos = mapper.toDocument(produto).toDocument();
+            campos.remove("versao");
+            campos.remove("quantidade");
+            campos.append("origem", Configuracao.identificadorNo());
+            Document gravado = collection.findOneAndUpdate(
+                Filters.eq("codigoBarras", produto.getCodigoBarras()),
+                new Document("$set", campos).append("$inc", new Document("versao", 1L)),
+                PrazoMongo.aplicar(new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)));
+            if (gravado == null) {
+                return Optional.empty();
+            }
+            logger.info("Dados do produto atualizados com sucesso: {}", produto.getCodigoBarras());
+            return Optional.of(mapper.toDomain(ProdutoDocument.fromDocument(gravado)));
+        } catch (Exception e) {
+            logger.error("Erro ao atualizar produto {}: {}", produto.getCodigoBarras(), e.getMessage(), e);
+            throw new RuntimeException("Erro ao atualizar produto: " + e.getMessage(), e);
+        }
+    }
+
+    // Um único findOneAndUpdate: nas saídas, o filtro exige estoque suficiente, então a checagem
+    // e a gravação não podem ser intercaladas por outra escrita
+    @Override
+    public Optional<Produto> ajustarQuantidade(String codigoBarras, int delta) {
+        try {
+            Bson filtro = delta < 0
+                    ? Filters.and(Filters.eq("codigoBarras", codigoBarras), Filters.gte("quantidade", -delta))
+                    : Filters.eq("codigoBarras", codigoBarras);
+            Document alteracao = new Document("$inc", new Document("quantidade", delta).append("versao", 1L))
+                    .append("$set", new Document("origem", Configuracao.identificadorNo()));
+            Document gravado = collection.findOneAndUpdate(filtro, alteracao,
+                    PrazoMongo.aplicar(new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)));
+            if (gravado == null) {
+                logger.debug("Ajuste de {} no estoque do produto {} não aplicado", delta, codigoBarras);
+                return Optional.empty();
+            }
+            return Optional.of(mapper.toDomain(ProdutoDocument.fromDocument(gravado)));
+        } catch (Exception e) {
+            logger.error("Erro ao ajustar estoque do produto {}: {}", codigoBarras, e.getMessage(), e);
+            throw new RuntimeException("Erro ao ajustar estoque: " + e.getMessage(), e);
+        }
+    }
+
+    // Grava os campos do produto e incrementa a versão no próprio servidor, numa única operação,
+    // devolvendo a versão resultante no objeto. Sem upsert, um produto inexistente não é afetado.
+    private void gravarIncrementandoVersao(Produto produto, boolean upsert) {
+        Document campos = mapper.toDocument(produto).toDocument();
+        campos.remove("versao");
+        campos.append("origem", Configuracao.identificadorNo()); // lido pelo change stream dos outros nós
+        Document alteracao = new Document("$set", campos).append("$inc", new Document("versao", 1L));
+
+        Document gravado = collection.findOneAndUpdate(
+            Filters.eq("codigoBarras", produto.getCodigoBarras()),
+            alteracao,
+            PrazoMongo.aplicar(new FindOneAndUpdateOptions()
+                .upsert(upsert)
+                .returnDocument(ReturnDocument.AFTER)
+                .projection(Projections.include("versao")))
+        );
+        if (gravado != null) {
+            produto.setVersao(gravado.get("versao", Number.class).longValue());
+        }
+    }
+
+    @Override
+    public List<ResultadoGravacao> gravarLote(List<Produto> produtos, boolean substituirExistentes) {
+        List<ResultadoGravacao> resultados = new ArrayList<>(produtos.size());
+        if (produtos.isEmpty()) {
+            return resultados;
+        }
+        try {
+            logger.debug("Gravando lote de {} produtos (substituir existentes: {})", produtos.size(), substituirExistentes);
+
+            // Um upsert por produto: substituindo, grava os campos e incrementa a versão como salvar();
+            // só inserindo, $setOnInsert não altera quem já existe e a existência sai do próprio resultado
+            List<WriteModel<Document>> operacoes = new ArrayList<>(produtos.size());
+            for (Produto produto : produtos) {
+                Document campos = mapper.toDocument(produto).toDocument();
+                campos.remove("versao");
+                campos.append("origem", Configuracao.identificadorNo());
+                Document alteracao = substituirExistentes
+                        ? new Document("$set", campos).append("$inc", new Document("versao", 1L))
+                        : new Document("$setOnInsert", campos.append("versao", 1L));
+                operacoes.add(new UpdateOneModel<>(Filters.eq("codigoBarras", produto.getCodigoBarras()),
+                        alteracao, new UpdateOptions().upsert(true)));
+            }
+
+            // ordered(false): uma linha com erro não impede as demais do lote
+            BulkWriteResult resultado;
+            Map<Integer, String> falhas = new HashMap<>();
+            try {
+                resultado = collection.bulkWrite(operacoes, new BulkWriteOptions().ordered(false));
+            } catch (MongoBulkWriteException e) {
+                resultado = e.getWriteResult();
+                for (BulkWriteError erro : e.getWriteErrors()) {
+                    falhas.put(erro.getIndex(), erro.getMessage());
+                }
+            }
+
+            boolean[] inseridos = new boolean[produtos.size()];
+            for (BulkWriteUpsert upsert : resultado.getUpserts()) {
+                inseridos[upsert.getIndex()] = true;
+            }
+            List<String> atualizados = new ArrayList<>();
+            for (int i = 0; i < produtos.size(); i++) {
+                Produto produto = produtos.get(i);
+                if (falhas.containsKey(i)) {
+                    resultados.add(ResultadoGravacao.falha(falhas.get(i)));
+                } else if (inseridos[i]) {
+                    produto.setVersao(1L);
+                    resultados.add(ResultadoGravacao.de(ResultadoGravacao.Situacao.INSERIDO));
+                } else if (substituirExistentes) {
+                    atualizados.add(produto.getCodigoBarras());
+                    resultados.add(ResultadoGravacao.de(ResultadoGravacao.Situacao.ATUALIZADO));
+                } else {
+                    resultados.add(ResultadoGravacao.de(ResultadoGravacao.Situacao.IGNORADO));
+                }
+            }
+            atualizarVersoes(produtos, atualizados);
+
+            logger.info("Lote de produtos gravado: {} inseridos, {} atualizados, {} falhas.",
+                    resultado.getUpserts().size(), atualizados.size(), falhas.size());
+            return resultados;
+
+        } catch (Exception e) {
+            logger.error("Erro ao gravar lote de produtos: {}", e.getMessage(), e);
+            throw new RuntimeException("Erro ao gravar lote de produtos: " + e.getMessage(), e);
+        }
+    }
+
+    // O bulkWrite não devolve os documentos; as versões dos atualizados vêm numa única consulta
+    private void atualizarVersoes(List<Produto> produtos, List<String> codigos) {
+        if (codigos.isEmpty()) {
+            return;
+        }
+        Map<String, Long> versoes = new HashMap<>();
+        for (Document doc : collection.find(Filters.in("codigoBarras", codigos))
+                .projection(Projections.include("codigoBarras", "versao"))) {
+            Number versao = doc.get("versao", Number.class);
+            versoes.put(doc.getString("codigoBarras"), versao != null ? versao.longValue() : 0L);
+        }
+        for (Produto produto : produtos) {
+            Long versao = versoes.get(produto.getCodigoBarras());
+            if (versao != null) {
+                produto.setVersao(versao);
+            }
+        }
+    }
+
+    // Documentos gravados antes do controle de versão não têm o campo e equivalem à versão 0
+    private static Bson versaoIgual(long versao) {
+        if (versao == 0) {
+            return Filters.or(Filters.eq("versao", 0L), Filters.exists("versao", false));
+        }
+        return Filters.eq("versao", versao);
+    }
+
     @Override
     public List<Produto> buscarTodos() {
         try {
             logger.debug("Buscando todos os produtos...");
             List<Produto> produtos = new ArrayList<>();
-            for (Document doc : collection.find()) {
+            for (Document doc : PrazoMongo.aplicar(collection.find())) {
+                Prazo.verificar();
                 ProdutoDocument produtoDoc = ProdutoDocument.fromDocument(doc);
                 produtos.add(mapper.toDomain(produtoDoc));
             }
@@ -152,4 +359,146 @@ public class ProdutoMongoRepositoryImpl implements ProdutoRepository {
             throw new RuntimeException("Erro ao buscar todos os produtos: " + e.getMessage(), e);
         }
     }
+
+    // Cursor com lotes grandes; cada produto é entregue assim que convertido
+    @Override
+    public void percorrerTodos(Consumer<Produto> consumidor) {
+        try (MongoCursor<Document> cursor = PrazoMongo.aplicar(collection.find()).batchSize(loteCursor).iterator()) {
+            while (cursor.hasNext()) {
+                Prazo.verificar();
+                consumidor.accept(mapper.toDomain(ProdutoDocument.fromDocument(cursor.next())));
+            }
+        }
+    }
+
+    @Override
+    public List<Produto> buscarPorCodigosBarras(List<String> codigosBarras) {
+        try {
+            logger.debug("Buscando {} produtos por código de barras...", codigosBarras.size());
+            List<Produto> produtos = new ArrayList<>(codigosBarras.size());
+            if (codigosBarras.isEmpty()) {
+                return produtos;
+            }
+            for (Document doc : PrazoMongo.aplicar(collection.find(Filters.in("codigoBarras", codigosBarras)))) {
+                ProdutoDocument produtoDoc = ProdutoDocument.fromDocument(doc);
+                produtos.add(mapper.toDomain(produtoDoc));
+            }
+            return produtos;
+        } catch (Exception e) {
+            logger.error("Erro ao buscar produtos por códigos de barras: {}", e.getMessage(), e);
+            throw new RuntimeException("Erro ao buscar produtos por códigos de barras: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Pagina<Produto> buscarPagina(FiltroProdutos filtro) {
+        try {
+            String campo = filtro.getOrdenarPor();
+            Bson criterios = criterios(filtro);
+            Bson consulta = filtro.usaCursor()
+                    ? Filters.and(criterios, aposCursor(filtro))
+                    : criterios;
+            Bson ordem = filtro.isDecrescente()
+                    ? Sorts.descending(campo, "codigoBarras")
+                    : Sorts.ascending(campo, "codigoBarras");
+
+            int tamanho = filtro.getTamanhoPagina();
+            int pular = filtro.usaCursor() ? 0 : (filtro.getPagina() - 1) * tamanho;
+
+            // Um item a mais indica se existe próxima página sem precisar contar
+            FindIterable<Document> busca = PrazoMongo.aplicar(collection.find(consulta)).sort(ordem).skip(pular).limit(tamanho + 1);
+            if (filtro.getCampos() != null && !filtro.getCampos().isEmpty()) {
+                Set<String> projetados = new LinkedHashSet<>(filtro.getCampos());
+                projetados.add("codigoBarras");
+                projetados.add(campo); // necessário para montar o cursor
+                busca.projection(Projections.fields(Projections.include(new ArrayList<>(projetados)), Projections.excludeId()));
+            }
+
+            List<Produto> itens = new ArrayList<>(tamanho + 1);
+            for (Document doc : busca) {
+                itens.add(mapper.toDomain(ProdutoDocument.fromDocument(doc)));
+            }
+            boolean temProxima = itens.size() > tamanho;
+            if (temProxima) {
+                itens.remove(itens.size() - 1);
+            }
+            String proximoCursor = temProxima ? PaginacaoProdutos.codificarCursor(itens.get(itens.size() - 1), campo) : null;
+
+            Pagina<Produto> pagina = new Pagina<>(itens, null, Pagina.EstrategiaTotal.NENHUM, temProxima, proximoCursor);
+            contarTotal(filtro, criterios, pular, pagina);
+            logger.debug("Página de produtos carregada: {} itens, total {} ({}).", itens.size(), pagina.getTotal(), pagina.getEstrategiaTotal());
+            return pagina;
+        } catch (Exception e) {
+            logger.error("Erro ao buscar página de produtos: {}", e.getMessage(), e);
+            throw new RuntimeException("Erro ao buscar página de produtos: " + e.getMessage(), e);
+        }
+    }
+
+    // Evita uma segunda varredura sempre que possível: na última página o total sai do próprio
+    // resultado, sem filtros os metadados da coleção bastam, e páginas por cursor não recontam
+    private void contarTotal(FiltroProdutos filtro, Bson criterios, int pular, Pagina<Produto> pagina) {
+        if (filtro.usaCursor()) {
+            return;
+        }
+        if (!pagina.isTemProxima() && (!pagina.getItens().isEmpty() || pular == 0)) {
+            pagina.setTotal((long) pular + pagina.getItens().size());
+            pagina.setEstrategiaTotal(Pagina.EstrategiaTotal.EXATO);
+        } else if (!filtro.temFiltro()) {
+            pagina.setTotal(collection.estimatedDocumentCount(PrazoMongo.contagemEstimada()));
+            pagina.setEstrategiaTotal(Pagina.EstrategiaTotal.ESTIMADO);
+        } else {
+            pagina.setTotal(collection.countDocuments(criterios, PrazoMongo.contagem()));
+            pagina.setEstrategiaTotal(Pagina.EstrategiaTotal.EXATO);
+        }
+    }
+
+    private Bson criterios(FiltroProdutos filtro) {
+        List<Bson> condicoes = new ArrayList<>();
+        if (filtro.getCategoria() != null) {
+            condicoes.add(Filters.eq("categoria", filtro.getCategoria()));
+        }
+        if (filtro.getFornecedor() != null) {
+            condicoes.add(Filters.eq("fornecedor", filtro.getFornecedor()));
+        }
+        if (filtro.getEstoqueMax() != null) {
+            condicoes.add(Filters.lte("quantidade", filtro.getEstoqueMax()));
+        }
+        return condicoes.isEmpty() ? new Document() : Filters.and(condicoes);
+    }
+
+    // Keyset: itens estritamente depois de (valor, códigoBarras) na ordem pedida.
+    // Nulos vêm primeiro na ordem crescente e por último na decrescente, como no sort do MongoDB.
+    private Bson aposCursor(FiltroProdutos filtro) {
+        Document chave = PaginacaoProdutos.decodificarCursor(filtro.getCursor());
+        String campo = filtro.getOrdenarPor();
+        Object valor = chave.get("v");
+        String codigo = chave.getString("c");
+
+        if (!filtro.isDecrescente()) {
+            if (valor == null) {
+                return Filters.or(Filters.ne(campo, null), Filters.and(Filters.eq(campo, null), Filters.gt("codigoBarras", codigo)));
+            }
+            return Filters.or(Filters.gt(campo, valor), Filters.and(Filters.eq(campo, valor), Filters.gt("codigoBarras", codigo)));
+        }
+        if (valor == null) {
+            return Filters.and(Filters.eq(campo, null), Filters.lt("codigoBarras", codigo));
+        }
+        return Filters.or(Filters.lt(campo, valor), Filters.eq(campo, null),
+                Filters.and(Filters.eq(campo, valor), Filters.lt("codigoBarras", codigo)));
+    }
+
+    // Índices da listagem: igualdade (categoria/fornecedor) seguida da ordenação padrão,
+    // e o campo de estoque para o filtro de estoque baixo. createIndexes é idempotente.
+    private void criarIndices() {
+        try {
+            collection.createIndexes(List.of(
+                new IndexModel(Indexes.ascending("nome", "codigoBarras")),
+                new IndexModel(Indexes.ascending("categoria", "nome", "codigoBarras")),
+                new IndexModel(Indexes.ascending("fornecedor", "nome", "codigoBarras")),
+                new IndexModel(Indexes.ascending("quantidade", "codigoBarras"))
+            ));
+        } catch (Exception e) {
+            logger.warn("Não foi possível criar os índices da listagem de produtos: {}", e.getMessage());
+        }
+    }
 }
\ No newline at end of file
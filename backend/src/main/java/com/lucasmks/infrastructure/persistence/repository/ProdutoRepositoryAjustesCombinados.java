@@ -0,0 +1,234 @@
+package com.lucasmks.infrastructure.persistence.repository;
+
+import com.lucasmks.domain.model.FiltroProdutos;
+import com.lucasmks.domain.model.Pagina;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.ResultadoGravacao;
+import com.lucasmks.domain.repository.ProdutoRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Decorador que combina ajustes de estoque simultâneos no mesmo produto (group commit por
+// código de barras). Cada ajuste entra na fila do produto; quem obtém o lock do produto soma
+// todos os ajustes pendentes, faz um único ajustarQuantidade no repositório real, com a
+// checagem de saldo aplicada ao total, e acorda cada dono com o seu resultado. Enquanto uma
+// gravação está em andamento, os novos ajustes se acumulam para a próxima, feita por um deles;
+// janelaMs (opcional) espera um pouco mais antes de somar.
+// Se o total não puder ser aplicado (saldo insuficiente ou produto removido), os ajustes do
+// lote são repetidos um a um, na ordem de chegada, e cada chamador recebe o próprio resultado.
+// As demais operações vão direto ao repositório real.
+public class ProdutoRepositoryAjustesCombinados implements ProdutoRepository {
+
+    private final ProdutoRepository delegate;
+    private final long janelaNanos;
+    private final int maxAjustes;
+    // Uma fila por produto com ajustes em andamento; sai do mapa quando esvazia
+    private final ConcurrentHashMap<String, FilaAjustes> filas = new ConcurrentHashMap<>();
+
+    private final AtomicLong ajustes = new AtomicLong();
+    private final AtomicLong escritas = new AtomicLong();
+    private final AtomicInteger maiorCombinacao = new AtomicInteger();
+
+    public ProdutoRepositoryAjustesCombinados(ProdutoRepository delegate, long janelaMs, int maxAjustes) {
+        this.delegate = delegate;
+        this.janelaNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, janelaMs));
+        this.maxAjustes = Math.max(1, maxAjustes);
+    }
+
+    @Override
+    public Optional<Produto> ajustarQuantidade(String codigoBarras, int delta) {
+        ajustes.incrementAndGet();
+        FilaAjustes fila = filas.computeIfAbsent(codigoBarras, c -> new FilaAjustes());
+        Ajuste ajuste = new Ajuste(delta, Thread.currentThread());
+        fila.pendentes.add(ajuste);
+        while (!ajuste.concluido) {
+            if (fila.lock.tryLock()) {
+                try {
+                    if (!ajuste.concluido) {
+                        combinar(codigoBarras, fila);
+                    }
+                    // Sem pendentes, a fila sai do mapa: códigos removidos ou digitados errado não
+                    // ficam para sempre. Quem já tinha a fila e chega agora é acordado abaixo e a
+                    // usa sozinho; os seguintes criam outra
+                    if (fila.pendentes.isEmpty()) {
+                        filas.remove(codigoBarras, fila);
+                    }
+                } finally {
+                    fila.lock.unlock();
+                }
+                // Quem chegou durante a gravação assume a próxima
+                Ajuste proximo = fila.pendentes.peek();
+                if (proximo != null) {
+                    LockSupport.unpark(proximo.thread);
+                }
+            } else {
+                // Acordado por quem concluir este ajuste ou por quem liberar o lock
+                LockSupport.park(this);
+            }
+        }
+        if (ajuste.erro != null) {
+            throw ajuste.erro;
+        }
+        return Optional.ofNullable(ajuste.resultado);
+    }
+
+    // Chamado com o lock do produto
+    private void combinar(String codigoBarras, FilaAjustes fila) {
+        if (janelaNanos > 0) {
+            LockSupport.parkNanos(janelaNanos);
+        }
+        List<Ajuste> lote = new ArrayList<>();
+        int total = 0;
+        Ajuste proximo;
+        while (lote.size() < maxAjustes && (proximo = fila.pendentes.poll()) != null) {
+            lote.add(proximo);
+            total += proximo.delta;
+        }
+        if (lote.isEmpty()) {
+            return;
+        }
+        maiorCombinacao.accumulateAndGet(lote.size(), Math::max);
+        try {
+            escritas.incrementAndGet();
+            Optional<Produto> combinado = delegate.ajustarQuantidade(codigoBarras, total);
+            if (combinado.isPresent() || lote.size() == 1) {
+                for (Ajuste ajuste : lote) {
+                    ajuste.concluir(combinado.map(ProdutoRepositoryAjustesCombinados::copiar).orElse(null), null);
+                }
+                return;
+            }
+        } catch (RuntimeException e) {
+            lote.forEach(ajuste -> ajuste.concluir(null, e));
+            return;
+        }
+        for (Ajuste ajuste : lote) {
+            try {
+                escritas.incrementAndGet();
+                ajuste.concluir(delegate.ajustarQuantidade(codigoBarras, ajuste.delta).orElse(null), null);
+            } catch (RuntimeException e) {
+                ajuste.concluir(null, e);
+            }
+        }
+    }
+
+    // Cada chamador recebe o próprio objeto: os ouvintes de eventos podem guardá-lo
+    private static Produto copiar(Produto produto) {
+        return new Produto(produto.getCodigoBarras(), produto.getNome(), produto.getCategoria(), produto.getQuantidade(),
+                produto.getPrecoCusto(), produto.getPrecoVenda(), produto.getFornecedor(), produto.getVersao());
+    }
+
+    // Ajustes recebidos e idas ao repositório real; a razão entre os dois mede a combinação
+    public long getAjustes() {
+        return ajustes.get();
+    }
+
+    public long getEscritas() {
+        return escritas.get();
+    }
+
+    public int getMaiorCombinacao() {
+        return maiorCombinacao.get();
+    }
+
+    // Filas presentes no mapa (produtos com ajustes em andamento)
+    public int getFilasAtivas() {
+        return filas.size();
+    }
+
+    private static final class FilaAjustes {
+        final Queue<Ajuste> pendentes = new ConcurrentLinkedQueue<>();
+        final ReentrantLock lock = new ReentrantLock();
+    }
+
+    // resultado e erro são publicados pela escrita volátil de concluido
+    private static final class Ajuste {
+        final int delta;
+        final Thread thread;
+        Produto resultado;
+        RuntimeException erro;
+        volatile boolean concluido;
+
+        Ajuste(int delta, Thread thread) {
+            this.delta = delta;
+            this.thread = thread;
+        }
+
+        void concluir(Produto resultado, RuntimeException erro) {
+            this.resultado = resultado;
+            this.erro = erro;
+            this.concluido = true;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void salvar(Produto produto) {
+        delegate.salvar(produto);
+    }
+
+    @Override
+    public Optional<Produto> buscarPorCodigoBarras(String codigoBarras) {
+        return delegate.buscarPorCodigoBarras(codigoBarras);
+    }
+
+    @Override
+    public boolean existePorCodigoBarras(String codigoBarras) {
+        return delegate.existePorCodigoBarras(codigoBarras);
+    }
+
+    @Override
+    public void remover(String codigoBarras) {
+        delegate.remover(codigoBarras);
+    }
+
+    @Override
+    public void atualizar(Produto produto) {
+        delegate.atualizar(produto);
+    }
+
+    @Override
+    public boolean atualizarSeVersao(Produto produto, long versaoEsperada) {
+        return delegate.atualizarSeVersao(produto, versaoEsperada);
+    }
+
+    @Override
+    public Optional<Produto> atualizarDados(Produto produto) {
+        return delegate.atualizarDados(produto);
+    }
+
+    @Override
+    public List<Produto> buscarTodos() {
+        return delegate.buscarTodos();
+    }
+
+    @Override
+    public void percorrerTodos(Consumer<Produto> consumidor) {
+        delegate.percorrerTodos(consumidor);
+    }
+
+    @Override
+    public List<Produto> buscarPorCodigosBarras(List<String> codigosBarras) {
+        return delegate.buscarPorCodigosBarras(codigosBarras);
+    }
+
+    @Override
+    public Pagina<Produto> buscarPagina(FiltroProdutos filtro) {
+        return delegate.buscarPagina(filtro);
+    }
+
+    @Override
+    public List<ResultadoGravacao> gravarLote(List<Produto> produtos, boolean substituirExistentes) {
+        return delegate.gravarLote(produtos, substituirExistentes);
+    }
+}
@@ -0,0 +1,200 @@
+package com.lucasmks.infrastructure.persistence.repository;
+
+import com.lucasmks.domain.model.FiltroProdutos;
+import com.lucasmks.domain.model.Pagina;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.ResultadoGravacao;
+import com.lucasmks.domain.repository.ProdutoRepository;
+import com.lucasmks.infrastructure.persistence.PaginacaoProdutos;
+import com.lucasmks.infrastructure.resilience.Degradacao;
+import com.lucasmks.infrastructure.resilience.Disjuntor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Decorador que passa cada chamada ao repositório real pelo disjuntor e guarda a última versão
+// conhecida de cada produto lido ou gravado por este nó. Quando o banco está indisponível
+// (disjuntor aberto ou falha de infraestrutura), as consultas usadas pela busca e pela listagem
+// de produtos (buscarPorCodigoBarras, existePorCodigoBarras, buscarTodos e buscarPagina) são
+// respondidas com essa cópia e a requisição é marcada como desatualizada (Degradacao); as
+// gravações e as demais leituras falham na hora com BancoIndisponivelException.
+// Sem a cópia completa (carregada por buscarTodos ou percorrerTodos, como na carga do índice de
+// busca na inicialização), só os produtos já vistos podem ser respondidos.
+public class ProdutoRepositoryDisjuntor implements ProdutoRepository {
+
+    private final ProdutoRepository delegate;
+    private final Disjuntor disjuntor;
+    // Cópias: os chamadores alteram os objetos recebidos
+    private final ConcurrentHashMap<String, Produto> copia = new ConcurrentHashMap<>();
+    private volatile boolean copiaCompleta;
+
+    public ProdutoRepositoryDisjuntor(ProdutoRepository delegate, Disjuntor disjuntor) {
+        this.delegate = delegate;
+        this.disjuntor = disjuntor;
+    }
+
+    @Override
+    public Optional<Produto> buscarPorCodigoBarras(String codigoBarras) {
+        try {
+            Optional<Produto> produto = disjuntor.executar(() -> delegate.buscarPorCodigoBarras(codigoBarras));
+            produto.ifPresentOrElse(this::guardar, () -> copia.remove(codigoBarras));
+            return produto;
+        } catch (RuntimeException e) {
+            Produto guardado = copia.get(codigoBarras);
+            exigirCopia(e, guardado != null || copiaCompleta);
+            return Optional.ofNullable(guardado).map(ProdutoRepositoryDisjuntor::copiar);
+        }
+    }
+
+    @Override
+    public boolean existePorCodigoBarras(String codigoBarras) {
+        try {
+            return disjuntor.executar(() -> delegate.existePorCodigoBarras(codigoBarras));
+        } catch (RuntimeException e) {
+            boolean guardado = copia.containsKey(codigoBarras);
+            exigirCopia(e, guardado || copiaCompleta);
+            return guardado;
+        }
+    }
+
+    @Override
+    public List<Produto> buscarTodos() {
+        try {
+            return recarregarCopia();
+        } catch (RuntimeException e) {
+            exigirCopia(e, copiaCompleta);
+            List<Produto> produtos = new ArrayList<>(copia.size());
+            copia.values().forEach(produto -> produtos.add(copiar(produto)));
+            return produtos;
+        }
+    }
+
+    // Relê o catálogo do banco e substitui a cópia (produtos removidos saem dela); sem o banco, lança
+    // a exceção em vez de responder com a cópia. Usado quando alterações de outros nós se perderam
+    public List<Produto> recarregarCopia() {
+        List<Produto> produtos = disjuntor.executarSemLimiteDeTempo(delegate::buscarTodos);
+        Set<String> codigos = new HashSet<>(produtos.size() * 2);
+        for (Produto produto : produtos) {
+            codigos.add(produto.getCodigoBarras());
+            guardar(produto);
+        }
+        copia.keySet().retainAll(codigos);
+        copiaCompleta = true;
+        return produtos;
+    }
+
+    @Override
+    public Pagina<Produto> buscarPagina(FiltroProdutos filtro) {
+        try {
+            Pagina<Produto> pagina = disjuntor.executar(() -> delegate.buscarPagina(filtro));
+            pagina.getItens().forEach(this::guardar);
+            return pagina;
+        } catch (RuntimeException e) {
+            exigirCopia(e, copiaCompleta);
+            Pagina<Produto> pagina = PaginacaoProdutos.paginarEmMemoria(copia.values(), filtro);
+            pagina.getItens().replaceAll(ProdutoRepositoryDisjuntor::copiar);
+            return pagina;
+        }
+    }
+
+    // Responde com a cópia só quando o banco está indisponível e a cópia basta; senão relança
+    private void exigirCopia(RuntimeException erro, boolean copiaSuficiente) {
+        if (!copiaSuficiente || !disjuntor.indisponibilidade(erro)) {
+            throw erro;
+        }
+        Degradacao.marcarCopiaDesatualizada();
+    }
+
+    // Mantém a versão mais nova: uma leitura antiga não desfaz uma gravação concluída depois
+    private void guardar(Produto produto) {
+        copia.merge(produto.getCodigoBarras(), copiar(produto),
+                (atual, novo) -> novo.getVersao() >= atual.getVersao() ? novo : atual);
+    }
+
+    private static Produto copiar(Produto produto) {
+        return new Produto(produto.getCodigoBarras(), produto.getNome(), produto.getCategoria(), produto.getQuantidade(),
+                produto.getPrecoCusto(), produto.getPrecoVenda(), produto.getFornecedor(), produto.getVersao());
+    }
+
+    public int getProdutosNaCopia() {
+        return copia.size();
+    }
+
+    public boolean isCopiaCompleta() {
+        return copiaCompleta;
+    }
+
+    @Override
+    public void salvar(Produto produto) {
+        disjuntor.executar(() -> delegate.salvar(produto));
+        guardar(produto);
+    }
+
+    @Override
+    public void remover(String codigoBarras) {
+        disjuntor.executar(() -> delegate.remover(codigoBarras));
+        copia.remove(codigoBarras);
+    }
+
+    @Override
+    public void atualizar(Produto produto) {
+        disjuntor.executar(() -> delegate.atualizar(produto));
+        guardar(produto);
+    }
+
+    @Override
+    public boolean atualizarSeVersao(Produto produto, long versaoEsperada) {
+        boolean atualizado = disjuntor.executar(() -> delegate.atualizarSeVersao(produto, versaoEsperada));
+        if (atualizado) {
+            guardar(produto);
+        }
+        return atualizado;
+    }
+
+    @Override
+    public Optional<Produto> atualizarDados(Produto produto) {
+        Optional<Produto> gravado = disjuntor.executar(() -> delegate.atualizarDados(produto));
+        gravado.ifPresent(this::guardar);
+        return gravado;
+    }
+
+    @Override
+    public Optional<Produto> ajustarQuantidade(String codigoBarras, int delta) {
+        Optional<Produto> produto = disjuntor.executar(() -> delegate.ajustarQuantidade(codigoBarras, delta));
+        produto.ifPresent(this::guardar);
+        return produto;
+    }
+
+    @Override
+    public void percorrerTodos(Consumer<Produto> consumidor) {
+        disjuntor.executarSemLimiteDeTempo(() -> delegate.percorrerTodos(produto -> {
+            guardar(produto);
+            consumidor.accept(produto);
+        }));
+        copiaCompleta = true;
+    }
+
+    @Override
+    public List<Produto> buscarPorCodigosBarras(List<String> codigosBarras) {
+        List<Produto> produtos = disjuntor.executar(() -> delegate.buscarPorCodigosBarras(codigosBarras));
+        produtos.forEach(this::guardar);
+        return produtos;
+    }
+
+    @Override
+    public List<ResultadoGravacao> gravarLote(List<Produto> produtos, boolean substituirExistentes) {
+        List<ResultadoGravacao> resultados = disjuntor.executar(() -> delegate.gravarLote(produtos, substituirExistentes));
+        for (int i = 0; i < resultados.size() && i < produtos.size(); i++) {
+            ResultadoGravacao.Situacao situacao = resultados.get(i).getSituacao();
+            if (situacao == ResultadoGravacao.Situacao.INSERIDO || situacao == ResultadoGravacao.Situacao.ATUALIZADO) {
+                guardar(produtos.get(i));
+            }
+        }
+        return resultados;
+    }
+}
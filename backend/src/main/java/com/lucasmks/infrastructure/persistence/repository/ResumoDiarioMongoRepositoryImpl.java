@@ -0,0 +1,162 @@
+package com.lucasmks.infrastructure.persistence.repository;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.ResumoDiario;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.repository.ResumoDiarioRepository;
+import com.lucasmks.infrastructure.database.MongoConnection;
+import com.lucasmks.infrastructure.database.PrazoMongo;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Coleção "movimentacoes_diarias": um documento por (codigoBarras, dia) com
+// totais.<TIPO>.movimentacoes e totais.<TIPO>.quantidade, no mesmo formato dos totais dos buckets.
+// Cada movimentação gravada faz um upsert com $inc; o índice único em (codigoBarras, dia)
+// garante um só documento por produto e dia mesmo com upserts concorrentes.
+public class ResumoDiarioMongoRepositoryImpl implements ResumoDiarioRepository {
+
+    public static final String COLECAO = "movimentacoes_diarias";
+
+    private final MongoCollection<Document> collection;
+
+    public ResumoDiarioMongoRepositoryImpl() {
+        this.collection = MongoConnection.getDatabase().getCollection(COLECAO);
+        criarIndices(collection);
+    }
+
+    public static void criarIndices(MongoCollection<Document> collection) {
+        collection.createIndexes(List.of(
+                new IndexModel(Indexes.ascending("codigoBarras", "dia"), new IndexOptions().unique(true)),
+                new IndexModel(Indexes.ascending("dia"))));
+    }
+
+    @Override
+    public void registrar(Movimentacao movimentacao) {
+        String tipo = movimentacao.getTipo().name();
+        collection.updateOne(
+                Filters.and(Filters.eq("codigoBarras", movimentacao.getCodigoBarras()),
+                        Filters.eq("dia", LayoutMovimentacoes.dia(movimentacao.getDataHora()))),
+                Updates.combine(
+                        Updates.inc("totais." + tipo + ".movimentacoes", 1),
+                        Updates.inc("totais." + tipo + ".quantidade", (long) movimentacao.getQuantidade())),
+                new UpdateOptions().upsert(true));
+    }
+
+    // As movimentações do mesmo produto e dia viram um único upsert com os totais já somados
+    @Override
+    public void registrarTodas(List<Movimentacao> movimentacoes) {
+        Map<String, ResumoDiario> resumos = new LinkedHashMap<>();
+        for (Movimentacao movimentacao : movimentacoes) {
+            LocalDate dia = LayoutMovimentacoes.dia(movimentacao.getDataHora()).toLocalDate();
+            resumos.computeIfAbsent(movimentacao.getCodigoBarras() + '\u0000' + dia,
+                            k -> new ResumoDiario(movimentacao.getCodigoBarras(), dia))
+                    .somar(movimentacao.getTipo(), 1, movimentacao.getQuantidade());
+        }
+        List<UpdateOneModel<Document>> escritas = new ArrayList<>(resumos.size());
+        for (ResumoDiario resumo : resumos.values()) {
+            List<Bson> alteracoes = new ArrayList<>(4);
+            if (resumo.getQuantidadeEntradas() > 0) {
+                alteracoes.add(Updates.inc("totais.ENTRADA.movimentacoes", resumo.getQuantidadeEntradas()));
+                alteracoes.add(Updates.inc("totais.ENTRADA.quantidade", resumo.getTotalEntradas()));
+            }
+            if (resumo.getQuantidadeSaidas() > 0) {
+                alteracoes.add(Updates.inc("totais.SAIDA.movimentacoes", resumo.getQuantidadeSaidas()));
+                alteracoes.add(Updates.inc("totais.SAIDA.quantidade", resumo.getTotalSaidas()));
+            }
+            if (alteracoes.isEmpty()) {
+                continue;
+            }
+            escritas.add(new UpdateOneModel<>(
+                    Filters.and(Filters.eq("codigoBarras", resumo.getCodigoBarras()),
+                            Filters.eq("dia", resumo.getDia().atStartOfDay())),
+                    Updates.combine(alteracoes),
+                    new UpdateOptions().upsert(true)));
+        }
+        if (!escritas.isEmpty()) {
+            collection.bulkWrite(escritas, new BulkWriteOptions().ordered(false));
+        }
+    }
+
+    @Override
+    public List<ResumoDiario> buscarResumos(LocalDate dataInicio, LocalDate dataFim, String codigoBarras) {
+        List<Bson> condicoes = new ArrayList<>(3);
+        condicoes.add(Filters.gte("dia", dataInicio.atStartOfDay()));
+        condicoes.add(Filters.lte("dia", dataFim.atStartOfDay()));
+        if (codigoBarras != null) {
+            condicoes.add(Filters.eq("codigoBarras", codigoBarras));
+        }
+        List<ResumoDiario> resultado = new ArrayList<>();
+        for (Document documento : PrazoMongo.aplicar(collection.find(Filters.and(condicoes))).sort(Sorts.ascending("dia", "codigoBarras"))) {
+            resultado.add(paraDominio(documento));
+        }
+        return resultado;
+    }
+
+    public static ResumoDiario paraDominio(Document documento) {
+        Date dia = documento.getDate("dia");
+        ResumoDiario resumo = new ResumoDiario(documento.getString("codigoBarras"),
+                LocalDateTime.ofInstant(dia.toInstant(), ZoneOffset.UTC).toLocalDate());
+        Document totais = documento.get("totais", new Document());
+        for (TipoMovimentacao tipo : TipoMovimentacao.values()) {
+            Document total = totais.get(tipo.name(), Document.class);
+            if (total != null) {
+                resumo.somar(tipo, numero(total, "movimentacoes"), numero(total, "quantidade"));
+            }
+        }
+        return resumo;
+    }
+
+    // $inc grava int ou long conforme o valor; a reconstrução por agregação grava o que o $sum produzir
+    private static long numero(Document documento, String campo) {
+        Number valor = documento.get(campo, Number.class);
+        return valor != null ? valor.longValue() : 0;
+    }
+
+    // Recalcula todos os resumos a partir das movimentações, no servidor: agrupa por produto,
+    // dia e tipo e grava com $merge, substituindo o resumo existente de cada produto e dia.
+    public static void reconstruir(MongoDatabase database, LayoutMovimentacoes layout) {
+        criarIndices(database.getCollection(COLECAO));
+        layout.agregar(database, null, List.of(
+                new Document("$match", new Document("tipo", new Document("$in",
+                        List.of(TipoMovimentacao.ENTRADA.name(), TipoMovimentacao.SAIDA.name())))),
+                new Document("$group", new Document("_id", new Document("codigoBarras", "$codigoBarras")
+                        .append("dia", new Document("$dateTrunc", new Document("date", "$dataHora").append("unit", "day")))
+                        .append("tipo", "$tipo"))
+                        .append("movimentacoes", new Document("$sum", 1))
+                        .append("quantidade", new Document("$sum", new Document("$toLong", "$quantidade")))),
+                new Document("$group", new Document("_id", new Document("codigoBarras", "$_id.codigoBarras").append("dia", "$_id.dia"))
+                        .append("totais", new Document("$push", new Document("k", "$_id.tipo")
+                                .append("v", new Document("movimentacoes", "$movimentacoes").append("quantidade", "$quantidade"))))),
+                new Document("$project", new Document("_id", 0)
+                        .append("codigoBarras", "$_id.codigoBarras")
+                        .append("dia", "$_id.dia")
+                        .append("totais", new Document("$arrayToObject", "$totais"))),
+                new Document("$merge", new Document("into", COLECAO)
+                        .append("on", List.of("codigoBarras", "dia"))
+                        .append("whenMatched", "replace")
+                        .append("whenNotMatched", "insert"))))
+                .toCollection();
+    }
+}
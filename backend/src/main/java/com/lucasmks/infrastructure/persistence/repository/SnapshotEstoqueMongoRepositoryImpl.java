@@ -0,0 +1,111 @@
+package com.lucasmks.infrastructure.persistence.repository;
+
+import com.lucasmks.domain.model.SnapshotEstoque;
+import com.lucasmks.domain.repository.SnapshotEstoqueRepository;
+import com.lucasmks.infrastructure.database.MongoConnection;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// Coleção "estoque_snapshots": um documento por produto e execução da tarefa de snapshots.
+// O índice (codigoBarras, dataHora) atende a busca do snapshot mais próximo de um produto;
+// o índice em execucao atende a leitura de uma execução inteira e a remoção das antigas.
+public class SnapshotEstoqueMongoRepositoryImpl implements SnapshotEstoqueRepository {
+
+    public static final String COLECAO = "estoque_snapshots";
+
+    private final MongoCollection<Document> collection;
+
+    public SnapshotEstoqueMongoRepositoryImpl() {
+        this.collection = MongoConnection.getDatabase().getCollection(COLECAO);
+        collection.createIndexes(List.of(
+                new IndexModel(Indexes.ascending("codigoBarras", "dataHora")),
+                new IndexModel(Indexes.ascending("execucao"))));
+    }
+
+    @Override
+    public void salvarTodos(List<SnapshotEstoque> snapshots) {
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        List<Document> documentos = new ArrayList<>(snapshots.size());
+        for (SnapshotEstoque snapshot : snapshots) {
+            documentos.add(new Document("execucao", snapshot.getExecucao())
+                    .append("codigoBarras", snapshot.getCodigoBarras())
+                    .append("quantidade", snapshot.getQuantidade())
+                    .append("dataHora", snapshot.getDataHora()));
+        }
+        collection.insertMany(documentos, new InsertManyOptions().ordered(false));
+    }
+
+    @Override
+    public Optional<SnapshotEstoque> buscarAnterior(String codigoBarras, LocalDateTime em) {
+        return primeiro(Filters.and(Filters.eq("codigoBarras", codigoBarras), Filters.lte("dataHora", em)),
+                Sorts.descending("dataHora"));
+    }
+
+    @Override
+    public Optional<SnapshotEstoque> buscarPosterior(String codigoBarras, LocalDateTime em) {
+        return primeiro(Filters.and(Filters.eq("codigoBarras", codigoBarras), Filters.gt("dataHora", em)),
+                Sorts.ascending("dataHora"));
+    }
+
+    @Override
+    public Optional<LocalDateTime> buscarExecucaoAnterior(LocalDateTime em) {
+        return execucao(Filters.lte("execucao", em), Sorts.descending("execucao"));
+    }
+
+    @Override
+    public Optional<LocalDateTime> buscarExecucaoPosterior(LocalDateTime em) {
+        return execucao(Filters.gt("execucao", em), Sorts.ascending("execucao"));
+    }
+
+    @Override
+    public void percorrerExecucao(LocalDateTime execucao, Consumer<SnapshotEstoque> consumidor) {
+        try (MongoCursor<Document> cursor = collection.find(Filters.eq("execucao", execucao)).batchSize(2000).iterator()) {
+            while (cursor.hasNext()) {
+                consumidor.accept(paraDominio(cursor.next()));
+            }
+        }
+    }
+
+    @Override
+    public long removerAnteriores(LocalDateTime limite) {
+        return collection.deleteMany(Filters.lt("execucao", limite)).getDeletedCount();
+    }
+
+    private Optional<SnapshotEstoque> primeiro(Bson filtro, Bson ordem) {
+        Document documento = collection.find(filtro).sort(ordem).first();
+        return Optional.ofNullable(documento).map(SnapshotEstoqueMongoRepositoryImpl::paraDominio);
+    }
+
+    private Optional<LocalDateTime> execucao(Bson filtro, Bson ordem) {
+        Document documento = collection.find(filtro).sort(ordem).projection(Projections.include("execucao")).first();
+        return Optional.ofNullable(documento).map(d -> utc(d.getDate("execucao")));
+    }
+
+    private static SnapshotEstoque paraDominio(Document documento) {
+        return new SnapshotEstoque(utc(documento.getDate("execucao")), documento.getString("codigoBarras"),
+                documento.getInteger("quantidade", 0), utc(documento.getDate("dataHora")));
+    }
+
+    private static LocalDateTime utc(Date data) {
+        return LocalDateTime.ofInstant(data.toInstant(), ZoneOffset.UTC);
+    }
+}
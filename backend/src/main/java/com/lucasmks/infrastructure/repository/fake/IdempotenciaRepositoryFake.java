@@ -0,0 +1,43 @@
+package com.lucasmks.infrastructure.repository.fake;
+
+import com.lucasmks.domain.model.RespostaIdempotente;
+import com.lucasmks.domain.repository.IdempotenciaRepository;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class IdempotenciaRepositoryFake implements IdempotenciaRepository {
+
+    private final Map<String, RespostaIdempotente> respostas = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<RespostaIdempotente> buscar(String chave) {
+        RespostaIdempotente resposta = respostas.get(chave);
+        return resposta != null && resposta.getExpiraEm().isAfter(LocalDateTime.now()) ? Optional.of(copiar(resposta)) : Optional.empty();
+    }
+
+    @Override
+    public synchronized boolean reservar(RespostaIdempotente reserva) {
+        if (buscar(reserva.getChave()).isPresent()) {
+            return false;
+        }
+        respostas.put(reserva.getChave(), copiar(reserva));
+        return true;
+    }
+
+    @Override
+    public void concluir(RespostaIdempotente resposta) {
+        respostas.put(resposta.getChave(), copiar(resposta));
+    }
+
+    @Override
+    public void liberar(String chave) {
+        respostas.computeIfPresent(chave, (c, resposta) -> resposta.isConcluida() ? resposta : null);
+    }
+
+    private static RespostaIdempotente copiar(RespostaIdempotente r) {
+        return new RespostaIdempotente(r.getChave(), r.getImpressao(), r.getStatus(), r.getCorpo(), r.isConcluida(), r.getExpiraEm());
+    }
+}
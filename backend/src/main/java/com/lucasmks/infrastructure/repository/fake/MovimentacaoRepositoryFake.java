@@ -19,6 +19,19 @@ public class MovimentacaoRepositoryFake implements MovimentacaoRepository {
         movimentacoes.add(movimentacao);
     }
 
+    // Como nos repositórios reais: as que já estão gravadas (pelo id) não entram de novo
+    @Override
+    public void regravarTodas(List<Movimentacao> lote) {
+        List<Movimentacao> faltantes = new ArrayList<>();
+        for (Movimentacao movimentacao : lote) {
+            if (movimentacao.getId() == null
+                    || movimentacoes.stream().noneMatch(gravada -> movimentacao.getId().equals(gravada.getId()))) {
+                faltantes.add(movimentacao);
+            }
+        }
+        salvarTodas(faltantes);
+    }
+
     @Override
     public List<Movimentacao> buscarTodasMovimentacoes() {
         return new ArrayList<>(movimentacoes);
@@ -1,8 +1,11 @@
 package com.lucasmks.infrastructure.repository.fake;
  // simular o armazenamento de produtos em memória, usando um HashMap
 
+import com.lucasmks.domain.model.FiltroProdutos;
+import com.lucasmks.domain.model.Pagina;
 import com.lucasmks.domain.model.Produto;
 import com.lucasmks.domain.repository.ProdutoRepository;
+import com.lucasmks.infrastructure.persistence.PaginacaoProdutos;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -19,6 +22,7 @@ public class ProdutoRepositoryFake implements ProdutoRepository {
     public void salvar(Produto produto) {
         // No repositório fake, simplesmente adicionamos ou atualizamos o produto.
         // As validações de duplicidade serão feitas no UseCase.
+        produto.setVersao(proximaVersao(produto.getCodigoBarras()));
         produtos.put(produto.getCodigoBarras(), produto);
     }
 
@@ -41,14 +45,48 @@ public class ProdutoRepositoryFake implements ProdutoRepository {
 
     @Override
     public void atualizar(Produto produto) {
+        produto.setVersao(proximaVersao(produto.getCodigoBarras()));
         produtos.put(produto.getCodigoBarras(), produto);
     }
 
+    @Override
+    public boolean atualizarSeVersao(Produto produto, long versaoEsperada) {
+        Produto atual = produtos.get(produto.getCodigoBarras());
+        if (atual == null || atual.getVersao() != versaoEsperada) {
+            return false;
+        }
+        produto.setVersao(versaoEsperada + 1);
+        produtos.put(produto.getCodigoBarras(), produto);
+        return true;
+    }
+
+    private long proximaVersao(String codigoBarras) {
+        Produto atual = produtos.get(codigoBarras);
+        return atual == null ? 1 : atual.getVersao() + 1;
+    }
+
     @Override
     public List<Produto> buscarTodos() {
         return new ArrayList<>(produtos.values());
     }
 
+    @Override
+    public List<Produto> buscarPorCodigosBarras(List<String> codigosBarras) {
+        List<Produto> encontrados = new ArrayList<>();
+        for (String codigoBarras : codigosBarras) {
+            Produto produto = produtos.get(codigoBarras);
+            if (produto != null) {
+                encontrados.add(produto);
+            }
+        }
+        return encontrados;
+    }
+
+    @Override
+    public Pagina<Produto> buscarPagina(FiltroProdutos filtro) {
+        return PaginacaoProdutos.paginarEmMemoria(produtos.values(), filtro);
+    }
+
     // Método para limpar o "banco de dados" entre os testes, se necessário.
     public void limpar() {
         produtos.clear();
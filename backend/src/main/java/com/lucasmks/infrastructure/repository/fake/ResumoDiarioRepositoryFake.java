@@ -0,0 +1,34 @@
+package com.lucasmks.infrastructure.repository.fake;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.ResumoDiario;
+import com.lucasmks.domain.repository.ResumoDiarioRepository;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ResumoDiarioRepositoryFake implements ResumoDiarioRepository {
+
+    private final Map<String, ResumoDiario> resumos = new LinkedHashMap<>();
+
+    @Override
+    public void registrar(Movimentacao movimentacao) {
+        LocalDate dia = movimentacao.getDataHora().toLocalDate();
+        resumos.computeIfAbsent(movimentacao.getCodigoBarras() + "|" + dia,
+                        k -> new ResumoDiario(movimentacao.getCodigoBarras(), dia))
+                .somar(movimentacao.getTipo(), 1, movimentacao.getQuantidade());
+    }
+
+    @Override
+    public List<ResumoDiario> buscarResumos(LocalDate dataInicio, LocalDate dataFim, String codigoBarras) {
+        return resumos.values().stream()
+                .filter(r -> !r.getDia().isBefore(dataInicio) && !r.getDia().isAfter(dataFim))
+                .filter(r -> codigoBarras == null || codigoBarras.equals(r.getCodigoBarras()))
+                .sorted(Comparator.comparing(ResumoDiario::getDia).thenComparing(ResumoDiario::getCodigoBarras))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,61 @@
+package com.lucasmks.infrastructure.repository.fake;
+
+import com.lucasmks.domain.model.SnapshotEstoque;
+import com.lucasmks.domain.repository.SnapshotEstoqueRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public class SnapshotEstoqueRepositoryFake implements SnapshotEstoqueRepository {
+
+    private final List<SnapshotEstoque> snapshots = new ArrayList<>();
+
+    @Override
+    public void salvarTodos(List<SnapshotEstoque> novos) {
+        snapshots.addAll(novos);
+    }
+
+    @Override
+    public Optional<SnapshotEstoque> buscarAnterior(String codigoBarras, LocalDateTime em) {
+        return snapshots.stream()
+                .filter(s -> s.getCodigoBarras().equals(codigoBarras) && !s.getDataHora().isAfter(em))
+                .max(Comparator.comparing(SnapshotEstoque::getDataHora));
+    }
+
+    @Override
+    public Optional<SnapshotEstoque> buscarPosterior(String codigoBarras, LocalDateTime em) {
+        return snapshots.stream()
+                .filter(s -> s.getCodigoBarras().equals(codigoBarras) && s.getDataHora().isAfter(em))
+                .min(Comparator.comparing(SnapshotEstoque::getDataHora));
+    }
+
+    @Override
+    public Optional<LocalDateTime> buscarExecucaoAnterior(LocalDateTime em) {
+        return snapshots.stream().map(SnapshotEstoque::getExecucao).filter(e -> !e.isAfter(em)).max(Comparator.naturalOrder());
+    }
+
+    @Override
+    public Optional<LocalDateTime> buscarExecucaoPosterior(LocalDateTime em) {
+        return snapshots.stream().map(SnapshotEstoque::getExecucao).filter(e -> e.isAfter(em)).min(Comparator.naturalOrder());
+    }
+
+    @Override
+    public void percorrerExecucao(LocalDateTime execucao, Consumer<SnapshotEstoque> consumidor) {
+        snapshots.stream().filter(s -> s.getExecucao().equals(execucao)).forEach(consumidor);
+    }
+
+    @Override
+    public long removerAnteriores(LocalDateTime limite) {
+        int antes = snapshots.size();
+        snapshots.removeIf(s -> s.getExecucao().isBefore(limite));
+        return antes - snapshots.size();
+    }
+
+    public List<SnapshotEstoque> buscarTodos() {
+        return new ArrayList<>(snapshots);
+    }
+}
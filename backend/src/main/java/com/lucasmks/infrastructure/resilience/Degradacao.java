@@ -0,0 +1,33 @@
+package com.lucasmks.infrastructure.resilience;
+
+// Marcas da requisição em andamento (por thread), lidas pela camada HTTP ao montar a resposta:
+// se algum dado veio da cópia em memória em vez do banco, ou se o disjuntor recusou uma chamada.
+// Quem abre a requisição deve chamar limpar no fim, já que as threads são reaproveitadas.
+public final class Degradacao {
+
+    private static final ThreadLocal<Boolean> COPIA = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> RECUSA = new ThreadLocal<>();
+
+    private Degradacao() {}
+
+    public static void marcarCopiaDesatualizada() {
+        COPIA.set(Boolean.TRUE);
+    }
+
+    public static void marcarRecusa() {
+        RECUSA.set(Boolean.TRUE);
+    }
+
+    public static boolean copiaDesatualizada() {
+        return COPIA.get() != null;
+    }
+
+    public static boolean recusada() {
+        return RECUSA.get() != null;
+    }
+
+    public static void limpar() {
+        COPIA.remove();
+        RECUSA.remove();
+    }
+}
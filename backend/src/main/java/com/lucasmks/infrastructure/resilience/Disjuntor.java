@@ -0,0 +1,342 @@
+package com.lucasmks.infrastructure.resilience;
+
+import com.lucasmks.domain.exception.BancoIndisponivelException;
+import com.lucasmks.infrastructure.config.Configuracao;
+import com.mongodb.MongoNodeIsRecoveringException;
+import com.mongodb.MongoNotPrimaryException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Disjuntor (circuit breaker) em volta das chamadas ao banco. FECHADO: as chamadas passam e o
+// resultado de cada uma entra numa janela das últimas N; falhas de infraestrutura (conexão,
+// timeout na escolha de servidor, nó sem primário) e chamadas mais lentas que lentaMs contam
+// como falha. Uma chamada presa (banco travado, sem resposta) conta como lenta assim que passa
+// de lentaMs, sem esperar terminar: as chamadas seguintes verificam as que estão em andamento.
+// Varreduras cujo tempo cresce com o volume (executarSemLimiteDeTempo) não são medidas. Abre com
+// falhasConsecutivas seguidas ou quando a taxa de falhas da janela passa de taxaFalhas (com ao
+// menos chamadasMinimas na janela). ABERTO: toda chamada é recusada na hora com
+// BancoIndisponivelException, sem ocupar conexão nem thread esperando o banco. Passados abertoMs,
+// vai para SEMIABERTO e deixa passar até `sondas` chamadas; se todas derem certo fecha, se
+// uma falhar abre de novo. Erros do próprio pedido (chave duplicada, validação, maxTime
+// excedido) não contam.
+public class Disjuntor {
+    private static final Logger logger = LoggerFactory.getLogger(Disjuntor.class);
+
+    public enum Estado { FECHADO, ABERTO, SEMIABERTO }
+
+    private final String nome;
+    private final int falhasConsecutivasMax;
+    private final int chamadasMinimas;
+    private final double taxaFalhasMax;
+    private final long lentaNanos;
+    private final long abertoNanos;
+    private final int sondas;
+    private final Predicate<Throwable> contaComoFalha;
+    private final LongSupplier relogio;
+
+    // Lido sem lock no caminho comum (FECHADO); as transições são feitas com o lock do disjuntor
+    private volatile Estado estado = Estado.FECHADO;
+
+    // Chamadas medidas em andamento, verificadas no máximo a cada quarto de lentaMs
+    private final Set<Chamada> emAndamento = ConcurrentHashMap.newKeySet();
+    private final AtomicLong ultimaVerificacao = new AtomicLong();
+
+    // Janela circular das últimas chamadas (true = falha); protegida pelo lock
+    private final boolean[] janela;
+    private int posicao;
+    private int chamadasJanela;
+    private int falhasJanela;
+    private int falhasConsecutivas;
+    private long abertoDesde;
+    private int sondasEmAndamento;
+    private int sondasComSucesso;
+
+    private long chamadas;
+    private long falhas;
+    private long lentas;
+    private long recusadas;
+    private long aberturas;
+
+    public Disjuntor(String nome, int falhasConsecutivas, int janela, int chamadasMinimas, double taxaFalhas,
+                     long lentaMs, long abertoMs, int sondas, Predicate<Throwable> contaComoFalha, LongSupplier relogio) {
+        if (falhasConsecutivas < 1 || janela < 1 || sondas < 1 || taxaFalhas <= 0 || taxaFalhas > 1) {
+            throw new IllegalArgumentException("Configuração inválida para o disjuntor " + nome + ".");
+        }
+        this.nome = nome;
+        this.falhasConsecutivasMax = falhasConsecutivas;
+        this.janela = new boolean[janela];
+        this.chamadasMinimas = Math.max(1, Math.min(chamadasMinimas, janela));
+        this.taxaFalhasMax = taxaFalhas;
+        this.lentaNanos = lentaMs > 0 ? TimeUnit.MILLISECONDS.toNanos(lentaMs) : Long.MAX_VALUE;
+        this.abertoNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, abertoMs));
+        this.sondas = sondas;
+        this.contaComoFalha = contaComoFalha;
+        this.relogio = relogio;
+        this.ultimaVerificacao.set(relogio.getAsLong());
+    }
+
+    // Disjuntor do MongoDB, com as chaves estoque.mongo.disjuntor.*
+    public static Disjuntor mongoDaConfiguracao() {
+        return new Disjuntor("mongo",
+                Configuracao.getInt("estoque.mongo.disjuntor.falhas-consecutivas", 5),
+                Configuracao.getInt("estoque.mongo.disjuntor.janela", 20),
+                Configuracao.getInt("estoque.mongo.disjuntor.chamadas-minimas", 10),
+                Double.parseDouble(Configuracao.get("estoque.mongo.disjuntor.taxa-falhas", "0.5")),
+                Configuracao.getLong("estoque.mongo.disjuntor.lenta-ms", 3000),
+                Configuracao.getLong("estoque.mongo.disjuntor.aberto-ms", 5000),
+                Configuracao.getInt("estoque.mongo.disjuntor.sondas", 1),
+                Disjuntor::falhaDoMongo,
+                System::nanoTime);
+    }
+
+    // Falhas do driver que indicam banco fora do ar ou inalcançável (também quando embrulhadas
+    // pelos repositórios em RuntimeException). MongoExecutionTimeoutException fica de fora: é o
+    // maxTime da consulta vencendo, e o prazo vem do cliente (X-Request-Timeout)
+    public static boolean falhaDoMongo(Throwable erro) {
+        for (Throwable causa = erro; causa != null; causa = causa.getCause()) {
+            if (causa instanceof MongoSocketException || causa instanceof MongoTimeoutException
+                    || causa instanceof MongoNotPrimaryException || causa instanceof MongoNodeIsRecoveringException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public <T> T executar(Supplier<T> acao) {
+        return executar(acao, true);
+    }
+
+    public void executar(Runnable acao) {
+        executar(() -> {
+            acao.run();
+            return null;
+        }, true);
+    }
+
+    // Para varreduras cujo tempo cresce com o volume (cursores entregues a um consumidor, cuja
+    // duração inclui o trabalho dele, e listagens do histórico): não contam como chamada lenta
+    public void executarSemLimiteDeTempo(Runnable acao) {
+        executarSemLimiteDeTempo(() -> {
+            acao.run();
+            return null;
+        });
+    }
+
+    public <T> T executarSemLimiteDeTempo(Supplier<T> acao) {
+        return executar(acao, false);
+    }
+
+    private <T> T executar(Supplier<T> acao, boolean medirLentidao) {
+        verificarPresas();
+        boolean sonda = permitir();
+        medirLentidao &= lentaNanos != Long.MAX_VALUE;
+        Chamada chamada = new Chamada(relogio.getAsLong(), sonda);
+        if (medirLentidao) {
+            emAndamento.add(chamada);
+        }
+        boolean sucesso = false;
+        boolean lenta = false;
+        try {
+            T resultado = acao.get();
+            lenta = medirLentidao && relogio.getAsLong() - chamada.inicio > lentaNanos;
+            sucesso = !lenta;
+            return resultado;
+        } catch (RuntimeException e) {
+            sucesso = !contaComoFalha.test(e);
+            throw e;
+        } finally {
+            if (medirLentidao) {
+                emAndamento.remove(chamada);
+            }
+            // Já contada como lenta enquanto estava presa: não conta de novo
+            if (chamada.registrada.compareAndSet(false, true)) {
+                registrar(sonda, sucesso, lenta);
+            }
+        }
+    }
+
+    // Conta como lentas (falhas) as chamadas em andamento há mais de lentaMs
+    private void verificarPresas() {
+        if (emAndamento.isEmpty()) {
+            return;
+        }
+        long agora = relogio.getAsLong();
+        long ultima = ultimaVerificacao.get();
+        if (agora - ultima < lentaNanos / 4 || !ultimaVerificacao.compareAndSet(ultima, agora)) {
+            return;
+        }
+        for (Chamada chamada : emAndamento) {
+            if (agora - chamada.inicio > lentaNanos && chamada.registrada.compareAndSet(false, true)) {
+                logger.debug("Chamada ao banco {} em andamento há mais de {} ms.", nome, TimeUnit.NANOSECONDS.toMillis(lentaNanos));
+                registrar(chamada.sonda, false, true);
+            }
+        }
+    }
+
+    // Se a falha permite responder com dados guardados: recusa do disjuntor ou falha do banco
+    public boolean indisponibilidade(Throwable erro) {
+        return erro instanceof BancoIndisponivelException || contaComoFalha.test(erro);
+    }
+
+    // Retorna true quando a chamada é uma sonda do estado SEMIABERTO
+    private boolean permitir() {
+        if (estado == Estado.FECHADO) {
+            return false;
+        }
+        synchronized (this) {
+            if (estado == Estado.FECHADO) {
+                return false;
+            }
+            if (estado == Estado.ABERTO) {
+                if (relogio.getAsLong() - abertoDesde < abertoNanos) {
+                    throw recusar();
+                }
+                estado = Estado.SEMIABERTO;
+                sondasEmAndamento = 0;
+                sondasComSucesso = 0;
+                logger.info("Disjuntor {} semiaberto: testando o banco.", nome);
+            }
+            if (sondasEmAndamento >= sondas) {
+                throw recusar();
+            }
+            sondasEmAndamento++;
+            return true;
+        }
+    }
+
+    private BancoIndisponivelException recusar() {
+        recusadas++;
+        Degradacao.marcarRecusa();
+        return new BancoIndisponivelException("Banco de dados indisponível no momento; tente novamente em instantes.");
+    }
+
+    private synchronized void registrar(boolean sonda, boolean sucesso, boolean lenta) {
+        chamadas++;
+        if (!sucesso) {
+            falhas++;
+        }
+        if (lenta) {
+            lentas++;
+        }
+        if (sonda) {
+            sondasEmAndamento--;
+            if (estado != Estado.SEMIABERTO) {
+                return;
+            }
+            if (!sucesso) {
+                abrir("sonda falhou");
+            } else if (++sondasComSucesso >= sondas) {
+                fechar();
+            }
+            return;
+        }
+        // Chamadas iniciadas antes da abertura não mudam mais nada
+        if (estado != Estado.FECHADO) {
+            return;
+        }
+        if (chamadasJanela == janela.length) {
+            if (janela[posicao]) {
+                falhasJanela--;
+            }
+        } else {
+            chamadasJanela++;
+        }
+        janela[posicao] = !sucesso;
+        posicao = (posicao + 1) % janela.length;
+        if (sucesso) {
+            falhasConsecutivas = 0;
+            return;
+        }
+        falhasJanela++;
+        falhasConsecutivas++;
+        if (falhasConsecutivas >= falhasConsecutivasMax) {
+            abrir(falhasConsecutivas + " falhas seguidas");
+        } else if (chamadasJanela >= chamadasMinimas && falhasJanela >= taxaFalhasMax * chamadasJanela) {
+            abrir(falhasJanela + " falhas nas últimas " + chamadasJanela + " chamadas");
+        }
+    }
+
+    private void abrir(String motivo) {
+        estado = Estado.ABERTO;
+        abertoDesde = relogio.getAsLong();
+        aberturas++;
+        logger.warn("Disjuntor {} aberto ({}); chamadas recusadas por {} ms.", nome, motivo,
+                TimeUnit.NANOSECONDS.toMillis(abertoNanos));
+    }
+
+    private void fechar() {
+        estado = Estado.FECHADO;
+        Arrays.fill(janela, false);
+        posicao = 0;
+        chamadasJanela = 0;
+        falhasJanela = 0;
+        falhasConsecutivas = 0;
+        logger.info("Disjuntor {} fechado: banco respondendo de novo.", nome);
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    // Segundos até a próxima sonda (para o Retry-After); 0 fora do estado ABERTO
+    public synchronized long segundosParaSonda() {
+        if (estado != Estado.ABERTO) {
+            return 0;
+        }
+        long restante = abertoNanos - (relogio.getAsLong() - abertoDesde);
+        return Math.max(1, (restante + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public synchronized Metricas metricas() {
+        Metricas metricas = new Metricas();
+        metricas.setNome(nome);
+        metricas.setEstado(estado);
+        metricas.setChamadas(chamadas);
+        metricas.setFalhas(falhas);
+        metricas.setLentas(lentas);
+        metricas.setRecusadas(recusadas);
+        metricas.setAberturas(aberturas);
+        metricas.setFalhasConsecutivas(falhasConsecutivas);
+        metricas.setTaxaFalhasJanela(chamadasJanela == 0 ? 0 : (double) falhasJanela / chamadasJanela);
+        metricas.setSegundosParaSonda(estado == Estado.ABERTO ? segundosParaSonda() : 0);
+        return metricas;
+    }
+
+    private static final class Chamada {
+        final long inicio;
+        final boolean sonda;
+        final AtomicBoolean registrada = new AtomicBoolean();
+
+        Chamada(long inicio, boolean sonda) {
+            this.inicio = inicio;
+            this.sonda = sonda;
+        }
+    }
+
+    @Data
+    public static class Metricas {
+        private String nome;
+        private Estado estado;
+        private long chamadas;
+        private long falhas;                // inclui as lentas
+        private long lentas;
+        private long recusadas;             // recusadas sem ir ao banco
+        private long aberturas;
+        private int falhasConsecutivas;
+        private double taxaFalhasJanela;
+        private long segundosParaSonda;
+    }
+}
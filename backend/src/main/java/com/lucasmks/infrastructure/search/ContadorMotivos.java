@@ -0,0 +1,205 @@
+package com.lucasmks.infrastructure.search;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.search.SugestoesMotivo;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Contagem de uso de cada motivo, organizada em uma árvore de prefixos (trie) por tipo.
+// Cada nó guarda os motivos mais usados da sua subárvore, então a consulta custa apenas
+// o tamanho do prefixo mais K, independente do tamanho do histórico e do número de motivos.
+// Como as contagens só aumentam, manter os K melhores em cada nó do caminho é exato.
+// Motivos que diferem só em maiúsculas ou acentos ("Venda", "venda") somam na mesma contagem,
+// sugerida com a grafia mais usada.
+public class ContadorMotivos implements SugestoesMotivo, Consumer<Movimentacao> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContadorMotivos.class);
+
+    public static final int LIMITE_MAXIMO = 20;
+
+    // Trocadas por inteiro na recarga
+    private volatile Arvores arvores = new Arvores();
+
+    // Somas recebidas durante uma recarga, reaplicadas sobre as contagens novas; protegido pelo lock do contador
+    private List<Consumer<ContadorMotivos>> recebidasNaRecarga;
+
+    // Semeia as contagens com uma única agregação sobre o histórico
+    public void carregar(MongoDatabase database, LayoutMovimentacoes layout) {
+        long inicio = System.currentTimeMillis();
+        int grupos = 0;
+        for (Document grupo : layout.agregar(database, null, List.of(
+                Aggregates.group(new Document("motivo", "$motivo").append("tipo", "$tipo"), Accumulators.sum("total", 1))))) {
+            Document chave = grupo.get("_id", Document.class);
+            String tipo = chave.getString("tipo");
+            Number total = grupo.get("total", Number.class);
+            somar(chave.getString("motivo"), tipo != null ? TipoMovimentacao.valueOf(tipo) : null, total.longValue());
+            grupos++;
+        }
+        logger.info("Contador de motivos carregado: {} combinações de motivo e tipo em {} ms.",
+                grupos, System.currentTimeMillis() - inicio);
+    }
+
+    @Override
+    public void accept(Movimentacao movimentacao) {
+        somar(movimentacao.getMotivo(), movimentacao.getTipo(), 1);
+    }
+
+    public void somar(String motivo, TipoMovimentacao tipo, long quantidade) {
+        if (motivo == null || motivo.isBlank() || quantidade <= 0) {
+            return;
+        }
+        String chave = IndiceTrigramaProduto.normalizar(motivo);
+        synchronized (this) {
+            if (recebidasNaRecarga != null) {
+                recebidasNaRecarga.add(novo -> novo.somar(motivo, tipo, quantidade));
+            }
+            Arvores atuais = arvores;
+            atuais.todos.somar(chave, motivo, quantidade);
+            if (tipo != null) {
+                atuais.porTipo.get(tipo).somar(chave, motivo, quantidade);
+            }
+        }
+    }
+
+    // Substitui as contagens pelas que `carga` somar a um contador vazio (em geral, carregar do
+    // banco). A carga roda sem o lock: as sugestões seguem vindo das contagens antigas até a
+    // troca, e as somas recebidas nesse meio-tempo são reaplicadas sobre as novas (a agregação
+    // pode já ter visto as primeiras, que ficam com um uso a mais)
+    public void recarregar(Consumer<ContadorMotivos> carga) {
+        synchronized (this) {
+            recebidasNaRecarga = new ArrayList<>();
+        }
+        ContadorMotivos novo = new ContadorMotivos();
+        try {
+            carga.accept(novo);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                recebidasNaRecarga = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            recebidasNaRecarga.forEach(reaplicar -> reaplicar.accept(novo));
+            recebidasNaRecarga = null;
+            arvores = novo.arvores;
+        }
+    }
+
+    @Override
+    public List<String> sugerir(String prefixo, TipoMovimentacao tipo, int limite) {
+        Arvores atuais = arvores;
+        Arvore arvore = tipo != null ? atuais.porTipo.get(tipo) : atuais.todos;
+        return arvore.sugerir(IndiceTrigramaProduto.normalizar(prefixo), Math.min(limite, LIMITE_MAXIMO));
+    }
+
+    private static final class Arvores {
+        final Arvore todos = new Arvore();
+        final Map<TipoMovimentacao, Arvore> porTipo = new EnumMap<>(TipoMovimentacao.class);
+
+        Arvores() {
+            for (TipoMovimentacao tipo : TipoMovimentacao.values()) {
+                porTipo.put(tipo, new Arvore());
+            }
+        }
+    }
+
+    private static final class Contagem {
+        // Usos de cada grafia do motivo; alterado só com o lock da árvore
+        private final Map<String, Long> grafias = new HashMap<>(2);
+        volatile String motivo;
+        volatile long total;
+
+        void somar(String grafia, long quantidade) {
+            total += quantidade;
+            long usos = grafias.merge(grafia, quantidade, Long::sum);
+            if (motivo == null || (!grafia.equals(motivo) && usos > grafias.get(motivo))) {
+                motivo = grafia;
+            }
+        }
+    }
+
+    private static final class No {
+        final Map<Character, No> filhos = new ConcurrentHashMap<>();
+        // Substituído por inteiro a cada alteração, para que a leitura não precise de lock
+        volatile Contagem[] melhores = new Contagem[0];
+
+        void promover(Contagem contagem) {
+            Contagem[] atual = melhores;
+            int posicao = -1;
+            for (int i = 0; i < atual.length; i++) {
+                if (atual[i] == contagem) {
+                    posicao = i;
+                    break;
+                }
+            }
+            Contagem[] novo;
+            if (posicao >= 0) {
+                novo = atual.clone();
+            } else if (atual.length < LIMITE_MAXIMO) {
+                novo = Arrays.copyOf(atual, atual.length + 1);
+                posicao = novo.length - 1;
+            } else if (contagem.total > atual[atual.length - 1].total) {
+                novo = atual.clone();
+                posicao = novo.length - 1;
+            } else {
+                return;
+            }
+            novo[posicao] = contagem;
+            // A contagem só aumenta, então basta subir a entrada até a posição correta
+            while (posicao > 0 && novo[posicao - 1].total < contagem.total) {
+                novo[posicao] = novo[posicao - 1];
+                novo[--posicao] = contagem;
+            }
+            melhores = novo;
+        }
+    }
+
+    private static final class Arvore {
+        private final No raiz = new No();
+        private final Map<String, Contagem> contagens = new HashMap<>();
+
+        synchronized void somar(String chave, String motivo, long quantidade) {
+            Contagem contagem = contagens.computeIfAbsent(chave, c -> new Contagem());
+            contagem.somar(motivo, quantidade);
+
+            No no = raiz;
+            no.promover(contagem);
+            for (int i = 0; i < chave.length(); i++) {
+                no = no.filhos.computeIfAbsent(chave.charAt(i), c -> new No());
+                no.promover(contagem);
+            }
+        }
+
+        List<String> sugerir(String prefixo, int limite) {
+            No no = raiz;
+            for (int i = 0; i < prefixo.length() && no != null; i++) {
+                no = no.filhos.get(prefixo.charAt(i));
+            }
+            if (no == null) {
+                return List.of();
+            }
+            Contagem[] melhores = no.melhores;
+            List<String> resultado = new ArrayList<>(Math.min(limite, melhores.length));
+            for (int i = 0; i < melhores.length && resultado.size() < limite; i++) {
+                resultado.add(melhores[i].motivo);
+            }
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package com.lucasmks.infrastructure.search;
+
+import com.lucasmks.domain.event.ProdutoEventListener;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.search.IndiceBuscaProduto;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Índice invertido de trigramas sobre nome, categoria e fornecedor dos produtos.
+// Os textos são normalizados (sem acento, minúsculos, só letras e dígitos), então
+// "Café" encontra "cafe" e erros de digitação leves ainda casam pela maioria dos trigramas.
+// Remoções deixam o id marcado como removido nas listas; quando a proporção de removidos
+// cresce, as listas são compactadas e os ids renumerados.
+public class IndiceTrigramaProduto implements IndiceBuscaProduto, ProdutoEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceTrigramaProduto.class);
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+
+    private static final int PESO_CAMPO = 2;  // trigrama encontrado em qualquer campo
+    private static final int PESO_NOME = 1;   // bônus quando o trigrama está no nome
+    private static final int PESO_PALAVRA_COMPLETA = 1; // bônus quando a última palavra da consulta é uma palavra inteira
+    private static final double COBERTURA_MINIMA = 0.6;
+    private static final int MINIMO_REMOVIDOS_COMPACTACAO = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Cada posição de uma lista guarda (id << 1 | 1 se o trigrama aparece no nome)
+    private final Map<Long, Postagens> postagens = new HashMap<>();
+    private final Map<String, Integer> idPorCodigo = new HashMap<>();
+    private String[] codigos = new String[1024]; // null = removido
+    private String[] nomes = new String[1024];   // nome normalizado, usado no desempate
+    private int proximoId;
+    private int removidos;
+
+    private final ThreadLocal<Acumulador> acumuladores = ThreadLocal.withInitial(Acumulador::new);
+
+    // Substitui todo o conteúdo do índice pelos produtos informados
+    public void reconstruir(Collection<Produto> produtos) {
+        long inicio = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            postagens.clear();
+            idPorCodigo.clear();
+            codigos = new String[Math.max(1024, produtos.size())];
+            nomes = new String[codigos.length];
+            proximoId = 0;
+            removidos = 0;
+            for (Produto produto : produtos) {
+                indexar(produto);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Índice de busca de produtos construído: {} produtos, {} trigramas em {} ms.",
+                produtos.size(), postagens.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+
+    @Override
+    public void aoCadastrar(Produto produto) {
+        lock.writeLock().lock();
+        try {
+            indexar(produto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void aoEditar(Produto produto) {
+        aoCadastrar(produto);
+    }
+
+    @Override
+    public void aoRemover(String codigoBarras) {
+        lock.writeLock().lock();
+        try {
+            Integer id = idPorCodigo.remove(codigoBarras);
+            if (id != null) {
+                marcarRemovido(id);
+                compactarSeNecessario();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<String> buscar(String termo, int limite) {
+        String consulta = normalizar(termo);
+        long[] trigramas = trigramasConsulta(consulta);
+        if (trigramas.length == 0 || limite <= 0) {
+            return List.of();
+        }
+        // Consultas curtas exigem todos os trigramas; as demais toleram alguns erros
+        int coberturaMinima = trigramas.length <= 2
+                ? trigramas.length
+                : (int) Math.ceil(trigramas.length * COBERTURA_MINIMA);
+
+        lock.readLock().lock();
+        try {
+            Acumulador acumulador = acumuladores.get();
+            acumulador.preparar(proximoId);
+            try {
+                for (long trigrama : trigramas) {
+                    Postagens lista = postagens.get(trigrama);
+                    if (lista != null) {
+                        for (int i = 0; i < lista.tamanho; i++) {
+                            int valor = lista.valores[i];
+                            acumulador.somar(valor >>> 1, PESO_CAMPO + (valor & 1) * PESO_NOME);
+                        }
+                    }
+                }
+                // "cafe" deve preferir "Café Torrado" a "Cafeteira": o trigrama que fecha a palavra
+                // só soma pontos a quem já casou, sem contar para a cobertura mínima
+                Postagens fechamento = postagens.get(trigramaFechamento(consulta));
+                if (fechamento != null) {
+                    for (int i = 0; i < fechamento.tamanho; i++) {
+                        acumulador.bonificar(fechamento.valores[i] >>> 1, PESO_PALAVRA_COMPLETA);
+                    }
+                }
+                return melhores(acumulador, consulta, trigramas.length, coberturaMinima, limite);
+            } finally {
+                acumulador.limpar();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return idPorCodigo.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Mantém apenas os K melhores candidatos num heap de mínimo, sem ordenar todos os que casaram
+    private List<String> melhores(Acumulador acumulador, String consulta, int totalTrigramas, int coberturaMinima, int limite) {
+        PriorityQueue<Candidato> heap = new PriorityQueue<>(limite + 1);
+        for (int i = 0; i < acumulador.tocados; i++) {
+            int id = acumulador.ids[i];
+            if (acumulador.cobertura[id] < coberturaMinima || codigos[id] == null) {
+                continue;
+            }
+            int pontos = acumulador.pontos[id];
+            if (nomes[id].startsWith(consulta)) {
+                pontos += totalTrigramas * PESO_CAMPO;
+            }
+            if (heap.size() == limite) {
+                Candidato pior = heap.peek();
+                if (pontos < pior.pontos || (pontos == pior.pontos && nomes[id].length() >= pior.tamanhoNome)) {
+                    continue;
+                }
+                heap.poll();
+            }
+            heap.add(new Candidato(id, pontos, nomes[id].length()));
+        }
+
+        String[] resultado = new String[heap.size()];
+        for (int i = resultado.length - 1; i >= 0; i--) {
+            resultado[i] = codigos[heap.poll().id];
+        }
+        return Arrays.asList(resultado);
+    }
+
+    private void indexar(Produto produto) {
+        String codigo = produto.getCodigoBarras();
+        Integer anterior = idPorCodigo.remove(codigo);
+        if (anterior != null) {
+            marcarRemovido(anterior);
+        }
+
+        int id = proximoId++;
+        if (id == codigos.length) {
+            codigos = Arrays.copyOf(codigos, id * 2);
+            nomes = Arrays.copyOf(nomes, id * 2);
+        }
+        String nome = normalizar(produto.getNome());
+        codigos[id] = codigo;
+        nomes[id] = nome;
+        idPorCodigo.put(codigo, id);
+
+        long[] doNome = trigramasDocumento(nome);
+        long[] dosOutros = trigramasDocumento(
+                (normalizar(produto.getCategoria()) + " " + normalizar(produto.getFornecedor())).trim());
+        // Junção das duas listas ordenadas, marcando os trigramas que aparecem no nome
+        int i = 0;
+        int j = 0;
+        while (i < doNome.length || j < dosOutros.length) {
+            long trigrama;
+            int noNome;
+            if (j == dosOutros.length || (i < doNome.length && doNome[i] < dosOutros[j])) {
+                trigrama = doNome[i++];
+                noNome = 1;
+            } else if (i == doNome.length || dosOutros[j] < doNome[i]) {
+                trigrama = dosOutros[j++];
+                noNome = 0;
+            } else {
+                trigrama = doNome[i++];
+                j++;
+                noNome = 1;
+            }
+            postagens.computeIfAbsent(trigrama, t -> new Postagens()).adicionar(id << 1 | noNome);
+        }
+
+        compactarSeNecessario();
+    }
+
+    private void marcarRemovido(int id) {
+        codigos[id] = null;
+        nomes[id] = null;
+        removidos++;
+    }
+
+    // Remove os ids marcados de todas as listas e renumera os restantes, preservando a ordem
+    private void compactarSeNecessario() {
+        if (removidos < MINIMO_REMOVIDOS_COMPACTACAO || removidos * 4 < proximoId) {
+            return;
+        }
+        int[] novoId = new int[proximoId];
+        int vivos = 0;
+        for (int id = 0; id < proximoId; id++) {
+            if (codigos[id] != null) {
+                novoId[id] = vivos;
+                codigos[vivos] = codigos[id];
+                nomes[vivos] = nomes[id];
+                idPorCodigo.put(codigos[vivos], vivos);
+                vivos++;
+            } else {
+                novoId[id] = -1;
+            }
+        }
+        Arrays.fill(codigos, vivos, proximoId, null);
+        Arrays.fill(nomes, vivos, proximoId, null);
+
+        Iterator<Postagens> iterador = postagens.values().iterator();
+        while (iterador.hasNext()) {
+            Postagens lista = iterador.next();
+            lista.renumerar(novoId);
+            if (lista.tamanho == 0) {
+                iterador.remove();
+            }
+        }
+        logger.debug("Índice de busca compactado: {} removidos descartados.", removidos);
+        proximoId = vivos;
+        removidos = 0;
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        String semAcento = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder sb = new StringBuilder(semAcento.length());
+        boolean espaco = true;
+        for (int i = 0; i < semAcento.length(); i++) {
+            char c = semAcento.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+                espaco = false;
+            } else if (!espaco) {
+                sb.append(' ');
+                espaco = true;
+            }
+        }
+        int fim = sb.length();
+        if (fim > 0 && sb.charAt(fim - 1) == ' ') {
+            sb.setLength(fim - 1);
+        }
+        return sb.toString();
+    }
+
+    // Cada palavra do documento é delimitada por espaços: " cafe " gera " ca", "caf", "afe", "fe "
+    private static long[] trigramasDocumento(String normalizado) {
+        return trigramas(normalizado, true);
+    }
+
+    // Na consulta a última palavra pode estar incompleta, então ela não recebe o espaço final
+    private static long[] trigramasConsulta(String normalizado) {
+        return trigramas(normalizado, false);
+    }
+
+    private static long trigramaFechamento(String normalizado) {
+        int n = normalizado.length();
+        char penultimo = n >= 2 ? normalizado.charAt(n - 2) : ' ';
+        return trigrama(penultimo, normalizado.charAt(n - 1), ' ');
+    }
+
+    private static long trigrama(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static long[] trigramas(String normalizado, boolean fecharUltimaPalavra) {
+        if (normalizado.isEmpty()) {
+            return new long[0];
+        }
+        String[] palavras = normalizado.split(" ");
+        long[] resultado = new long[normalizado.length() + palavras.length * 2];
+        int total = 0;
+        for (int p = 0; p < palavras.length; p++) {
+            String palavra = " " + palavras[p] + (fecharUltimaPalavra || p < palavras.length - 1 ? " " : "");
+            for (int i = 0; i + 3 <= palavra.length(); i++) {
+                resultado[total++] = trigrama(palavra.charAt(i), palavra.charAt(i + 1), palavra.charAt(i + 2));
+            }
+        }
+        long[] ordenados = Arrays.copyOf(resultado, total);
+        Arrays.sort(ordenados);
+        int unicos = 0;
+        for (int i = 0; i < ordenados.length; i++) {
+            if (i == 0 || ordenados[i] != ordenados[i - 1]) {
+                ordenados[unicos++] = ordenados[i];
+            }
+        }
+        return Arrays.copyOf(ordenados, unicos);
+    }
+
+    private static final class Postagens {
+        private int[] valores = new int[4];
+        private int tamanho;
+
+        void adicionar(int valor) {
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            valores[tamanho++] = valor;
+        }
+
+        void renumerar(int[] novoId) {
+            int escritos = 0;
+            for (int i = 0; i < tamanho; i++) {
+                int id = novoId[valores[i] >>> 1];
+                if (id >= 0) {
+                    valores[escritos++] = id << 1 | (valores[i] & 1);
+                }
+            }
+            tamanho = escritos;
+            if (valores.length > 16 && tamanho < valores.length / 4) {
+                valores = Arrays.copyOf(valores, Math.max(4, tamanho * 2));
+            }
+        }
+    }
+
+    // Pontuação por id reaproveitada entre consultas da mesma thread; só as posições tocadas são zeradas
+    private static final class Acumulador {
+        private int[] pontos = new int[0];
+        private int[] cobertura = new int[0];
+        private int[] ids = new int[64];
+        private int tocados;
+
+        void preparar(int capacidade) {
+            if (pontos.length < capacidade) {
+                pontos = new int[capacidade + capacidade / 4];
+                cobertura = new int[pontos.length];
+            }
+        }
+
+        void somar(int id, int peso) {
+            if (cobertura[id] == 0) {
+                if (tocados == ids.length) {
+                    ids = Arrays.copyOf(ids, tocados * 2);
+                }
+                ids[tocados++] = id;
+            }
+            cobertura[id]++;
+            pontos[id] += peso;
+        }
+
+        void bonificar(int id, int peso) {
+            if (cobertura[id] > 0) {
+                pontos[id] += peso;
+            }
+        }
+
+        void limpar() {
+            for (int i = 0; i < tocados; i++) {
+                pontos[ids[i]] = 0;
+                cobertura[ids[i]] = 0;
+            }
+            tocados = 0;
+            if (ids.length > 65536) {
+                ids = new int[64];
+            }
+        }
+    }
+
+    private static final class Candidato implements Comparable<Candidato> {
+        final int id;
+        final int pontos;
+        final int tamanhoNome;
+
+        Candidato(int id, int pontos, int tamanhoNome) {
+            this.id = id;
+            this.pontos = pontos;
+            this.tamanhoNome = tamanhoNome;
+        }
+
+        // O topo do heap é o pior candidato: menos pontos e, no empate, o nome mais longo
+        @Override
+        public int compareTo(Candidato outro) {
+            if (pontos != outro.pontos) {
+                return Integer.compare(pontos, outro.pontos);
+            }
+            return Integer.compare(outro.tamanhoNome, tamanhoNome);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.lucasmks.infrastructure.snapshot;
+
+import com.lucasmks.domain.model.SnapshotEstoque;
+import com.lucasmks.domain.repository.ProdutoRepository;
+import com.lucasmks.domain.repository.SnapshotEstoqueRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Grava periodicamente a quantidade em estoque de todos os produtos (uma "execução"), base da
+// consulta de estoque em uma data (ConsultarEstoqueEmUseCase). Com vários nós, cada um agenda a
+// tarefa, mas uma execução é pulada quando outra mais recente que o intervalo já existe no banco.
+public class TarefaSnapshotEstoque implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TarefaSnapshotEstoque.class);
+
+    private final ProdutoRepository produtoRepository;
+    private final SnapshotEstoqueRepository snapshotRepository;
+    private final Duration intervalo;
+    private final int retencaoDias;
+    private final int lote;
+    private ScheduledExecutorService agendador;
+
+    public TarefaSnapshotEstoque(ProdutoRepository produtoRepository, SnapshotEstoqueRepository snapshotRepository,
+                                 Duration intervalo, int retencaoDias, int lote) {
+        if (intervalo.isZero() || intervalo.isNegative()) {
+            throw new IllegalArgumentException("O intervalo dos snapshots de estoque deve ser positivo.");
+        }
+        this.produtoRepository = produtoRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.intervalo = intervalo;
+        this.retencaoDias = retencaoDias;
+        this.lote = Math.max(1, lote);
+    }
+
+    // A primeira execução acontece um intervalo depois da última gravada (ou logo, se não houver)
+    public void iniciar() {
+        LocalDateTime agora = LocalDateTime.now();
+        Duration espera = snapshotRepository.buscarExecucaoAnterior(agora)
+                .map(ultima -> intervalo.minus(Duration.between(ultima, agora)))
+                .filter(restante -> !restante.isNegative())
+                .orElse(Duration.ZERO);
+        agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snapshot-estoque");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(this::executarAgendada, espera.toMillis(), intervalo.toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Snapshots de estoque a cada {} min; primeira execução em {} min.", intervalo.toMinutes(), espera.toMinutes());
+    }
+
+    private void executarAgendada() {
+        try {
+            executar();
+        } catch (Exception e) {
+            // Uma falha não cancela o agendamento: a próxima execução tenta de novo
+            logger.error("Erro ao gravar snapshot de estoque: {}", e.getMessage(), e);
+        }
+    }
+
+    // Retorna quantos produtos foram gravados, ou -1 se a execução foi pulada
+    public int executar() {
+        LocalDateTime execucao = LocalDateTime.now();
+        // Tolerância de 1% do intervalo para o atraso do agendador não pular execuções do próprio nó
+        Optional<LocalDateTime> ultima = snapshotRepository.buscarExecucaoAnterior(execucao);
+        if (ultima.isPresent() && Duration.between(ultima.get(), execucao).compareTo(intervalo.multipliedBy(99).dividedBy(100)) < 0) {
+            logger.debug("Snapshot de estoque pulado: já existe a execução de {}.", ultima.get());
+            return -1;
+        }
+
+        long inicio = System.currentTimeMillis();
+        List<SnapshotEstoque> pendentes = new ArrayList<>(lote);
+        int[] gravados = {0};
+        produtoRepository.percorrerTodos(produto -> {
+            pendentes.add(new SnapshotEstoque(execucao, produto.getCodigoBarras(), produto.getQuantidade(), LocalDateTime.now()));
+            if (pendentes.size() == lote) {
+                snapshotRepository.salvarTodos(pendentes);
+                gravados[0] += pendentes.size();
+                pendentes.clear();
+            }
+        });
+        snapshotRepository.salvarTodos(pendentes);
+        gravados[0] += pendentes.size();
+
+        if (retencaoDias > 0) {
+            long removidos = snapshotRepository.removerAnteriores(execucao.minusDays(retencaoDias));
+            if (removidos > 0) {
+                logger.info("Snapshots de estoque com mais de {} dias removidos: {}.", retencaoDias, removidos);
+            }
+        }
+        logger.info("Snapshot de estoque gravado: {} produtos em {} ms.", gravados[0], System.currentTimeMillis() - inicio);
+        return gravados[0];
+    }
+
+    @Override
+    public void close() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.exception.BancoIndisponivelException;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.infrastructure.persistence.repository.ProdutoRepositoryAjustesCombinados;
+import com.lucasmks.infrastructure.repository.fake.ProdutoRepositoryFake;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da combinação de ajustes de estoque simultâneos no mesmo produto.
+ */
+@DisplayName("Ajustes de estoque combinados Testes")
+public class AjustesEstoqueCombinadosTest {
+
+    private static final String CODIGO = "789";
+
+    private final AtomicInteger gravacoes = new AtomicInteger();
+    private volatile CountDownLatch liberarPrimeira = new CountDownLatch(0);
+    private volatile RuntimeException falhaDepoisDaPrimeira;
+    private ProdutoRepositoryFake banco;
+    private ProdutoRepositoryAjustesCombinados repositorio;
+
+    @BeforeEach
+    void setUp() {
+        // Cada ajuste no "banco" leva um tempo, como uma ida ao MongoDB
+        banco = new ProdutoRepositoryFake() {
+            @Override
+            public synchronized Optional<Produto> ajustarQuantidade(String codigoBarras, int delta) {
+                if (gravacoes.incrementAndGet() == 1) {
+                    try {
+                        liberarPrimeira.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (falhaDepoisDaPrimeira != null && gravacoes.get() > 1) {
+                    throw falhaDepoisDaPrimeira;
+                }
+                return super.ajustarQuantidade(codigoBarras, delta);
+            }
+        };
+        banco.salvar(new Produto(CODIGO, "Refrigerante", "Bebidas", 400, 3.0, 5.0, "Fornecedor"));
+        repositorio = new ProdutoRepositoryAjustesCombinados(banco, 0, 1000);
+    }
+
+    @Test
+    @DisplayName("Saídas simultâneas no mesmo produto devem ser gravadas em menos idas ao banco, sem perder nenhuma")
+    void deveCombinarAjustesSimultaneos() throws Exception {
+        ExecutorService requisicoes = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Optional<Produto>>> resultados = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                resultados.add(requisicoes.submit(() -> repositorio.ajustarQuantidade(CODIGO, -1)));
+            }
+            for (Future<Optional<Produto>> resultado : resultados) {
+                assertTrue(resultado.get(10, TimeUnit.SECONDS).isPresent());
+            }
+        } finally {
+            requisicoes.shutdownNow();
+        }
+
+        assertEquals(0, banco.buscarPorCodigoBarras(CODIGO).orElseThrow().getQuantidade());
+        assertEquals(400, repositorio.getAjustes());
+        assertTrue(repositorio.getEscritas() < 400, "escritas: " + repositorio.getEscritas());
+        assertTrue(repositorio.getMaiorCombinacao() > 1);
+        assertEquals(0, repositorio.getFilasAtivas());
+        // Saldo esgotado: a próxima saída falha sozinha
+        assertTrue(repositorio.ajustarQuantidade(CODIGO, -1).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Se o total não couber no saldo, cada ajuste deve ser decidido sozinho, na ordem de chegada")
+    void deveDecidirCadaAjusteQuandoTotalFalha() throws Exception {
+        banco.buscarPorCodigoBarras(CODIGO).orElseThrow().setQuantidade(5);
+        liberarPrimeira = new CountDownLatch(1);
+        ExecutorService requisicoes = Executors.newFixedThreadPool(3);
+        try {
+            // A primeira saída fica presa no banco; as duas seguintes (total -6 para saldo 4) se acumulam
+            Future<Optional<Produto>> primeira = requisicoes.submit(() -> repositorio.ajustarQuantidade(CODIGO, -1));
+            aguardar(() -> gravacoes.get() == 1);
+            Future<Optional<Produto>> segunda = requisicoes.submit(() -> repositorio.ajustarQuantidade(CODIGO, -3));
+            Future<Optional<Produto>> terceira = requisicoes.submit(() -> repositorio.ajustarQuantidade(CODIGO, -3));
+            aguardar(() -> repositorio.getAjustes() == 3);
+            liberarPrimeira.countDown();
+
+            assertEquals(4, primeira.get(5, TimeUnit.SECONDS).orElseThrow().getQuantidade());
+            Optional<Produto> a = segunda.get(5, TimeUnit.SECONDS);
+            Optional<Produto> b = terceira.get(5, TimeUnit.SECONDS);
+            assertTrue(a.isPresent() != b.isPresent(), "exatamente uma das saídas de 3 cabe no saldo");
+            assertEquals(1, a.orElseGet(b::orElseThrow).getQuantidade());
+        } finally {
+            requisicoes.shutdownNow();
+        }
+        assertEquals(1, banco.buscarPorCodigoBarras(CODIGO).orElseThrow().getQuantidade());
+        // 1 (primeira) + 1 (total recusado) + 2 (uma a uma)
+        assertEquals(4, repositorio.getEscritas());
+    }
+
+    @Test
+    @DisplayName("Quem teve o ajuste combinado deve receber a mesma exceção da gravação (banco indisponível)")
+    void deveRepassarFalhaDaGravacaoCombinada() throws Exception {
+        liberarPrimeira = new CountDownLatch(1);
+        falhaDepoisDaPrimeira = new BancoIndisponivelException("banco indisponível");
+        ExecutorService requisicoes = Executors.newFixedThreadPool(3);
+        try {
+            Future<Optional<Produto>> primeira = requisicoes.submit(() -> repositorio.ajustarQuantidade(CODIGO, -1));
+            aguardar(() -> gravacoes.get() == 1);
+            Future<Optional<Produto>> segunda = requisicoes.submit(() -> repositorio.ajustarQuantidade(CODIGO, -1));
+            Future<Optional<Produto>> terceira = requisicoes.submit(() -> repositorio.ajustarQuantidade(CODIGO, -1));
+            aguardar(() -> repositorio.getAjustes() == 3);
+            liberarPrimeira.countDown();
+
+            assertTrue(primeira.get(5, TimeUnit.SECONDS).isPresent());
+            for (Future<Optional<Produto>> combinada : List.of(segunda, terceira)) {
+                ExecutionException erro = assertThrows(ExecutionException.class, () -> combinada.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(BancoIndisponivelException.class, erro.getCause());
+            }
+        } finally {
+            requisicoes.shutdownNow();
+        }
+        assertEquals(2, repositorio.getEscritas());
+        assertEquals(399, banco.buscarPorCodigoBarras(CODIGO).orElseThrow().getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Produto inexistente deve resultar em ajuste vazio")
+    void produtoInexistente() {
+        assertTrue(repositorio.ajustarQuantidade("000", 5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Filas de produtos sem ajustes em andamento não devem ficar no mapa")
+    void deveDescartarFilasVazias() {
+        for (int i = 0; i < 1000; i++) {
+            repositorio.ajustarQuantidade("789" + i, 1);
+        }
+        repositorio.ajustarQuantidade(CODIGO, -1);
+        assertEquals(0, repositorio.getFilasAtivas());
+        assertEquals(399, banco.buscarPorCodigoBarras(CODIGO).orElseThrow().getQuantidade());
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5000;
+        while (!condicao.getAsBoolean() && System.currentTimeMillis() < limite) {
+            Thread.sleep(2);
+        }
+        assertTrue(condicao.getAsBoolean());
+    }
+}
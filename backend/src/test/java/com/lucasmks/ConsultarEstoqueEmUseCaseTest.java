@@ -0,0 +1,144 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.exception.ProdutoNaoEncontradoException;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.PosicaoEstoque;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.SnapshotEstoque;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.usecase.ConsultarEstoqueEmUseCase;
+import com.lucasmks.infrastructure.repository.fake.MovimentacaoRepositoryFake;
+import com.lucasmks.infrastructure.repository.fake.ProdutoRepositoryFake;
+import com.lucasmks.infrastructure.repository.fake.SnapshotEstoqueRepositoryFake;
+import com.lucasmks.infrastructure.snapshot.TarefaSnapshotEstoque;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da reconstrução do estoque em uma data a partir de snapshots e movimentações.
+ */
+@DisplayName("ConsultarEstoqueEmUseCase Testes")
+public class ConsultarEstoqueEmUseCaseTest {
+
+    private static final LocalDateTime JULHO = LocalDateTime.of(2025, 7, 1, 0, 0);
+    private static final LocalDateTime EXECUCAO_1 = JULHO.plusDays(2);
+    private static final LocalDateTime EXECUCAO_2 = JULHO.plusDays(7);
+
+    private ProdutoRepositoryFake produtos;
+    private MovimentacaoRepositoryFake movimentacoes;
+    private SnapshotEstoqueRepositoryFake snapshots;
+    private ConsultarEstoqueEmUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        produtos = new ProdutoRepositoryFake();
+        movimentacoes = new MovimentacaoRepositoryFake();
+        snapshots = new SnapshotEstoqueRepositoryFake();
+        useCase = new ConsultarEstoqueEmUseCase(produtos, movimentacoes, snapshots);
+
+        // A: +10 (dia 1), +5 (dia 5), -3 (dia 10) = 12. B: +4 (dia 6) = 4
+        produtos.salvar(new Produto("A", "Arroz", "Alimentos", 12, 10.0, 15.0, "Fornecedor"));
+        produtos.salvar(new Produto("B", "Feijão", "Alimentos", 4, 8.0, 12.0, "Fornecedor"));
+        movimentacoes.salvar(new Movimentacao("A", 10, TipoMovimentacao.ENTRADA, "Compra", JULHO.plusHours(10)));
+        movimentacoes.salvar(new Movimentacao("A", 5, TipoMovimentacao.ENTRADA, "Compra", JULHO.plusDays(4).plusHours(10)));
+        movimentacoes.salvar(new Movimentacao("B", 4, TipoMovimentacao.ENTRADA, "Compra", JULHO.plusDays(5)));
+        movimentacoes.salvar(new Movimentacao("A", 3, TipoMovimentacao.SAIDA, "Venda", JULHO.plusDays(9)));
+    }
+
+    private void gravarSnapshots() {
+        snapshots.salvarTodos(List.of(
+                new SnapshotEstoque(EXECUCAO_1, "A", 10, EXECUCAO_1.plusSeconds(1)),
+                new SnapshotEstoque(EXECUCAO_2, "A", 15, EXECUCAO_2.plusSeconds(1)),
+                new SnapshotEstoque(EXECUCAO_2, "B", 4, EXECUCAO_2.plusSeconds(2))));
+    }
+
+    @Test
+    @DisplayName("Sem snapshots deve desfazer as movimentações a partir do estoque atual")
+    void deveReconstruirAPartirDoEstoqueAtual() {
+        assertEquals(10, useCase.executar("A", JULHO.plusDays(1)).getQuantidade());
+        assertEquals(0, useCase.executar("A", JULHO).getQuantidade());
+        // Movimentação exatamente no instante pedido já conta
+        assertEquals(15, useCase.executar(" A ", JULHO.plusDays(4).plusHours(10)).getQuantidade());
+        assertEquals(12, useCase.executar("A", LocalDateTime.now().plusDays(1)).getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Deve partir do snapshot mais próximo, anterior ou posterior à data")
+    void devePartirDoSnapshotMaisProximo() {
+        gravarSnapshots();
+
+        // Anterior (dia 3) mais perto: 10 + 0
+        PosicaoEstoque posicao = useCase.executar("A", JULHO.plusDays(4).plusHours(9));
+        assertEquals(10, posicao.getQuantidade());
+        assertEquals(EXECUCAO_1.plusSeconds(1), posicao.getReferencia());
+
+        // Anterior mais perto, somando a entrada do dia 5
+        assertEquals(15, useCase.executar("A", JULHO.plusDays(4).plusHours(11)).getQuantidade());
+
+        // Posterior (dia 8) mais perto: 15 - 0
+        posicao = useCase.executar("A", JULHO.plusDays(6));
+        assertEquals(15, posicao.getQuantidade());
+        assertEquals(EXECUCAO_2.plusSeconds(1), posicao.getReferencia());
+
+        // Posterior desfazendo a entrada de B do dia 6
+        assertEquals(0, useCase.executar("B", JULHO.plusDays(4).plusHours(23)).getQuantidade());
+
+        // Depois do último snapshot: 15 - 3
+        assertEquals(12, useCase.executar("A", JULHO.plusDays(12)).getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Catálogo deve partir da execução de snapshots mais próxima")
+    void deveReconstruirCatalogo() {
+        gravarSnapshots();
+
+        List<PosicaoEstoque> posicoes = useCase.executarCatalogo(JULHO.plusDays(4).plusHours(23));
+        assertEquals(2, posicoes.size());
+        assertEquals("A", posicoes.get(0).getCodigoBarras());
+        assertEquals(15, posicoes.get(0).getQuantidade());
+        assertEquals(0, posicoes.get(1).getQuantidade());
+
+        // Pela execução do dia 3, em que B ainda não existia
+        posicoes = useCase.executarCatalogo(JULHO.plusDays(3));
+        assertEquals(1, posicoes.size());
+        assertEquals(10, posicoes.get(0).getQuantidade());
+
+        // Sem snapshots por perto: estoque atual menos as movimentações posteriores
+        snapshots = new SnapshotEstoqueRepositoryFake();
+        useCase = new ConsultarEstoqueEmUseCase(produtos, movimentacoes, snapshots);
+        posicoes = useCase.executarCatalogo(JULHO.plusDays(1));
+        assertEquals(10, posicoes.get(0).getQuantidade());
+        assertEquals(0, posicoes.get(1).getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Deve validar parâmetros e rejeitar produto inexistente")
+    void deveValidar() {
+        assertThrows(IllegalArgumentException.class, () -> useCase.executar(" ", JULHO));
+        assertThrows(IllegalArgumentException.class, () -> useCase.executar("A", null));
+        assertThrows(IllegalArgumentException.class, () -> useCase.executarCatalogo(null));
+        assertThrows(ProdutoNaoEncontradoException.class, () -> useCase.executar("X", JULHO));
+    }
+
+    @Test
+    @DisplayName("A tarefa deve gravar uma execução por intervalo, em lotes")
+    void tarefaDeveGravarSnapshots() {
+        TarefaSnapshotEstoque tarefa = new TarefaSnapshotEstoque(produtos, snapshots, Duration.ofHours(1), 0, 1);
+
+        assertEquals(2, tarefa.executar());
+        List<SnapshotEstoque> gravados = snapshots.buscarTodos();
+        assertEquals(2, gravados.size());
+        assertEquals(gravados.get(0).getExecucao(), gravados.get(1).getExecucao());
+
+        // Já existe execução dentro do intervalo (deste ou de outro nó)
+        assertEquals(-1, tarefa.executar());
+        assertEquals(2, snapshots.buscarTodos().size());
+    }
+}
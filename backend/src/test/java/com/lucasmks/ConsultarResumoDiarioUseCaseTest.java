@@ -0,0 +1,113 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.ResumoDiario;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.repository.MovimentacaoRepository;
+import com.lucasmks.domain.usecase.ConsultarResumoDiarioUseCase;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoRepositoryResumoDiario;
+import com.lucasmks.infrastructure.persistence.repository.ResumoDiarioMongoRepositoryImpl;
+import com.lucasmks.infrastructure.repository.fake.MovimentacaoRepositoryFake;
+import com.lucasmks.infrastructure.repository.fake.ResumoDiarioRepositoryFake;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes dos resumos diários de movimentações (atualização a cada gravação e consulta por período).
+ */
+@DisplayName("ConsultarResumoDiarioUseCase Testes")
+public class ConsultarResumoDiarioUseCaseTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 7, 20);
+
+    private MovimentacaoRepositoryFake movimentacoes;
+    private MovimentacaoRepository repositorio;
+    private ConsultarResumoDiarioUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        movimentacoes = new MovimentacaoRepositoryFake();
+        ResumoDiarioRepositoryFake resumos = new ResumoDiarioRepositoryFake();
+        repositorio = new MovimentacaoRepositoryResumoDiario(movimentacoes, resumos);
+        useCase = new ConsultarResumoDiarioUseCase(resumos);
+    }
+
+    @Test
+    @DisplayName("Cada movimentação gravada deve ser somada ao resumo do produto no dia")
+    void deveSomarMovimentacoesPorProdutoEDia() {
+        repositorio.salvar(new Movimentacao("A", 10, TipoMovimentacao.ENTRADA, "Compra", DIA.atTime(8, 0)));
+        repositorio.salvar(new Movimentacao("A", 3, TipoMovimentacao.SAIDA, "Venda", DIA.atTime(12, 0)));
+        repositorio.salvar(new Movimentacao("A", 2, TipoMovimentacao.SAIDA, "Venda", DIA.atTime(23, 59)));
+        repositorio.salvar(new Movimentacao("A", 1, TipoMovimentacao.SAIDA, "Venda", DIA.plusDays(1).atStartOfDay()));
+        repositorio.salvar(new Movimentacao("B", 7, TipoMovimentacao.ENTRADA, "Compra", DIA.atTime(9, 0)));
+
+        assertEquals(5, movimentacoes.buscarTodasMovimentacoes().size());
+
+        List<ResumoDiario> resumos = useCase.executar(DIA, DIA.plusDays(1), null);
+        assertEquals(3, resumos.size());
+        ResumoDiario a = resumos.get(0);
+        assertEquals("A", a.getCodigoBarras());
+        assertEquals(DIA, a.getDia());
+        assertEquals(1, a.getQuantidadeEntradas());
+        assertEquals(10, a.getTotalEntradas());
+        assertEquals(2, a.getQuantidadeSaidas());
+        assertEquals(5, a.getTotalSaidas());
+        assertEquals("B", resumos.get(1).getCodigoBarras());
+        assertEquals(DIA.plusDays(1), resumos.get(2).getDia());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar por produto e período e validar as datas")
+    void deveFiltrarEValidar() {
+        repositorio.salvar(new Movimentacao("A", 1, TipoMovimentacao.ENTRADA, "Compra", DIA.atTime(8, 0)));
+        repositorio.salvar(new Movimentacao("B", 1, TipoMovimentacao.ENTRADA, "Compra", DIA.atTime(8, 0)));
+        repositorio.salvar(new Movimentacao("B", 1, TipoMovimentacao.ENTRADA, "Compra", DIA.plusDays(2).atTime(8, 0)));
+
+        List<ResumoDiario> resumos = useCase.executar(DIA, DIA.plusDays(1), " B ");
+        assertEquals(1, resumos.size());
+        assertEquals("B", resumos.get(0).getCodigoBarras());
+
+        assertThrows(IllegalArgumentException.class, () -> useCase.executar(DIA.plusDays(1), DIA, null));
+        assertThrows(IllegalArgumentException.class, () -> useCase.executar(null, DIA, null));
+    }
+
+    @Test
+    @DisplayName("Deve ler o documento de resumo gravado por $inc ou pela reconstrução")
+    void deveConverterDocumentoDeResumo() {
+        Document documento = new Document("codigoBarras", "A")
+                .append("dia", Date.from(DIA.atStartOfDay().toInstant(ZoneOffset.UTC)))
+                .append("totais", new Document("ENTRADA", new Document("movimentacoes", 2).append("quantidade", 15L))
+                        .append("SAIDA", new Document("movimentacoes", 1L).append("quantidade", 4)));
+
+        ResumoDiario resumo = ResumoDiarioMongoRepositoryImpl.paraDominio(documento);
+        assertEquals(DIA, resumo.getDia());
+        assertEquals(2, resumo.getQuantidadeEntradas());
+        assertEquals(15, resumo.getTotalEntradas());
+        assertEquals(1, resumo.getQuantidadeSaidas());
+        assertEquals(4, resumo.getTotalSaidas());
+    }
+
+    @Test
+    @DisplayName("Falha no resumo não deve desfazer nem impedir a gravação da movimentação")
+    void falhaNoResumoNaoAfetaGravacao() {
+        MovimentacaoRepository comFalha = new MovimentacaoRepositoryResumoDiario(movimentacoes, new ResumoDiarioRepositoryFake() {
+            @Override
+            public void registrar(Movimentacao movimentacao) {
+                throw new IllegalStateException("banco indisponível");
+            }
+        });
+
+        assertDoesNotThrow(() -> comFalha.salvar(new Movimentacao("A", 1, TipoMovimentacao.ENTRADA, "Compra", LocalDateTime.now())));
+        assertEquals(1, movimentacoes.buscarTodasMovimentacoes().size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.infrastructure.search.ContadorMotivos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes das sugestões de motivo ordenadas por frequência de uso.
+ */
+@DisplayName("ContadorMotivos Testes")
+public class ContadorMotivosTest {
+
+    private ContadorMotivos contador;
+
+    @BeforeEach
+    void setUp() {
+        contador = new ContadorMotivos();
+        contador.somar("Venda", TipoMovimentacao.SAIDA, 5);
+        contador.somar("Vencimento", TipoMovimentacao.SAIDA, 2);
+        contador.somar("Uso interno", TipoMovimentacao.SAIDA, 1);
+        contador.somar("Compra de fornecedor", TipoMovimentacao.ENTRADA, 3);
+    }
+
+    @Test
+    @DisplayName("Deve sugerir por prefixo, do mais para o menos usado, separando por tipo")
+    void deveSugerirPorPrefixoETipo() {
+        assertEquals(List.of("Venda", "Vencimento"), contador.sugerir("ve", TipoMovimentacao.SAIDA, 10));
+        assertTrue(contador.sugerir("ve", TipoMovimentacao.ENTRADA, 10).isEmpty());
+        assertEquals(List.of("Venda", "Compra de fornecedor", "Vencimento", "Uso interno"), contador.sugerir("", null, 10));
+        assertEquals(List.of("Uso interno"), contador.sugerir("USO IN", TipoMovimentacao.SAIDA, 10));
+    }
+
+    @Test
+    @DisplayName("Deve reordenar quando novas movimentações são gravadas")
+    void deveReordenarComNovasMovimentacoes() {
+        for (int i = 0; i < 4; i++) {
+            contador.accept(new Movimentacao("111", 1, TipoMovimentacao.SAIDA, "Vencimento", LocalDateTime.now()));
+        }
+
+        assertEquals(List.of("Vencimento", "Venda"), contador.sugerir("ven", TipoMovimentacao.SAIDA, 10));
+        assertEquals(List.of("Vencimento"), contador.sugerir("ven", TipoMovimentacao.SAIDA, 1));
+    }
+
+    @Test
+    @DisplayName("Motivos que diferem só em maiúsculas ou acentos devem virar uma sugestão, com a grafia mais usada")
+    void deveUnirGrafiasDoMesmoMotivo() {
+        contador.somar("uso interno", TipoMovimentacao.SAIDA, 1);
+        contador.somar("USO INTERNO", TipoMovimentacao.SAIDA, 3);
+        contador.somar("Usó interno", TipoMovimentacao.SAIDA, 1);
+
+        // 1 + 1 + 3 + 1 usos, acima de Venda (5)
+        assertEquals(List.of("USO INTERNO", "Venda", "Vencimento"), contador.sugerir("", TipoMovimentacao.SAIDA, 10));
+        assertEquals(List.of("USO INTERNO"), contador.sugerir("uso", TipoMovimentacao.SAIDA, 10));
+    }
+
+    @Test
+    @DisplayName("Recarga deve trocar as contagens e reaplicar as somas recebidas durante a carga")
+    void deveRecarregarMantendoSomasDaCarga() {
+        contador.recarregar(novo -> {
+            novo.somar("Vencimento", TipoMovimentacao.SAIDA, 4);
+            // Somada por outra thread durante a carga: as sugestões antigas seguem valendo
+            contador.somar("Venda", TipoMovimentacao.SAIDA, 1);
+            assertEquals(List.of("Venda", "Vencimento"), contador.sugerir("ven", TipoMovimentacao.SAIDA, 10));
+        });
+
+        assertEquals(List.of("Vencimento", "Venda"), contador.sugerir("ven", TipoMovimentacao.SAIDA, 10));
+        assertTrue(contador.sugerir("uso", TipoMovimentacao.SAIDA, 10).isEmpty());
+    }
+}
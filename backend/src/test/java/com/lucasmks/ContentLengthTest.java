@@ -0,0 +1,32 @@
+package com.lucasmks;
+
+import com.lucasmks.api.config.ApiConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do cálculo de Content-Length das respostas (tamanho igual ao que o Spark grava).
+ */
+@DisplayName("Content-Length das respostas Testes")
+public class ContentLengthTest {
+
+    @Test
+    @DisplayName("Deve bater com String.getBytes(UTF-8) em ASCII, acentos e emojis")
+    void deveCalcularTamanhoUtf8() {
+        for (String texto : new String[] {"", "{\"nome\":\"Caneta\"}", "Açúcar refinado", "€ 10", "Caixa 📦 grande"}) {
+            assertEquals(texto.getBytes(StandardCharsets.UTF_8).length, ApiConfig.tamanhoUtf8(texto), texto);
+        }
+    }
+
+    @Test
+    @DisplayName("Surrogate sem par deve contar como o '?' gravado pela codificação")
+    void deveContarSurrogateSemPar() {
+        for (String texto : new String[] {"a\ud800b", "a\udc00b", "fim\ud83d", "\udc00\ud800", "\ud83d📦"}) {
+            assertEquals(texto.getBytes(StandardCharsets.UTF_8).length, ApiConfig.tamanhoUtf8(texto), texto);
+        }
+    }
+}
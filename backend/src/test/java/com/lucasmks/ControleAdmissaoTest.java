@@ -0,0 +1,102 @@
+package com.lucasmks;
+
+import com.lucasmks.api.filter.ControleAdmissao;
+import com.lucasmks.api.filter.LimiteConcorrenciaAdaptativo;
+import com.lucasmks.api.filter.LimiteConcorrenciaAdaptativo.Prioridade;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do controle de admissão (limite adaptativo de concorrência e prioridade das rotas).
+ */
+@DisplayName("Controle de admissão Testes")
+public class ControleAdmissaoTest {
+
+    private static final long RAPIDA = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long LENTA = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    @DisplayName("Rotas de prioridade baixa devem ser recusadas antes das de prioridade alta")
+    void deveRecusarPrioridadeBaixaPrimeiro() {
+        LimiteConcorrenciaAdaptativo limite = new LimiteConcorrenciaAdaptativo(10, 2, 10, 100, 0.5);
+
+        // BAIXA usa no máximo 60% do limite
+        for (int i = 0; i < 6; i++) {
+            assertTrue(limite.tentarAdmitir(Prioridade.BAIXA));
+        }
+        assertFalse(limite.tentarAdmitir(Prioridade.BAIXA));
+        assertTrue(limite.tentarAdmitir(Prioridade.NORMAL));
+        assertTrue(limite.tentarAdmitir(Prioridade.NORMAL));
+        assertFalse(limite.tentarAdmitir(Prioridade.NORMAL));
+        assertTrue(limite.tentarAdmitir(Prioridade.ALTA));
+        assertTrue(limite.tentarAdmitir(Prioridade.ALTA));
+        assertFalse(limite.tentarAdmitir(Prioridade.ALTA));
+
+        // Uma vaga liberada volta a admitir
+        limite.concluir(RAPIDA, false);
+        assertTrue(limite.tentarAdmitir(Prioridade.ALTA));
+
+        LimiteConcorrenciaAdaptativo.Metricas metricas = limite.metricas();
+        assertEquals(10, metricas.getEmAndamento());
+        assertEquals(1, metricas.getRejeitadas().get(Prioridade.BAIXA));
+        assertEquals(1, metricas.getRejeitadas().get(Prioridade.ALTA));
+    }
+
+    @Test
+    @DisplayName("Latência acima do alvo deve reduzir o limite e latência baixa com o limite em uso deve aumentá-lo")
+    void deveAjustarLimitePelaLatencia() throws Exception {
+        LimiteConcorrenciaAdaptativo limite = new LimiteConcorrenciaAdaptativo(8, 2, 16, 50, 0.5);
+        Thread.sleep(60);
+
+        assertTrue(limite.tentarAdmitir(Prioridade.ALTA));
+        limite.concluir(LENTA, true);
+        assertEquals(4, limite.getLimite());
+
+        // Outra resposta lenta logo em seguida não reduz de novo (uma redução por intervalo)
+        assertTrue(limite.tentarAdmitir(Prioridade.ALTA));
+        limite.concluir(LENTA, true);
+        assertEquals(4, limite.getLimite());
+
+        Thread.sleep(60);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limite.tentarAdmitir(Prioridade.ALTA));
+            limite.concluir(LENTA, true);
+            Thread.sleep(60);
+        }
+        assertEquals(2, limite.getLimite(), "nunca abaixo do mínimo");
+
+        // Com todas as vagas ocupadas e respostas rápidas, o limite volta a crescer
+        for (int i = 0; i < 40; i++) {
+            while (limite.tentarAdmitir(Prioridade.ALTA)) {
+                // ocupa todas as vagas
+            }
+            int ocupadas = limite.getEmAndamento();
+            for (int j = 0; j < ocupadas; j++) {
+                limite.concluir(RAPIDA, true);
+            }
+        }
+        assertTrue(limite.getLimite() > 2);
+        assertTrue(limite.getLimite() <= 16);
+    }
+
+    @Test
+    @DisplayName("Deve classificar as rotas por prioridade")
+    void deveClassificarRotas() {
+        assertEquals(Prioridade.ALTA, ControleAdmissao.classificar("GET", "/api/produtos/7891234567890"));
+        assertEquals(Prioridade.ALTA, ControleAdmissao.classificar("PUT", "/api/produtos/789/adicionarEstoque"));
+        assertEquals(Prioridade.ALTA, ControleAdmissao.classificar("PUT", "/api/produtos/789/removerEstoque"));
+        assertEquals(Prioridade.NORMAL, ControleAdmissao.classificar("GET", "/api/produtos"));
+        assertEquals(Prioridade.NORMAL, ControleAdmissao.classificar("GET", "/api/produtos/busca"));
+        assertEquals(Prioridade.NORMAL, ControleAdmissao.classificar("PUT", "/api/produtos/789"));
+        assertEquals(Prioridade.BAIXA, ControleAdmissao.classificar("GET", "/api/historico/periodo"));
+        assertEquals(Prioridade.BAIXA, ControleAdmissao.classificar("GET", "/api/exportacao/produtos"));
+        assertEquals(Prioridade.BAIXA, ControleAdmissao.classificar("POST", "/api/produtos/importacao"));
+        assertNull(ControleAdmissao.classificar("GET", "/api/health"));
+        assertNull(ControleAdmissao.classificar("GET", "/api/stream/estoque"));
+        assertNull(ControleAdmissao.classificar("OPTIONS", "/api/produtos"));
+    }
+}
@@ -0,0 +1,208 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.event.ProdutoEventListener;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.infrastructure.database.MongoConnection;
+import com.lucasmks.infrastructure.event.DespachanteAlteracoes;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.lucasmks.infrastructure.persistence.mapper.MovimentacaoMapper;
+import com.lucasmks.infrastructure.persistence.mapper.ProdutoMapper;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonArray;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.codecs.DecoderContext;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do repasse dos eventos do change stream às estruturas em memória, sem replica set.
+ */
+@DisplayName("Despacho de alterações de outros nós Testes")
+public class DespachanteAlteracoesTest {
+
+    private static final BsonTimestamp CARGA = new BsonTimestamp(1000, 1);
+
+    private final List<String> eventos = new ArrayList<>();
+    private final List<Movimentacao> movimentacoes = new ArrayList<>();
+    private final ProdutoEventListener ouvinte = new ProdutoEventListener() {
+        @Override
+        public void aoCadastrar(Produto produto) {
+            eventos.add("cadastro " + produto.getCodigoBarras() + " " + produto.getQuantidade());
+        }
+
+        @Override
+        public void aoEditar(Produto produto) {
+            eventos.add("edicao " + produto.getCodigoBarras() + " " + produto.getQuantidade());
+        }
+
+        @Override
+        public void aoRemover(String codigoBarras) {
+            eventos.add("remocao " + codigoBarras);
+        }
+    };
+
+    private DespachanteAlteracoes despachante;
+
+    @BeforeEach
+    void setUp() {
+        despachante = despachante(LayoutMovimentacoes.DOCUMENTOS);
+    }
+
+    private DespachanteAlteracoes despachante(LayoutMovimentacoes layout) {
+        DespachanteAlteracoes novo = new DespachanteAlteracoes("no-1", layout, ouvinte, movimentacoes::add,
+                new ProdutoMapper(), new MovimentacaoMapper(), MongoConnection.codecs());
+        novo.recarregado(CARGA, Map.of());
+        return novo;
+    }
+
+    @Test
+    @DisplayName("Produtos e movimentações de outro nó devem chegar aos ouvintes")
+    void deveRepassarEventosDeOutroNo() {
+        ObjectId id = new ObjectId();
+        processar(despachante, evento("insert", "produtos", id, produto("789", 10, "no-2"), 1001));
+        processar(despachante, evento("update", "produtos", id, produto("789", 7, "no-2"), 1002));
+        processar(despachante, evento("insert", "movimentacoes", new ObjectId(), movimentacao("789", 3, "no-2"), 1002));
+
+        assertEquals(List.of("cadastro 789 10", "edicao 789 7"), eventos);
+        assertEquals(1, movimentacoes.size());
+        assertEquals(TipoMovimentacao.SAIDA, movimentacoes.get(0).getTipo());
+        assertEquals(3, movimentacoes.get(0).getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Escritas do próprio nó e eventos até a carga devem ser ignorados")
+    void deveIgnorarProprioNoECarga() {
+        processar(despachante, evento("insert", "produtos", new ObjectId(), produto("111", 1, "no-1"), 1001));
+        processar(despachante, evento("insert", "movimentacoes", new ObjectId(), movimentacao("111", 1, "no-1"), 1001));
+        processar(despachante, evento("insert", "produtos", new ObjectId(), produto("222", 1, "no-2"), 1000));
+
+        assertTrue(eventos.isEmpty());
+        assertTrue(movimentacoes.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Remoção deve ser resolvida pelo _id: da carga ou de um evento anterior, mesmo do próprio nó")
+    void deveResolverRemocaoPeloId() {
+        ObjectId daCarga = new ObjectId();
+        ObjectId doProprioNo = new ObjectId();
+        despachante.recarregado(CARGA, Map.of(new BsonObjectId(daCarga), "100"));
+
+        processar(despachante, evento("insert", "produtos", doProprioNo, produto("200", 1, "no-1"), 1001));
+        processar(despachante, evento("delete", "produtos", daCarga, null, 1002));
+        processar(despachante, evento("delete", "produtos", doProprioNo, null, 1003));
+        // Desconhecido ou já removido: nada a repassar
+        processar(despachante, evento("delete", "produtos", daCarga, null, 1004));
+        processar(despachante, evento("delete", "produtos", new ObjectId(), null, 1005));
+
+        assertEquals(List.of("remocao 100", "remocao 200"), eventos);
+    }
+
+    @Test
+    @DisplayName("Layout em buckets: inserção traz todos os itens e atualização só os novos")
+    void deveRepassarItensDeBuckets() {
+        DespachanteAlteracoes buckets = despachante(LayoutMovimentacoes.BUCKETS);
+        BsonDocument item = movimentacao("789", 2, "no-2").append("id", new BsonString("m1"));
+        BsonDocument doProprioNo = movimentacao("789", 9, "no-1").append("id", new BsonString("m2"));
+        BsonDocument bucket = new BsonDocument("codigoBarras", new BsonString("789"))
+                .append("movimentacoes", new BsonArray(List.of(item, doProprioNo)));
+        processar(buckets, evento("insert", "movimentacoes_buckets", new ObjectId(), bucket, 1001));
+
+        BsonDocument atualizacao = evento("update", "movimentacoes_buckets", new ObjectId(),
+                new BsonDocument("codigoBarras", new BsonString("789")), 1002);
+        atualizacao.append("updateDescription", new BsonDocument("updatedFields",
+                new BsonDocument("movimentacoes.2", movimentacao("789", 4, "no-2").append("id", new BsonString("m3"))))
+                .append("removedFields", new BsonArray()));
+        processar(buckets, atualizacao);
+
+        assertEquals(List.of("m1", "m3"), movimentacoes.stream().map(Movimentacao::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Histórico perdido (286), erro fatal (280) e invalidate devem recomeçar o stream; os demais erros não")
+    void deveDetectarEventosPerdidos() {
+        assertNotNull(DespachanteAlteracoes.eventosPerdidos(erro(286, "ChangeStreamHistoryLost")));
+        assertNotNull(DespachanteAlteracoes.eventosPerdidos(erro(280, "ChangeStreamFatalError")));
+        assertNull(DespachanteAlteracoes.eventosPerdidos(erro(11600, "InterruptedAtShutdown")));
+        assertNull(DespachanteAlteracoes.eventosPerdidos(new MongoSocketException("conexão perdida", new ServerAddress())));
+
+        for (String operacao : List.of("invalidate", "drop", "rename", "dropDatabase")) {
+            assertNotNull(DespachanteAlteracoes.eventosPerdidos(decodificar(evento(operacao, "produtos", null, null, 1001))), operacao);
+        }
+        assertNull(DespachanteAlteracoes.eventosPerdidos(decodificar(evento("insert", "produtos", new ObjectId(), produto("1", 1, "no-2"), 1001))));
+    }
+
+    private static MongoException erro(int codigo, String nome) {
+        return new MongoCommandException(new BsonDocument("ok", new BsonInt32(0)).append("code", new BsonInt32(codigo))
+                .append("codeName", new BsonString(nome)).append("errmsg", new BsonString(nome)), new ServerAddress());
+    }
+
+    private static BsonDocument produto(String codigo, int quantidade, String origem) {
+        return new BsonDocument("codigoBarras", new BsonString(codigo))
+                .append("nome", new BsonString("Produto " + codigo))
+                .append("categoria", new BsonString("Geral"))
+                .append("quantidade", new BsonInt32(quantidade))
+                .append("fornecedor", new BsonString("Fornecedor"))
+                .append("origem", new BsonString(origem));
+    }
+
+    private static BsonDocument movimentacao(String codigo, int quantidade, String origem) {
+        return new BsonDocument("codigoBarras", new BsonString(codigo))
+                .append("quantidade", new BsonInt32(quantidade))
+                .append("tipo", new BsonString("SAIDA"))
+                .append("motivo", new BsonString("Venda"))
+                .append("dataHora", new BsonDateTime(LocalDateTime.of(2025, 7, 20, 10, 0).toInstant(ZoneOffset.UTC).toEpochMilli()))
+                .append("origem", new BsonString(origem));
+    }
+
+    // Evento no formato entregue pelo servidor
+    private static BsonDocument evento(String operacao, String colecao, ObjectId id, BsonDocument documento, int segundos) {
+        BsonDocument evento = new BsonDocument("_id", new BsonDocument("_data", new BsonString("token-" + segundos)))
+                .append("operationType", new BsonString(operacao))
+                .append("clusterTime", new BsonTimestamp(segundos, 1))
+                .append("ns", new BsonDocument("db", new BsonString("estoque")).append("coll", new BsonString(colecao)));
+        if (id != null) {
+            BsonValue chave = new BsonObjectId(id);
+            evento.append("documentKey", new BsonDocument("_id", chave));
+            if (documento != null) {
+                documento = documento.clone();
+                documento.put("_id", chave);
+            }
+        }
+        if (documento != null) {
+            evento.append("fullDocument", documento);
+        }
+        return evento;
+    }
+
+    private static void processar(DespachanteAlteracoes despachante, BsonDocument evento) {
+        despachante.processar(decodificar(evento));
+    }
+
+    private static ChangeStreamDocument<BsonDocument> decodificar(BsonDocument evento) {
+        return ChangeStreamDocument.createCodec(BsonDocument.class, MongoConnection.codecs())
+                .decode(new BsonDocumentReader(evento), DecoderContext.builder().build());
+    }
+}
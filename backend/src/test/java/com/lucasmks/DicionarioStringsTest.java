@@ -0,0 +1,46 @@
+package com.lucasmks;
+
+import com.lucasmks.infrastructure.persistence.intern.DicionarioStrings;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da canonização de strings de baixa cardinalidade.
+ */
+@DisplayName("DicionarioStrings Testes")
+public class DicionarioStringsTest {
+
+    @Test
+    @DisplayName("Deve retornar a mesma instância para valores iguais")
+    void deveRetornarMesmaInstancia() {
+        DicionarioStrings dicionario = new DicionarioStrings("motivo", 10);
+
+        String primeiro = dicionario.canonizar(new String("Venda"));
+        String segundo = dicionario.canonizar(new String("Venda"));
+
+        assertSame(primeiro, segundo);
+        assertEquals(1, dicionario.tamanho());
+        assertEquals(1, dicionario.acertos());
+        assertNull(dicionario.canonizar(null));
+    }
+
+    @Test
+    @DisplayName("Deve se desativar quando a cardinalidade ultrapassa o limite")
+    void deveDesativarQuandoCardinalidadeExplode() {
+        DicionarioStrings dicionario = new DicionarioStrings("fornecedor", 3);
+        for (int i = 0; i < 3; i++) {
+            dicionario.canonizar("Fornecedor " + i);
+        }
+        assertTrue(dicionario.isAtivo());
+
+        String valor = new String("Fornecedor 99");
+        assertSame(valor, dicionario.canonizar(valor));
+
+        assertFalse(dicionario.isAtivo());
+        assertEquals(0, dicionario.tamanho(), "Entradas devem ser liberadas ao desativar");
+        String outro = new String("Fornecedor 0");
+        assertSame(outro, dicionario.canonizar(outro), "Depois de desativado, o valor é devolvido como veio");
+    }
+}
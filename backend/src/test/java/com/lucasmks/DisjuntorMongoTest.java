@@ -0,0 +1,308 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.concurrency.Prazo;
+import com.lucasmks.domain.exception.BancoIndisponivelException;
+import com.lucasmks.domain.model.FiltroProdutos;
+import com.lucasmks.domain.model.Pagina;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.repository.ProdutoRepository;
+import com.lucasmks.domain.usecase.BuscarProdutoUseCase;
+import com.lucasmks.domain.usecase.ListarTodosProdutosUseCase;
+import com.lucasmks.infrastructure.persistence.repository.ProdutoRepositoryDisjuntor;
+import com.lucasmks.infrastructure.repository.fake.ProdutoRepositoryFake;
+import com.lucasmks.infrastructure.resilience.Degradacao;
+import com.lucasmks.infrastructure.resilience.Disjuntor;
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do disjuntor do banco (abertura, recusa imediata, sondas) e das leituras servidas pela cópia.
+ */
+@DisplayName("Disjuntor do MongoDB Testes")
+public class DisjuntorMongoTest {
+
+    private static final long ABERTO_MS = 5000;
+
+    private final AtomicLong relogio = new AtomicLong();
+    private BancoInstavel banco;
+    private Disjuntor disjuntor;
+    private ProdutoRepositoryDisjuntor repositorio;
+
+    @BeforeEach
+    void setUp() {
+        banco = new BancoInstavel();
+        disjuntor = new Disjuntor("teste", 3, 10, 5, 0.5, 1000, ABERTO_MS, 1, Disjuntor::falhaDoMongo, relogio::get);
+        repositorio = new ProdutoRepositoryDisjuntor(banco, disjuntor);
+    }
+
+    @AfterEach
+    void limpar() {
+        Degradacao.limpar();
+    }
+
+    @Test
+    @DisplayName("Deve abrir após falhas seguidas e recusar gravações sem ir ao banco")
+    void deveAbrirERecusarGravacoes() {
+        repositorio.salvar(produto("A", 10));
+        banco.fora = true;
+        for (int i = 0; i < 3; i++) {
+            assertThrows(RuntimeException.class, () -> repositorio.salvar(produto("B", 1)));
+        }
+        assertEquals(Disjuntor.Estado.ABERTO, disjuntor.getEstado());
+
+        int chamadas = banco.chamadas.get();
+        assertThrows(BancoIndisponivelException.class, () -> repositorio.salvar(produto("B", 1)));
+        assertThrows(BancoIndisponivelException.class, () -> repositorio.ajustarQuantidade("A", 5));
+        assertEquals(chamadas, banco.chamadas.get());
+        assertTrue(Degradacao.recusada());
+        assertEquals(5, disjuntor.segundosParaSonda());
+
+        // Erros do próprio pedido não abrem o disjuntor
+        Disjuntor outro = new Disjuntor("outro", 1, 10, 5, 0.5, 1000, ABERTO_MS, 1, Disjuntor::falhaDoMongo, relogio::get);
+        assertThrows(IllegalArgumentException.class, () -> outro.executar(() -> {
+            throw new IllegalArgumentException("chave duplicada");
+        }));
+        assertEquals(Disjuntor.Estado.FECHADO, outro.getEstado());
+    }
+
+    @Test
+    @DisplayName("Com o banco fora, busca e listagem devem usar a última cópia e marcar a resposta como desatualizada")
+    void deveServirCopiaDesatualizada() {
+        banco.salvar(produto("A", 10));
+        banco.salvar(produto("B", 20));
+        ListarTodosProdutosUseCase listar = new ListarTodosProdutosUseCase(repositorio);
+        BuscarProdutoUseCase buscar = new BuscarProdutoUseCase(repositorio);
+        assertEquals(2, listar.executar().size());
+        repositorio.ajustarQuantidade("A", -3);
+        assertFalse(Degradacao.copiaDesatualizada());
+
+        banco.fora = true;
+        Produto a = buscar.executar("A");
+        assertEquals(7, a.getQuantidade());
+        assertTrue(Degradacao.copiaDesatualizada());
+        assertFalse(repositorio.existePorCodigoBarras("Z"));
+
+        // A cópia não muda com o objeto devolvido
+        a.setQuantidade(0);
+        assertEquals(7, buscar.executar("A").getQuantidade());
+
+        FiltroProdutos filtro = new FiltroProdutos();
+        filtro.setOrdenarPor("quantidade");
+        filtro.setDecrescente(true);
+        Pagina<Produto> pagina = listar.executar(filtro);
+        assertEquals(List.of("B", "A"), pagina.getItens().stream().map(Produto::getCodigoBarras).toList());
+        assertEquals(2, listar.executar().size());
+    }
+
+    @Test
+    @DisplayName("Sem cópia completa, produto nunca visto deve propagar a falha do banco")
+    void semCopiaDevePropagarFalha() {
+        banco.salvar(produto("A", 10));
+        banco.fora = true;
+        assertThrows(MongoTimeoutException.class, () -> repositorio.buscarPorCodigoBarras("A"));
+        assertThrows(MongoTimeoutException.class, () -> repositorio.buscarTodos());
+        assertFalse(Degradacao.copiaDesatualizada());
+    }
+
+    @Test
+    @DisplayName("Recarga da cópia deve refletir alterações e remoções feitas fora deste nó, e falhar sem o banco")
+    void deveRecarregarCopia() {
+        banco.salvar(produto("A", 10));
+        banco.salvar(produto("B", 20));
+        repositorio.buscarTodos();
+        // Alterações de outro nó que não passaram por este decorador
+        banco.atualizar(produto("A", 15));
+        banco.remover("B");
+
+        assertEquals(1, repositorio.recarregarCopia().size());
+        assertEquals(1, repositorio.getProdutosNaCopia());
+
+        banco.fora = true;
+        assertThrows(MongoTimeoutException.class, () -> repositorio.recarregarCopia());
+        assertEquals(15, repositorio.buscarPorCodigoBarras("A").orElseThrow().getQuantidade());
+        assertTrue(repositorio.buscarPorCodigoBarras("B").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Semiaberto: sonda com falha deve reabrir e sonda com sucesso deve fechar")
+    void deveDetectarRecuperacao() {
+        banco.fora = true;
+        for (int i = 0; i < 3; i++) {
+            assertThrows(RuntimeException.class, () -> repositorio.buscarPorCodigosBarras(List.of("A")));
+        }
+        assertEquals(Disjuntor.Estado.ABERTO, disjuntor.getEstado());
+
+        relogio.addAndGet(TimeUnit.MILLISECONDS.toNanos(ABERTO_MS));
+        assertThrows(MongoTimeoutException.class, () -> repositorio.buscarPorCodigosBarras(List.of("A")));
+        assertEquals(Disjuntor.Estado.ABERTO, disjuntor.getEstado());
+        assertThrows(BancoIndisponivelException.class, () -> repositorio.salvar(produto("A", 1)));
+
+        banco.fora = false;
+        relogio.addAndGet(TimeUnit.MILLISECONDS.toNanos(ABERTO_MS));
+        repositorio.salvar(produto("A", 1));
+        assertEquals(Disjuntor.Estado.FECHADO, disjuntor.getEstado());
+        assertEquals(Optional.of(1), repositorio.buscarPorCodigoBarras("A").map(Produto::getQuantidade));
+
+        // Chamadas lentas também contam como falha
+        banco.lentidaoMs = 2000;
+        for (int i = 0; i < 3; i++) {
+            repositorio.existePorCodigoBarras("A");
+        }
+        assertEquals(Disjuntor.Estado.ABERTO, disjuntor.getEstado());
+        assertEquals(3, disjuntor.metricas().getLentas());
+    }
+
+    @Test
+    @DisplayName("maxTime excedido não deve abrir o disjuntor; lentidão conta mesmo dentro de um prazo longo")
+    void naoDeveContarPrazoDoCliente() {
+        banco.erro = new MongoExecutionTimeoutException(50, "operation exceeded time limit");
+        for (int i = 0; i < 5; i++) {
+            assertThrows(MongoExecutionTimeoutException.class, () -> repositorio.existePorCodigoBarras("A"));
+        }
+        assertEquals(Disjuntor.Estado.FECHADO, disjuntor.getEstado());
+        assertEquals(0, disjuntor.metricas().getFalhas());
+
+        // Listagens completas crescem com o volume e não são medidas
+        banco.erro = null;
+        banco.lentidaoMs = 2000;
+        for (int i = 0; i < 5; i++) {
+            repositorio.buscarTodos();
+        }
+        assertEquals(Disjuntor.Estado.FECHADO, disjuntor.getEstado());
+        assertEquals(0, disjuntor.metricas().getLentas());
+
+        try (Prazo.Escopo prazo = Prazo.abrir(30000)) {
+            for (int i = 0; i < 3; i++) {
+                repositorio.existePorCodigoBarras("A");
+            }
+        }
+        assertEquals(Disjuntor.Estado.ABERTO, disjuntor.getEstado());
+        assertEquals(3, disjuntor.metricas().getLentas());
+    }
+
+    @Test
+    @DisplayName("Banco travado: chamadas presas devem abrir o disjuntor antes de terminar")
+    void deveAbrirComChamadasPresas() throws Exception {
+        banco.travar = new CountDownLatch(1);
+        ExecutorService requisicoes = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> presas = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                String codigo = "P" + i;
+                presas.add(requisicoes.submit(() -> repositorio.salvar(produto(codigo, 1))));
+            }
+            long limite = System.currentTimeMillis() + 5000;
+            while (banco.chamadas.get() < 3 && System.currentTimeMillis() < limite) {
+                Thread.sleep(2);
+            }
+            assertEquals(3, banco.chamadas.get());
+            assertEquals(Disjuntor.Estado.FECHADO, disjuntor.getEstado());
+
+            // Nenhuma das três terminou, mas já passaram de lentaMs: a próxima chamada as conta
+            relogio.addAndGet(TimeUnit.MILLISECONDS.toNanos(2000));
+            assertThrows(BancoIndisponivelException.class, () -> repositorio.ajustarQuantidade("P0", 1));
+            assertEquals(Disjuntor.Estado.ABERTO, disjuntor.getEstado());
+            assertEquals(3, disjuntor.metricas().getLentas());
+            assertEquals(3, banco.chamadas.get());
+
+            // Quando o banco solta as presas, elas não contam de novo
+            banco.travar.countDown();
+            for (Future<?> presa : presas) {
+                presa.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(3, disjuntor.metricas().getChamadas());
+        } finally {
+            banco.travar.countDown();
+            requisicoes.shutdownNow();
+        }
+    }
+
+    private static Produto produto(String codigo, int quantidade) {
+        return new Produto(codigo, "Produto " + codigo, "Geral", quantidade, 1.0, 2.0, "Fornecedor");
+    }
+
+    // Fake que simula o banco fora do ar (timeout do driver), lento (avançando o relógio), travado
+    // (esperando `travar`) ou lançando `erro`
+    private class BancoInstavel extends ProdutoRepositoryFake {
+        volatile boolean fora;
+        volatile long lentidaoMs;
+        volatile RuntimeException erro;
+        volatile CountDownLatch travar = new CountDownLatch(0);
+        final AtomicInteger chamadas = new AtomicInteger();
+
+        private void chamar() {
+            chamadas.incrementAndGet();
+            try {
+                travar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            relogio.addAndGet(TimeUnit.MILLISECONDS.toNanos(lentidaoMs));
+            if (fora) {
+                throw new MongoTimeoutException("Timed out while waiting for a server");
+            }
+            if (erro != null) {
+                throw erro;
+            }
+        }
+
+        @Override
+        public void salvar(Produto produto) {
+            chamar();
+            super.salvar(produto);
+        }
+
+        @Override
+        public Optional<Produto> buscarPorCodigoBarras(String codigoBarras) {
+            chamar();
+            return super.buscarPorCodigoBarras(codigoBarras);
+        }
+
+        @Override
+        public boolean existePorCodigoBarras(String codigoBarras) {
+            chamar();
+            return super.existePorCodigoBarras(codigoBarras);
+        }
+
+        @Override
+        public List<Produto> buscarTodos() {
+            chamar();
+            return super.buscarTodos();
+        }
+
+        @Override
+        public List<Produto> buscarPorCodigosBarras(List<String> codigosBarras) {
+            chamar();
+            return super.buscarPorCodigosBarras(codigosBarras);
+        }
+
+        @Override
+        public Pagina<Produto> buscarPagina(FiltroProdutos filtro) {
+            chamar();
+            return super.buscarPagina(filtro);
+        }
+
+        @Override
+        public Optional<Produto> ajustarQuantidade(String codigoBarras, int delta) {
+            chamar();
+            return super.ajustarQuantidade(codigoBarras, delta);
+        }
+    }
+}
@@ -36,6 +36,7 @@ class EditarProdutoUseCaseTest {
         Produto produtoAtualizado = new Produto(codigoBarras, "Produto Atualizado", "Nova Categoria", 15, 6.0, 12.0, "Novo Fornecedor");
 
         when(repository.existePorCodigoBarras(codigoBarras)).thenReturn(true);
+        when(repository.atualizarDados(produtoOriginal)).thenReturn(java.util.Optional.of(produtoAtualizado));
         when(repository.buscarPorCodigoBarras(codigoBarras)).thenReturn(java.util.Optional.of(produtoAtualizado));
 
         // Act
@@ -52,7 +53,7 @@ class EditarProdutoUseCaseTest {
         assertEquals(codigoBarras, resultado.getCodigoBarras());
 
         verify(repository).existePorCodigoBarras(codigoBarras);
-        verify(repository).atualizar(produtoAtualizado);
+        verify(repository).atualizarDados(produtoOriginal);
         verify(repository).buscarPorCodigoBarras(codigoBarras);
     }
 
@@ -100,7 +101,7 @@ class EditarProdutoUseCaseTest {
         });
 
         verify(repository).existePorCodigoBarras(codigoBarras);
-        verify(repository, never()).atualizar(any());
+        verify(repository, never()).atualizarDados(any());
     }
 
     @Test
@@ -0,0 +1,83 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.exception.ConflitoVersaoException;
+import com.lucasmks.domain.exception.ProdutoNaoEncontradoException;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.usecase.EditarProdutoUseCase;
+import com.lucasmks.infrastructure.repository.fake.ProdutoRepositoryFake;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do controle de concorrência otimista na edição de produtos.
+ */
+@DisplayName("EditarProdutoUseCase com versão Testes")
+public class EditarProdutoVersaoTest {
+
+    private ProdutoRepositoryFake repository;
+    private EditarProdutoUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ProdutoRepositoryFake();
+        useCase = new EditarProdutoUseCase(repository);
+        repository.salvar(produto("Original"));
+    }
+
+    private Produto produto(String nome) {
+        return new Produto("111", nome, "Categoria", 10, 5.0, 10.0, "Fornecedor");
+    }
+
+    @Test
+    @DisplayName("Deve editar e incrementar a versão quando a versão esperada confere")
+    void deveEditarComVersaoCorreta() {
+        Produto editado = useCase.executar("111", produto("Primeira edição"), 1L);
+
+        assertEquals(2, editado.getVersao());
+        assertEquals("Primeira edição", repository.buscarPorCodigoBarras("111").orElseThrow().getNome());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar a segunda de duas edições feitas sobre a mesma versão")
+    void deveRejeitarEdicaoComVersaoDesatualizada() {
+        useCase.executar("111", produto("Edição A"), 1L);
+
+        assertThrows(ConflitoVersaoException.class, () -> useCase.executar("111", produto("Edição B"), 1L));
+        Produto atual = repository.buscarPorCodigoBarras("111").orElseThrow();
+        assertEquals("Edição A", atual.getNome());
+        assertEquals(2, atual.getVersao());
+    }
+
+    @Test
+    @DisplayName("Sem versão, a edição deve gravar os dados cadastrais e manter a quantidade em estoque")
+    void deveEditarSemVersaoMantendoQuantidade() {
+        useCase.executar("111", produto("Edição A"), 1L);
+        repository.ajustarQuantidade("111", -4);
+
+        // Formulário carregado antes da saída: ainda com quantidade 10
+        Produto editado = useCase.executar("111", produto("Edição B"));
+
+        assertEquals("Edição B", editado.getNome());
+        assertEquals(6, editado.getQuantidade());
+        assertEquals(4, editado.getVersao());
+        assertEquals(6, repository.buscarPorCodigoBarras("111").orElseThrow().getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Com versão, a edição pode alterar a quantidade")
+    void deveEditarQuantidadeComVersao() {
+        Produto novo = produto("Inventário");
+        novo.setQuantidade(7);
+
+        assertEquals(7, useCase.executar("111", novo, 1L).getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção de não encontrado, e não de conflito, para produto inexistente")
+    void deveLancarNaoEncontradoComVersao() {
+        assertThrows(ProdutoNaoEncontradoException.class, () -> useCase.executar("999", produto("X"), 1L));
+    }
+}
@@ -0,0 +1,153 @@
+package com.lucasmks;
+
+import com.lucasmks.api.exportacao.ExportadorDados;
+import com.lucasmks.api.exportacao.PedidoExportacao;
+import com.lucasmks.api.exportacao.SpoolExportacao;
+import com.lucasmks.api.importacao.LeitorCsvProdutos;
+import com.lucasmks.domain.model.LinhaImportacao;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.domain.usecase.ExportarDadosUseCase;
+import com.lucasmks.infrastructure.repository.fake.MovimentacaoRepositoryFake;
+import com.lucasmks.infrastructure.repository.fake.ProdutoRepositoryFake;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da exportação de produtos e movimentações (streaming e spool assíncrono).
+ */
+@DisplayName("ExportarDadosUseCase Testes")
+public class ExportarDadosUseCaseTest {
+
+    @TempDir
+    Path diretorio;
+
+    private ProdutoRepositoryFake produtoRepository;
+    private MovimentacaoRepositoryFake movimentacaoRepository;
+    private ExportadorDados exportador;
+    private SpoolExportacao spool;
+
+    @BeforeEach
+    void setUp() {
+        produtoRepository = new ProdutoRepositoryFake();
+        movimentacaoRepository = new MovimentacaoRepositoryFake();
+        exportador = new ExportadorDados(new ExportarDadosUseCase(produtoRepository, movimentacaoRepository));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (spool != null) {
+            spool.close();
+        }
+    }
+
+    @Test
+    @DisplayName("CSV de produtos deve poder ser reimportado sem perda, inclusive com vírgulas e aspas")
+    void csvProdutosDeveSerReimportavel() throws Exception {
+        produtoRepository.salvar(new Produto("789001", "Arroz, tipo 1", "Grãos", 10, 5.5, 8.9, "Fornecedor \"A\""));
+        produtoRepository.salvar(new Produto("789002", "Feijão", null, 0, 10_000_000.0, null, "B"));
+
+        String csv = exportar(new PedidoExportacao(PedidoExportacao.Tipo.PRODUTOS, PedidoExportacao.Formato.CSV, null, null));
+
+        assertTrue(csv.startsWith("codigoBarras,nome,categoria,quantidade,precoCusto,precoVenda,fornecedor\n"));
+        assertTrue(csv.contains("\"Arroz, tipo 1\""));
+        assertTrue(csv.contains(",10000000,") && !csv.contains("E7"), "Preço não deve sair em notação científica");
+
+        LeitorCsvProdutos leitor = new LeitorCsvProdutos(new BufferedReader(new StringReader(csv)));
+        List<Produto> reimportados = new ArrayList<>();
+        while (leitor.hasNext()) {
+            LinhaImportacao linha = leitor.next();
+            assertNull(linha.getErro());
+            reimportados.add(linha.getProduto());
+        }
+        assertEquals(2, reimportados.size());
+        for (Produto produto : reimportados) {
+            Produto original = produtoRepository.buscarPorCodigoBarras(produto.getCodigoBarras()).orElseThrow();
+            assertEquals(original.getNome(), produto.getNome());
+            assertEquals(original.getQuantidade(), produto.getQuantidade());
+            assertEquals(original.getPrecoCusto(), produto.getPrecoCusto());
+            assertEquals(original.getPrecoVenda(), produto.getPrecoVenda());
+            assertEquals(original.getFornecedor(), produto.getFornecedor());
+        }
+    }
+
+    @Test
+    @DisplayName("NDJSON de movimentações deve ter um objeto por linha, apenas do período, com datas ISO")
+    void ndjsonMovimentacoesDoPeriodo() throws Exception {
+        movimentacaoRepository.salvar(new Movimentacao("789001", 5, TipoMovimentacao.ENTRADA, "Compra", LocalDateTime.of(2025, 1, 10, 8, 0)));
+        movimentacaoRepository.salvar(new Movimentacao("789001", 2, TipoMovimentacao.SAIDA, "Venda", LocalDateTime.of(2025, 2, 10, 8, 0)));
+        movimentacaoRepository.salvar(new Movimentacao("789002", 1, TipoMovimentacao.SAIDA, "Venda", LocalDateTime.of(2025, 3, 10, 8, 0)));
+
+        String ndjson = exportar(new PedidoExportacao(PedidoExportacao.Tipo.MOVIMENTACOES, PedidoExportacao.Formato.NDJSON,
+                LocalDateTime.of(2025, 2, 1, 0, 0), null));
+
+        String[] linhas = ndjson.split("\n");
+        assertEquals(2, linhas.length);
+        assertTrue(ndjson.endsWith("\n"));
+        assertTrue(linhas[0].startsWith("{") && linhas[0].contains("\"dataHora\":\"2025-02-10T08:00:00\""));
+        assertTrue(linhas[1].contains("\"codigoBarrasProduto\":\"789002\""));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar período com início posterior ao fim")
+    void deveRejeitarPeriodoInvertido() {
+        assertThrows(IllegalArgumentException.class, () -> new PedidoExportacao(PedidoExportacao.Tipo.MOVIMENTACOES,
+                PedidoExportacao.Formato.CSV, LocalDateTime.of(2025, 3, 1, 0, 0), LocalDateTime.of(2025, 2, 1, 0, 0)));
+    }
+
+    @Test
+    @DisplayName("Exportação assíncrona deve gravar no spool o mesmo conteúdo do streaming")
+    void spoolDeveGravarArquivoCompleto() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            produtoRepository.salvar(new Produto(String.format("%06d", i), "Produto " + i, "Categoria", i, 1.0, 2.0, "F"));
+        }
+        PedidoExportacao pedido = new PedidoExportacao(PedidoExportacao.Tipo.PRODUTOS, PedidoExportacao.Formato.CSV, null, null);
+        spool = new SpoolExportacao(exportador, diretorio, 1, 1, 60);
+
+        SpoolExportacao.Tarefa tarefa = spool.iniciar(pedido);
+        assertNotNull(tarefa);
+        long limite = System.currentTimeMillis() + 10_000;
+        while (tarefa.getSituacao() == SpoolExportacao.Situacao.EM_ANDAMENTO && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(SpoolExportacao.Situacao.PRONTA, tarefa.getSituacao());
+        assertEquals(500, tarefa.getRegistros());
+        assertEquals(exportar(pedido), Files.readString(tarefa.getArquivo()));
+        assertEquals(Files.size(tarefa.getArquivo()), tarefa.getTamanhoBytes());
+        try (var arquivos = Files.list(diretorio)) {
+            assertTrue(arquivos.noneMatch(arquivo -> arquivo.toString().endsWith(".parcial")));
+        }
+        assertSame(tarefa, spool.consultar(tarefa.getId()));
+    }
+
+    @Test
+    @DisplayName("Spool deve recusar novas exportações acima do limite em andamento")
+    void spoolDeveLimitarPendentes() {
+        spool = new SpoolExportacao(exportador, diretorio, 1, 0, 60);
+
+        assertNull(spool.iniciar(new PedidoExportacao(PedidoExportacao.Tipo.PRODUTOS, PedidoExportacao.Formato.CSV, null, null)));
+    }
+
+    private String exportar(PedidoExportacao pedido) throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportador.exportar(pedido, saida);
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+}
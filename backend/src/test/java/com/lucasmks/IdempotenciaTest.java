@@ -0,0 +1,273 @@
+package com.lucasmks;
+
+import com.lucasmks.api.idempotencia.ChaveIdempotenciaException;
+import com.lucasmks.api.idempotencia.Idempotencia;
+import com.lucasmks.domain.exception.BancoIndisponivelException;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.RespostaIdempotente;
+import com.lucasmks.domain.usecase.AdicionarEstoqueUseCase;
+import com.lucasmks.infrastructure.repository.fake.IdempotenciaRepositoryFake;
+import com.lucasmks.infrastructure.repository.fake.MovimentacaoRepositoryFake;
+import com.lucasmks.infrastructure.repository.fake.ProdutoRepositoryFake;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes das chaves de idempotência nas entradas e saídas de estoque (repetições e duplicatas simultâneas).
+ */
+@DisplayName("Idempotency-Key Testes")
+public class IdempotenciaTest {
+
+    private static final String CODIGO = "789";
+    private static final String IMPRESSAO = Idempotencia.impressao("PUT", "/api/produtos/789/adicionarEstoque", "{\"quantidade\":5}");
+
+    private IdempotenciaRepositoryFake repositorio;
+    private ProdutoRepositoryFake produtos;
+    private MovimentacaoRepositoryFake movimentacoes;
+    private AdicionarEstoqueUseCase adicionar;
+    private final AtomicInteger execucoes = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        repositorio = new IdempotenciaRepositoryFake();
+        produtos = new ProdutoRepositoryFake();
+        movimentacoes = new MovimentacaoRepositoryFake() {
+            @Override
+            public synchronized void salvar(Movimentacao movimentacao) {
+                super.salvar(movimentacao);
+            }
+        };
+        produtos.salvar(new Produto(CODIGO, "Refrigerante", "Bebidas", 10, 3.0, 5.0, "Fornecedor"));
+        adicionar = new AdicionarEstoqueUseCase(produtos, movimentacoes);
+    }
+
+    private Idempotencia novaInstancia() {
+        return new Idempotencia(repositorio, Duration.ofHours(1), Duration.ofSeconds(30), 100, 2000);
+    }
+
+    // O que a rota faria: executa o caso de uso e devolve status e corpo
+    private RespostaIdempotente adicionarCinco() {
+        execucoes.incrementAndGet();
+        adicionar.executar(CODIGO, 5, "Compra");
+        return new RespostaIdempotente(null, null, 200, "{\"success\":true}", false, null);
+    }
+
+    @Test
+    @DisplayName("Repetição com a mesma chave deve devolver a resposta original sem mexer no estoque")
+    void repeticaoDevolveRespostaOriginal() {
+        Idempotencia idempotencia = novaInstancia();
+
+        Idempotencia.Resultado primeira = idempotencia.executar("chave-1", IMPRESSAO, this::adicionarCinco);
+        Idempotencia.Resultado segunda = idempotencia.executar("chave-1", IMPRESSAO, this::adicionarCinco);
+
+        assertFalse(primeira.isRepetida());
+        assertTrue(segunda.isRepetida());
+        assertEquals(200, segunda.getResposta().getStatus());
+        assertEquals("{\"success\":true}", segunda.getResposta().getCorpo());
+        assertEquals(1, execucoes.get());
+        assertEquals(15, produtos.buscarPorCodigoBarras(CODIGO).orElseThrow().getQuantidade());
+        assertEquals(1, movimentacoes.buscarTodasMovimentacoes().size());
+
+        // Outro nó (outra instância, mesmo repositório) também reconhece a repetição
+        assertTrue(novaInstancia().executar("chave-1", IMPRESSAO, this::adicionarCinco).isRepetida());
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    @DisplayName("Duplicatas simultâneas devem executar uma única vez")
+    void duplicatasSimultaneasExecutamUmaVez() throws Exception {
+        Idempotencia idempotencia = novaInstancia();
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Idempotencia.Resultado>> tarefas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                return idempotencia.executar("chave-2", IMPRESSAO, () -> {
+                    try {
+                        liberar.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return adicionarCinco();
+                });
+            }));
+        }
+        largada.countDown();
+        Thread.sleep(50);
+        liberar.countDown();
+
+        int repetidas = 0;
+        for (Future<Idempotencia.Resultado> tarefa : tarefas) {
+            Idempotencia.Resultado resultado = tarefa.get(5, TimeUnit.SECONDS);
+            assertEquals(200, resultado.getResposta().getStatus());
+            repetidas += resultado.isRepetida() ? 1 : 0;
+        }
+        executor.shutdown();
+        assertEquals(7, repetidas);
+        assertEquals(1, execucoes.get());
+        assertEquals(15, produtos.buscarPorCodigoBarras(CODIGO).orElseThrow().getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Duplicata em outro nó deve aguardar a resposta da requisição em andamento")
+    void duplicataEmOutroNoAguardaResposta() throws Exception {
+        // Reserva feita por outro nó que ainda não terminou
+        repositorio.reservar(new RespostaIdempotente("chave-3", IMPRESSAO, 0, null, false, LocalDateTime.now().plusSeconds(30)));
+        Thread concluir = new Thread(() -> {
+            try {
+                Thread.sleep(150);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            repositorio.concluir(new RespostaIdempotente("chave-3", IMPRESSAO, 200, "original", true, LocalDateTime.now().plusHours(1)));
+        });
+        concluir.start();
+
+        Idempotencia.Resultado resultado = novaInstancia().executar("chave-3", IMPRESSAO, this::adicionarCinco);
+        concluir.join();
+
+        assertTrue(resultado.isRepetida());
+        assertEquals("original", resultado.getResposta().getCorpo());
+        assertEquals(0, execucoes.get());
+    }
+
+    @Test
+    @DisplayName("Deve recusar chave reutilizada em outro pedido ou fora do tamanho")
+    void deveRecusarReusoDaChave() {
+        Idempotencia idempotencia = novaInstancia();
+        idempotencia.executar("chave-4", IMPRESSAO, this::adicionarCinco);
+
+        String outroPedido = Idempotencia.impressao("PUT", "/api/produtos/789/adicionarEstoque", "{\"quantidade\":50}");
+        ChaveIdempotenciaException reuso = assertThrows(ChaveIdempotenciaException.class,
+                () -> idempotencia.executar("chave-4", outroPedido, this::adicionarCinco));
+        assertEquals(422, reuso.getStatus());
+
+        assertEquals(400, assertThrows(ChaveIdempotenciaException.class,
+                () -> idempotencia.executar(" ", IMPRESSAO, this::adicionarCinco)).getStatus());
+    }
+
+    @Test
+    @DisplayName("Falha ao gravar a movimentação depois do ajuste não deve deixar a repetição ajustar o saldo de novo")
+    void falhaDepoisDoAjusteNaoRepeteAjuste() {
+        AtomicInteger falhas = new AtomicInteger(1);
+        adicionar = new AdicionarEstoqueUseCase(produtos, new MovimentacaoRepositoryFake() {
+            @Override
+            public void salvar(Movimentacao movimentacao) {
+                if (falhas.getAndDecrement() > 0) {
+                    throw new IllegalStateException("conexão perdida");
+                }
+                super.salvar(movimentacao);
+            }
+        });
+        // Como a rota: erro inesperado vira 500
+        Supplier<RespostaIdempotente> rota = () -> {
+            try {
+                return adicionarCinco();
+            } catch (RuntimeException e) {
+                return new RespostaIdempotente(null, null, 500, "erro", false, null);
+            }
+        };
+        Idempotencia idempotencia = novaInstancia();
+
+        assertEquals(500, idempotencia.executar("chave-5", IMPRESSAO, rota).getResposta().getStatus());
+        assertEquals(15, produtos.buscarPorCodigoBarras(CODIGO).orElseThrow().getQuantidade());
+
+        Idempotencia.Resultado retentativa = idempotencia.executar("chave-5", IMPRESSAO, rota);
+        assertTrue(retentativa.isRepetida());
+        assertEquals(500, retentativa.getResposta().getStatus());
+        assertEquals(1, execucoes.get());
+        assertEquals(15, produtos.buscarPorCodigoBarras(CODIGO).orElseThrow().getQuantidade());
+        // Outro nó também não executa de novo
+        assertTrue(novaInstancia().executar("chave-5", IMPRESSAO, rota).isRepetida());
+        assertEquals(15, produtos.buscarPorCodigoBarras(CODIGO).orElseThrow().getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Exceção depois do ajuste deve guardar 500 pelo TTL: a repetição não ajusta de novo")
+    void excecaoDepoisDoAjusteGuardaFalha() {
+        Idempotencia idempotencia = novaInstancia();
+
+        Idempotencia.Resultado original = idempotencia.executar("chave-6", IMPRESSAO, () -> {
+            adicionarCinco();
+            throw new BancoIndisponivelException("banco indisponível");
+        });
+        assertEquals(500, original.getResposta().getStatus());
+        assertTrue(original.getResposta().isConcluida());
+
+        Idempotencia.Resultado repeticao = novaInstancia().executar("chave-6", IMPRESSAO, this::adicionarCinco);
+        assertTrue(repeticao.isRepetida());
+        assertEquals(500, repeticao.getResposta().getStatus());
+        assertEquals(1, execucoes.get());
+        assertEquals(15, produtos.buscarPorCodigoBarras(CODIGO).orElseThrow().getQuantidade());
+        assertTrue(repositorio.buscar("chave-6").orElseThrow().getExpiraEm().isAfter(LocalDateTime.now().plusMinutes(59)));
+    }
+
+    @Test
+    @DisplayName("Falha antes do ajuste deve liberar a chave na hora: a repetição executa")
+    void falhaAntesDoAjusteLiberaChave() {
+        AtomicInteger recusas = new AtomicInteger(1);
+        ProdutoRepositoryFake instavel = new ProdutoRepositoryFake() {
+            @Override
+            public Optional<Produto> ajustarQuantidade(String codigoBarras, int delta) {
+                if (recusas.getAndDecrement() > 0) {
+                    throw new BancoIndisponivelException("banco indisponível");
+                }
+                return super.ajustarQuantidade(codigoBarras, delta);
+            }
+        };
+        instavel.salvar(new Produto(CODIGO, "Refrigerante", "Bebidas", 10, 3.0, 5.0, "Fornecedor"));
+        adicionar = new AdicionarEstoqueUseCase(instavel, movimentacoes);
+        Idempotencia idempotencia = novaInstancia();
+
+        assertThrows(BancoIndisponivelException.class, () -> idempotencia.executar("chave-7", IMPRESSAO, this::adicionarCinco));
+        assertTrue(repositorio.buscar("chave-7").isEmpty());
+
+        Idempotencia.Resultado retentativa = novaInstancia().executar("chave-7", IMPRESSAO, this::adicionarCinco);
+        assertFalse(retentativa.isRepetida());
+        assertEquals(200, retentativa.getResposta().getStatus());
+        assertEquals(15, instavel.buscarPorCodigoBarras(CODIGO).orElseThrow().getQuantidade());
+    }
+
+    @Test
+    @DisplayName("504 antes do ajuste não deve ser guardado; depois do ajuste, 503 vira 500 guardado")
+    void naoDeveGuardar503Nem504() {
+        Idempotencia idempotencia = novaInstancia();
+
+        // Prazo vencido na leitura, antes de ajustar o saldo
+        Idempotencia.Resultado prazo = idempotencia.executar("chave-8", IMPRESSAO,
+                () -> new RespostaIdempotente(null, null, 504, "prazo", false, null));
+        assertEquals(504, prazo.getResposta().getStatus());
+        assertFalse(prazo.getResposta().isConcluida());
+        assertTrue(repositorio.buscar("chave-8").isEmpty());
+        assertFalse(idempotencia.executar("chave-8", IMPRESSAO, this::adicionarCinco).isRepetida());
+        assertEquals(1, execucoes.get());
+
+        Idempotencia.Resultado depois = idempotencia.executar("chave-9", IMPRESSAO, () -> {
+            adicionarCinco();
+            return new RespostaIdempotente(null, null, 503, "indisponível", false, null);
+        });
+        assertEquals(500, depois.getResposta().getStatus());
+        assertEquals(500, novaInstancia().executar("chave-9", IMPRESSAO, this::adicionarCinco).getResposta().getStatus());
+        assertEquals(2, execucoes.get());
+        assertEquals(20, produtos.buscarPorCodigoBarras(CODIGO).orElseThrow().getQuantidade());
+    }
+}
@@ -0,0 +1,164 @@
+package com.lucasmks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucasmks.api.importacao.LeitorCsvProdutos;
+import com.lucasmks.api.importacao.LeitorNdjsonProdutos;
+import com.lucasmks.domain.event.ProdutoEventListener;
+import com.lucasmks.domain.model.LinhaImportacao;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.model.ResultadoGravacao;
+import com.lucasmks.domain.model.ResultadoImportacao;
+import com.lucasmks.domain.usecase.ImportarProdutosUseCase;
+import com.lucasmks.infrastructure.repository.fake.ProdutoRepositoryFake;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da importação em lote de produtos (CSV e NDJSON).
+ */
+@DisplayName("ImportarProdutosUseCase Testes")
+public class ImportarProdutosUseCaseTest {
+
+    private ProdutoRepositoryFake repo;
+    private List<Integer> tamanhosLotes;
+    private List<String> eventos;
+    private ImportarProdutosUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        tamanhosLotes = new ArrayList<>();
+        eventos = new ArrayList<>();
+        repo = new ProdutoRepositoryFake() {
+            @Override
+            public List<ResultadoGravacao> gravarLote(List<Produto> produtos, boolean substituirExistentes) {
+                tamanhosLotes.add(produtos.size());
+                return super.gravarLote(produtos, substituirExistentes);
+            }
+        };
+        ProdutoEventListener ouvinte = new ProdutoEventListener() {
+            @Override
+            public void aoCadastrar(Produto produto) {
+                eventos.add("cadastro:" + produto.getCodigoBarras());
+            }
+
+            @Override
+            public void aoEditar(Produto produto) {
+                eventos.add("edicao:" + produto.getCodigoBarras());
+            }
+        };
+        useCase = new ImportarProdutosUseCase(repo, ouvinte, Runnable::run, 2, 1, 10);
+    }
+
+    private LeitorCsvProdutos csv(String conteudo) {
+        return new LeitorCsvProdutos(new BufferedReader(new StringReader(conteudo)));
+    }
+
+    @Test
+    @DisplayName("Deve importar CSV em lotes e rejeitar linhas inválidas com o número da linha")
+    void deveImportarCsvEmLotes() {
+        String conteudo = "codigoBarras;nome;categoria;quantidade;precoCusto;precoVenda;fornecedor\n"
+                + "111;Arroz;Mercearia;10;5,50;8,90;Tio João\n"
+                + "222;\"Feijão; carioca\";Mercearia;5;6;9;Camil\n"
+                + "333;;Mercearia;5;6;9;Camil\n"
+                + "444;Açúcar;Mercearia;x;3;4;União\n"
+                + "555;Café;Mercearia;2;10;15;Pilão\n";
+
+        ResultadoImportacao resultado = useCase.executar(csv(conteudo), false);
+
+        assertEquals(5, resultado.getLinhas());
+        assertEquals(3, resultado.getInseridos());
+        assertEquals(2, resultado.getRejeitados());
+        assertEquals(List.of(2, 1), tamanhosLotes);
+        assertEquals("Feijão; carioca", repo.buscarPorCodigoBarras("222").orElseThrow().getNome());
+        assertEquals(8.90, repo.buscarPorCodigoBarras("111").orElseThrow().getPrecoVenda(), 0.001);
+        assertEquals(4, resultado.getErros().get(0).getLinha());
+        assertEquals("444", resultado.getErros().get(1).getCodigoBarras());
+        assertEquals(List.of("cadastro:111", "cadastro:222", "cadastro:555"), eventos);
+    }
+
+    @Test
+    @DisplayName("Deve manter existentes no modo inserir e substituí-los no modo substituir")
+    void deveRespeitarModo() {
+        repo.salvar(new Produto("111", "Arroz", "Mercearia", 10, 5.0, 8.0, "Tio João"));
+        String conteudo = "codigoBarras,nome,quantidade,precoCusto,precoVenda\n111,Arroz Integral,3,6,9\n";
+
+        ResultadoImportacao inserir = useCase.executar(csv(conteudo), false);
+        assertEquals(1, inserir.getIgnorados());
+        assertEquals("Arroz", repo.buscarPorCodigoBarras("111").orElseThrow().getNome());
+
+        ResultadoImportacao substituir = useCase.executar(csv(conteudo), true);
+        assertEquals(1, substituir.getAtualizados());
+        assertEquals("Arroz Integral", repo.buscarPorCodigoBarras("111").orElseThrow().getNome());
+        assertEquals(List.of("edicao:111"), eventos);
+    }
+
+    @Test
+    @DisplayName("Deve gravar códigos repetidos em lotes separados, prevalecendo a última linha")
+    void deveSepararCodigosRepetidos() {
+        String ndjson = "{\"codigoBarras\":\"111\",\"nome\":\"A\",\"quantidade\":1,\"precoCusto\":1,\"precoVenda\":2}\n"
+                + "\n"
+                + "{\"codigoBarras\":\"111\",\"nome\":\"B\",\"quantidade\":1,\"precoCusto\":1,\"precoVenda\":2}\n"
+                + "{quebrado\n";
+
+        ResultadoImportacao resultado = useCase.executar(
+                new LeitorNdjsonProdutos(new BufferedReader(new StringReader(ndjson)), new ObjectMapper()), true);
+
+        assertEquals(List.of(1, 1), tamanhosLotes);
+        assertEquals("B", repo.buscarPorCodigoBarras("111").orElseThrow().getNome());
+        assertEquals(1, resultado.getRejeitados());
+        assertEquals(4, resultado.getErros().get(0).getLinha());
+    }
+
+    @Test
+    @DisplayName("Deve interromper a leitura quando um lote inteiro falha")
+    void deveInterromperQuandoLoteFalha() {
+        AtomicInteger lidas = new AtomicInteger();
+        ProdutoRepositoryFake foraDoAr = new ProdutoRepositoryFake() {
+            @Override
+            public List<ResultadoGravacao> gravarLote(List<Produto> produtos, boolean substituirExistentes) {
+                throw new RuntimeException("Banco indisponível");
+            }
+        };
+        ImportarProdutosUseCase importar = new ImportarProdutosUseCase(foraDoAr, ProdutoEventListener.NENHUM, Runnable::run, 2, 1, 10);
+        StringBuilder conteudo = new StringBuilder("codigoBarras,nome,quantidade,precoCusto,precoVenda\n");
+        for (int i = 0; i < 10; i++) {
+            conteudo.append(i).append(",Produto,1,1,2\n");
+        }
+        LeitorCsvProdutos leitor = csv(conteudo.toString());
+
+        Iterator<LinhaImportacao> contando = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return leitor.hasNext();
+            }
+
+            @Override
+            public LinhaImportacao next() {
+                lidas.incrementAndGet();
+                return leitor.next();
+            }
+        };
+
+        ResultadoImportacao resultado = importar.executar(contando, false);
+
+        assertTrue(resultado.isInterrompida());
+        assertEquals(2, lidas.get());
+        assertEquals(2, resultado.getRejeitados());
+    }
+
+    @Test
+    @DisplayName("Deve recusar CSV sem as colunas obrigatórias")
+    void deveRecusarCabecalhoInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> csv("nome,quantidade\nArroz,1\n"));
+    }
+}
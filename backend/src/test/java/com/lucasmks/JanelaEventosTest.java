@@ -0,0 +1,77 @@
+package com.lucasmks;
+
+import com.lucasmks.api.stream.JanelaEventos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da janela de eventos usada para retomar o feed SSE pelo Last-Event-ID.
+ */
+@DisplayName("JanelaEventos Testes")
+public class JanelaEventosTest {
+
+    private JanelaEventos janela;
+
+    @BeforeEach
+    void setUp() {
+        janela = new JanelaEventos(4);
+    }
+
+    private void publicar(int quantidade) {
+        for (int i = 0; i < quantidade; i++) {
+            janela.publicar(id -> ("[" + id + "]").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private String texto(JanelaEventos.Lote lote) {
+        return new String(lote.bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Deve reproduzir os eventos posteriores ao último id recebido")
+    void deveReproduzirAPartirDoUltimoId() {
+        publicar(3);
+
+        JanelaEventos.Lote lote = janela.ler(1, 1024);
+
+        assertEquals("[2][3]", texto(lote));
+        assertEquals(3, lote.ultimoId);
+    }
+
+    @Test
+    @DisplayName("Deve retornar null quando o assinante já está em dia")
+    void deveRetornarNullQuandoEmDia() {
+        assertNull(janela.ler(0, 1024));
+        publicar(2);
+        assertNull(janela.ler(2, 1024));
+    }
+
+    @Test
+    @DisplayName("Deve dividir a leitura em lotes pelo limite de bytes")
+    void deveDividirEmLotes() {
+        publicar(3);
+
+        JanelaEventos.Lote primeiro = janela.ler(0, 3);
+        JanelaEventos.Lote segundo = janela.ler(primeiro.ultimoId, 3);
+
+        assertEquals("[1]", texto(primeiro));
+        assertEquals("[2]", texto(segundo));
+    }
+
+    @Test
+    @DisplayName("Deve recusar ids que já saíram da janela")
+    void deveRecusarIdsForaDaJanela() {
+        publicar(6);
+
+        assertFalse(janela.disponivel(1));
+        assertTrue(janela.disponivel(3));
+        assertFalse(janela.disponivel(7));
+        assertThrows(JanelaEventos.Atrasado.class, () -> janela.ler(1, 1024));
+        assertEquals("[4][5][6]", texto(janela.ler(3, 1024)));
+    }
+}
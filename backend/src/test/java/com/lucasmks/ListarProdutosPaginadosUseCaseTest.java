@@ -0,0 +1,93 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.exception.ValidacaoProdutoException;
+import com.lucasmks.domain.model.FiltroProdutos;
+import com.lucasmks.domain.model.Pagina;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.usecase.ListarTodosProdutosUseCase;
+import com.lucasmks.infrastructure.repository.fake.ProdutoRepositoryFake;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da listagem filtrada, ordenada e paginada de produtos.
+ */
+@DisplayName("ListarTodosProdutosUseCase (paginado) Testes")
+public class ListarProdutosPaginadosUseCaseTest {
+
+    private ListarTodosProdutosUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        ProdutoRepositoryFake repository = new ProdutoRepositoryFake();
+        for (int i = 0; i < 25; i++) {
+            String categoria = i % 2 == 0 ? "Bebidas" : "Limpeza";
+            repository.salvar(new Produto(String.format("%03d", i), "Produto " + (char) ('A' + i), categoria, i, 1.0, 2.0, "Fornecedor"));
+        }
+        useCase = new ListarTodosProdutosUseCase(repository);
+    }
+
+    private List<String> codigos(Pagina<Produto> pagina) {
+        return pagina.getItens().stream().map(Produto::getCodigoBarras).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar por categoria e estoque máximo e ordenar de forma decrescente")
+    void deveFiltrarEOrdenar() {
+        FiltroProdutos filtro = new FiltroProdutos();
+        filtro.setCategoria("Bebidas");
+        filtro.setEstoqueMax(8);
+        filtro.setOrdenarPor("quantidade");
+        filtro.setDecrescente(true);
+
+        Pagina<Produto> pagina = useCase.executar(filtro);
+
+        assertEquals(List.of("008", "006", "004", "002", "000"), codigos(pagina));
+        assertEquals(5L, pagina.getTotal());
+        assertFalse(pagina.isTemProxima());
+    }
+
+    @Test
+    @DisplayName("Deve percorrer todas as páginas pelo cursor sem repetir itens")
+    void devePercorrerPorCursor() {
+        FiltroProdutos filtro = new FiltroProdutos();
+        filtro.setTamanhoPagina(10);
+        List<String> vistos = new ArrayList<>();
+
+        Pagina<Produto> pagina = useCase.executar(filtro);
+        vistos.addAll(codigos(pagina));
+        while (pagina.isTemProxima()) {
+            filtro.setCursor(pagina.getProximoCursor());
+            pagina = useCase.executar(filtro);
+            vistos.addAll(codigos(pagina));
+        }
+
+        assertEquals(25, vistos.size());
+        assertEquals(25, vistos.stream().distinct().count());
+        assertEquals("000", vistos.get(0));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar campo de ordenação, página e cursor inválidos")
+    void deveRejeitarParametrosInvalidos() {
+        FiltroProdutos ordenacao = new FiltroProdutos();
+        ordenacao.setOrdenarPor("senha");
+        assertThrows(ValidacaoProdutoException.class, () -> useCase.executar(ordenacao));
+
+        FiltroProdutos paginaECursor = new FiltroProdutos();
+        paginaECursor.setPagina(2);
+        paginaECursor.setCursor("abc");
+        assertThrows(ValidacaoProdutoException.class, () -> useCase.executar(paginaECursor));
+
+        FiltroProdutos cursor = new FiltroProdutos();
+        cursor.setCursor("não é base64");
+        assertThrows(ValidacaoProdutoException.class, () -> useCase.executar(cursor));
+    }
+}
@@ -0,0 +1,128 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.lucasmks.infrastructure.persistence.migracao.MigracaoMovimentacoesBuckets;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoBucketsMongoRepositoryImpl;
+import com.mongodb.client.model.UpdateOneModel;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do layout de movimentações em buckets por produto e dia (upserts, migração e leitura dos itens).
+ */
+@DisplayName("Movimentações em buckets Testes")
+public class MovimentacaoBucketsTest {
+
+    private static final LocalDateTime DIA = LocalDateTime.of(2025, 7, 20, 0, 0);
+
+    @Test
+    @DisplayName("Deve acrescentar o item com $push e somar os totais do tipo com $inc")
+    void deveAnexarItemComTotais() {
+        Movimentacao saida = new Movimentacao("789", 3, TipoMovimentacao.SAIDA, "Venda", DIA.plusHours(10));
+        UpdateOneModel<Document> escrita = MovimentacaoBucketsMongoRepositoryImpl.anexar("789", DIA,
+                List.of(MovimentacaoBucketsMongoRepositoryImpl.item(saida, "no-1")), 500);
+
+        assertEquals("789", condicao(escrita, "codigoBarras").asString().getValue());
+        assertEquals(499, condicao(escrita, "n").asDocument().getInt32("$lte").getValue());
+
+        BsonDocument alteracao = escrita.getUpdate().toBsonDocument();
+        BsonDocument item = alteracao.getDocument("$push").getDocument("movimentacoes");
+        assertEquals("SAIDA", item.getString("tipo").getValue());
+        assertEquals("no-1", item.getString("origem").getValue());
+        BsonDocument inc = alteracao.getDocument("$inc");
+        assertEquals(1, inc.getInt32("n").getValue());
+        assertEquals(1, inc.getInt32("totais.SAIDA.movimentacoes").getValue());
+        assertEquals(3L, inc.getInt64("totais.SAIDA.quantidade").getValue());
+        assertFalse(inc.containsKey("totais.ENTRADA.movimentacoes"));
+        assertTrue(escrita.getOptions().isUpsert());
+    }
+
+    @Test
+    @DisplayName("A migração deve agrupar por produto e dia e dividir grupos maiores que o bucket")
+    void migracaoDeveAgruparPorProdutoEDia() {
+        List<Document> lote = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            lote.add(documento("111", TipoMovimentacao.ENTRADA, 2, DIA.plusHours(i)));
+        }
+        lote.add(documento("111", TipoMovimentacao.SAIDA, 1, DIA.plusDays(1)));
+        lote.add(documento("222", TipoMovimentacao.SAIDA, 4, DIA.plusHours(23).plusMinutes(59)));
+        lote.add(new Document("_id", "sem-data").append("codigoBarras", "333").append("quantidade", 1));
+
+        List<UpdateOneModel<Document>> escritas = MigracaoMovimentacoesBuckets.agrupar(lote, 2);
+
+        // 111/dia: 5 itens em buckets de 2 -> 3 escritas; 111/dia seguinte e 222/dia: 1 cada
+        assertEquals(5, escritas.size());
+        BsonDocument primeira = escritas.get(0).getUpdate().toBsonDocument();
+        assertEquals(2, primeira.getDocument("$push").getDocument("movimentacoes").getArray("$each").size());
+        assertEquals(4L, primeira.getDocument("$inc").getInt64("totais.ENTRADA.quantidade").getValue());
+        assertEquals(0, condicao(escritas.get(0), "n").asDocument().getInt32("$lte").getValue());
+        assertEquals(1, escritas.get(2).getUpdate().toBsonDocument().getDocument("$inc").getInt32("n").getValue());
+        assertEquals("222", condicao(escritas.get(4), "codigoBarras").asString().getValue());
+    }
+
+    @Test
+    @DisplayName("Deve ler os itens do bucket como movimentações, aplicando o filtro")
+    void deveLerItensDoBucket() {
+        Document bucket = new Document("codigoBarras", "789")
+                .append("dia", Date.from(DIA.toInstant(ZoneOffset.UTC)))
+                .append("movimentacoes", List.of(
+                        item(TipoMovimentacao.ENTRADA, 10, DIA.plusHours(8)),
+                        item(TipoMovimentacao.SAIDA, 2, DIA.plusHours(12)),
+                        item(TipoMovimentacao.SAIDA, 1, DIA.plusHours(18))));
+
+        List<Movimentacao> lidas = new ArrayList<>();
+        MovimentacaoBucketsMongoRepositoryImpl.itens(bucket,
+                m -> !m.getDataHora().isBefore(DIA.plusHours(12)), lidas::add);
+
+        assertEquals(2, lidas.size());
+        assertEquals("789", lidas.get(0).getCodigoBarras());
+        assertEquals(TipoMovimentacao.SAIDA, lidas.get(0).getTipo());
+        assertEquals(DIA.plusHours(12), lidas.get(0).getDataHora());
+        assertEquals(1, lidas.get(1).getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Layout deve ser lido da configuração e o dia é o início do dia da movimentação")
+    void layoutEDia() {
+        assertEquals(LayoutMovimentacoes.DOCUMENTOS, LayoutMovimentacoes.configurado());
+        assertEquals("movimentacoes_buckets", LayoutMovimentacoes.BUCKETS.colecao());
+        assertEquals(DIA, LayoutMovimentacoes.dia(DIA.plusHours(23).plusMinutes(59)));
+    }
+
+    private static BsonValue condicao(UpdateOneModel<Document> escrita, String campo) {
+        for (BsonValue condicao : escrita.getFilter().toBsonDocument().getArray("$and")) {
+            if (condicao.asDocument().containsKey(campo)) {
+                return condicao.asDocument().get(campo);
+            }
+        }
+        return fail("Filtro sem condição para " + campo);
+    }
+
+    private static Document documento(String codigoBarras, TipoMovimentacao tipo, int quantidade, LocalDateTime dataHora) {
+        return new Document("codigoBarras", codigoBarras)
+                .append("quantidade", quantidade)
+                .append("tipo", tipo.name())
+                .append("motivo", "Teste")
+                .append("dataHora", Date.from(dataHora.toInstant(ZoneOffset.UTC)));
+    }
+
+    private static Document item(TipoMovimentacao tipo, int quantidade, LocalDateTime dataHora) {
+        return new Document("quantidade", quantidade)
+                .append("tipo", tipo.name())
+                .append("motivo", "Teste")
+                .append("dataHora", Date.from(dataHora.toInstant(ZoneOffset.UTC)));
+    }
+}
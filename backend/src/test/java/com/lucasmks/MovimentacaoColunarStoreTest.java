@@ -0,0 +1,91 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.infrastructure.analytics.MovimentacaoColunarStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes das agregações do store colunar de movimentações.
+ */
+@DisplayName("MovimentacaoColunarStore Testes")
+public class MovimentacaoColunarStoreTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 7, 20, 10, 0);
+
+    private MovimentacaoColunarStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new MovimentacaoColunarStore();
+        store.accept(new Movimentacao("111", 10, TipoMovimentacao.ENTRADA, "Compra", BASE));
+        store.accept(new Movimentacao("111", 3, TipoMovimentacao.SAIDA, "Venda", BASE.plusHours(1)));
+        store.accept(new Movimentacao("222", 5, TipoMovimentacao.SAIDA, "Venda", BASE.plusHours(2)));
+        store.accept(new Movimentacao("222", 1, TipoMovimentacao.SAIDA, "Perda", BASE.plusDays(2)));
+    }
+
+    @Test
+    @DisplayName("Deve somar e contar movimentações no período por tipo")
+    void deveSomarEContarNoPeriodo() {
+        LocalDateTime fim = BASE.plusDays(1);
+
+        assertEquals(10, store.somarQuantidade(BASE, fim, TipoMovimentacao.ENTRADA));
+        assertEquals(8, store.somarQuantidade(BASE, fim, TipoMovimentacao.SAIDA));
+        assertEquals(2, store.contar(BASE, fim, TipoMovimentacao.SAIDA));
+        assertEquals(0, store.contar(BASE.minusDays(5), BASE.minusDays(4), TipoMovimentacao.ENTRADA));
+    }
+
+    @Test
+    @DisplayName("Deve somar saídas por motivo no período")
+    void deveSomarPorMotivo() {
+        Map<String, Long> porMotivo = store.somarPorMotivo(BASE, BASE.plusDays(3), TipoMovimentacao.SAIDA);
+
+        assertEquals(2, porMotivo.size());
+        assertEquals(8L, porMotivo.get("Venda"));
+        assertEquals(1L, porMotivo.get("Perda"));
+    }
+
+    @Test
+    @DisplayName("Deve somar o histórico de um produto e ignorar produto desconhecido")
+    void deveSomarPorProduto() {
+        assertEquals(6, store.somarPorProduto("222", TipoMovimentacao.SAIDA));
+        assertEquals(0, store.somarPorProduto("999", TipoMovimentacao.SAIDA));
+        assertEquals(4, store.tamanho());
+    }
+
+    @Test
+    @DisplayName("Recarga deve trocar o conteúdo e reaplicar as movimentações recebidas durante a carga")
+    void deveRecarregarMantendoMovimentacoesDaCarga() {
+        store.recarregar(novo -> {
+            novo.accept(new Movimentacao("333", 7, TipoMovimentacao.ENTRADA, "Compra", BASE));
+            // Gravada por outra thread durante a carga: o conteúdo antigo segue visível
+            store.accept(new Movimentacao("333", 2, TipoMovimentacao.SAIDA, "Venda", BASE.plusHours(1)));
+            assertEquals(5, store.tamanho());
+        });
+
+        assertEquals(2, store.tamanho());
+        assertEquals(0, store.somarPorProduto("111", TipoMovimentacao.ENTRADA));
+        assertEquals(7, store.somarPorProduto("333", TipoMovimentacao.ENTRADA));
+        assertEquals(2, store.somarPorProduto("333", TipoMovimentacao.SAIDA));
+    }
+
+    @Test
+    @DisplayName("Falha na carga deve manter o conteúdo anterior")
+    void deveManterConteudoSeCargaFalhar() {
+        assertThrows(IllegalStateException.class, () -> store.recarregar(novo -> {
+            novo.accept(new Movimentacao("333", 7, TipoMovimentacao.ENTRADA, "Compra", BASE));
+            throw new IllegalStateException("banco fora do ar");
+        }));
+        store.accept(new Movimentacao("111", 1, TipoMovimentacao.ENTRADA, "Compra", BASE));
+
+        assertEquals(5, store.tamanho());
+        assertEquals(11, store.somarPorProduto("111", TipoMovimentacao.ENTRADA));
+    }
+}
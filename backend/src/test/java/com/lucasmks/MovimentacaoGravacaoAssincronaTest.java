@@ -0,0 +1,250 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.infrastructure.persistence.ModoGravacaoMovimentacoes;
+import com.lucasmks.infrastructure.persistence.repository.MovimentacaoRepositoryGravacaoAssincrona;
+import com.lucasmks.infrastructure.repository.fake.MovimentacaoRepositoryFake;
+import com.mongodb.MongoSocketException;
+import com.mongodb.ServerAddress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da gravação de movimentações em lotes (modos fila e lote, contrapressão e encerramento).
+ */
+@DisplayName("Gravação assíncrona de movimentações Testes")
+public class MovimentacaoGravacaoAssincronaTest {
+
+    private final List<Integer> tamanhosLotes = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch liberarGravacao = new CountDownLatch(1);
+    private volatile boolean bloquearGravacao;
+    private volatile boolean falharGravacao;
+    // Próximas gravações que falham depois de gravar só a primeira metade do lote
+    private final AtomicInteger falhasParciais = new AtomicInteger();
+    private MovimentacaoRepositoryGravacaoAssincrona gravacao;
+
+    private final MovimentacaoRepositoryFake banco = new MovimentacaoRepositoryFake() {
+        @Override
+        public void salvarTodas(List<Movimentacao> movimentacoes) {
+            if (bloquearGravacao) {
+                try {
+                    liberarGravacao.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (falharGravacao) {
+                throw new IllegalStateException("banco indisponível");
+            }
+            if (falhasParciais.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                super.salvarTodas(movimentacoes.subList(0, movimentacoes.size() / 2));
+                throw new MongoSocketException("conexão perdida no meio do lote", new ServerAddress());
+            }
+            if (movimentacoes.stream().anyMatch(movimentacao -> movimentacao.getCodigoBarras().startsWith("INVALIDO"))) {
+                throw new IllegalArgumentException("documento inválido");
+            }
+            tamanhosLotes.add(movimentacoes.size());
+            super.salvarTodas(movimentacoes);
+        }
+    };
+
+    @AfterEach
+    void encerrar() {
+        liberarGravacao.countDown();
+        if (gravacao != null) {
+            gravacao.close();
+        }
+    }
+
+    private static Movimentacao movimentacao(int i) {
+        return new Movimentacao("P" + i, 1, TipoMovimentacao.ENTRADA, "Compra", LocalDateTime.of(2025, 7, 20, 10, 0).plusSeconds(i));
+    }
+
+    @Test
+    @DisplayName("Modo fila: confirma ao enfileirar e grava tudo em lotes até o encerramento")
+    void modoFilaDeveGravarNoEncerramento() {
+        bloquearGravacao = true;
+        gravacao = new MovimentacaoRepositoryGravacaoAssincrona(banco, ModoGravacaoMovimentacoes.FILA, 1000, 50, 5, 100);
+
+        for (int i = 0; i < 120; i++) {
+            gravacao.salvar(movimentacao(i));
+        }
+        // Nada gravado ainda: a gravação está presa, mas salvar já retornou
+        assertTrue(banco.buscarTodasMovimentacoes().isEmpty());
+
+        liberarGravacao.countDown();
+        gravacao.close();
+        gravacao = null;
+
+        assertEquals(120, banco.buscarTodasMovimentacoes().size());
+        assertTrue(tamanhosLotes.stream().allMatch(tamanho -> tamanho <= 50));
+        assertEquals(120, tamanhosLotes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    @DisplayName("Modo lote: salvar só retorna com a movimentação gravada e as concorrentes dividem o lote")
+    void modoLoteDeveAgruparConcorrentes() throws Exception {
+        gravacao = new MovimentacaoRepositoryGravacaoAssincrona(banco, ModoGravacaoMovimentacoes.LOTE, 1000, 500, 0, 100);
+
+        gravacao.salvar(movimentacao(0));
+        assertEquals(1, banco.buscarTodasMovimentacoes().size());
+
+        // Com o primeiro lote preso, as demais requisições se acumulam na fila e viram um só lote
+        bloquearGravacao = true;
+        ExecutorService requisicoes = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> pendentes = new ArrayList<>();
+            for (int i = 1; i <= 8; i++) {
+                int n = i;
+                pendentes.add(requisicoes.submit(() -> gravacao.salvar(movimentacao(n))));
+            }
+            long limite = System.currentTimeMillis() + 5000;
+            while (gravacao.metricas().getMovimentacoesEnfileiradas() < 9 && System.currentTimeMillis() < limite) {
+                Thread.sleep(5);
+            }
+            assertEquals(9, gravacao.metricas().getMovimentacoesEnfileiradas());
+            assertTrue(pendentes.stream().noneMatch(Future::isDone));
+            liberarGravacao.countDown();
+            for (Future<?> pendente : pendentes) {
+                pendente.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            requisicoes.shutdownNow();
+        }
+
+        assertEquals(9, banco.buscarTodasMovimentacoes().size());
+        MovimentacaoRepositoryGravacaoAssincrona.Metricas metricas = gravacao.metricas();
+        assertEquals(9, metricas.getMovimentacoesGravadas());
+        // O lote preso leva as que já estavam na fila; as restantes saem juntas no seguinte
+        assertTrue(metricas.getLotesGravados() <= 3);
+        assertTrue(metricas.getMaiorLote() >= 4);
+        assertEquals(0, metricas.getProfundidadeFila());
+    }
+
+    @Test
+    @DisplayName("Modo fila: lote que falha deve ser regravado sem duplicar o que já foi gravado")
+    void modoFilaDeveRegravarLoteQueFalhou() throws Exception {
+        falhasParciais.set(2);
+        bloquearGravacao = true;
+        gravacao = new MovimentacaoRepositoryGravacaoAssincrona(banco, ModoGravacaoMovimentacoes.FILA, 100, 10, 0, 100);
+        for (int i = 0; i < 10; i++) {
+            gravacao.salvar(movimentacao(i));
+        }
+        liberarGravacao.countDown();
+
+        long limite = System.currentTimeMillis() + 5000;
+        while (gravacao.metricas().getMovimentacoesGravadas() < 10 && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        List<Movimentacao> gravadas = banco.buscarTodasMovimentacoes();
+        assertEquals(10, gravadas.size());
+        assertEquals(10, gravadas.stream().map(Movimentacao::getId).distinct().count());
+        MovimentacaoRepositoryGravacaoAssincrona.Metricas metricas = gravacao.metricas();
+        assertEquals(2, metricas.getRegravacoes());
+        assertEquals(0, metricas.getPerdidas());
+        assertEquals(0, metricas.getAguardandoRegravacao());
+    }
+
+    @Test
+    @DisplayName("Modo fila: falha permanente não deve prender a fila; só as movimentações recusadas vão para a letra morta")
+    void modoFilaDeveSepararFalhaPermanente() throws Exception {
+        bloquearGravacao = true;
+        gravacao = new MovimentacaoRepositoryGravacaoAssincrona(banco, ModoGravacaoMovimentacoes.FILA, 100, 10, 0, 100);
+        for (int i = 0; i < 10; i++) {
+            gravacao.salvar(i % 5 == 0
+                    ? new Movimentacao("INVALIDO" + i, 1, TipoMovimentacao.ENTRADA, "Compra", LocalDateTime.now())
+                    : movimentacao(i));
+        }
+        liberarGravacao.countDown();
+
+        aguardar(() -> gravacao.metricas().getLetraMorta() == 2 && gravacao.metricas().getMovimentacoesGravadas() == 8);
+        assertEquals(8, banco.buscarTodasMovimentacoes().size());
+
+        // A fila segue andando
+        gravacao.salvar(movimentacao(10));
+        aguardar(() -> banco.buscarTodasMovimentacoes().size() == 9);
+        assertEquals(0, gravacao.metricas().getPerdidas());
+    }
+
+    @Test
+    @DisplayName("Modo fila: com o banco sempre recusando o lote, a thread de gravação deve seguir para os próximos")
+    void modoFilaNaoDeveInsistirEmFalhaPermanente() throws Exception {
+        falharGravacao = true;
+        gravacao = new MovimentacaoRepositoryGravacaoAssincrona(banco, ModoGravacaoMovimentacoes.FILA, 4, 2, 0, 100);
+        // Mais que a capacidade da fila: sem a letra morta, a contrapressão recusaria as últimas
+        for (int i = 0; i < 20; i++) {
+            gravacao.salvar(movimentacao(i));
+        }
+
+        aguardar(() -> gravacao.metricas().getLetraMorta() == 20);
+        assertEquals(0, gravacao.metricas().getProfundidadeFila());
+        assertEquals(0, gravacao.metricas().getRejeitadasFilaCheia());
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5000;
+        while (!condicao.getAsBoolean() && System.currentTimeMillis() < limite) {
+            Thread.sleep(5);
+        }
+        assertTrue(condicao.getAsBoolean());
+    }
+
+    @Test
+    @DisplayName("Modo lote: erro na gravação do lote deve chegar a quem esperava")
+    void modoLoteDeveRepassarErro() {
+        falharGravacao = true;
+        gravacao = new MovimentacaoRepositoryGravacaoAssincrona(banco, ModoGravacaoMovimentacoes.LOTE, 10, 10, 0, 100);
+
+        IllegalStateException erro = assertThrows(IllegalStateException.class, () -> gravacao.salvar(movimentacao(1)));
+        assertEquals("banco indisponível", erro.getMessage());
+        assertEquals(1, gravacao.metricas().getFalhas());
+    }
+
+    @Test
+    @DisplayName("Com a fila cheia, salvar deve esperar e depois falhar")
+    void filaCheiaDeveAplicarContrapressao() throws Exception {
+        bloquearGravacao = true;
+        gravacao = new MovimentacaoRepositoryGravacaoAssincrona(banco, ModoGravacaoMovimentacoes.FILA, 2, 1, 0, 50);
+
+        // Uma movimentação presa na gravação, duas na fila
+        gravacao.salvar(movimentacao(0));
+        long limite = System.currentTimeMillis() + 5000;
+        while (gravacao.metricas().getProfundidadeFila() > 0 && System.currentTimeMillis() < limite) {
+            Thread.sleep(5);
+        }
+        gravacao.salvar(movimentacao(1));
+        gravacao.salvar(movimentacao(2));
+
+        assertThrows(IllegalStateException.class, () -> gravacao.salvar(movimentacao(3)));
+        MovimentacaoRepositoryGravacaoAssincrona.Metricas metricas = gravacao.metricas();
+        assertEquals(1, metricas.getEsperasFilaCheia());
+        assertEquals(1, metricas.getRejeitadasFilaCheia());
+        assertEquals(2, metricas.getProfundidadeFila());
+
+        liberarGravacao.countDown();
+        gravacao.close();
+        assertEquals(3, banco.buscarTodasMovimentacoes().size());
+        assertEquals(3L, gravacao.metricas().getLotesPorTamanho().get("1"));
+
+        // Depois do encerramento a gravação é direta
+        gravacao.salvar(movimentacao(4));
+        assertEquals(4, banco.buscarTodasMovimentacoes().size());
+        gravacao = null;
+    }
+}
@@ -0,0 +1,64 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.model.TipoMovimentacao;
+import com.lucasmks.infrastructure.persistence.LayoutMovimentacoes;
+import com.lucasmks.infrastructure.persistence.document.MovimentacaoDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do layout de movimentações em coleção time-series (formato do documento e configuração).
+ */
+@DisplayName("Movimentações em série temporal Testes")
+public class MovimentacaoSerieTemporalTest {
+
+    private static final String CHAVE_LAYOUT = "estoque.movimentacoes.layout";
+
+    @AfterEach
+    void limpar() {
+        System.clearProperty(CHAVE_LAYOUT);
+    }
+
+    @Test
+    @DisplayName("Deve gravar código de barras e tipo no metaField e ler de volta")
+    void deveConverterParaSerieTemporal() {
+        LocalDateTime dataHora = LocalDateTime.of(2025, 7, 20, 10, 30);
+        MovimentacaoDocument original = new MovimentacaoDocument("789", 5, TipoMovimentacao.SAIDA, "Venda", dataHora);
+        original.setOrigem("no-1");
+
+        Document documento = original.toSerieTemporal();
+        Document meta = documento.get(LayoutMovimentacoes.META, Document.class);
+        assertEquals("789", meta.getString("codigoBarras"));
+        assertEquals("SAIDA", meta.getString("tipo"));
+        assertFalse(documento.containsKey("codigoBarras"));
+
+        // Como volta do banco: dataHora em Date (UTC)
+        documento.put("dataHora", Date.from(dataHora.toInstant(ZoneOffset.UTC)));
+        MovimentacaoDocument lido = MovimentacaoDocument.fromSerieTemporal(documento);
+        assertEquals("789", lido.getCodigoBarras());
+        assertEquals(TipoMovimentacao.SAIDA, lido.getTipo());
+        assertEquals(5, lido.getQuantidade());
+        assertEquals("Venda", lido.getMotivo());
+        assertEquals(dataHora, lido.getDataHora());
+        assertEquals("no-1", lido.getOrigem());
+    }
+
+    @Test
+    @DisplayName("Deve aceitar serie-temporal na configuração e rejeitar layouts desconhecidos")
+    void deveLerLayoutConfigurado() {
+        System.setProperty(CHAVE_LAYOUT, "serie-temporal");
+        assertEquals(LayoutMovimentacoes.SERIE_TEMPORAL, LayoutMovimentacoes.configurado());
+        assertEquals("movimentacoes_ts", LayoutMovimentacoes.configurado().colecao());
+
+        System.setProperty(CHAVE_LAYOUT, "colunar");
+        assertThrows(IllegalStateException.class, LayoutMovimentacoes::configurado);
+    }
+}
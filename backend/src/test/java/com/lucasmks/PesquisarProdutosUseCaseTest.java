@@ -0,0 +1,87 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.exception.ValidacaoProdutoException;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.usecase.CadastrarProdutoUseCase;
+import com.lucasmks.domain.usecase.DeletarProdutoUseCase;
+import com.lucasmks.domain.usecase.EditarProdutoUseCase;
+import com.lucasmks.domain.usecase.PesquisarProdutosUseCase;
+import com.lucasmks.infrastructure.event.ProdutoEventPublisher;
+import com.lucasmks.infrastructure.repository.fake.ProdutoRepositoryFake;
+import com.lucasmks.infrastructure.search.IndiceTrigramaProduto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da busca de produtos pelo índice de trigramas, incluindo a atualização incremental.
+ */
+@DisplayName("PesquisarProdutosUseCase Testes")
+public class PesquisarProdutosUseCaseTest {
+
+    private ProdutoRepositoryFake repository;
+    private IndiceTrigramaProduto indice;
+    private PesquisarProdutosUseCase useCase;
+    private ProdutoEventPublisher eventos;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ProdutoRepositoryFake();
+        repository.salvar(new Produto("111", "Café Torrado Extra Forte", "Bebidas", 10, 8.0, 12.0, "Pilão"));
+        repository.salvar(new Produto("222", "Cafeteira Elétrica", "Eletrodomésticos", 2, 80.0, 120.0, "Britânia"));
+        repository.salvar(new Produto("333", "Açúcar Refinado", "Mercearia", 30, 3.0, 4.5, "União"));
+
+        indice = new IndiceTrigramaProduto();
+        indice.reconstruir(repository.buscarTodos());
+        eventos = new ProdutoEventPublisher();
+        eventos.registrar(indice);
+        useCase = new PesquisarProdutosUseCase(indice, repository);
+    }
+
+    private List<String> codigos(String termo) {
+        return useCase.executar(termo, 10).stream().map(Produto::getCodigoBarras).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Deve encontrar por prefixo ignorando acentos e caixa")
+    void deveEncontrarPorPrefixoSemAcento() {
+        assertEquals(List.of("111", "222"), codigos("CAFE"));
+        assertEquals(List.of("333"), codigos("acucar"));
+        assertEquals(List.of("333"), codigos("uniao"));
+    }
+
+    @Test
+    @DisplayName("Deve tolerar erro de digitação no termo")
+    void deveTolerarErroDeDigitacao() {
+        assertEquals(List.of("222"), codigos("cafeteria eletrica"));
+    }
+
+    @Test
+    @DisplayName("Deve refletir cadastro, edição e remoção sem reconstruir o índice")
+    void deveAtualizarIndiceIncrementalmente() {
+        new CadastrarProdutoUseCase(repository, eventos)
+                .executar(new Produto("444", "Chá Mate", "Bebidas", 5, 2.0, 3.0, "Leão"));
+        assertEquals(List.of("444"), codigos("cha mate"));
+
+        new EditarProdutoUseCase(repository, eventos)
+                .executar("444", new Produto("444", "Erva Mate", "Bebidas", 5, 2.0, 3.0, "Leão"));
+        assertTrue(codigos("cha mate").isEmpty());
+        assertEquals(List.of("444"), codigos("erva"));
+
+        new DeletarProdutoUseCase(repository, eventos).executar("111");
+        assertEquals(List.of("222"), codigos("cafe"));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar termo curto e limite fora da faixa")
+    void deveRejeitarParametrosInvalidos() {
+        assertThrows(ValidacaoProdutoException.class, () -> useCase.executar("a", 10));
+        assertThrows(ValidacaoProdutoException.class, () -> useCase.executar("cafe", 0));
+        assertThrows(ValidacaoProdutoException.class, () -> useCase.executar("cafe", PesquisarProdutosUseCase.LIMITE_MAXIMO + 1));
+    }
+}
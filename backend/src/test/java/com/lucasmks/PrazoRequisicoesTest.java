@@ -0,0 +1,77 @@
+package com.lucasmks;
+
+import com.lucasmks.api.filter.PrazoRequisicoes;
+import com.lucasmks.domain.concurrency.Prazo;
+import com.lucasmks.domain.exception.PrazoExcedidoException;
+import com.lucasmks.infrastructure.database.PrazoMongo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes dos prazos de requisição (escopo na thread, prazo por rota e maxTime das consultas).
+ */
+@DisplayName("Prazos de requisição Testes")
+public class PrazoRequisicoesTest {
+
+    @Test
+    @DisplayName("O escopo deve valer só na thread e escopos internos não podem estender o prazo")
+    void deveAbrirEFecharEscopos() throws Exception {
+        assertFalse(Prazo.definido());
+        assertEquals(Long.MAX_VALUE, Prazo.restanteMs());
+        assertDoesNotThrow(Prazo::verificar);
+
+        try (Prazo.Escopo externo = Prazo.abrir(1000)) {
+            assertTrue(Prazo.restanteMs() > 0 && Prazo.restanteMs() <= 1000);
+            try (Prazo.Escopo interno = Prazo.abrir(60_000)) {
+                assertTrue(Prazo.restanteMs() <= 1000);
+            }
+            try (Prazo.Escopo interno = Prazo.abrir(0)) {
+                assertTrue(Prazo.expirado());
+                assertThrows(PrazoExcedidoException.class, Prazo::verificar);
+            }
+            assertFalse(Prazo.expirado());
+
+            boolean[] definidoEmOutraThread = {true};
+            Thread outra = new Thread(() -> definidoEmOutraThread[0] = Prazo.definido());
+            outra.start();
+            outra.join();
+            assertFalse(definidoEmOutraThread[0]);
+        }
+        assertFalse(Prazo.definido());
+    }
+
+    @Test
+    @DisplayName("Deve usar o cabeçalho limitado ao máximo ou o padrão da rota")
+    void deveCalcularPrazoDaRequisicao() {
+        PrazoRequisicoes prazos = new PrazoRequisicoes(10_000, 30_000, 60_000);
+
+        assertEquals(10_000L, prazos.prazoMs("GET", "/api/produtos/789", null));
+        assertEquals(30_000L, prazos.prazoMs("GET", "/api/historico/periodo", null));
+        assertEquals(2_500L, prazos.prazoMs("GET", "/api/historico/periodo", "2500"));
+        assertEquals(60_000L, prazos.prazoMs("GET", "/api/produtos", "999999"));
+        assertNull(prazos.prazoMs("GET", "/api/exportacao/movimentacoes", null));
+        assertNull(prazos.prazoMs("GET", "/api/stream/estoque", null));
+        assertEquals(5_000L, prazos.prazoMs("GET", "/api/exportacao/movimentacoes", "5000"));
+        assertThrows(IllegalArgumentException.class, () -> prazos.prazoMs("GET", "/api/produtos", "5s"));
+        assertThrows(IllegalArgumentException.class, () -> prazos.prazoMs("GET", "/api/produtos", "0"));
+    }
+
+    @Test
+    @DisplayName("Consultas devem receber o tempo restante como maxTime e falhar sem ir ao banco após o prazo")
+    void deveAplicarMaxTimeNasConsultas() {
+        assertEquals(0, PrazoMongo.contagem().getMaxTime(TimeUnit.MILLISECONDS));
+
+        try (Prazo.Escopo escopo = Prazo.abrir(5000)) {
+            long maxTime = PrazoMongo.contagem().getMaxTime(TimeUnit.MILLISECONDS);
+            assertTrue(maxTime > 0 && maxTime <= 5000);
+            assertTrue(PrazoMongo.contagemEstimada().getMaxTime(TimeUnit.MILLISECONDS) > 0);
+        }
+        try (Prazo.Escopo escopo = Prazo.abrir(0)) {
+            assertThrows(PrazoExcedidoException.class, PrazoMongo::contagem);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.infrastructure.persistence.local.ProdutoLocalRepositoryImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes de recuperação do repositório local de produtos (snapshot + journal).
+ */
+@DisplayName("ProdutoLocalRepository Testes")
+public class ProdutoLocalRepositoryTest {
+
+    @TempDir
+    Path diretorio;
+
+    private ProdutoLocalRepositoryImpl abrir() {
+        // Sem snapshot agendado: os testes controlam quando o snapshot é gerado
+        return new ProdutoLocalRepositoryImpl(diretorio, 0, 0, false);
+    }
+
+    private Produto produto(String codigoBarras, int quantidade) {
+        return new Produto(codigoBarras, "Produto " + codigoBarras, "Categoria", quantidade, 1.0, 2.0, "Fornecedor");
+    }
+
+    @Test
+    @DisplayName("Deve recuperar mutações apenas a partir do journal")
+    void deveRecuperarMutacoesDoJournal() {
+        ProdutoLocalRepositoryImpl repo = abrir();
+        repo.salvar(produto("111", 10));
+        repo.salvar(produto("222", 5));
+        repo.salvar(produto("111", 7)); // mudança de estoque
+        repo.remover("222");
+        // Simula uma queda: o journal não é fechado com snapshot
+
+        ProdutoLocalRepositoryImpl reaberto = abrir();
+        assertEquals(7, reaberto.buscarPorCodigoBarras("111").orElseThrow().getQuantidade());
+        assertFalse(reaberto.existePorCodigoBarras("222"));
+        reaberto.close();
+        repo.close();
+    }
+
+    @Test
+    @DisplayName("Deve carregar o snapshot e reproduzir o journal posterior")
+    void deveCarregarSnapshotEJournalPosterior() {
+        ProdutoLocalRepositoryImpl repo = abrir();
+        for (int i = 0; i < 1000; i++) {
+            repo.salvar(produto("cod-" + i, i));
+        }
+        repo.gerarSnapshot();
+        repo.salvar(produto("cod-1", 99));
+        repo.remover("cod-2");
+        Produto editado = produto("cod-3", 3);
+        editado.setNome("Nome editado");
+        repo.atualizar(editado);
+
+        ProdutoLocalRepositoryImpl reaberto = abrir();
+        assertEquals(999, reaberto.buscarTodos().size());
+        assertEquals(99, reaberto.buscarPorCodigoBarras("cod-1").orElseThrow().getQuantidade());
+        assertFalse(reaberto.existePorCodigoBarras("cod-2"));
+        assertEquals("Nome editado", reaberto.buscarPorCodigoBarras("cod-3").orElseThrow().getNome());
+        reaberto.close();
+        repo.close();
+    }
+
+    @Test
+    @DisplayName("Deve preservar a versão dos produtos no snapshot e no journal")
+    void devePreservarVersao() {
+        ProdutoLocalRepositoryImpl repo = abrir();
+        repo.salvar(produto("111", 10));
+        repo.salvar(produto("222", 5));
+        repo.atualizar(produto("111", 8));
+        repo.gerarSnapshot();
+        assertTrue(repo.atualizarSeVersao(produto("222", 4), 1));
+        assertFalse(repo.atualizarSeVersao(produto("222", 3), 1));
+
+        ProdutoLocalRepositoryImpl reaberto = abrir();
+        assertEquals(2, reaberto.buscarPorCodigoBarras("111").orElseThrow().getVersao());
+        Produto produto222 = reaberto.buscarPorCodigoBarras("222").orElseThrow();
+        assertEquals(2, produto222.getVersao());
+        assertEquals(4, produto222.getQuantidade());
+        reaberto.close();
+        repo.close();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar registro truncado no fim do journal")
+    void deveIgnorarRegistroTruncado() throws IOException {
+        ProdutoLocalRepositoryImpl repo = abrir();
+        repo.salvar(produto("111", 10));
+
+        List<Path> journais;
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            journais = arquivos.filter(p -> p.toString().endsWith(".journal")).collect(Collectors.toList());
+        }
+        // Escrita interrompida: cabeçalho de um registro sem o conteúdo
+        Files.write(journais.get(journais.size() - 1), new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        ProdutoLocalRepositoryImpl reaberto = abrir();
+        assertEquals(10, reaberto.buscarPorCodigoBarras("111").orElseThrow().getQuantidade());
+        reaberto.close();
+        repo.close();
+    }
+
+    @Test
+    @DisplayName("Não deve expor a instância armazenada para alteração externa")
+    void naoDeveExporInstanciaArmazenada() {
+        ProdutoLocalRepositoryImpl repo = abrir();
+        repo.salvar(produto("111", 10));
+
+        repo.buscarPorCodigoBarras("111").orElseThrow().setQuantidade(0);
+
+        assertEquals(10, repo.buscarPorCodigoBarras("111").orElseThrow().getQuantidade());
+        repo.close();
+    }
+}
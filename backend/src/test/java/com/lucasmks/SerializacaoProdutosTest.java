@@ -0,0 +1,144 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.event.ProdutoEventListener;
+import com.lucasmks.domain.model.Movimentacao;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.usecase.AdicionarEstoqueUseCase;
+import com.lucasmks.domain.usecase.RemoverEstoqueUseCase;
+import com.lucasmks.infrastructure.concurrency.SerializadorProdutosListrado;
+import com.lucasmks.infrastructure.repository.fake.MovimentacaoRepositoryFake;
+import com.lucasmks.infrastructure.repository.fake.ProdutoRepositoryFake;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da serialização por produto com locks listrados (sem atualizações perdidas, sem lock global).
+ */
+@DisplayName("Serialização por produto Testes")
+public class SerializacaoProdutosTest {
+
+    private static final int THREADS = 64;
+    private static final int PRODUTOS = 10;
+    private static final int OPERACOES_POR_THREAD = 200;
+    private static final int ESTOQUE_INICIAL = 1000;
+
+    @Test
+    @DisplayName("64 threads em 10 produtos disputados não devem perder nenhum ajuste")
+    void naoDevePerderAjustesSobDisputa() throws Exception {
+        // Ajuste não atômico (lê, cede a vez, grava): só a serialização impede que se sobrescrevam
+        ProdutoRepositoryFake produtos = new ProdutoRepositoryFake() {
+            @Override
+            public Optional<Produto> ajustarQuantidade(String codigoBarras, int delta) {
+                Produto atual = buscarPorCodigoBarras(codigoBarras).orElse(null);
+                if (atual == null || atual.getQuantidade() + delta < 0) {
+                    return Optional.empty();
+                }
+                int quantidade = atual.getQuantidade() + delta;
+                Thread.yield();
+                Produto novo = new Produto(codigoBarras, atual.getNome(), atual.getCategoria(), quantidade,
+                        atual.getPrecoCusto(), atual.getPrecoVenda(), atual.getFornecedor());
+                atualizar(novo);
+                return Optional.of(novo);
+            }
+        };
+        MovimentacaoRepositoryFake movimentacoes = new MovimentacaoRepositoryFake() {
+            @Override
+            public synchronized void salvar(Movimentacao movimentacao) {
+                super.salvar(movimentacao);
+            }
+        };
+        for (int i = 0; i < PRODUTOS; i++) {
+            produtos.salvar(new Produto("P" + i, "Produto " + i, "Categoria", ESTOQUE_INICIAL, 1.0, 2.0, "Fornecedor"));
+        }
+        SerializadorProdutosListrado serializador = new SerializadorProdutosListrado(16, false);
+        AdicionarEstoqueUseCase adicionar = new AdicionarEstoqueUseCase(produtos, movimentacoes, ProdutoEventListener.NENHUM, serializador);
+        RemoverEstoqueUseCase remover = new RemoverEstoqueUseCase(produtos, movimentacoes, ProdutoEventListener.NENHUM, serializador);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < OPERACOES_POR_THREAD; i++) {
+                    String codigo = "P" + ((thread + i) % PRODUTOS);
+                    if (i % 2 == 0) {
+                        adicionar.executar(codigo, 2, "Compra");
+                    } else {
+                        remover.executar(codigo, 1, "Venda");
+                    }
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Cada produto recebe o mesmo número de entradas (+2) e saídas (-1)
+        int operacoesPorProduto = THREADS * OPERACOES_POR_THREAD / PRODUTOS;
+        for (int i = 0; i < PRODUTOS; i++) {
+            assertEquals(ESTOQUE_INICIAL + operacoesPorProduto / 2, produtos.buscarPorCodigoBarras("P" + i).orElseThrow().getQuantidade());
+        }
+        assertEquals(THREADS * OPERACOES_POR_THREAD, movimentacoes.buscarTodasMovimentacoes().size());
+
+        SerializadorProdutosListrado.Metricas metricas = serializador.metricas(PRODUTOS);
+        assertEquals(THREADS * OPERACOES_POR_THREAD, metricas.getAquisicoes());
+        assertTrue(metricas.getContencoes() > 0);
+        assertFalse(metricas.getFaixasMaisDisputadas().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Produtos em faixas diferentes não devem esperar um pelo outro")
+    void faixasDiferentesNaoSeBloqueiam() throws Exception {
+        SerializadorProdutosListrado serializador = new SerializadorProdutosListrado(64, true);
+        String primeiro = "A";
+        String segundo = "B";
+        assertNotEquals(serializador.faixa(primeiro), serializador.faixa(segundo));
+
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        Thread ocupante = new Thread(() -> serializador.executar(primeiro, () -> {
+            dentro.countDown();
+            try {
+                liberar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        ocupante.start();
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+
+        // Com o primeiro produto travado, o segundo segue sem esperar
+        assertEquals("ok", serializador.calcular(segundo, () -> "ok"));
+        liberar.countDown();
+        ocupante.join(5000);
+        assertEquals(0, serializador.metricas(10).getContencoes());
+    }
+
+    @Test
+    @DisplayName("Deve arredondar as faixas para potência de 2 e rejeitar quantidades inválidas")
+    void deveConfigurarFaixas() {
+        SerializadorProdutosListrado serializador = new SerializadorProdutosListrado(10, false);
+        assertEquals(16, serializador.metricas(1).getFaixas());
+        for (int i = 0; i < 100; i++) {
+            int faixa = serializador.faixa("789" + i);
+            assertTrue(faixa >= 0 && faixa < 16);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new SerializadorProdutosListrado(0, false));
+    }
+}
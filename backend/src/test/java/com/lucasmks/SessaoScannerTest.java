@@ -0,0 +1,209 @@
+package com.lucasmks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lucasmks.api.idempotencia.Idempotencia;
+import com.lucasmks.api.websocket.SessaoScanner;
+import com.lucasmks.domain.exception.BancoIndisponivelException;
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.usecase.AdicionarEstoqueUseCase;
+import com.lucasmks.domain.usecase.BuscarProdutoUseCase;
+import com.lucasmks.domain.usecase.RemoverEstoqueUseCase;
+import com.lucasmks.infrastructure.repository.fake.IdempotenciaRepositoryFake;
+import com.lucasmks.infrastructure.repository.fake.MovimentacaoRepositoryFake;
+import com.lucasmks.infrastructure.repository.fake.ProdutoRepositoryFake;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do processamento dos quadros do canal WebSocket do scanner.
+ */
+@DisplayName("SessaoScanner Testes")
+public class SessaoScannerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProdutoRepositoryFake produtos;
+    private MovimentacaoRepositoryFake movimentacoes;
+    private ExecutorService executor;
+    private BlockingQueue<String> respostas;
+    private volatile boolean bancoFora;
+
+    @BeforeEach
+    void setUp() {
+        // Com bancoFora, os ajustes são recusados como pelo disjuntor aberto
+        produtos = new ProdutoRepositoryFake() {
+            @Override
+            public Optional<Produto> ajustarQuantidade(String codigoBarras, int delta) {
+                if (bancoFora) {
+                    throw new BancoIndisponivelException("Banco de dados indisponível (disjuntor aberto).");
+                }
+                return super.ajustarQuantidade(codigoBarras, delta);
+            }
+        };
+        movimentacoes = new MovimentacaoRepositoryFake();
+        produtos.salvar(new Produto("111", "Arroz", "Mercearia", 10, 5.0, 8.0, "Tio João"));
+        executor = Executors.newFixedThreadPool(4);
+        respostas = new LinkedBlockingQueue<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private SessaoScanner sessao(java.util.concurrent.Executor executor, int maxPendentes) {
+        return sessao(executor, maxPendentes, 0);
+    }
+
+    private SessaoScanner sessao(java.util.concurrent.Executor executor, int maxPendentes, long prazoMs) {
+        Idempotencia idempotencia = new Idempotencia(new IdempotenciaRepositoryFake(), Duration.ofHours(1), Duration.ofSeconds(30), 100, 2000);
+        return new SessaoScanner(objectMapper, new BuscarProdutoUseCase(produtos),
+                new AdicionarEstoqueUseCase(produtos, movimentacoes), new RemoverEstoqueUseCase(produtos, movimentacoes),
+                idempotencia, prazoMs, executor, maxPendentes, respostas::add);
+    }
+
+    private JsonNode proximaResposta() throws Exception {
+        String texto = respostas.poll(5, TimeUnit.SECONDS);
+        assertNotNull(texto, "Nenhuma resposta recebida");
+        return objectMapper.readTree(texto);
+    }
+
+    @Test
+    @DisplayName("Deve responder a busca com o produto e o id de correlação")
+    void deveResponderBuscaComId() throws Exception {
+        sessao(executor, 16).receber("{\"id\":\"c1\",\"op\":\"buscar\",\"codigoBarras\":\"111\"}");
+
+        JsonNode resposta = proximaResposta();
+        assertEquals("c1", resposta.get("id").asText());
+        assertEquals(200, resposta.get("status").asInt());
+        assertEquals("Arroz", resposta.get("data").get("nome").asText());
+    }
+
+    @Test
+    @DisplayName("Deve aplicar as movimentações do mesmo produto na ordem de chegada")
+    void deveAplicarMovimentacoesDoMesmoProdutoEmOrdem() throws Exception {
+        SessaoScanner sessao = sessao(executor, 64);
+        for (int i = 0; i < 20; i++) {
+            sessao.receber("{\"id\":\"e" + i + "\",\"op\":\"ENTRADA\",\"codigoBarras\":\"111\",\"quantidade\":1,\"motivo\":\"Compra\"}");
+            sessao.receber("{\"id\":\"s" + i + "\",\"op\":\"SAIDA\",\"codigoBarras\":\"111\",\"quantidade\":2,\"motivo\":\"Venda\"}");
+        }
+
+        List<JsonNode> recebidas = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            recebidas.add(proximaResposta());
+        }
+
+        // 10 + 20 entradas - saídas de 2 enquanto houver estoque: a ordem define quais saídas falham
+        long falhas = recebidas.stream().filter(r -> !r.get("success").asBoolean()).count();
+        assertEquals(5, falhas);
+        assertEquals(0, produtos.buscarPorCodigoBarras("111").orElseThrow().getQuantidade());
+        assertEquals(0, sessao.pendentes());
+    }
+
+    @Test
+    @DisplayName("Deve devolver erros com o status correspondente")
+    void deveDevolverErrosComStatus() throws Exception {
+        SessaoScanner sessao = sessao(Runnable::run, 16);
+
+        sessao.receber("{\"id\":\"c1\",\"op\":\"BUSCAR\",\"codigoBarras\":\"999\"}");
+        assertEquals(404, proximaResposta().get("status").asInt());
+
+        sessao.receber("{\"id\":\"c2\",\"op\":\"APAGAR\",\"codigoBarras\":\"111\"}");
+        assertEquals(400, proximaResposta().get("status").asInt());
+
+        sessao.receber("não é json");
+        JsonNode invalida = proximaResposta();
+        assertEquals(400, invalida.get("status").asInt());
+        assertNull(invalida.get("id"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar novos quadros acima do limite de pendentes")
+    void deveRecusarAcimaDoLimiteDePendentes() throws Exception {
+        List<Runnable> retidas = new ArrayList<>();
+        SessaoScanner sessao = sessao(retidas::add, 1);
+
+        sessao.receber("{\"id\":\"c1\",\"op\":\"BUSCAR\",\"codigoBarras\":\"111\"}");
+        sessao.receber("{\"id\":\"c2\",\"op\":\"BUSCAR\",\"codigoBarras\":\"111\"}");
+
+        JsonNode recusada = proximaResposta();
+        assertEquals("c2", recusada.get("id").asText());
+        assertEquals(429, recusada.get("status").asInt());
+
+        retidas.forEach(Runnable::run);
+        assertEquals("c1", proximaResposta().get("id").asText());
+    }
+
+    @Test
+    @DisplayName("Movimentação reenviada com a mesma chave deve receber a resposta guardada sem ajustar de novo")
+    void deveRepetirMovimentacaoComMesmaChave() throws Exception {
+        SessaoScanner sessao = sessao(Runnable::run, 16);
+        String quadro = "\"op\":\"ENTRADA\",\"codigoBarras\":\"111\",\"quantidade\":5,\"motivo\":\"Compra\",\"chave\":\"k1\"}";
+
+        sessao.receber("{\"id\":\"c1\"," + quadro);
+        JsonNode primeira = proximaResposta();
+        sessao.receber("{\"id\":\"c2\"," + quadro);
+        JsonNode repetida = proximaResposta();
+
+        assertEquals(200, primeira.get("status").asInt());
+        assertNull(primeira.get("repetida"));
+        assertEquals("c2", repetida.get("id").asText());
+        assertEquals(200, repetida.get("status").asInt());
+        assertTrue(repetida.get("repetida").asBoolean());
+        assertEquals(15, produtos.buscarPorCodigoBarras("111").orElseThrow().getQuantidade());
+        assertEquals(1, movimentacoes.buscarMovimentacoesPorProduto("111").size());
+
+        // Mesma chave em outra movimentação
+        sessao.receber("{\"id\":\"c3\",\"op\":\"SAIDA\",\"codigoBarras\":\"111\",\"quantidade\":5,\"motivo\":\"Venda\",\"chave\":\"k1\"}");
+        assertEquals(422, proximaResposta().get("status").asInt());
+    }
+
+    @Test
+    @DisplayName("Banco indisponível deve responder 503 e liberar a chave para o reenvio")
+    void deveResponder503ComBancoIndisponivel() throws Exception {
+        SessaoScanner sessao = sessao(Runnable::run, 16);
+        String quadro = "{\"id\":\"c1\",\"op\":\"SAIDA\",\"codigoBarras\":\"111\",\"quantidade\":2,\"motivo\":\"Venda\",\"chave\":\"k2\"}";
+
+        bancoFora = true;
+        sessao.receber(quadro);
+        JsonNode recusada = proximaResposta();
+        assertEquals(503, recusada.get("status").asInt());
+        assertFalse(recusada.get("success").asBoolean());
+
+        bancoFora = false;
+        sessao.receber(quadro);
+        JsonNode reenviada = proximaResposta();
+        assertEquals(200, reenviada.get("status").asInt());
+        assertNull(reenviada.get("repetida"));
+        assertEquals(8, produtos.buscarPorCodigoBarras("111").orElseThrow().getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Quadro que esperou além do prazo deve responder 504 sem executar")
+    void deveResponder504AposPrazo() throws Exception {
+        List<Runnable> retidas = new ArrayList<>();
+        SessaoScanner sessao = sessao(retidas::add, 16, 20);
+
+        sessao.receber("{\"id\":\"c1\",\"op\":\"ENTRADA\",\"codigoBarras\":\"111\",\"quantidade\":5,\"motivo\":\"Compra\"}");
+        Thread.sleep(50);
+        retidas.forEach(Runnable::run);
+
+        assertEquals(504, proximaResposta().get("status").asInt());
+        assertEquals(10, produtos.buscarPorCodigoBarras("111").orElseThrow().getQuantidade());
+        assertTrue(movimentacoes.buscarMovimentacoesPorProduto("111").isEmpty());
+    }
+}
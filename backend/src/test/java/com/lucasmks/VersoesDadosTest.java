@@ -0,0 +1,63 @@
+package com.lucasmks;
+
+import com.lucasmks.domain.model.Produto;
+import com.lucasmks.domain.usecase.AdicionarEstoqueUseCase;
+import com.lucasmks.domain.usecase.CadastrarProdutoUseCase;
+import com.lucasmks.domain.usecase.EditarProdutoUseCase;
+import com.lucasmks.infrastructure.cache.VersoesDados;
+import com.lucasmks.infrastructure.event.ProdutoEventPublisher;
+import com.lucasmks.infrastructure.repository.fake.MovimentacaoRepositoryFake;
+import com.lucasmks.infrastructure.repository.fake.ProdutoRepositoryFake;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes dos contadores de versão usados nas ETags.
+ */
+@DisplayName("VersoesDados Testes")
+public class VersoesDadosTest {
+
+    private ProdutoRepositoryFake produtos;
+    private ProdutoEventPublisher eventos;
+    private VersoesDados versoes;
+
+    @BeforeEach
+    void setUp() {
+        produtos = new ProdutoRepositoryFake();
+        versoes = new VersoesDados();
+        eventos = new ProdutoEventPublisher();
+        eventos.registrar(versoes);
+        new CadastrarProdutoUseCase(produtos, eventos).executar(new Produto("111", "Arroz", "Mercearia", 10, 5.0, 8.0, "Tio João"));
+        new CadastrarProdutoUseCase(produtos, eventos).executar(new Produto("222", "Feijão", "Mercearia", 10, 6.0, 9.0, "Camil"));
+    }
+
+    @Test
+    @DisplayName("Deve avançar apenas a versão do produto alterado e a do catálogo")
+    void deveAvancarVersaoDoProdutoAlterado() {
+        long catalogo = versoes.versaoCatalogo();
+        long arroz = versoes.versaoProduto("111");
+        long feijao = versoes.versaoProduto("222");
+
+        new EditarProdutoUseCase(produtos, eventos).executar("111", new Produto("111", "Arroz Integral", "Mercearia", 10, 5.0, 8.0, "Tio João"));
+
+        assertTrue(versoes.versaoProduto("111") > arroz);
+        assertEquals(feijao, versoes.versaoProduto("222"));
+        assertTrue(versoes.versaoCatalogo() > catalogo);
+        assertEquals(0, versoes.versaoMovimentacoes());
+    }
+
+    @Test
+    @DisplayName("Deve avançar a versão das movimentações ao movimentar estoque")
+    void deveAvancarVersaoDasMovimentacoes() {
+        long feijao = versoes.versaoProduto("222");
+
+        new AdicionarEstoqueUseCase(produtos, new MovimentacaoRepositoryFake(), eventos).executar("222", 5, "Compra");
+
+        assertTrue(versoes.versaoProduto("222") > feijao);
+        assertEquals(versoes.versaoProduto("222"), versoes.versaoMovimentacoes());
+        assertEquals(versoes.versaoProduto("222"), versoes.versaoCatalogo());
+    }
+}
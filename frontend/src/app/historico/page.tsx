@@ -1,8 +1,9 @@
 "use client";
 
-import { useEffect, useState, useMemo } from "react";
+import { useEffect, useState, useMemo, useRef } from "react";
 import { get } from "@/lib/api";
 import { ApiResponse, Movimentacao, TipoMovimentacao } from "@/types/api";
+import { useEstoqueStream } from "@/hooks/useEstoqueStream";
 import { toast } from "sonner";
 
 // Importações do TanStack Table
@@ -115,14 +116,15 @@ export default function HistoricoPage() {
   ]);
   const [columnFilters, setColumnFilters] = useState<ColumnFiltersState>([]);
 
-  const fetchAllMovimentacoes = async () => {
-    setLoading(true);
+  // silencioso: recarga disparada pelo feed de estoque, sem indicador de carregamento nem toast
+  const fetchAllMovimentacoes = async (silencioso = false) => {
+    if (!silencioso) setLoading(true);
     setError(null);
     try {
       const response: ApiResponse<Movimentacao[]> = await get("/historico");
       if (response.success && response.data) {
         setMovimentacoes(response.data);
-        toast.success("Histórico carregado com sucesso!");
+        if (!silencioso) toast.success("Histórico carregado com sucesso!");
       } else {
         throw new Error(response.message || "Falha ao carregar histórico.");
       }
@@ -139,6 +141,29 @@ export default function HistoricoPage() {
     fetchAllMovimentacoes();
   }, []);
 
+  // Entradas e saídas de outros terminais: uma recarga por rajada de eventos
+  const recargaPendente = useRef<ReturnType<typeof setTimeout> | null>(null);
+  const agendarRecarga = () => {
+    if (recargaPendente.current) return;
+    recargaPendente.current = setTimeout(() => {
+      recargaPendente.current = null;
+      fetchAllMovimentacoes(true);
+    }, 1000);
+  };
+  useEffect(
+    () => () => {
+      if (recargaPendente.current) clearTimeout(recargaPendente.current);
+    },
+    []
+  );
+
+  useEstoqueStream({
+    onEvento: (evento) => {
+      if (evento.tipo === "ENTRADA" || evento.tipo === "SAIDA") agendarRecarga();
+    },
+    onReset: agendarRecarga,
+  });
+
   useEffect(() => {
     const filters: ColumnFiltersState = [];
     if (filterCodigoBarras)
@@ -177,8 +202,15 @@ export default function HistoricoPage() {
     setSorting([{ id: "dataHora", desc: true }]);
   };
 
+  // O backend escreve o CSV direto do banco para a resposta; o navegador baixa o arquivo
+  // sem que o histórico inteiro passe pela página. Usa o período dos filtros, se houver.
   const handleExport = () => {
-    toast.info("Função de exportação será implementada em breve!");
+    const params = new URLSearchParams({ formato: "csv" });
+    if (filterDataInicio) params.set("dataInicio", filterDataInicio);
+    if (filterDataFim) params.set("dataFim", filterDataFim);
+    window.location.href = `${
+      process.env.NEXT_PUBLIC_API_BASE_URL
+    }/exportacao/movimentacoes?${params.toString()}`;
   };
 
   const columns: ColumnDef<Movimentacao>[] = useMemo(
@@ -336,7 +368,7 @@ export default function HistoricoPage() {
     return (
       <div className="flex h-screen flex-col items-center justify-center gap-4">
         <p className="text-xl font-semibold text-destructive">Erro: {error}</p>
-        <Button onClick={fetchAllMovimentacoes}>
+        <Button onClick={() => fetchAllMovimentacoes()}>
           <ReloadIcon className="mr-2 h-4 w-4" /> Tentar Novamente
         </Button>
       </div>
@@ -365,7 +397,7 @@ export default function HistoricoPage() {
                 <DownloadIcon className="mr-2 h-4 w-4" />
                 Exportar
               </Button>
-              <Button onClick={fetchAllMovimentacoes}>
+              <Button onClick={() => fetchAllMovimentacoes()}>
                 <ReloadIcon className="mr-2 h-4 w-4" />
                 Atualizar
               </Button>
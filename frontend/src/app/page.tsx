@@ -4,6 +4,7 @@ import { useEffect, useState } from "react";
 import { useRouter } from "next/navigation";
 import Link from "next/link";
 import { get } from "@/lib/api";
+import { buscarProduto } from "@/lib/scannerChannel";
 import { ApiResponse, Produto } from "@/types/api";
 import {
   Card,
@@ -64,7 +65,7 @@ export default function HomePage() {
 
     try {
       // Fazer a consulta para verificar se o produto existe
-      const response: ApiResponse<Produto> = await get(`/produtos/${barcode}`);
+      const response: ApiResponse<Produto> = await buscarProduto(barcode);
 
       if (response.success && response.data) {
         // Produto encontrado - redirecionar para consulta
@@ -4,7 +4,8 @@ import { useState, useEffect, useMemo } from "react";
 import { useSearchParams } from "next/navigation";
 import { toast } from "sonner";
 import { get } from "@/lib/api";
-import { Produto, ApiResponse } from "@/types/api";
+import { buscarProduto } from "@/lib/scannerChannel";
+import { Produto, ApiResponse, EventoEstoque } from "@/types/api";
 
 // Importações do TanStack Table
 import {
@@ -68,6 +69,7 @@ import {
 import AdicionarProduto from "@/components/AdicionarProduto";
 import ProdutoDetalhes from "@/components/ProdutoDetalhes";
 import { useGlobalBarcodeScanner } from "@/hooks/useGlobalBarcodeScanner";
+import { useEstoqueStream } from "@/hooks/useEstoqueStream";
 
 export default function ProdutosPage() {
   const searchParams = useSearchParams();
@@ -118,6 +120,45 @@ export default function ProdutosPage() {
     fetchProdutos();
   }, []);
 
+  // Atualiza a tabela com as alterações feitas em outras telas ou por outros usuários
+  const handleEventoEstoque = (evento: EventoEstoque) => {
+    if (evento.tipo === "REMOCAO") {
+      setProdutos((atuais) =>
+        atuais.filter((p) => p.codigoBarras !== evento.codigoBarras)
+      );
+      return;
+    }
+    if (evento.tipo === "CADASTRO" || evento.tipo === "EDICAO") {
+      // Nome, preço e categoria não vêm no evento: busca só o produto alterado
+      get<ApiResponse<Produto>>(`/produtos/${evento.codigoBarras}`)
+        .then((response) => {
+          const produto = response.data;
+          if (!response.success || !produto) return;
+          setProdutos((atuais) =>
+            atuais.some((p) => p.codigoBarras === produto.codigoBarras)
+              ? atuais.map((p) =>
+                  p.codigoBarras === produto.codigoBarras ? produto : p
+                )
+              : [...atuais, produto]
+          );
+        })
+        .catch(() => {});
+      return;
+    }
+    setProdutos((atuais) =>
+      atuais.map((p) =>
+        p.codigoBarras === evento.codigoBarras && evento.quantidade !== undefined
+          ? { ...p, quantidade: evento.quantidade }
+          : p
+      )
+    );
+  };
+
+  useEstoqueStream({
+    onEvento: handleEventoEstoque,
+    onReset: fetchProdutos,
+  });
+
   // Efeito para ler parâmetros da URL e configurar estado inicial
   useEffect(() => {
     const tabFromUrl = searchParams.get("tab");
@@ -176,7 +217,7 @@ export default function ProdutosPage() {
 
     try {
       // Fazer a consulta para verificar se o produto existe
-      const response: ApiResponse<Produto> = await get(`/produtos/${barcode}`);
+      const response: ApiResponse<Produto> = await buscarProduto(barcode);
 
       if (response.success && response.data) {
         // Produto encontrado - ir para consulta
@@ -7,7 +7,8 @@ import { LogOut } from "lucide-react"; // Ícone para saída
 
 import MovimentacaoForm from "@/components/MovimentacaoForm";
 import MovimentacaoTable from "@/components/MovimentacaoTable";
-import { Produto, TipoMovimentacao } from "@/types/api";
+import { EventoEstoque, Produto, TipoMovimentacao } from "@/types/api";
+import { useEstoqueStream } from "@/hooks/useEstoqueStream";
 import {
   Card,
   CardContent,
@@ -29,6 +30,14 @@ export default function SaidaEstoquePage() {
     setRefreshTableTrigger((prev) => prev + 1);
   };
 
+  // Movimentações do mesmo tipo feitas em outros terminais também atualizam a tabela
+  useEstoqueStream({
+    onEvento: (evento: EventoEstoque) => {
+      if (evento.tipo === "SAIDA") setRefreshTableTrigger((prev) => prev + 1);
+    },
+    onReset: () => setRefreshTableTrigger((prev) => prev + 1),
+  });
+
   return (
     <div className="container mx-auto p-4 md:p-6 lg:p-8">
       {/* Cabeçalho da Página */}
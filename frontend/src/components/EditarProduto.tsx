@@ -85,7 +85,8 @@ export default function EditarProduto({
     try {
       const response: ApiResponse<Produto> = await put(
         `/produtos/${produto.codigoBarras}`,
-        formData
+        // A versão lida permite ao backend recusar (412) a edição se outro usuário alterou o produto
+        { ...formData, versao: produto.versao }
       );
 
       if (response.success) {
@@ -20,8 +20,9 @@ import {
 import { ScanBarcodeIcon } from "lucide-react";
 
 // API e Tipos
-import { get, put } from "@/lib/api";
-import { ApiResponse, Produto, EstoqueRequest } from "@/types/api";
+import { get } from "@/lib/api";
+import { buscarProduto, movimentarEstoque } from "@/lib/scannerChannel";
+import { ApiResponse, Produto } from "@/types/api";
 
 // Hooks
 import { useGlobalBarcodeScanner } from "@/hooks/useGlobalBarcodeScanner";
@@ -70,7 +71,7 @@ export default function MovimentacaoForm({
     setLoading(true);
     setProdutoEncontrado(null);
     try {
-      const response: ApiResponse<Produto> = await get(`/produtos/${codigo}`);
+      const response: ApiResponse<Produto> = await buscarProduto(codigo);
       if (response.success && response.data) {
         setProdutoEncontrado(response.data);
         toast.success("Produto encontrado!", {
@@ -119,15 +120,12 @@ export default function MovimentacaoForm({
     }
 
     try {
-      const estoqueRequest: EstoqueRequest = { quantidade, motivo };
-      const endpoint =
-        mode === "entrada"
-          ? `/produtos/${codigoBarras}/adicionarEstoque`
-          : `/produtos/${codigoBarras}/removerEstoque`;
-
-      const response: ApiResponse<Produto> = await put(
-        endpoint,
-        estoqueRequest
+      // Pelo canal do scanner quando aberto; senão pela REST
+      const response: ApiResponse<Produto> = await movimentarEstoque(
+        mode,
+        codigoBarras,
+        quantidade,
+        motivo
       );
 
       // --- LÓGICA CORRIGIDA ---
@@ -149,8 +147,8 @@ export default function MovimentacaoForm({
           produtoAtualizado = response.data;
         } else {
           // Se não, fazemos uma nova busca para garantir os dados atualizados.
-          const novaResposta: ApiResponse<Produto> = await get(
-            `/produtos/${codigoBarras}`
+          const novaResposta: ApiResponse<Produto> = await buscarProduto(
+            codigoBarras
           );
           if (novaResposta.success && novaResposta.data) {
             produtoAtualizado = novaResposta.data;
@@ -191,8 +189,8 @@ export default function MovimentacaoForm({
   const themeBorder = isEntrada ? "border-green-200" : "border-red-200";
   const themeBg = isEntrada ? "bg-green-50" : "bg-red-50";
 
-  // Listas de motivos sugeridos baseadas no modo
-  const motivosSugeridos = isEntrada
+  // Listas de motivos padrão, usadas enquanto o histórico não tem sugestões
+  const motivosPadrao = isEntrada
     ? [
         "Compra de fornecedor",
         "Devolução de cliente",
@@ -207,6 +205,27 @@ export default function MovimentacaoForm({
         "Devolução ao fornecedor",
       ];
 
+  // Motivos mais usados que começam com o texto digitado (GET /api/motivos)
+  const [motivosHistorico, setMotivosHistorico] = useState<string[]>([]);
+
+  useEffect(() => {
+    const tipo = isEntrada ? "ENTRADA" : "SAIDA";
+    const timeout = setTimeout(async () => {
+      try {
+        const response: ApiResponse<string[]> = await get(
+          `/motivos?tipo=${tipo}&prefix=${encodeURIComponent(motivo.trim())}`
+        );
+        setMotivosHistorico(response.success && response.data ? response.data : []);
+      } catch {
+        setMotivosHistorico([]);
+      }
+    }, 200);
+    return () => clearTimeout(timeout);
+  }, [motivo, isEntrada]);
+
+  const motivosSugeridos =
+    motivosHistorico.length > 0 ? motivosHistorico : motivosPadrao;
+
   return (
     <div className="w-full">
       <Alert className={`mb-6 ${themeBorder} ${themeBg}`}>
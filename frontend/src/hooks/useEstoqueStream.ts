@@ -0,0 +1,43 @@
+"use client";
+
+import { useEffect, useRef } from "react";
+import { EventoEstoque } from "@/types/api";
+
+interface UseEstoqueStream {
+  onEvento: (evento: EventoEstoque) => void;
+  onReset?: () => void; // eventos foram perdidos: recarregar os dados
+  enabled?: boolean;
+}
+
+// Assina o feed SSE de alterações de estoque. O EventSource reconecta sozinho e reenvia o
+// Last-Event-ID, então o servidor repete o que foi perdido ou manda "reset".
+export function useEstoqueStream({
+  onEvento,
+  onReset,
+  enabled = true,
+}: UseEstoqueStream) {
+  // Refs para não reabrir a conexão a cada render
+  const onEventoRef = useRef(onEvento);
+  const onResetRef = useRef(onReset);
+  onEventoRef.current = onEvento;
+  onResetRef.current = onReset;
+
+  useEffect(() => {
+    if (!enabled || typeof EventSource === "undefined") return;
+
+    const source = new EventSource(
+      `${process.env.NEXT_PUBLIC_API_BASE_URL}/stream/estoque`
+    );
+
+    source.addEventListener("estoque", (event) => {
+      try {
+        onEventoRef.current(JSON.parse((event as MessageEvent).data));
+      } catch (error) {
+        console.error("Evento de estoque inválido:", error);
+      }
+    });
+    source.addEventListener("reset", () => onResetRef.current?.());
+
+    return () => source.close();
+  }, [enabled]);
+}
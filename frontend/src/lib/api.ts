@@ -36,11 +36,16 @@ export async function post<T>(path: string, body: any): Promise<T> {
 }
 
 // Função genérica para requisições PUT
-export async function put<T>(path: string, body: any): Promise<T> {
+export async function put<T>(
+  path: string,
+  body: any,
+  headers: Record<string, string> = {}
+): Promise<T> {
   const response = await fetch(`${API_BASE_URL}${path}`, {
     method: "PUT",
     headers: {
       "Content-Type": "application/json",
+      ...headers,
     },
     body: JSON.stringify(body),
   });
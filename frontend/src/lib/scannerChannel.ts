@@ -0,0 +1,158 @@
+import { get, put } from "@/lib/api";
+import { ApiResponse, Produto } from "@/types/api";
+
+// Canal WebSocket dos terminais de leitura (/ws/scanner). Cada pedido leva um id e a
+// resposta pode chegar fora de ordem; enquanto o canal não estiver aberto, as chamadas
+// usam a API REST, então quem chama não precisa saber qual caminho foi usado.
+// Cada movimentação leva uma chave de idempotência (campo chave no canal, Idempotency-Key na
+// REST): sem resposta, ela é reenviada com a mesma chave e o servidor não repete o ajuste.
+
+type Operacao = "BUSCAR" | "ENTRADA" | "SAIDA";
+
+interface RespostaCanal<T> extends ApiResponse<T> {
+  id: string;
+  status: number;
+}
+
+const TIMEOUT_MS = 10000;
+
+let socket: WebSocket | null = null;
+let proximoId = 0;
+let tentativas = 0;
+const pendentes = new Map<
+  string,
+  { resolve: (r: RespostaCanal<any>) => void; reject: (e: Error) => void }
+>();
+const aguardandoAbertura: Array<(aberto: boolean) => void> = [];
+
+function conectar() {
+  if (typeof WebSocket === "undefined" || socket) return;
+  const url = `${process.env.NEXT_PUBLIC_API_BASE_URL}/ws/scanner`.replace(
+    /^http/,
+    "ws"
+  );
+  const ws = new WebSocket(url);
+  socket = ws;
+
+  ws.onopen = () => {
+    tentativas = 0;
+    aguardandoAbertura.splice(0).forEach((avisar) => avisar(true));
+  };
+  ws.onmessage = (event) => {
+    const resposta: RespostaCanal<any> = JSON.parse(event.data);
+    const pendente = pendentes.get(resposta.id);
+    if (pendente) {
+      pendentes.delete(resposta.id);
+      pendente.resolve(resposta);
+    }
+  };
+  ws.onclose = () => {
+    socket = null;
+    pendentes.forEach((p) => p.reject(new Error("Canal do scanner fechado.")));
+    pendentes.clear();
+    // Reconecta com espera crescente; nesse meio tempo as chamadas vão pela REST
+    tentativas++;
+    setTimeout(conectar, Math.min(30000, 500 * 2 ** tentativas));
+  };
+}
+
+// Resolve com true assim que o canal estiver aberto, ou false após esperaMs
+function canalAberto(esperaMs: number): Promise<boolean> {
+  conectar();
+  if (socket && socket.readyState === WebSocket.OPEN) return Promise.resolve(true);
+  return new Promise((resolve) => {
+    const avisar = (aberto: boolean) => {
+      clearTimeout(timer);
+      resolve(aberto);
+    };
+    const timer = setTimeout(() => {
+      const posicao = aguardandoAbertura.indexOf(avisar);
+      if (posicao >= 0) aguardandoAbertura.splice(posicao, 1);
+      resolve(false);
+    }, esperaMs);
+    aguardandoAbertura.push(avisar);
+  });
+}
+
+function novaChave(): string {
+  if (typeof crypto !== "undefined" && "randomUUID" in crypto) {
+    return crypto.randomUUID();
+  }
+  return `${Date.now()}-${Math.random().toString(36).slice(2)}`;
+}
+
+function enviar<T>(
+  op: Operacao,
+  codigoBarras: string,
+  extras: { quantidade?: number; motivo?: string; chave?: string } = {}
+): Promise<RespostaCanal<T>> | null {
+  conectar();
+  if (!socket || socket.readyState !== WebSocket.OPEN) return null;
+
+  const id = String(++proximoId);
+  const ws = socket;
+  return new Promise((resolve, reject) => {
+    const timer = setTimeout(() => {
+      pendentes.delete(id);
+      reject(new Error("Tempo esgotado aguardando o servidor."));
+    }, TIMEOUT_MS);
+    pendentes.set(id, {
+      resolve: (r) => {
+        clearTimeout(timer);
+        resolve(r);
+      },
+      reject: (e) => {
+        clearTimeout(timer);
+        reject(e);
+      },
+    });
+    ws.send(JSON.stringify({ id, op, codigoBarras, ...extras }));
+  });
+}
+
+export async function buscarProduto(
+  codigoBarras: string
+): Promise<ApiResponse<Produto>> {
+  const pedido = enviar<Produto>("BUSCAR", codigoBarras);
+  if (!pedido) return get(`/produtos/${codigoBarras}`);
+  const resposta = await pedido;
+  // Mesmo comportamento da REST: erros (inclusive 404) viram exceção
+  if (!resposta.success) {
+    throw new Error(resposta.message);
+  }
+  return resposta;
+}
+
+export async function movimentarEstoque(
+  tipo: "entrada" | "saida",
+  codigoBarras: string,
+  quantidade: number,
+  motivo: string
+): Promise<ApiResponse<Produto>> {
+  const op = tipo === "entrada" ? "ENTRADA" : "SAIDA";
+  const chave = novaChave();
+  const pedido = enviar<Produto>(op, codigoBarras, { quantidade, motivo, chave });
+  if (!pedido) {
+    const endpoint =
+      tipo === "entrada"
+        ? `/produtos/${codigoBarras}/adicionarEstoque`
+        : `/produtos/${codigoBarras}/removerEstoque`;
+    return put(endpoint, { quantidade, motivo }, { "Idempotency-Key": chave });
+  }
+  let resposta: RespostaCanal<Produto>;
+  try {
+    resposta = await pedido;
+  } catch (erro) {
+    // Canal caiu ou tempo esgotado: o ajuste pode ter sido aplicado. O reenvio com a mesma
+    // chave devolve a resposta guardada (ou executa, se o servidor não chegou a recebê-lo)
+    const reenvio = (await canalAberto(TIMEOUT_MS))
+      ? enviar<Produto>(op, codigoBarras, { quantidade, motivo, chave })
+      : null;
+    if (!reenvio) throw erro;
+    resposta = await reenvio;
+  }
+  if (!resposta.success) {
+    throw new Error(resposta.message);
+  }
+  return resposta;
+}
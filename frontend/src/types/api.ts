@@ -15,6 +15,7 @@ export interface Produto {
   precoCusto: number;
   precoVenda: number;
   fornecedor: string;
+  versao?: number;
 }
 
 // Tipos para Requisições de Estoque (Adicionar/Remover)
@@ -45,4 +46,12 @@ export interface Movimentacao {
   codigoBarrasProduto: string;
 }
 
+// Evento do feed /stream/estoque; quantidade é o estoque após a alteração
+export interface EventoEstoque {
+  codigoBarras: string;
+  quantidade?: number;
+  tipo: "ENTRADA" | "SAIDA" | "CADASTRO" | "EDICAO" | "REMOCAO";
+  motivo?: string;
+}
+
 // Você pode adicionar outros tipos conforme a necessidade (e.g., ProdutoRequest se for diferente do Produto)